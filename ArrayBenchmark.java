@@ -0,0 +1,60 @@
+/**
+ * Class ArrayBenchmark
+ * Measures the Interpreter on large loops over arrays of numbers, with the elements kept in an int[] by MiniPythonArray
+ * and with every array boxed, like a List of Objects. The int arrays should allocate about 4 bytes an element
+ * for the literals and nothing in the loops, where the boxed ones allocate an Integer for most elements they store.
+ *
+ * Each program is measured in a new JVM for each kind of array, see BenchmarkHarness.
+ *
+ * Usage: ArrayBenchmark [--iterations N] [--size N]
+ */
+public class ArrayBenchmark {
+    private static final String[] NAMES = {"for, sum", "index, write", "index, read"};
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 2000000;
+        int size = 1000;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--iterations") && i + 1 < args.length) iterations = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--size") && i + 1 < args.length) size = Integer.parseInt(args[++i]);
+        }
+
+        int elements = iterations;
+        int arraySize = size;
+        new BenchmarkHarness(ArrayBenchmark.class, NAMES, "boxed", "int").run(args, (program, variant, plain) -> {
+            Compiler compiler = new Compiler(System.out);
+            compiler.setIntArrays(!plain);
+            Interpreter interpreter = BenchmarkHarness.compile(compiler, createSource(program, elements, arraySize)).interpreter(true);
+            return interpreter::run;
+        });
+    }
+
+    // The programs, each one goes through about iterations elements of arrays of size elements and stays within the ints
+    private static String createSource(int program, int iterations, int size) {
+        // the indexes of the arrays, and an array of small numbers
+        StringBuilder indexes = new StringBuilder("idx = [");
+        StringBuilder numbers = new StringBuilder("a = [");
+        for(int i = 0; i < size; i++){
+            indexes.append(i == 0 ? "" : ", ").append(i);
+            numbers.append(i == 0 ? "" : ", ").append(i % 9 + 1);
+        }
+        String arrays = indexes.append("]\n").toString() + numbers.append("]\n");
+        switch(program){
+            case 0:
+                // the elements are 5 on average
+                return arrays
+                        + "s = 0\n"
+                        + "while s < " + iterations * 5L + ": for x in a: s = s + x\n"
+                        + "print s\n";
+            case 1:
+                return arrays
+                        + "while a[0] < " + (iterations / size + 1) + ": for k in idx: a[k] = a[k] + k + 1\n"
+                        + "print a[0], a[" + (size - 1) + "]\n";
+            default:
+                return arrays
+                        + "n = 0\n"
+                        + "while n < " + iterations + ": for k in idx: n = n + a[k] * 0 + 1\n"
+                        + "print n\n";
+        }
+    }
+}
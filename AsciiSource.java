@@ -0,0 +1,187 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class AsciiSource
+ * This class represents the source given to the lexer, read as ASCII bytes instead of decoded characters.
+ * The grammar only allows ASCII (all = [0..127]), so every byte is a character: a file is memory-mapped,
+ * or read at once if it is small, and the lexer reads it byte by byte without the locks of a PushbackReader.
+ * A byte that is not ASCII is read as the replacement character U+FFFD, which no token matches,
+ * like a decoder does with input it cannot decode.
+ *
+ * It is a PushbackReader only so that the Lexer accepts it, the reader and the buffer of the super class are not used.
+ * It is not thread safe, each lexer reads its own source.
+ */
+public class AsciiSource extends PushbackReader {
+    // The files at least this big are memory-mapped, the smaller ones are read at once
+    public static final long MAP_THRESHOLD = 1 << 20;
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+
+    // The characters unread that are not the ones just read, the last one is read first
+    private char[] pushback;
+    private int pushedBack;
+
+    private AsciiSource(ByteBuffer buffer) {
+        super(Reader.nullReader(), 1);
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        this.pushback = new char[16];
+    }
+
+    /**
+     * Opens a file, mapping it into memory if it is big
+     * @param file the file
+     * @return the source
+     */
+    public static AsciiSource open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size > Integer.MAX_VALUE) throw new IOException(file + " is too big to be compiled");
+
+            // the mapping stays valid after the channel is closed
+            if(size >= MAP_THRESHOLD) return new AsciiSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+        return of(Files.readAllBytes(file));
+    }
+
+    /**
+     * Reads a whole stream, e.g. the standard input
+     * @param in the stream, it is not closed
+     * @return the source
+     */
+    public static AsciiSource of(InputStream in) throws IOException {
+        return of(in.readAllBytes());
+    }
+
+    /**
+     * @param bytes the source, it is not copied
+     * @return the source
+     */
+    public static AsciiSource of(byte[] bytes) {
+        return new AsciiSource(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * @param source the source, the characters that are not ASCII are read as U+FFFD
+     * @return the source
+     */
+    public static AsciiSource of(String source) {
+        byte[] bytes = new byte[source.length()];
+        for(int i = 0; i < bytes.length; i++){
+            char c = source.charAt(i);
+            bytes[i] = c < 128 ? (byte) c : (byte) 0x80;
+        }
+        return of(bytes);
+    }
+
+    @Override
+    public int read() {
+        if(pushedBack > 0) return pushback[--pushedBack];
+        if(position == limit) return -1;
+        byte b = buffer.get(position++);
+        return b >= 0 ? b : REPLACEMENT;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if(len == 0) return 0;
+        int count = 0;
+        while(count < len){
+            int c = read();
+            if(c == -1) break;
+            cbuf[off + count++] = (char) c;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void unread(int c) {
+        // the lexer unreads what it has just read, so usually going back is enough
+        if(pushedBack == 0 && position > 0 && charAt(position - 1) == (char) c){
+            position--;
+            return;
+        }
+        if(pushedBack == pushback.length) pushback = Arrays.copyOf(pushback, pushback.length * 2);
+        pushback[pushedBack++] = (char) c;
+    }
+
+    @Override
+    public void unread(char[] cbuf, int off, int len) {
+        for(int i = off + len - 1; i >= off; i--){
+            unread(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void unread(char[] cbuf) {
+        unread(cbuf, 0, cbuf.length);
+    }
+
+    @Override
+    public boolean ready() {
+        return pushedBack > 0 || position < limit;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = 0;
+        while(skipped < n && read() != -1){
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    // Lets the mapping go, nothing is left to read
+    @Override
+    public void close() {
+        buffer = ByteBuffer.allocate(0);
+        position = 0;
+        limit = 0;
+        pushedBack = 0;
+    }
+
+    private char charAt(int index) {
+        byte b = buffer.get(index);
+        return b >= 0 ? (char) b : REPLACEMENT;
+    }
+
+    /**
+     * Returns the whole source, e.g. to cache it, no matter what has been read
+     * @return the source, with U+FFFD for the bytes that are not ASCII
+     */
+    public String contents() {
+        byte[] bytes;
+        if(buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.array().length == limit){
+            bytes = buffer.array();
+        }
+        else{
+            bytes = new byte[limit];
+            buffer.duplicate().position(0).get(bytes);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // The size of the source in bytes
+    public int length() {
+        return limit;
+    }
+}
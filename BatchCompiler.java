@@ -0,0 +1,214 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Class BatchCompiler
+ * This class compiles many MiniPython files in one run, on a work stealing pool.
+ * Each file is compiled with its own Compiler, so its own symbolTable and visitors,
+ * and its output is printed after the output of the files before it, in the order of the inputs.
+ *
+ * Usage: BatchCompiler [--threads N] [--cache directory] input...
+ * where each input is a file, a directory (all of its files, recursively),
+ * a file with a list of files if it starts with @, or a glob pattern like src/**.py
+ */
+public class BatchCompiler {
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ArrayList<String> inputs = new ArrayList<>();
+        String cacheDirectory = null;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--threads") && i + 1 < args.length){
+                threads = Integer.parseInt(args[++i]);
+            }
+            else if(args[i].equals("--cache") && i + 1 < args.length){
+                cacheDirectory = args[++i];
+            }
+            else{
+                inputs.add(args[i]);
+            }
+        }
+
+        try {
+            ArrayList<Path> files = findFiles(inputs);
+            PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+            CompileCache cache = cacheDirectory == null ? null :
+                    new CompileCache(Paths.get(cacheDirectory), CompileCache.DEFAULT_MAX_SIZE);
+            compileAll(files, threads, cache, out);
+            if(cache != null) out.println(cache);
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compiles the files and prints their output, followed by a summary
+     * @param files the files to compile
+     * @param threads the number of threads of the pool
+     * @param out where the output is printed
+     * @return the total number of errors
+     */
+    public static int compileAll(ArrayList<Path> files, int threads, PrintStream out) {
+        return compileAll(files, threads, null, out);
+    }
+
+    /**
+     * Compiles the files and prints their output, followed by a summary
+     * @param files the files to compile
+     * @param threads the number of threads of the pool
+     * @param cache the cache of the unchanged files, or null
+     * @param out where the output is printed
+     * @return the total number of errors
+     */
+    public static int compileAll(ArrayList<Path> files, int threads, CompileCache cache, PrintStream out) {
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        ArrayList<Future<Result>> results = new ArrayList<>();
+        for(Path file : files){
+            results.add(pool.submit(() -> compile(file, cache)));
+        }
+
+        // print the results in the order of the files, while the later ones are still being compiled
+        int errors = 0;
+        int failed = 0;
+        for(int i = 0; i < files.size(); i++){
+            Result result;
+            try {
+                result = results.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                result = new Result(e.toString(), 0, true);
+            }
+
+            out.println("== " + files.get(i) + " ==");
+            out.print(result.output);
+            errors += result.errors;
+            if(result.failed) failed++;
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        out.println(String.format("Compiled %d files (%d failed) in %.3f s, %.1f files/sec, with %d errors.",
+                files.size(), failed, seconds, files.size() / Math.max(seconds, 1e-9), errors));
+        return errors;
+    }
+
+    /**
+     * Compiles one file, keeping its output
+     * @param file the file
+     * @param cache the cache of the unchanged files, or null
+     * @return the result of the compilation
+     */
+    private static Result compile(Path file, CompileCache cache) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, false);
+        Compiler compiler = new Compiler(out);
+        compiler.setCache(cache);
+        boolean failed = false;
+
+        try (AsciiSource reader = AsciiSource.open(file)) {
+            compiler.compile(reader);
+            out.println("Compilation finished with " + compiler.getErrors() + " errors.");
+        } catch (Exception e) {
+            out.println("Compilation failed: " + e.getMessage());
+            failed = true;
+        }
+
+        out.flush();
+        return new Result(buffer.toString(), compiler.getErrors(), failed);
+    }
+
+    /**
+     * Finds the files of the inputs, each file once and sorted within each input
+     * @param inputs the files, directories, lists of files and glob patterns
+     * @return the files
+     */
+    public static ArrayList<Path> findFiles(ArrayList<String> inputs) throws IOException {
+        ArrayList<Path> files = new ArrayList<>();
+        TreeSet<Path> seen = new TreeSet<>();
+
+        for(String input : inputs){
+            ArrayList<Path> found = new ArrayList<>();
+
+            if(input.startsWith("@")){
+                // a list of files, one in each line
+                for(String line : Files.readAllLines(Paths.get(input.substring(1)))){
+                    if(!line.trim().isEmpty()) found.add(Paths.get(line.trim()));
+                }
+            }
+            else if(isGlob(input)){
+                // walk from the directory before the first wildcard and keep what matches the pattern
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+                Path base = globBase(input);
+                try (Stream<Path> walk = Files.walk(base == null ? Paths.get(".") : base)) {
+                    walk.filter(Files::isRegularFile)
+                            .map(file -> base == null ? Paths.get(".").relativize(file) : file)
+                            .filter(matcher::matches)
+                            .forEach(found::add);
+                }
+                Collections.sort(found);
+            }
+            else if(Files.isDirectory(Paths.get(input))){
+                try (Stream<Path> walk = Files.walk(Paths.get(input))) {
+                    walk.filter(Files::isRegularFile).forEach(found::add);
+                }
+                Collections.sort(found);
+            }
+            else{
+                found.add(Paths.get(input));
+            }
+
+            for(Path file : found){
+                if(seen.add(file.normalize())) files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static boolean isGlob(String input){
+        return input.indexOf('*') != -1 || input.indexOf('?') != -1 || input.indexOf('[') != -1 || input.indexOf('{') != -1;
+    }
+
+    // The directory before the first wildcard of the pattern, or null for the current directory
+    private static Path globBase(String pattern){
+        int wildcard = pattern.length();
+        for(char c : new char[]{'*', '?', '[', '{'}){
+            int index = pattern.indexOf(c);
+            if(index != -1) wildcard = Math.min(wildcard, index);
+        }
+        int separator = pattern.lastIndexOf('/', wildcard);
+        return separator == -1 ? null : Paths.get(pattern.substring(0, separator + 1));
+    }
+
+    /**
+     * Class Result
+     * The output and the number of errors of a compiled file
+     */
+    private static class Result {
+        private String output;
+        private int errors;
+        private boolean failed;
+
+        private Result(String output, int errors, boolean failed) {
+            this.output = output;
+            this.errors = errors;
+            this.failed = failed;
+        }
+    }
+}
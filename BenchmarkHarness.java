@@ -0,0 +1,182 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Class BenchmarkHarness
+ * This class runs the benchmarks that compare two ways of running the same programs, e.g. InterpreterBenchmark,
+ * which compares the int nodes of the Interpreter with every value boxed.
+ *
+ * Each program is measured in a new JVM for each way and each variant, e.g. each backend, otherwise the JIT compiles
+ * the code of the second one with the profile of the first and the numbers say more about the order than about the ways.
+ * The new JVM runs the main of the benchmark again with the same arguments and --program, --variant and --plain,
+ * which the benchmark passes on to run, and prints the time and the allocations of one run of the program.
+ * A benchmark only gives the names of its programs and of the two ways, and how a program is set up.
+ */
+public class BenchmarkHarness {
+    // The runs before measuring, for the JIT, and the measured runs
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // The class of the benchmark, whose main measures a program in the new JVM
+    private String benchmark;
+
+    private String[] programs;
+
+    // The variants each program is measured with, e.g. the backends, or only one, and the title of their column
+    private String[] variants;
+    private String variantTitle;
+
+    // The names of the way the other one is compared with and of the other one, e.g. "boxed" and "int"
+    private String plain;
+    private String compared;
+
+    /**
+     * Constructor
+     * @param benchmark the class of the benchmark
+     * @param programs the names of the programs
+     * @param plain the name of the way the other one is compared with
+     * @param compared the name of the other way
+     */
+    public BenchmarkHarness(Class<?> benchmark, String[] programs, String plain, String compared) {
+        this.benchmark = benchmark.getName();
+        this.programs = programs;
+        this.variants = new String[]{""};
+        this.plain = plain;
+        this.compared = compared;
+    }
+
+    /**
+     * Interface Setup
+     * This interface represents how a benchmark sets up one of its programs, in the JVM that measures it
+     */
+    public interface Setup {
+        /**
+         * @param program the index of the program
+         * @param variant the index of the variant
+         * @param plain true for the way the other one is compared with
+         * @return what runs the program once, false if it failed
+         */
+        BooleanSupplier prepare(int program, int variant, boolean plain) throws Exception;
+    }
+
+    /**
+     * Measures every program both ways and prints a row for each one, or in the new JVM,
+     * when the arguments have --program, measures that program and prints its numbers
+     * @param args the arguments of the main of the benchmark
+     * @param setup how a program is set up
+     */
+    public void run(String[] args, Setup setup) throws Exception {
+        int program = -1;
+        int variant = 0;
+        boolean plainWay = false;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--program") && i + 1 < args.length) program = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--variant") && i + 1 < args.length) variant = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--plain")) plainWay = true;
+        }
+
+        // in a JVM of its own, measure one program and print the time and the allocations
+        if(program != -1){
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+            Result result = measure(setup.prepare(program, variant, plainWay));
+            System.out.println(result.nanos + " " + result.bytes);
+            return;
+        }
+
+        String variantColumn = variants.length > 1 ? " %-12s" : "%s";
+        System.out.println(String.format("%-20s" + variantColumn + " %12s %12s %14s %14s %9s", "program",
+                variants.length > 1 ? variantTitle : "", plain + " ms", compared + " ms", plain + " KB", compared + " KB", "speedup"));
+        for(int i = 0; i < programs.length; i++){
+            for(int v = 0; v < variants.length; v++){
+                Result plainResult = fork(args, i, v, true);
+                Result comparedResult = fork(args, i, v, false);
+                System.out.println(String.format("%-20s" + variantColumn + " %12.3f %12.3f %14.1f %14.1f %8.2fx", programs[i], variants[v],
+                        plainResult.nanos / 1e6, comparedResult.nanos / 1e6, plainResult.bytes / 1024, comparedResult.bytes / 1024,
+                        plainResult.nanos / comparedResult.nanos));
+            }
+        }
+    }
+
+    // Measures a program in a new JVM, with the same class path and arguments
+    private Result fork(String[] args, int program, int variant, boolean plainWay) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        ArrayList<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"), benchmark));
+        command.addAll(Arrays.asList(args));
+        command.addAll(Arrays.asList("--program", String.valueOf(program), "--variant", String.valueOf(variant)));
+        if(plainWay) command.add("--plain");
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.US_ASCII).trim();
+        if(process.waitFor() != 0) throw new IllegalStateException("The program " + programs[program] + " failed: " + output);
+
+        String[] fields = output.split(" ");
+        return new Result(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]));
+    }
+
+    /**
+     * Compiles a program to be measured, what it prints is not measured
+     * @param compiler the compiler, with the options of the way measured
+     * @param source the source of the program
+     * @return the compiler, with the checked program
+     */
+    public static Compiler compile(Compiler compiler, String source) throws Exception {
+        if(compiler.compile(AsciiSource.of(source)) > 0) throw new IllegalStateException("The program has errors");
+        MiniPythonRuntime.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return compiler;
+    }
+
+    // Runs a program after warming it up, returns its average time and allocations
+    private static Result measure(BooleanSupplier run) {
+        long thread = Thread.currentThread().getId();
+        for(int i = 0; i < WARM_UP_ROUNDS; i++){
+            if(!run.getAsBoolean()) throw new IllegalStateException("The program failed");
+        }
+
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for(int i = 0; i < ROUNDS; i++){
+            run.getAsBoolean();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        return new Result((double) elapsed / ROUNDS, (double) allocated / ROUNDS);
+    }
+
+    /* Getters and Setters */
+
+    public String[] getVariants() {
+        return variants;
+    }
+
+    /**
+     * Sets the variants each program is measured with both ways
+     * @param title the title of their column, e.g. "backend"
+     * @param variants their names
+     */
+    public void setVariants(String title, String[] variants) {
+        this.variantTitle = title;
+        this.variants = variants;
+    }
+
+    /**
+     * Class Result
+     * The average time in ns and allocations in bytes of one run of a program
+     */
+    private static class Result {
+        private double nanos;
+        private double bytes;
+
+        private Result(double nanos, double bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+}
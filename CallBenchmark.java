@@ -0,0 +1,75 @@
+/**
+ * Class CallBenchmark
+ * Measures the Interpreter on programs that are mostly calls of small functions, with the inline caches of the calls
+ * and without them, when every call runs the body built for the defined types of the params (see Interpreter.Call).
+ * The params without a default value are typed UNDEF, so without the caches their ints are boxed where they are
+ * returned or passed on and compared as Objects, and every call allocates a new frame.
+ *
+ * Each program is measured in a new JVM with the caches and without them, see BenchmarkHarness.
+ *
+ * Usage: CallBenchmark [--iterations N]
+ */
+public class CallBenchmark {
+    private static final String[] NAMES = {"one call", "nested calls", "condition", "polymorphic"};
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 1000000;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--iterations") && i + 1 < args.length) iterations = Integer.parseInt(args[++i]);
+        }
+
+        int calls = iterations;
+        new BenchmarkHarness(CallBenchmark.class, NAMES, "no cache", "cache").run(args, (program, variant, plain) -> {
+            Interpreter.setInlineCaches(!plain);
+            Interpreter interpreter = BenchmarkHarness.compile(new Compiler(System.out), createSource(program, calls)).interpreter(true);
+            return interpreter::run;
+        });
+    }
+
+    // The programs, each one makes about iterations calls
+    private static String createSource(int program, int iterations) {
+        switch(program){
+            case 0:
+                // an overload with a default value, called with one argument
+                return "def step(i, by = 1):\n"
+                        + "    return i + by\n"
+                        + "def step(i, by, times):\n"
+                        + "    return i + by * times\n"
+                        + "i = 0\n"
+                        + "while i < " + iterations + ": i = step(i)\n"
+                        + "print i\n";
+            case 1:
+                return "def square(x):\n"
+                        + "    return x * x\n"
+                        + "def norm(a, b):\n"
+                        + "    return square(a) + square(b)\n"
+                        + "i = 0\n"
+                        + "while i < " + iterations * 5L + ": i = i + norm(1, 2)\n"
+                        + "print i\n";
+            case 2:
+                return "def below(x, limit):\n"
+                        + "    if x < limit: return x + 1\n"
+                        + "i = 0\n"
+                        + "while i < " + iterations + ": i = below(i, " + iterations + ")\n"
+                        + "print i\n";
+            default:
+                // the same calls with ints and strings, the caches keep a body for each
+                StringBuilder outer = new StringBuilder("outer = [");
+                StringBuilder inner = new StringBuilder("inner = [");
+                for(int i = 0; i < Math.max(1, iterations / 8000); i++){
+                    outer.append(i == 0 ? "" : ", ").append(i);
+                }
+                for(int i = 0; i < 1000; i++){
+                    inner.append(i == 0 ? "" : ", ").append(i);
+                }
+                return outer.append("]\n").toString() + inner.append("]\n")
+                        + "values = [1, \"a\", 2, \"b\", 3, \"c\", 4, \"d\"]\n"
+                        + "def twice(x):\n"
+                        + "    return x + x\n"
+                        + "def both(i, v):\n"
+                        + "    return twice(v) + twice(v)\n"
+                        + "for o in outer: for i in inner: for v in values: x = both(i, v)\n"
+                        + "print x\n";
+        }
+    }
+}
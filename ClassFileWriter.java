@@ -0,0 +1,506 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class ClassFileWriter
+ * This class writes a JVM class file: its constant pool, its static fields and its static methods, whose code
+ * is written with a Code. It only writes what CodeGenerator needs, no constructors, interfaces or exception tables.
+ *
+ * The class files are of version 49 (Java 5), the last one whose methods can be verified without a StackMapTable,
+ * so the branches do not need the frames of the types on the stack and in the locals.
+ */
+public class ClassFileWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 49;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    /* The tags of the constant pool entries */
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+    private static final int FIELD = 9;
+    private static final int METHOD = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private String className;
+
+    // The constant pool, written as the entries are added, each entry once
+    private ByteArrayOutputStream poolBytes;
+    private DataOutputStream pool;
+    private HashMap<String, Integer> poolIndexes;
+    private int poolCount;
+
+    private ByteArrayOutputStream fieldBytes;
+    private DataOutputStream fields;
+    private int fieldCount;
+
+    private ByteArrayOutputStream methodBytes;
+    private DataOutputStream methods;
+    private int methodCount;
+
+    /**
+     * Constructor
+     * @param className the internal name of the class, e.g. a/b/C
+     */
+    public ClassFileWriter(String className) {
+        this.className = className;
+        poolBytes = new ByteArrayOutputStream();
+        pool = new DataOutputStream(poolBytes);
+        poolIndexes = new HashMap<>();
+        poolCount = 1;
+        fieldBytes = new ByteArrayOutputStream();
+        fields = new DataOutputStream(fieldBytes);
+        methodBytes = new ByteArrayOutputStream();
+        methods = new DataOutputStream(methodBytes);
+    }
+
+    /**
+     * Adds a static field
+     * @param access the access flags, ACC_STATIC is added
+     * @param name the name
+     * @param descriptor the type, e.g. Ljava/lang/Object;
+     */
+    public void field(int access, String name, String descriptor) {
+        try {
+            fields.writeShort(access | ACC_STATIC);
+            fields.writeShort(utf8(name));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fieldCount++;
+    }
+
+    /**
+     * Adds a static method
+     * @param access the access flags, ACC_STATIC is added
+     * @param name the name
+     * @param descriptor the parameters and the return type, e.g. (Ljava/lang/Object;)Ljava/lang/Object;
+     * @param code the code, finished
+     */
+    public void method(int access, String name, String descriptor, Code code) {
+        if(code.length > 65535) throw new IllegalStateException("The code of " + name + " is too large for a method");
+        try {
+            methods.writeShort(access | ACC_STATIC);
+            methods.writeShort(utf8(name));
+            methods.writeShort(utf8(descriptor));
+            methods.writeShort(1);
+
+            methods.writeShort(utf8("Code"));
+            methods.writeInt(12 + code.length);
+            methods.writeShort(code.maxStack);
+            methods.writeShort(code.maxLocals);
+            methods.writeInt(code.length);
+            methods.write(code.bytes, 0, code.length);
+            // no exception table and no attributes
+            methods.writeShort(0);
+            methods.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methodCount++;
+    }
+
+    /**
+     * Returns the class file
+     * @return its bytes
+     */
+    public byte[] toByteArray() {
+        int thisClass = classRef(className);
+        int superClass = classRef("java/lang/Object");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolBytes.size() + fieldBytes.size() + methodBytes.size() + 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fieldCount);
+            fieldBytes.writeTo(out);
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /* Constant pool */
+
+    // Returns the index of an entry, adding it if it is new
+    private int entry(String key, int tag, Object... parts) {
+        Integer index = poolIndexes.get(key);
+        if(index != null) return index;
+        if(poolCount >= 65535) throw new IllegalStateException("Too many constants for a class file");
+
+        try {
+            pool.writeByte(tag);
+            if(tag == UTF8) pool.writeUTF((String) parts[0]);
+            else if(tag == INTEGER) pool.writeInt((Integer) parts[0]);
+            else{
+                for(Object part : parts){
+                    pool.writeShort((Integer) part);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        poolIndexes.put(key, poolCount);
+        return poolCount++;
+    }
+
+    public int utf8(String value) {
+        return entry("U" + value, UTF8, value);
+    }
+
+    public int integer(int value) {
+        return entry("I" + value, INTEGER, value);
+    }
+
+    // The entries that refer to others are looked up first, so the others are only added with them
+
+    public int string(String value) {
+        String key = "S" + value;
+        Integer index = poolIndexes.get(key);
+        return index != null ? index : entry(key, STRING, utf8(value));
+    }
+
+    public int classRef(String name) {
+        String key = "C" + name;
+        Integer index = poolIndexes.get(key);
+        return index != null ? index : entry(key, CLASS, utf8(name));
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return entry("N" + name + ' ' + descriptor, NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    public int fieldRef(String owner, String name, String descriptor) {
+        String key = "F" + owner + '.' + name + ' ' + descriptor;
+        Integer index = poolIndexes.get(key);
+        return index != null ? index : entry(key, FIELD, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + '.' + name + descriptor;
+        Integer index = poolIndexes.get(key);
+        return index != null ? index : entry(key, METHOD, classRef(owner), nameAndType(name, descriptor));
+    }
+
+    /* Getters */
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Class Label
+     * A position in the code that the branches jump to, it can be placed after the branches
+     */
+    public static class Label {
+        private int position = -1;
+
+        // The height of the stack when it is reached by a branch, -1 if no branch reaches it yet
+        private int stack = -1;
+
+        // The branches that wait for the position, each one as the position of its opcode
+        private ArrayList<Integer> branches = new ArrayList<>();
+    }
+
+    /**
+     * Class Code
+     * This class represents the bytecode of a method while it is written. It keeps the height of the stack
+     * after each instruction, for the max stack of the method, and the locals used, for its max locals.
+     */
+    public static class Code {
+        /* Opcodes */
+        public static final int ACONST_NULL = 0x01;
+        public static final int ILOAD = 0x15;
+        public static final int ALOAD = 0x19;
+        public static final int AALOAD = 0x32;
+        public static final int ISTORE = 0x36;
+        public static final int ASTORE = 0x3a;
+        public static final int AASTORE = 0x53;
+        public static final int POP = 0x57;
+        public static final int DUP = 0x59;
+        public static final int DUP_X1 = 0x5a;
+        public static final int DUP2_X1 = 0x5d;
+        public static final int POP2 = 0x58;
+        public static final int SWAP = 0x5f;
+        public static final int IINC = 0x84;
+        public static final int IFEQ = 0x99;
+        public static final int IFNE = 0x9a;
+        public static final int IFLT = 0x9b;
+        public static final int IFGE = 0x9c;
+        public static final int IFGT = 0x9d;
+        public static final int IFLE = 0x9e;
+        public static final int IF_ICMPGE = 0xa2;
+        public static final int GOTO = 0xa7;
+        public static final int ARETURN = 0xb0;
+        public static final int RETURN = 0xb1;
+        public static final int GETSTATIC = 0xb2;
+        public static final int PUTSTATIC = 0xb3;
+        public static final int INVOKESTATIC = 0xb8;
+        public static final int ANEWARRAY = 0xbd;
+        public static final int ARRAYLENGTH = 0xbe;
+
+        // The first of the one byte forms of each instruction on the locals
+        private static final HashMap<Integer, Integer> SHORT_LOCALS = new HashMap<>();
+        static {
+            SHORT_LOCALS.put(ILOAD, 0x1a);
+            SHORT_LOCALS.put(ALOAD, 0x2a);
+            SHORT_LOCALS.put(ISTORE, 0x3b);
+            SHORT_LOCALS.put(ASTORE, 0x4b);
+        }
+
+        private ClassFileWriter owner;
+        private byte[] bytes;
+        private int length;
+
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+
+        // False after a goto or a return, until a label is placed
+        private boolean reachable = true;
+
+        /**
+         * Constructor
+         * @param owner the class file whose constant pool is used
+         * @param params the locals taken by the parameters
+         */
+        public Code(ClassFileWriter owner, int params) {
+            this.owner = owner;
+            this.bytes = new byte[256];
+            this.maxLocals = params;
+        }
+
+        private void u1(int value) {
+            if(length == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        // Changes the height of the stack by the effect of an instruction
+        private void stack(int delta) {
+            stack += delta;
+            if(stack > maxStack) maxStack = stack;
+        }
+
+        /**
+         * Writes an instruction without operands
+         * @param opcode the opcode
+         * @param delta how it changes the height of the stack
+         */
+        public void op(int opcode, int delta) {
+            u1(opcode);
+            stack(delta);
+            if(opcode == ARETURN || opcode == RETURN) reachable = false;
+        }
+
+        // Returns a new local, after the ones used so far
+        public int newLocal() {
+            return maxLocals++;
+        }
+
+        public void aload(int local) {
+            local(ALOAD, local, 1);
+        }
+
+        public void astore(int local) {
+            local(ASTORE, local, -1);
+        }
+
+        public void iload(int local) {
+            local(ILOAD, local, 1);
+        }
+
+        public void istore(int local) {
+            local(ISTORE, local, -1);
+        }
+
+        private void local(int opcode, int local, int delta) {
+            if(local <= 3){
+                // iload_0 and the rest, one byte each
+                u1(SHORT_LOCALS.get(opcode) + local);
+            }
+            else if(local > 255){
+                // wide
+                u1(0xc4);
+                u1(opcode);
+                u2(local);
+            }
+            else{
+                u1(opcode);
+                u1(local);
+            }
+            stack(delta);
+            if(local >= maxLocals) maxLocals = local + 1;
+        }
+
+        public void iinc(int local, int increment) {
+            if(local > 255){
+                u1(0xc4);
+                u1(IINC);
+                u2(local);
+                u2(increment);
+            }
+            else{
+                u1(IINC);
+                u1(local);
+                u1(increment);
+            }
+        }
+
+        // Pushes an int, with the shortest instruction
+        public void iconst(int value) {
+            if(value >= -1 && value <= 5) u1(0x03 + value);
+            else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE){
+                u1(0x10);
+                u1(value);
+            }
+            else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE){
+                u1(0x11);
+                u2(value);
+            }
+            else ldc(owner.integer(value));
+            if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) stack(1);
+        }
+
+        public void ldcString(String value) {
+            ldc(owner.string(value));
+        }
+
+        public void ldcClass(String name) {
+            ldc(owner.classRef(name));
+        }
+
+        private void ldc(int index) {
+            if(index > 255){
+                // ldc_w
+                u1(0x13);
+                u2(index);
+            }
+            else{
+                u1(0x12);
+                u1(index);
+            }
+            stack(1);
+        }
+
+        public void getstatic(String className, String name, String descriptor) {
+            u1(GETSTATIC);
+            u2(owner.fieldRef(className, name, descriptor));
+            stack(1);
+        }
+
+        public void putstatic(String className, String name, String descriptor) {
+            u1(PUTSTATIC);
+            u2(owner.fieldRef(className, name, descriptor));
+            stack(-1);
+        }
+
+        /**
+         * Calls a static method, the descriptor may only have reference, array and int params and void,
+         * boolean, int or reference return types, which take a single slot
+         */
+        public void invokestatic(String className, String name, String descriptor) {
+            u1(INVOKESTATIC);
+            u2(owner.methodRef(className, name, descriptor));
+            stack(-params(descriptor) + (descriptor.endsWith(")V") ? 0 : 1));
+        }
+
+        // Counts the params of a descriptor
+        private static int params(String descriptor) {
+            int count = 0;
+            int i = 1;
+            while(descriptor.charAt(i) != ')'){
+                while(descriptor.charAt(i) == '[') i++;
+                if(descriptor.charAt(i) == 'L') i = descriptor.indexOf(';', i);
+                i++;
+                count++;
+            }
+            return count;
+        }
+
+        public void anewarray(String className) {
+            u1(ANEWARRAY);
+            u2(owner.classRef(className));
+        }
+
+        /**
+         * Writes a branch to a label
+         * @param opcode GOTO or one of the if opcodes
+         * @param label where it jumps
+         */
+        public void jump(int opcode, Label label) {
+            int position = length;
+            u1(opcode);
+            u2(0);
+            if(opcode == IF_ICMPGE) stack(-2);
+            else if(opcode != GOTO) stack(-1);
+
+            if(label.stack == -1) label.stack = stack;
+            if(label.position != -1) patch(position, label.position);
+            else label.branches.add(position);
+            if(opcode == GOTO) reachable = false;
+        }
+
+        /**
+         * Places a label at the current position
+         * @param label the label
+         */
+        public void place(Label label) {
+            label.position = length;
+            for(int branch : label.branches){
+                patch(branch, length);
+            }
+            label.branches.clear();
+
+            // after a goto or a return the stack is the one of the branches to here
+            if(!reachable && label.stack != -1) stack = label.stack;
+            else if(label.stack == -1) label.stack = stack;
+            reachable = true;
+        }
+
+        private void patch(int branch, int target) {
+            int offset = target - branch;
+            if(offset < Short.MIN_VALUE || offset > Short.MAX_VALUE){
+                throw new IllegalStateException("A branch is too long for a method");
+            }
+            bytes[branch + 1] = (byte) (offset >> 8);
+            bytes[branch + 2] = (byte) offset;
+        }
+
+        /* Getters */
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getStack() {
+            return stack;
+        }
+    }
+}
@@ -0,0 +1,633 @@
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.TreeSet;
+
+/**
+ * Class CodeGenerator
+ * This class compiles a checked program to a JVM class, written with a ClassFileWriter, whose main runs it.
+ * Each function becomes a static method taking and returning Objects, the overloads are told apart by their number
+ * of params like in the symbolTable. A function with default params also gets a bridge method for each shorter
+ * call, which passes the default values to it. The global variables are the elements of the static array globals,
+ * numbered as they are first met, since a class cannot have a field for each one of tens of thousands of them,
+ * the local ones are locals, and the top level statements are split into methods of a few KB, since a method may have at most 64 KB of code.
+ *
+ * The values have the types of MiniPythonRuntime, and every operation whose result depends on the types
+ * at run time calls it. The program must have no errors, the generator does not check it again.
+ */
+public class CodeGenerator {
+    private static final String OBJECT = "Ljava/lang/Object;";
+    private static final String STRING = "Ljava/lang/String;";
+    private static final String OBJECT_CLASS = "java/lang/Object";
+    private static final String RUNTIME = "MiniPythonRuntime";
+    private static final String ARRAY = "LMiniPythonArray;";
+    private static final String GLOBALS = "globals";
+
+    // The size after which the top level statements go on in a new method
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private String className;
+    private RootSymbolTable symbolTable;
+    private ClassFileWriter writer;
+
+    // False to leave every addition of strings on its own, which the chains are measured against
+    private boolean concatChains = true;
+
+    // False to keep the elements of every array boxed, which the int arrays are measured against
+    private boolean intArrays = true;
+
+    // The index of each global variable in globals
+    private HashMap<String, Integer> globals;
+
+    /* The method being written */
+    private ClassFileWriter.Code code;
+
+    // The function being written, otherwise null
+    private Function function;
+
+    // The locals of the function, by name
+    private HashMap<String, Integer> locals;
+
+    // The variables the function assigns
+    private HashSet<String> assigned;
+
+    /**
+     * Constructor
+     * @param className the name of the class, see className
+     * @param symbolTable the symbolTable of the checked program
+     */
+    public CodeGenerator(String className, RootSymbolTable symbolTable) {
+        this.className = className;
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Compiles a program
+     * @param ast the program, checked without errors
+     * @return the class file
+     */
+    public byte[] generate(Start ast) {
+        writer = new ClassFileWriter(className);
+        globals = new HashMap<>();
+
+        ArrayList<PStatement> statements = new ArrayList<>();
+        for(Object command : ((AGoal) ast.getPGoal()).getCommands()){
+            if(command instanceof AFuncCommands) function((AFunction) ((AFuncCommands) command).getFunction());
+            else statements.add(((AStmtCommands) command).getStatement());
+        }
+        topLevel(statements);
+
+        // the global variables are None until they are assigned
+        writer.field(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL, GLOBALS, "[" + OBJECT);
+        code = new ClassFileWriter.Code(writer, 0);
+        code.iconst(globals.size());
+        code.anewarray(OBJECT_CLASS);
+        code.putstatic(className, GLOBALS, "[" + OBJECT);
+        code.op(ClassFileWriter.Code.RETURN, 0);
+        writer.method(0, "<clinit>", "()V", code);
+
+        // main starts the program through the runtime, which reports its errors
+        code = new ClassFileWriter.Code(writer, 1);
+        code.ldcClass(className);
+        code.invokestatic(RUNTIME, "start", "(Ljava/lang/Class;)V");
+        code.op(ClassFileWriter.Code.RETURN, 0);
+        writer.method(ClassFileWriter.ACC_PUBLIC, "main", "([Ljava/lang/String;)V", code);
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Returns the name of the class of a source file, its name without the extension, with _ for what Java does not allow
+     * @param file the path of the file
+     * @return the class name
+     */
+    public static String className(String file) {
+        String name = file.substring(Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1);
+        if(name.lastIndexOf('.') > 0) name = name.substring(0, name.lastIndexOf('.'));
+
+        StringBuilder valid = new StringBuilder();
+        for(int i = 0; i < name.length(); i++){
+            char c = name.charAt(i);
+            valid.append(i == 0 ? (Character.isJavaIdentifierStart(c) ? c : '_') : (Character.isJavaIdentifierPart(c) ? c : '_'));
+        }
+        if(valid.length() == 0 || Character.isDigit(name.charAt(0))) valid.insert(0, '_');
+        return valid.toString();
+    }
+
+    /**
+     * Loads a compiled program in this JVM, to run it with MiniPythonRuntime.run
+     * @param className the name of the class
+     * @param bytes the class file
+     * @return the class
+     */
+    public static Class<?> load(String className, byte[] bytes) {
+        return new ProgramLoader().define(className, bytes);
+    }
+
+    /* Functions */
+
+    private void function(AFunction node) {
+        // the params in order, like the FirstVisitor adds them
+        ArrayList<TId> params = new ArrayList<>();
+        ArrayList<PAssignValue> defaults = new ArrayList<>();
+        AArgument argument = (AArgument) node.getArgument();
+        if(argument != null){
+            params.add(argument.getId());
+            defaults.add(argument.getAssignValue());
+            for(Object temp : argument.getParameters()){
+                params.add(((AParameters) temp).getId());
+                defaults.add(((AParameters) temp).getAssignValue());
+            }
+        }
+
+        String name = node.getId().getText();
+        function = symbolTable.getOverloads(name).getAccepting(params.size());
+        code = new ClassFileWriter.Code(writer, params.size());
+        locals = new HashMap<>();
+        for(int i = 0; i < params.size(); i++){
+            locals.put(params.get(i).getText(), i);
+        }
+        assigned = new HashSet<>();
+        findAssigned(node.getStatement());
+
+        // every other local holds None from the start, so it can be read on any path
+        TreeSet<String> names = new TreeSet<>(assigned);
+        names.addAll(function.getVarNames());
+        for(String local : names){
+            if(locals.containsKey(local) || !isLocal(local)) continue;
+            locals.put(local, code.newLocal());
+            code.op(ClassFileWriter.Code.ACONST_NULL, 1);
+            code.astore(locals.get(local));
+        }
+
+        statement(node.getStatement());
+        code.op(ClassFileWriter.Code.ACONST_NULL, 1);
+        code.op(ClassFileWriter.Code.ARETURN, -1);
+        writer.method(ClassFileWriter.ACC_PUBLIC, name, descriptor(params.size()), code);
+
+        // a bridge for each number of arguments the defaults allow, e.g. f(a) calls f(a, 1) for def f(a, b = 1)
+        for(int count = params.size() - 1; count >= 0 && defaults.get(count) != null; count--){
+            code = new ClassFileWriter.Code(writer, count);
+            for(int i = 0; i < count; i++){
+                code.aload(i);
+            }
+            for(int i = count; i < params.size(); i++){
+                value(((AAssignValue) defaults.get(i)).getValue());
+            }
+            code.invokestatic(className, name, descriptor(params.size()));
+            code.op(ClassFileWriter.Code.ARETURN, -1);
+            writer.method(ClassFileWriter.ACC_PUBLIC, name, descriptor(count), code);
+        }
+
+        function = null;
+        locals = null;
+        assigned = null;
+    }
+
+    // Finds the variables a statement assigns
+    private void findAssigned(PStatement statement) {
+        if(statement instanceof AIfStatement) findAssigned(((AIfStatement) statement).getStatement());
+        else if(statement instanceof AWhileStatement) findAssigned(((AWhileStatement) statement).getStatement());
+        else if(statement instanceof AForStatement){
+            assigned.add(((AForStatement) statement).getId1().getText());
+            findAssigned(((AForStatement) statement).getStatement());
+        }
+        else if(statement instanceof AEqualsStatement) assigned.add(((AEqualsStatement) statement).getId().getText());
+        else if(statement instanceof AMinusEqualsStatement) assigned.add(((AMinusEqualsStatement) statement).getId().getText());
+        else if(statement instanceof ADivEqualsStatement) assigned.add(((ADivEqualsStatement) statement).getId().getText());
+    }
+
+    // The descriptor of a function with some params
+    private static String descriptor(int params) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for(int i = 0; i < params; i++){
+            descriptor.append(OBJECT);
+        }
+        return descriptor.append(')').append(OBJECT).toString();
+    }
+
+    /* Top level statements */
+
+    private void topLevel(ArrayList<PStatement> statements) {
+        ArrayList<String> chunks = new ArrayList<>();
+        code = new ClassFileWriter.Code(writer, 0);
+        for(int i = 0; i < statements.size(); i++){
+            statement(statements.get(i));
+            if(code.getLength() >= CHUNK_SIZE || i == statements.size() - 1){
+                String chunk = "run$" + chunks.size();
+                code.op(ClassFileWriter.Code.RETURN, 0);
+                writer.method(0, chunk, "()V", code);
+                chunks.add(chunk);
+                code = new ClassFileWriter.Code(writer, 0);
+            }
+        }
+
+        for(String chunk : chunks){
+            code.invokestatic(className, chunk, "()V");
+        }
+        code.op(ClassFileWriter.Code.RETURN, 0);
+        writer.method(ClassFileWriter.ACC_PUBLIC, "run", "()V", code);
+    }
+
+    /* Statements */
+
+    private void statement(PStatement statement) {
+        if(statement instanceof AIfStatement){
+            AIfStatement ifStatement = (AIfStatement) statement;
+            ClassFileWriter.Label end = new ClassFileWriter.Label();
+            condition(ifStatement.getComparison(), end);
+            statement(ifStatement.getStatement());
+            code.place(end);
+        }
+        else if(statement instanceof AWhileStatement){
+            AWhileStatement whileStatement = (AWhileStatement) statement;
+            ClassFileWriter.Label top = new ClassFileWriter.Label();
+            ClassFileWriter.Label end = new ClassFileWriter.Label();
+            code.place(top);
+            condition(whileStatement.getComparison(), end);
+            statement(whileStatement.getStatement());
+            code.jump(ClassFileWriter.Code.GOTO, top);
+            code.place(end);
+        }
+        else if(statement instanceof AForStatement){
+            forStatement((AForStatement) statement);
+        }
+        else if(statement instanceof AReturnStatement){
+            expression(((AReturnStatement) statement).getExpression());
+            code.op(ClassFileWriter.Code.ARETURN, -1);
+        }
+        else if(statement instanceof APrintStatement){
+            ArrayList<PExpression> values = arguments(((APrintStatement) statement).getArglist());
+            for(int i = 0; i < values.size(); i++){
+                expression(values.get(i));
+                code.invokestatic(RUNTIME, i == 0 ? "print" : "printNext", "(" + OBJECT + ")V");
+            }
+            code.invokestatic(RUNTIME, "println", "()V");
+        }
+        else if(statement instanceof AEqualsStatement){
+            AEqualsStatement equals = (AEqualsStatement) statement;
+            expression(equals.getExpression());
+            store(equals.getId().getText());
+        }
+        else if(statement instanceof AMinusEqualsStatement){
+            AMinusEqualsStatement minusEquals = (AMinusEqualsStatement) statement;
+            load(minusEquals.getId().getText());
+            expression(minusEquals.getExpression());
+            operation("sub");
+            store(minusEquals.getId().getText());
+        }
+        else if(statement instanceof ADivEqualsStatement){
+            ADivEqualsStatement divEquals = (ADivEqualsStatement) statement;
+            load(divEquals.getId().getText());
+            expression(divEquals.getExpression());
+            operation("div");
+            store(divEquals.getId().getText());
+        }
+        else if(statement instanceof AArrayStatement){
+            AArrayStatement array = (AArrayStatement) statement;
+            load(array.getId().getText());
+            expression(array.getExp1());
+            expression(array.getExp2());
+            code.invokestatic(RUNTIME, "setIndex", "(" + OBJECT + OBJECT + OBJECT + ")V");
+        }
+        else if(statement instanceof AFunctionStatement){
+            AFunctionStatement call = (AFunctionStatement) statement;
+            call(call.getId(), call.getArglist());
+            code.op(ClassFileWriter.Code.POP, -1);
+        }
+    }
+
+    private void forStatement(AForStatement statement) {
+        // the elements are taken once, then walked with an index
+        int elements = code.newLocal();
+        int index = code.newLocal();
+        load(statement.getId2().getText());
+        code.invokestatic(RUNTIME, "iterable", "(" + OBJECT + ")" + ARRAY);
+        code.astore(elements);
+        code.iconst(0);
+        code.istore(index);
+
+        ClassFileWriter.Label top = new ClassFileWriter.Label();
+        ClassFileWriter.Label end = new ClassFileWriter.Label();
+        code.place(top);
+        code.iload(index);
+        code.aload(elements);
+        code.invokestatic(RUNTIME, "length", "(" + ARRAY + ")I");
+        code.jump(ClassFileWriter.Code.IF_ICMPGE, end);
+        code.aload(elements);
+        code.iload(index);
+        code.invokestatic(RUNTIME, "index", "(" + OBJECT + "I)" + OBJECT);
+        store(statement.getId1().getText());
+        statement(statement.getStatement());
+        code.iinc(index, 1);
+        code.jump(ClassFileWriter.Code.GOTO, top);
+        code.place(end);
+    }
+
+    /* Conditions */
+
+    /**
+     * Writes a condition that jumps to a label if it is false
+     * @param comparison the condition
+     * @param ifFalse where to jump
+     */
+    private void condition(PComparison comparison, ClassFileWriter.Label ifFalse) {
+        if(comparison instanceof ATrueComparison) return;
+        if(comparison instanceof AFalseComparison){
+            code.jump(ClassFileWriter.Code.GOTO, ifFalse);
+            return;
+        }
+        if(comparison instanceof AExpEqualityComparison){
+            AExpEqualityComparison equality = (AExpEqualityComparison) comparison;
+            expression(equality.getExp1());
+            expression(equality.getExp2());
+            code.invokestatic(RUNTIME, "eq", "(" + OBJECT + OBJECT + ")Z");
+            code.jump(ClassFileWriter.Code.IFEQ, ifFalse);
+            return;
+        }
+        if(comparison instanceof AExpNotEqualsComparison){
+            AExpNotEqualsComparison notEquals = (AExpNotEqualsComparison) comparison;
+            expression(notEquals.getExp1());
+            expression(notEquals.getExp2());
+            code.invokestatic(RUNTIME, "eq", "(" + OBJECT + OBJECT + ")Z");
+            code.jump(ClassFileWriter.Code.IFNE, ifFalse);
+            return;
+        }
+        if(comparison instanceof AExpressionComparison){
+            expression(((AExpressionComparison) comparison).getExpression());
+            code.invokestatic(RUNTIME, "truthy", "(" + OBJECT + ")Z");
+            code.jump(ClassFileWriter.Code.IFEQ, ifFalse);
+            return;
+        }
+        chain(comparison, ifFalse);
+    }
+
+    /**
+     * Writes a chain of < and >, like Python a < b < c is a < b and b < c, each operand evaluated once
+     * @param comparison the last comparison of the chain
+     * @param ifFalse where to jump if one of them is false
+     */
+    private void chain(PComparison comparison, ClassFileWriter.Label ifFalse) {
+        // the grammar makes the chain lean to the left: ((a < b) < c)
+        LinkedList<PComparison> operands = new LinkedList<>();
+        LinkedList<Boolean> greater = new LinkedList<>();
+        while(comparison instanceof AGreatComparison || comparison instanceof ALessComparison){
+            if(comparison instanceof AGreatComparison){
+                operands.addFirst(((AGreatComparison) comparison).getComp2());
+                greater.addFirst(true);
+                comparison = ((AGreatComparison) comparison).getComp1();
+            }
+            else{
+                operands.addFirst(((ALessComparison) comparison).getComp2());
+                greater.addFirst(false);
+                comparison = ((ALessComparison) comparison).getComp1();
+            }
+        }
+        operands.addFirst(comparison);
+
+        ClassFileWriter.Label failed = new ClassFileWriter.Label();
+        boolean kept = false;
+        operand(operands.get(0));
+        for(int i = 1; i < operands.size(); i++){
+            operand(operands.get(i));
+            boolean last = i == operands.size() - 1;
+            if(!last){
+                // the right operand is kept under the two compared, as the left one of the next comparison
+                code.op(ClassFileWriter.Code.DUP_X1, 1);
+                kept = true;
+            }
+            code.ldcString(greater.get(i - 1) ? ">" : "<");
+            code.invokestatic(RUNTIME, "compare", "(" + OBJECT + OBJECT + STRING + ")I");
+            code.jump(greater.get(i - 1) ? ClassFileWriter.Code.IFLE : ClassFileWriter.Code.IFGE, last ? ifFalse : failed);
+        }
+
+        if(kept){
+            ClassFileWriter.Label end = new ClassFileWriter.Label();
+            code.jump(ClassFileWriter.Code.GOTO, end);
+            code.place(failed);
+            code.op(ClassFileWriter.Code.POP, -1);
+            code.jump(ClassFileWriter.Code.GOTO, ifFalse);
+            code.place(end);
+        }
+    }
+
+    // Pushes the value of an operand of < or >, a comparison in it counts as True or False
+    private void operand(PComparison comparison) {
+        if(comparison instanceof AExpressionComparison){
+            expression(((AExpressionComparison) comparison).getExpression());
+            return;
+        }
+        ClassFileWriter.Label isFalse = new ClassFileWriter.Label();
+        ClassFileWriter.Label end = new ClassFileWriter.Label();
+        condition(comparison, isFalse);
+        code.getstatic("java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
+        code.jump(ClassFileWriter.Code.GOTO, end);
+        code.place(isFalse);
+        code.getstatic("java/lang/Boolean", "FALSE", "Ljava/lang/Boolean;");
+        code.place(end);
+    }
+
+    /* Expressions */
+
+    private void expression(PExpression expression) {
+        if(expression instanceof AValueExpression){
+            value(((AValueExpression) expression).getValue());
+        }
+        else if(expression instanceof AIdentifierExpression){
+            load(((AIdentifierExpression) expression).getId().getText());
+        }
+        else if(expression instanceof AExpInBracketsExpression){
+            AExpInBracketsExpression index = (AExpInBracketsExpression) expression;
+            load(index.getId().getText());
+            expression(index.getExpression());
+            operation("index");
+        }
+        else if(expression instanceof AFunctionExpression){
+            AFunctionCall call = (AFunctionCall) ((AFunctionExpression) expression).getFunctionCall();
+            call(call.getId(), call.getArglist());
+        }
+        else if(expression instanceof AAdditionExpression){
+            ArrayList<PExpression> operands = concatChains ? Utils.getConcatOperands(expression, function, symbolTable) : null;
+            if(operands != null) concat(operands);
+            else{
+                AAdditionExpression addition = (AAdditionExpression) expression;
+                expression(addition.getExp1());
+                expression(addition.getExp2());
+                operation("add");
+            }
+        }
+        else if(expression instanceof AAbstractionExpression){
+            AAbstractionExpression abstraction = (AAbstractionExpression) expression;
+            expression(abstraction.getExp1());
+            expression(abstraction.getExp2());
+            operation("sub");
+        }
+        else if(expression instanceof AMultExpression){
+            AMultExpression mult = (AMultExpression) expression;
+            expression(mult.getExp1());
+            expression(mult.getExp2());
+            operation("mul");
+        }
+        else if(expression instanceof ADivExpression){
+            ADivExpression div = (ADivExpression) expression;
+            expression(div.getExp1());
+            expression(div.getExp2());
+            operation("div");
+        }
+        else if(expression instanceof AExpsInsideBracketsExpression){
+            ArrayList<PExpression> elements = arguments(((AExpsInsideBracketsExpression) expression).getArglist());
+            code.iconst(elements.size());
+            code.anewarray(OBJECT_CLASS);
+            for(int i = 0; i < elements.size(); i++){
+                code.op(ClassFileWriter.Code.DUP, 1);
+                code.iconst(i);
+                expression(elements.get(i));
+                code.op(ClassFileWriter.Code.AASTORE, -3);
+            }
+            // the runtime keeps the elements in an int[] if they are all ints, unless the arrays are boxed
+            code.iconst(intArrays ? 1 : 0);
+            code.invokestatic(RUNTIME, "array", "([" + OBJECT + "Z)" + ARRAY);
+        }
+    }
+
+    // Pushes a literal, an Integer or a String without its quotes
+    private void value(PValue value) {
+        if(value instanceof ANumberValue){
+            TInteger integer = ((ANumberValue) value).getInteger();
+            int number;
+            try {
+                number = Integer.parseInt(integer.getText());
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("The integer " + integer.getText() + " in the line " + integer.getLine() + " does not fit in an int");
+            }
+            code.iconst(number);
+            code.invokestatic("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+        }
+        else{
+            String text = ((AStringValue) value).getStringLit().getText();
+            code.ldcString(text.substring(1, text.length() - 1));
+        }
+    }
+
+    // Calls a runtime operation on the 2 values on the stack
+    private void operation(String name) {
+        code.invokestatic(RUNTIME, name, "(" + OBJECT + OBJECT + ")" + OBJECT);
+    }
+
+    // A chain of additions of strings, the StringBuilder stays on the stack while each operand is appended
+    private void concat(ArrayList<PExpression> operands) {
+        expression(operands.get(0));
+        code.iconst(Utils.getConcatCapacity(operands));
+        code.invokestatic(RUNTIME, "startConcat", "(" + OBJECT + "I)" + OBJECT);
+        for(int i = 1; i < operands.size(); i++){
+            expression(operands.get(i));
+            operation("concat");
+        }
+        code.invokestatic(RUNTIME, "endConcat", "(" + OBJECT + ")" + OBJECT);
+    }
+
+    // Calls the function that accepts the arguments, there is only one like in Utils.checkLegitFunction
+    private void call(TId id, PArglist arglist) {
+        ArrayList<PExpression> args = arguments(arglist);
+        FunctionOverloads overloads = symbolTable.getOverloads(id);
+        if(overloads == null || overloads.getAccepting(args.size()) == null){
+            throw new IllegalStateException("The function " + id.getText() + " in the line " + id.getLine() + " is not defined for " + args.size() + " arguments");
+        }
+        for(PExpression arg : args){
+            expression(arg);
+        }
+        code.invokestatic(className, id.getText(), descriptor(args.size()));
+    }
+
+    // The expressions of an arglist in the order they are written, the arglist lists them backwards
+    private static ArrayList<PExpression> arguments(PArglist args) {
+        LinkedList<PExpression> expressions = new LinkedList<>();
+        while(args != null){
+            if(args instanceof AExpArglist){
+                expressions.addFirst(((AExpArglist) args).getExpression());
+                break;
+            }
+            if(((AMoreExpArglist) args).getExpression() != null){
+                expressions.addFirst(((AMoreExpArglist) args).getExpression());
+            }
+            args = ((AMoreExpArglist) args).getArglist();
+        }
+        return new ArrayList<>(expressions);
+    }
+
+    /* Variables */
+
+    // True if a name is a local variable of the function being written, like the visitors decide it
+    private boolean isLocal(String name) {
+        if(function == null) return false;
+        if(locals.containsKey(name) || function.getVar(name) != null) return true;
+        return assigned.contains(name) && symbolTable.getVariable(name) == null;
+    }
+
+    private void load(String name) {
+        if(isLocal(name)) code.aload(locals.get(name));
+        else{
+            global(name);
+            code.op(ClassFileWriter.Code.AALOAD, -1);
+        }
+    }
+
+    private void store(String name) {
+        if(isLocal(name)) code.astore(locals.get(name));
+        else{
+            // the value goes under the array and the index
+            global(name);
+            code.op(ClassFileWriter.Code.DUP2_X1, 2);
+            code.op(ClassFileWriter.Code.POP2, -2);
+            code.op(ClassFileWriter.Code.AASTORE, -3);
+        }
+    }
+
+    // Pushes globals and the index of a global variable
+    private void global(String name) {
+        Integer index = globals.get(name);
+        if(index == null){
+            index = globals.size();
+            globals.put(name, index);
+        }
+        code.getstatic(className, GLOBALS, "[" + OBJECT);
+        code.iconst(index);
+    }
+
+    /* Getters and Setters */
+
+    public boolean isConcatChains() {
+        return concatChains;
+    }
+
+    // Whether the chains of additions of strings are computed with one StringBuilder, set before generate
+    public void setConcatChains(boolean concatChains) {
+        this.concatChains = concatChains;
+    }
+
+    public boolean isIntArrays() {
+        return intArrays;
+    }
+
+    // Whether the arrays of the program keep their elements in an int[] while they are ints, set before generate
+    public void setIntArrays(boolean intArrays) {
+        this.intArrays = intArrays;
+    }
+
+    /**
+     * Class ProgramLoader
+     * Loads a compiled program, with the runtime taken from the loader of the compiler
+     */
+    private static class ProgramLoader extends ClassLoader {
+        private ProgramLoader() {
+            super(CodeGenerator.class.getClassLoader());
+        }
+
+        private Class<?> define(String className, byte[] bytes) {
+            return defineClass(className, bytes, 0, bytes.length);
+        }
+    }
+}
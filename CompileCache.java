@@ -0,0 +1,355 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.stream.Stream;
+
+/**
+ * Class CompileCache
+ * This class represents a cache directory with the results of the compiled sources, so an unchanged source
+ * is not lexed, parsed and visited again. Each entry is a file named after the hash of the source and the
+ * compiler version, holding the errors that were printed and the functions and global variables of the symbolTable.
+ *
+ * The entries are read through a memory mapped file. The last modified time of an entry is the last time it was used,
+ * and when the directory grows over its size cap the entries used least recently are deleted.
+ */
+public class CompileCache {
+    // The first bytes of every entry, "MPC" and the version of the format
+    private static final int MAGIC = 0x4d504301;
+
+    // The default size cap, 64 MB
+    public static final long DEFAULT_MAX_SIZE = 64L << 20;
+
+    private Path directory;
+
+    // The total size of the entries in bytes, over which the least recently used ones are deleted
+    private long maxSize;
+
+    // The total size of the entries as far as we know, -1 until the directory is listed for the first time
+    private long size = -1;
+
+    private int hits;
+    private int misses;
+
+    /**
+     * Constructor
+     * @param directory the cache directory, created if it does not exist
+     * @param maxSize the size cap in bytes
+     */
+    public CompileCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * The key of a source: the SHA-256 of the compiler version, the format of the errors, how the source is analyzed
+     * and the source, in hex
+     * @param source the source
+     * @param format the format the errors are printed in
+     * @param mode how the source is analyzed, e.g. "two-passes"
+     * @return the key
+     */
+    public static String key(String source, DiagnosticSink.Format format, String mode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Compiler.VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(format.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(mode.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder key = new StringBuilder();
+            for(byte b : digest.digest()){
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the entry of a key
+     * @param key the key of the source
+     * @return the entry or null if there is none, or it cannot be read
+     */
+    public Entry get(String key) {
+        Path file = directory.resolve(key + ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Entry entry = read(buffer);
+            if(entry == null){
+                synchronized (this) { misses++; }
+                return null;
+            }
+
+            // the entry has just been used
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) { hits++; }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            // a missing entry, or one that is damaged or being deleted, is compiled again
+            synchronized (this) { misses++; }
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry of a key and deletes the least recently used entries if the cap is exceeded
+     * @param key the key of the source
+     * @param entry the entry
+     */
+    public void put(String key, Entry entry) {
+        try {
+            byte[] bytes = write(entry);
+
+            // write to a temporary file first, so that no one reads half of an entry
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, directory.resolve(key + ".bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            added(bytes.length);
+        } catch (IOException e) {
+            // the cache is only an optimization, the source is compiled anyway
+        }
+    }
+
+    /**
+     * Counts a new entry, listing the directory only the first time and when the size cap is exceeded
+     * @param bytes the size of the entry
+     */
+    private synchronized void added(long bytes) throws IOException {
+        if(size == -1 || size + bytes > maxSize) evict();
+        else size += bytes;
+    }
+
+    /**
+     * Lists the entries and, if they exceed the size cap, deletes the least recently used ones
+     */
+    private synchronized void evict() throws IOException {
+        ArrayList<Path> entries = new ArrayList<>();
+        HashMap<Path, Long> sizes = new HashMap<>();
+        HashMap<Path, Long> times = new HashMap<>();
+        size = 0;
+
+        try (Stream<Path> list = Files.list(directory)) {
+            for(Path file : (Iterable<Path>) list::iterator){
+                if(!file.toString().endsWith(".bin")) continue;
+                try {
+                    sizes.put(file, Files.size(file));
+                    times.put(file, Files.getLastModifiedTime(file).toMillis());
+                    entries.add(file);
+                    size += sizes.get(file);
+                } catch (NoSuchFileException e) {
+                    // deleted by another compiler
+                }
+            }
+        }
+        if(size <= maxSize) return;
+
+        // delete down to 90% of the cap, so the directory is not listed again on the next entry
+        entries.sort((a, b) -> Long.compare(times.get(a), times.get(b)));
+        for(Path file : entries){
+            if(size <= maxSize / 10 * 9) break;
+            Files.deleteIfExists(file);
+            size -= sizes.get(file);
+        }
+    }
+
+    private static byte[] write(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+
+        data.writeInt(MAGIC);
+        data.writeInt(entry.errors);
+        writeString(data, entry.output);
+
+        ArrayList<Function> functions = entry.symbolTable.getFunctionsArray();
+        data.writeInt(functions.size());
+        for(Function function : functions){
+            writeString(data, function.getId());
+            data.writeInt(function.getLine());
+            data.writeInt(function.getPos());
+            data.writeInt(function.getNonDefaults());
+            data.writeInt(function.getDefaults());
+            writeType(data, function.getReturnType());
+
+            // the params first, then the rest of the variables of the body
+            data.writeInt(function.getParams().size());
+            for(Variable param : function.getParams()){
+                writeVariable(data, param);
+            }
+            ArrayList<Variable> vars = new ArrayList<>();
+            for(Variable var : function.getVars().values()){
+                if(!function.getParams().contains(var)) vars.add(var);
+            }
+            data.writeInt(vars.size());
+            for(Variable var : vars){
+                writeVariable(data, var);
+            }
+        }
+
+        ArrayList<Variable> globals = entry.symbolTable.getVariables();
+        data.writeInt(globals.size());
+        for(Variable var : globals){
+            writeVariable(data, var);
+        }
+
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry read(ByteBuffer buffer) {
+        if(buffer.getInt() != MAGIC) return null;
+
+        int errors = buffer.getInt();
+        String output = readString(buffer);
+        RootSymbolTable symbolTable = new RootSymbolTable();
+
+        int functions = buffer.getInt();
+        for(int i = 0; i < functions; i++){
+            Function function = new Function(symbolTable.getSymbols());
+            function.setId(readString(buffer));
+            function.setLine(buffer.getInt());
+            function.setPos(buffer.getInt());
+            function.setNonDefaults(buffer.getInt());
+            function.setDefaults(buffer.getInt());
+            function.setReturnType(readType(buffer));
+
+            ArrayList<Variable> params = new ArrayList<>();
+            int count = buffer.getInt();
+            for(int j = 0; j < count; j++){
+                Variable param = readVariable(buffer, symbolTable);
+                params.add(param);
+                function.putVar(param.getId(), param);
+            }
+            function.setParams(params);
+
+            count = buffer.getInt();
+            for(int j = 0; j < count; j++){
+                Variable var = readVariable(buffer, symbolTable);
+                function.putVar(var.getId(), var);
+            }
+            symbolTable.addFunction(function);
+        }
+
+        int globals = buffer.getInt();
+        for(int i = 0; i < globals; i++){
+            Variable var = readVariable(buffer, symbolTable);
+            symbolTable.addVariable(var.getId(), var);
+        }
+        return new Entry(output, errors, symbolTable);
+    }
+
+    private static void writeVariable(DataOutputStream data, Variable var) throws IOException {
+        writeString(data, var.getId());
+        data.writeInt(var.getLine());
+        data.writeInt(var.getPos());
+        writeType(data, var.getType());
+        data.writeBoolean(var.isHasDefault());
+        data.writeInt(var.getDefIntValue());
+        writeString(data, var.getDefStringValue());
+    }
+
+    private static Variable readVariable(ByteBuffer buffer, RootSymbolTable symbolTable) {
+        Variable var = new Variable(symbolTable);
+        var.setId(readString(buffer));
+        var.setLine(buffer.getInt());
+        var.setPos(buffer.getInt());
+        var.setType(readType(buffer));
+        var.setHasDefault(buffer.get() != 0);
+        var.setDefIntValue(buffer.getInt());
+        var.setDefStringValue(readString(buffer));
+        return var;
+    }
+
+    // A type is written as its ordinal, or -1 for null
+    private static void writeType(DataOutputStream data, Type type) throws IOException {
+        data.writeByte(type == null ? -1 : type.ordinal());
+    }
+
+    private static Type readType(ByteBuffer buffer) {
+        byte ordinal = buffer.get();
+        return ordinal == -1 ? null : Type.values()[ordinal];
+    }
+
+    // A string is written as the length of its UTF-8 bytes and the bytes, or -1 for null
+    private static void writeString(DataOutputStream data, String string) throws IOException {
+        if(string == null){
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length == -1) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized String toString() {
+        int lookups = hits + misses;
+        return String.format("Compile cache: %d hits, %d misses (%.1f%% hit rate)",
+                hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+    }
+
+    /* Getters */
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Class Entry
+     * The result of a compilation: the printed errors, their number and the symbolTable
+     */
+    public static class Entry {
+        private String output;
+        private int errors;
+        private RootSymbolTable symbolTable;
+
+        public Entry(String output, int errors, RootSymbolTable symbolTable) {
+            this.output = output;
+            this.errors = errors;
+            this.symbolTable = symbolTable;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public RootSymbolTable getSymbolTable() {
+            return symbolTable;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Class CompileClient
+ * This class sends files, or the source read from the standard input, to a running CompileServer and prints
+ * their errors as they come back, so it never loads the parser or the visitors itself.
+ *
+ * Usage: CompileClient [--socket path] [--json] file...
+ * where a file - means the standard input
+ */
+public class CompileClient {
+    private DataInputStream in;
+    private DataOutputStream out;
+    private SocketChannel channel;
+
+    /**
+     * Constructor, connects to the server
+     * @param socket the path of the socket of the server
+     */
+    public CompileClient(Path socket) throws IOException {
+        channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socket));
+        in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+    }
+
+    public static void main(String[] args) {
+        Path socket = CompileServer.defaultSocket();
+        DiagnosticSink.Format format = DiagnosticSink.Format.TEXT;
+        int files = 0;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--socket") && i + 1 < args.length) socket = Paths.get(args[++i]);
+            else if(args[i].equals("--json")) format = DiagnosticSink.Format.JSON;
+        }
+
+        try {
+            CompileClient client = new CompileClient(socket);
+            for(int i = 0; i < args.length; i++){
+                if(args[i].equals("--socket")){
+                    i++;
+                    continue;
+                }
+                if(args[i].equals("--json")) continue;
+
+                if(args[i].equals("-")) client.compileSource(System.in.readAllBytes(), format, System.out);
+                else client.compileFile(Paths.get(args[i]), format, System.out);
+                files++;
+            }
+            if(files == 0) client.compileSource(System.in.readAllBytes(), format, System.out);
+            client.close();
+        } catch (IOException e) {
+            System.err.println("Cannot reach the compile server at " + socket + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compiles a file on the server
+     * @param file the file, sent as an absolute path since the server may run elsewhere
+     * @param format the format of the errors
+     * @param print where the errors are printed
+     * @return the number of errors, or -1 if the compilation failed
+     */
+    public int compileFile(Path file, DiagnosticSink.Format format, PrintStream print) throws IOException {
+        out.writeUTF(format.name());
+        out.writeUTF("FILE");
+        out.writeUTF(file.toAbsolutePath().toString());
+        out.flush();
+        return answer(format, print);
+    }
+
+    /**
+     * Compiles a source on the server
+     * @param source the bytes of the source, in UTF-8
+     * @param format the format of the errors
+     * @param print where the errors are printed
+     * @return the number of errors, or -1 if the compilation failed
+     */
+    public int compileSource(byte[] source, DiagnosticSink.Format format, PrintStream print) throws IOException {
+        out.writeUTF(format.name());
+        out.writeUTF("SOURCE");
+        out.writeInt(source.length);
+        out.write(source);
+        out.flush();
+        return answer(format, print);
+    }
+
+    // Prints the frames of an answer until its end
+    private int answer(DiagnosticSink.Format format, PrintStream print) throws IOException {
+        while(true){
+            int length = in.readInt();
+            if(length == CompileServer.END){
+                int errors = in.readInt();
+                if(format == DiagnosticSink.Format.TEXT) print.println("Compilation finished with " + errors + " errors.");
+                print.flush();
+                return errors;
+            }
+            if(length == CompileServer.FAILED){
+                print.println("Compilation failed: " + in.readUTF());
+                print.flush();
+                return -1;
+            }
+
+            byte[] frame = new byte[length];
+            in.readFully(frame);
+            print.write(frame);
+            print.flush();
+        }
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class CompileMetrics
+ * This class records where a compilation spends its time: the wall time and the bytes allocated by each phase,
+ * read from the allocation counter of the thread, and how many times the helpers of the visitors are called.
+ * The bytes of PARALLEL_ANALYSIS also have the ones the threads of its pool allocated, which their bodies add up.
+ * One CompileMetrics can be shared by many compilations, even on many threads, then it holds their sums.
+ * Each phase is also recorded as a CompilePhaseEvent, so it shows in a JFR recording.
+ *
+ * The values can be read one by one or all together with toMap, e.g. to export them to a monitoring system.
+ */
+public class CompileMetrics {
+    public enum Phase { LEXER, PARSER, SINGLE_PASS, DEFERRED_CHECKS, FIRST_VISITOR, SECOND_VISITOR, PARALLEL_ANALYSIS, CODE_GENERATION, INTERPRETER_SETUP, IR_LOWERING, IR_PASSES, FLAT_AST }
+
+    public enum Counter { EXPRESSION_TYPES, LEGIT_FUNCTION_CHECKS, ALL_FUNCTIONS_LOOKUPS, OVERLOAD_LOOKUPS, VARIABLE_LOOKUPS }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // The sums of each phase, indexed by its ordinal
+    private long[] nanos;
+    private long[] bytes;
+    private long[] runs;
+
+    // The counters are increased from the threads of ParallelAnalyzer too, so they are adders
+    private LongAdder[] counters;
+
+    public CompileMetrics() {
+        nanos = new long[Phase.values().length];
+        bytes = new long[Phase.values().length];
+        runs = new long[Phase.values().length];
+        counters = new LongAdder[Counter.values().length];
+        for(int i = 0; i < counters.length; i++){
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Starts timing a phase on this thread, it is recorded when the returned timer ends
+     * @param metrics where the phase is recorded, or null to only record the JFR event
+     * @param phase the phase
+     * @return the timer
+     */
+    public static Timer start(CompileMetrics metrics, Phase phase) {
+        return new Timer(metrics, phase);
+    }
+
+    /**
+     * Adds the time and allocations of one run of a phase
+     * @param phase the phase
+     * @param phaseNanos the wall time in ns
+     * @param phaseBytes the allocated bytes
+     */
+    public synchronized void add(Phase phase, long phaseNanos, long phaseBytes) {
+        nanos[phase.ordinal()] += phaseNanos;
+        bytes[phase.ordinal()] += phaseBytes;
+        runs[phase.ordinal()]++;
+    }
+
+    public void count(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    // The bytes allocated so far by the current thread
+    static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Prints a table with the time, the allocations and the runs of each phase, and the counters
+     * @param out where the table is printed
+     */
+    public synchronized void print(PrintStream out) {
+        long totalNanos = 0;
+        for(long phaseNanos : nanos){
+            totalNanos += phaseNanos;
+        }
+
+        out.println(String.format("%-18s %12s %8s %14s %8s", "phase", "ms", "%", "KB allocated", "runs"));
+        for(Phase phase : Phase.values()){
+            int i = phase.ordinal();
+            if(runs[i] == 0) continue;
+            out.println(String.format("%-18s %12.3f %7.1f%% %14.1f %8d", phase, nanos[i] / 1e6,
+                    totalNanos == 0 ? 0 : 100.0 * nanos[i] / totalNanos, bytes[i] / 1024.0, runs[i]));
+        }
+        out.println(String.format("%-18s %12.3f", "total", totalNanos / 1e6));
+        for(Counter counter : Counter.values()){
+            out.println(String.format("%-22s %12d", counter, getCount(counter)));
+        }
+    }
+
+    /**
+     * Returns all the values, named like lexer.nanos, lexer.bytes, lexer.runs and expression_types
+     * @return the values in the order of the phases and then the counters
+     */
+    public synchronized LinkedHashMap<String, Long> toMap() {
+        LinkedHashMap<String, Long> values = new LinkedHashMap<>();
+        for(Phase phase : Phase.values()){
+            String name = phase.name().toLowerCase();
+            values.put(name + ".nanos", nanos[phase.ordinal()]);
+            values.put(name + ".bytes", bytes[phase.ordinal()]);
+            values.put(name + ".runs", runs[phase.ordinal()]);
+        }
+        for(Counter counter : Counter.values()){
+            values.put(counter.name().toLowerCase(), getCount(counter));
+        }
+        return values;
+    }
+
+    public synchronized void reset() {
+        for(int i = 0; i < nanos.length; i++){
+            nanos[i] = 0;
+            bytes[i] = 0;
+            runs[i] = 0;
+        }
+        for(LongAdder counter : counters){
+            counter.reset();
+        }
+    }
+
+    /* Getters */
+
+    public synchronized long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public synchronized long getAllocatedBytes(Phase phase) {
+        return bytes[phase.ordinal()];
+    }
+
+    public synchronized long getRuns(Phase phase) {
+        return runs[phase.ordinal()];
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Class Timer
+     * Times one run of a phase on the thread that started it
+     */
+    public static class Timer {
+        private CompileMetrics metrics;
+        private Phase phase;
+        private CompilePhaseEvent event;
+        private long startNanos;
+        private long startBytes;
+
+        // The time and allocations of another phase that ran inside this one, recorded on its own
+        private long excludedNanos;
+        private long excludedBytes;
+
+        // The allocations of other threads for this phase
+        private long includedBytes;
+
+        private Timer(CompileMetrics metrics, Phase phase) {
+            this.metrics = metrics;
+            this.phase = phase;
+            this.event = new CompilePhaseEvent();
+            this.startBytes = allocatedBytes();
+            this.startNanos = System.nanoTime();
+            event.begin();
+        }
+
+        /**
+         * Leaves out of the metrics of this phase another phase that ran inside it, its event still holds them
+         * @param nanos the wall time of the other phase in ns
+         * @param bytes the bytes the other phase allocated
+         */
+        public void exclude(long nanos, long bytes) {
+            excludedNanos += nanos;
+            excludedBytes += bytes;
+        }
+
+        /**
+         * Adds to this phase what other threads allocated for it, which the counter of this thread does not have
+         * @param bytes the bytes the other threads allocated
+         */
+        public void include(long bytes) {
+            includedBytes += bytes;
+        }
+
+        /**
+         * Ends the phase, records it and commits its event
+         * @return the wall time of the phase in ns
+         */
+        public long end() {
+            long phaseNanos = System.nanoTime() - startNanos;
+            event.end();
+            long phaseBytes = allocatedBytes() - startBytes + includedBytes;
+
+            if(event.shouldCommit()){
+                event.phase = phase.name();
+                event.allocated = phaseBytes;
+                event.commit();
+            }
+            if(metrics != null) metrics.add(phase, phaseNanos - excludedNanos, phaseBytes - excludedBytes);
+            return phaseNanos;
+        }
+    }
+}
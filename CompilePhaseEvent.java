@@ -0,0 +1,25 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Class CompilePhaseEvent
+ * This class represents a JFR event for one phase of a compilation, see CompileMetrics.
+ * The lexer runs inside the parser, token by token, so it has no events of its own and its time is part of
+ * the PARSER events.
+ */
+@Name("minipython.CompilePhase")
+@Label("Compile Phase")
+@Category("MiniPython")
+@Description("A phase of the compilation of a MiniPython source")
+public class CompilePhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,227 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class CompileServer
+ * This class represents a compile server that stays running, listening on a Unix domain socket, so the compilations
+ * do not pay for starting the JVM and loading the parser, and run on code the JIT has already compiled.
+ * The server compiles a small program many times when it starts, to warm up the lexer, the parser and both visitors.
+ *
+ * Each connection sends any number of requests, see CompileClient:
+ *   the format of the errors (TEXT or JSON), then FILE and the path of a file to compile,
+ *   or SOURCE and the length and the bytes of a source, all written with a DataOutputStream.
+ * For each request the server answers with frames, each one an int length followed by that many bytes of output,
+ * sent as soon as the errors are printed. The answer ends with a frame of length -1 followed by the number of errors,
+ * or a frame of length -2 followed by the reason the compilation failed.
+ *
+ * Usage: CompileServer [--socket path] [--cache directory]
+ */
+public class CompileServer {
+    // The frames that end an answer
+    public static final int END = -1;
+    public static final int FAILED = -2;
+
+    private static final String WARM_UP_SOURCE =
+            "def add(x, y = 1): return x + y\n" +
+            "def greet(name): return \"hi \" + name\n" +
+            "a = add(1, 2)\n" +
+            "s = greet(\"bob\")\n" +
+            "arr = [1, 2, 3]\n" +
+            "for i in arr: print i\n" +
+            "b = a * 2 - add(a) / 3\n" +
+            "c = s + 1\n" +
+            "d = undefined + 1\n";
+
+    private static final int WARM_UP_COMPILES = 2000;
+
+    private Path socket;
+    private CompileCache cache;
+
+    /**
+     * Constructor
+     * @param socket the path of the socket
+     * @param cache the cache of the unchanged files, or null
+     */
+    public CompileServer(Path socket, CompileCache cache) {
+        this.socket = socket;
+        this.cache = cache;
+    }
+
+    // The socket used when no other is given, one for each user
+    public static Path defaultSocket() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "minipython-" + System.getProperty("user.name") + ".sock");
+    }
+
+    public static void main(String[] args) {
+        Path socket = defaultSocket();
+        String cacheDirectory = null;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--socket") && i + 1 < args.length) socket = Paths.get(args[++i]);
+            else if(args[i].equals("--cache") && i + 1 < args.length) cacheDirectory = args[++i];
+        }
+
+        try {
+            CompileCache cache = cacheDirectory == null ? null :
+                    new CompileCache(Paths.get(cacheDirectory), CompileCache.DEFAULT_MAX_SIZE);
+            new CompileServer(socket, cache).run();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Warms up and then serves the connections, each one on its own thread, until the process is stopped
+     */
+    public void run() throws IOException {
+        long start = System.nanoTime();
+        warmUp();
+        System.out.println(String.format("Warmed up in %d ms", (System.nanoTime() - start) / 1000000));
+
+        // a socket left by a server that did not stop cleanly
+        Files.deleteIfExists(socket);
+
+        ExecutorService connections = Executors.newCachedThreadPool();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // nothing to do while stopping
+                }
+            }));
+            System.out.println("Listening on " + socket);
+
+            while(true){
+                SocketChannel channel = server.accept();
+                connections.submit(() -> serve(channel));
+            }
+        } finally {
+            connections.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles the warm up source until the JIT has compiled the hot paths
+     */
+    private static void warmUp() {
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        for(int i = 0; i < WARM_UP_COMPILES; i++){
+            try {
+                new Compiler(out).compile(AsciiSource.of(WARM_UP_SOURCE));
+            } catch (Exception e) {
+                throw new IllegalStateException("The warm up source does not compile", e);
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of a connection until the client closes it
+     * @param channel the connection
+     */
+    private void serve(SocketChannel channel) {
+        try (SocketChannel closed = channel) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+            while(true){
+                String format;
+                try {
+                    format = in.readUTF();
+                } catch (EOFException e) {
+                    return;
+                }
+                String kind = in.readUTF();
+
+                String path = null;
+                byte[] source = null;
+                if(kind.equals("FILE")){
+                    path = in.readUTF();
+                }
+                else{
+                    source = new byte[in.readInt()];
+                    in.readFully(source);
+                }
+
+                compile(path, source, DiagnosticSink.Format.valueOf(format), out);
+            }
+        } catch (IOException | RuntimeException e) {
+            // the client has gone away or sent something else, the connection is closed
+        }
+    }
+
+    /**
+     * Compiles a file or a source, sending its errors as they are printed
+     * @param path the path of the file, or null
+     * @param source the source if there is no file
+     * @param format the format of the errors
+     * @param out the connection
+     */
+    private void compile(String path, byte[] source, DiagnosticSink.Format format, DataOutputStream out) throws IOException {
+        PrintStream frames = new PrintStream(new FrameOutputStream(out), false);
+        Compiler compiler = new Compiler(frames);
+        compiler.setFormat(format);
+        compiler.setCache(cache);
+
+        try (AsciiSource reader = path != null ? AsciiSource.open(Paths.get(path)) : AsciiSource.of(source)) {
+            compiler.compile(reader);
+            frames.flush();
+            out.writeInt(END);
+            out.writeInt(compiler.getErrors());
+        } catch (Exception e) {
+            frames.flush();
+            out.writeInt(FAILED);
+            out.writeUTF(String.valueOf(e.getMessage()));
+        }
+        out.flush();
+    }
+
+    /**
+     * Class FrameOutputStream
+     * Keeps what is printed and sends it as one frame whenever it is flushed
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private DataOutputStream out;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private FrameOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if(buffer.size() == 0) return;
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+            out.flush();
+            buffer.reset();
+        }
+    }
+}
@@ -0,0 +1,409 @@
+import minipython.lexer.LexerException;
+import minipython.node.Start;
+import minipython.node.Token;
+import minipython.parser.Parser;
+import minipython.parser.ParserException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class Compiler
+ * This class runs the compilation of one MiniPython source: the lexer, the parser and both visitors,
+ * each compilation with its own symbolTable
+ */
+public class Compiler {
+    /* Increased whenever the checks change, so the results cached by older versions are not used, see CompileCache */
+    public static final String VERSION = "2";
+
+    /* Where the errors are printed */
+    private PrintStream out;
+
+    /* If not null, the function bodies are checked in parallel on this pool, see ParallelAnalyzer */
+    private ForkJoinPool pool;
+
+    /* The functions that can be called without being defined in the source, otherwise null */
+    private FunctionImports imports;
+
+    /* How the errors are printed */
+    private DiagnosticSink.Format format = DiagnosticSink.Format.TEXT;
+
+    /* If not null, the results of unchanged sources are taken from this cache */
+    private CompileCache cache;
+
+    /* If not null, the time and allocations of each phase and the calls of the helpers are added to it */
+    private CompileMetrics metrics;
+
+    /* If true, the FirstVisitor and then the SecondVisitor check the program, instead of the SinglePassVisitor */
+    private boolean twoPasses = false;
+
+    /* If false, the backends leave every addition of strings on its own instead of computing the chains with one StringBuilder */
+    private boolean concatChains = true;
+
+    /* If false, the arrays of the program keep their elements boxed instead of in an int[] while they are ints */
+    private boolean intArrays = true;
+
+    /* The results of the last compilation */
+    private RootSymbolTable symbolTable;
+    private Start ast;
+    private int errors;
+    private Diagnostics diagnostics;
+    private HashMap<String, TreeSet<Integer>> calls;
+
+    /* The names of the source parsed, interned by the lexer, until it is analyzed */
+    private Symbols symbols;
+
+    /**
+     * Constructor
+     * @param out where the errors are printed
+     */
+    public Compiler(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Compiles a source and prints its errors
+     * @param reader the source, read fastest as an AsciiSource
+     * @return the number of errors
+     */
+    public int compile(Reader reader) throws ParserException, LexerException, IOException {
+        // the errors of a source with imports also depend on the other sources, which are not in the key
+        if(cache == null || imports != null){
+            return analyze(parse(reader));
+        }
+
+        String source = reader instanceof AsciiSource ? ((AsciiSource) reader).contents() : read(reader);
+        String key = CompileCache.key(source, format, getMode());
+        CompileCache.Entry entry = cache.get(key);
+        if(entry != null){
+            // the source has been compiled before, so just print its errors
+            out.print(entry.getOutput());
+            ast = null;
+            symbolTable = entry.getSymbolTable();
+            errors = entry.getErrors();
+            diagnostics = null;
+            calls = null;
+            return errors;
+        }
+
+        // keep what is printed, to cache it
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream printed = out;
+        out = new PrintStream(buffer, false);
+        try {
+            analyze(parse(AsciiSource.of(source)));
+        } finally {
+            out.flush();
+            out = printed;
+        }
+
+        out.print(buffer.toString());
+        cache.put(key, new CompileCache.Entry(buffer.toString(), errors, symbolTable));
+        return errors;
+    }
+
+    // How the source is analyzed, which is part of the key of its cached results
+    private String getMode() {
+        if(pool != null) return "parallel";
+        return twoPasses ? "two-passes" : "single-pass";
+    }
+
+    private Start parse(Reader reader) throws ParserException, LexerException, IOException {
+        // an AsciiSource is already what the lexer reads, any other reader is wrapped
+        PushbackReader in = reader instanceof AsciiSource ? (AsciiSource) reader : new PushbackReader(reader, 1024);
+
+        CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.PARSER);
+        symbols = new Symbols();
+        if(metrics == null){
+            Parser parser = new Parser(new SymbolLexer(in, symbols));
+            Start start = parser.parse();
+            timer.end();
+            return start;
+        }
+
+        // the lexer is timed token by token, and its time is taken out of the parser
+        TimedLexer lexer = new TimedLexer(in, symbols);
+        Start start = new Parser(lexer).parse();
+        timer.exclude(lexer.nanos, lexer.bytes);
+        timer.end();
+        metrics.add(CompileMetrics.Phase.LEXER, lexer.nanos, lexer.bytes);
+        return start;
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder source = new StringBuilder();
+        char[] chars = new char[8192];
+        int count;
+        while((count = reader.read(chars)) != -1){
+            source.append(chars, 0, count);
+        }
+        return source.toString();
+    }
+
+    /**
+     * Checks a parsed source and prints its errors
+     * @param ast the source
+     * @return the number of errors
+     */
+    public int analyze(Start ast) {
+        this.ast = ast;
+        // a source parsed somewhere else has its names interned as they are looked up
+        symbolTable = new RootSymbolTable(symbols != null ? symbols : new Symbols());
+        symbols = null;
+        symbolTable.setImports(imports);
+        symbolTable.setMetrics(metrics);
+        calls = null;
+        diagnostics = new Diagnostics(new DiagnosticSink(out, format));
+
+        if(pool != null){
+            CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.PARALLEL_ANALYSIS);
+            ParallelAnalyzer analyzer = new ParallelAnalyzer(pool);
+            analyzer.analyze(ast, symbolTable, diagnostics);
+            // the bodies are checked on the threads of the pool, whose allocations are not in the counter of this one
+            timer.include(analyzer.getWorkerBytes());
+            timer.end();
+        }
+        else if(!twoPasses){
+            CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.SINGLE_PASS);
+            SinglePassVisitor visitor = new SinglePassVisitor(symbolTable, diagnostics);
+            ast.apply(visitor);
+            timer.end();
+
+            timer = CompileMetrics.start(metrics, CompileMetrics.Phase.DEFERRED_CHECKS);
+            visitor.resolve();
+            timer.end();
+            calls = visitor.getCalls();
+        }
+        else{
+            CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.FIRST_VISITOR);
+            FirstVisitor first = new FirstVisitor(symbolTable, diagnostics);
+            ast.apply(first);
+            timer.end();
+
+            timer = CompileMetrics.start(metrics, CompileMetrics.Phase.SECOND_VISITOR);
+            SecondVisitor second = new SecondVisitor(symbolTable, diagnostics);
+            ast.apply(second);
+            timer.end();
+            calls = second.getCalls();
+        }
+
+        diagnostics.flush();
+        errors = diagnostics.getCount();
+        return errors;
+    }
+
+    /**
+     * Compiles the last source to a JVM class whose main runs it, see CodeGenerator
+     * @param className the name of the class
+     * @return the class file
+     */
+    public byte[] generate(String className) {
+        if(ast == null) throw new IllegalStateException("There is no checked source to generate, it was taken from the cache");
+        if(errors > 0) throw new IllegalStateException("A source with errors cannot be generated");
+
+        CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.CODE_GENERATION);
+        CodeGenerator generator = new CodeGenerator(className, symbolTable);
+        generator.setConcatChains(concatChains);
+        generator.setIntArrays(intArrays);
+        byte[] bytes = generator.generate(ast);
+        timer.end();
+        return bytes;
+    }
+
+    /**
+     * Builds the nodes of the last source, to run it with the Interpreter instead of generating a class
+     * @param specialized whether the expressions typed INT are computed with ints, see Interpreter
+     * @return the interpreter, ready to run
+     */
+    public Interpreter interpreter(boolean specialized) {
+        if(ast == null) throw new IllegalStateException("There is no checked source to run, it was taken from the cache");
+        if(errors > 0) throw new IllegalStateException("A source with errors cannot be run");
+
+        CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.INTERPRETER_SETUP);
+        Interpreter interpreter = new Interpreter(symbolTable);
+        interpreter.setSpecialized(specialized);
+        interpreter.setConcatChains(concatChains);
+        interpreter.setIntArrays(intArrays);
+        interpreter.prepare(ast);
+        timer.end();
+        return interpreter;
+    }
+
+    /**
+     * Lowers the parsed tree of the last source to a FlatAst, which does not need it to be checked
+     * @return the flat tree
+     */
+    public FlatAst flatAst() {
+        if(ast == null) throw new IllegalStateException("There is no parsed source to flatten, it was taken from the cache");
+
+        CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.FLAT_AST);
+        FlatAst flat = FlatAst.of(ast);
+        timer.end();
+        return flat;
+    }
+
+    /**
+     * Lowers the last source to the IR and runs the passes over it
+     * @param passes the passes, or null to keep the program as it is lowered
+     * @return the program in the IR
+     */
+    public IrProgram lower(PassManager passes) {
+        if(ast == null) throw new IllegalStateException("There is no checked source to lower, it was taken from the cache");
+        if(errors > 0) throw new IllegalStateException("A source with errors cannot be lowered");
+
+        CompileMetrics.Timer timer = CompileMetrics.start(metrics, CompileMetrics.Phase.IR_LOWERING);
+        IrLowering lowering = new IrLowering(symbolTable);
+        lowering.setConcatChains(concatChains);
+        lowering.setIntArrays(intArrays);
+        IrProgram program = lowering.lower(ast);
+        timer.end();
+
+        if(passes != null){
+            timer = CompileMetrics.start(metrics, CompileMetrics.Phase.IR_PASSES);
+            passes.run(program);
+            timer.end();
+        }
+        return program;
+    }
+
+    /* Getters and Setters */
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public FunctionImports getImports() {
+        return imports;
+    }
+
+    public void setImports(FunctionImports imports) {
+        this.imports = imports;
+    }
+
+    public DiagnosticSink.Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(DiagnosticSink.Format format) {
+        this.format = format;
+    }
+
+    public CompileCache getCache() {
+        return cache;
+    }
+
+    public void setCache(CompileCache cache) {
+        this.cache = cache;
+    }
+
+    public boolean isTwoPasses() {
+        return twoPasses;
+    }
+
+    public void setTwoPasses(boolean twoPasses) {
+        this.twoPasses = twoPasses;
+    }
+
+    public boolean isConcatChains() {
+        return concatChains;
+    }
+
+    public void setConcatChains(boolean concatChains) {
+        this.concatChains = concatChains;
+    }
+
+    public boolean isIntArrays() {
+        return intArrays;
+    }
+
+    public void setIntArrays(boolean intArrays) {
+        this.intArrays = intArrays;
+    }
+
+    public CompileMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(CompileMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RootSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    // The parsed source, or null if the results were taken from the cache
+    public Start getAst() {
+        return ast;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    // The errors of the source, or null if they were taken from the cache
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    // The functions called by the source, or null if it was checked in parallel
+    public HashMap<String, TreeSet<Integer>> getCalls() {
+        return calls;
+    }
+
+    /**
+     * Class TimedLexer
+     * A lexer that adds up the time and the allocations of reading the tokens, for CompileMetrics
+     */
+    private static class TimedLexer extends SymbolLexer {
+        private long nanos;
+        private long bytes;
+
+        // peek and next may call each other, only the outer call is timed
+        private int depth;
+
+        private TimedLexer(PushbackReader in, Symbols symbols) {
+            super(in, symbols);
+        }
+
+        @Override
+        public Token next() throws LexerException, IOException {
+            if(depth > 0) return super.next();
+            long startBytes = CompileMetrics.allocatedBytes();
+            long start = System.nanoTime();
+            depth++;
+            try {
+                return super.next();
+            } finally {
+                depth--;
+                nanos += System.nanoTime() - start;
+                bytes += CompileMetrics.allocatedBytes() - startBytes;
+            }
+        }
+
+        @Override
+        public Token peek() throws LexerException, IOException {
+            if(depth > 0) return super.peek();
+            long startBytes = CompileMetrics.allocatedBytes();
+            long start = System.nanoTime();
+            depth++;
+            try {
+                return super.peek();
+            } finally {
+                depth--;
+                nanos += System.nanoTime() - start;
+                bytes += CompileMetrics.allocatedBytes() - startBytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Class ConcatBenchmark
+ * Measures the Interpreter and the compiled classes of the CodeGenerator on programs that build log lines, with the chains
+ * of additions of strings computed with one StringBuilder (see Utils.getConcatOperands) and with a String for each +.
+ * A chain of n operands makes n - 1 Strings the one way, each a copy of the one before, and a StringBuilder the other.
+ *
+ * Each program is measured in a new JVM for each backend and each way, see BenchmarkHarness.
+ *
+ * Usage: ConcatBenchmark [--lines N] [--rounds N]
+ */
+public class ConcatBenchmark {
+    private static final String[] NAMES = {"print lines", "return lines", "long chain"};
+    private static final String[] BACKENDS = {"interpreter", "class"};
+
+    public static void main(String[] args) throws Exception {
+        int lines = 200;
+        int rounds = 200;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--lines") && i + 1 < args.length) lines = Integer.parseInt(args[++i]);
+            else if(args[i].equals("--rounds") && i + 1 < args.length) rounds = Integer.parseInt(args[++i]);
+        }
+
+        int logLines = lines;
+        int logRounds = rounds;
+        BenchmarkHarness harness = new BenchmarkHarness(ConcatBenchmark.class, NAMES, "+", "chain");
+        harness.setVariants("backend", BACKENDS);
+        harness.run(args, (program, backend, plain) -> {
+            Compiler compiler = new Compiler(System.out);
+            compiler.setConcatChains(!plain);
+            BenchmarkHarness.compile(compiler, createSource(program, logLines, logRounds));
+            if(backend == 0) return compiler.interpreter(true)::run;
+
+            Class<?> compiled = CodeGenerator.load("ConcatProgram", compiler.generate("ConcatProgram"));
+            return () -> MiniPythonRuntime.run(compiled);
+        });
+    }
+
+    // The programs, each one makes lines * rounds log lines out of an array of messages
+    private static String createSource(int program, int lines, int rounds) {
+        StringBuilder messages = new StringBuilder("messages = [");
+        StringBuilder repeats = new StringBuilder("rounds = [");
+        for(int i = 0; i < lines; i++){
+            messages.append(i == 0 ? "" : ", ").append("\"request ").append(i).append(" served\"");
+        }
+        for(int i = 0; i < rounds; i++){
+            repeats.append(i == 0 ? "" : ", ").append(i);
+        }
+        String arrays = messages.append("]\n").toString() + repeats.append("]\n")
+                + "level = \"info\"\n"
+                + "name = \"server\"\n";
+        switch(program){
+            case 0:
+                return arrays
+                        + "for r in rounds: for m in messages: print \"[\" + level + \"] \" + name + \": \" + m + \" in the worker pool\"\n";
+            case 1:
+                return arrays
+                        + "def entry(tag, text):\n"
+                        + "    return \"[\" + tag + \"] \" + name + \": \" + text + \" in the worker pool\"\n"
+                        + "for r in rounds: for m in messages: line = entry(level, m)\n"
+                        + "print line\n";
+            default:
+                return arrays
+                        + "for r in rounds: for m in messages: line = level + \" \" + name + \" \" + m + \" \" + m + \" \" + level"
+                        + " + \" \" + name + \" \" + m + \" \" + m\n"
+                        + "print line\n";
+        }
+    }
+}
@@ -0,0 +1,295 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Class ConstantFoldingPass
+ * Computes what can be computed before the program runs: an operation whose operands are constants becomes
+ * a constant, e.g. x = 3 * 4 + 1 or "a" + "b", a copy of a constant becomes the constant, and a branch on a constant
+ * becomes a jump, so the blocks of an if or a while that can never run are left unreachable for SimplifyBlocksPass.
+ *
+ * A register is a constant where it is read if it is written only once, by a CONST, and that write always runs
+ * before the read, i.e. it is earlier in the same block or in a block that dominates the one of the read.
+ * A global variable assigned only once, with a constant, in the statements the program starts with
+ * (before any call or control flow), is a constant in all the functions and after the assignment in the top level.
+ *
+ * An operation that would fail, e.g. a division by zero or "a" - 1, is left to fail when the program runs.
+ */
+public class ConstantFoldingPass implements IrPass {
+    // The value of a register or a global variable that is not a constant
+    private static final Object UNKNOWN = new Object();
+
+    // The program whose global variables have been looked at, the value of each one and where it is assigned
+    private IrProgram analyzed;
+    private Object[] globals;
+    private int[] stores;
+    private boolean mainChanged;
+
+    @Override
+    public String getName() {
+        return "fold constants";
+    }
+
+    @Override
+    public boolean run(IrFunction function, IrProgram program) {
+        if(program != analyzed){
+            // the values assigned to the globals are known only after the top level has been folded
+            analyzed = program;
+            globals = null;
+            mainChanged = fold(program.getMain());
+            findGlobals(program);
+        }
+        boolean changed = fold(function);
+        if(function == program.getMain()){
+            changed |= mainChanged;
+            analyzed = null;
+        }
+        return changed;
+    }
+
+    private boolean fold(IrFunction function) {
+        ArrayList<IrBlock> blocks = function.getBlocks();
+        int[] dominators = dominators(function);
+        boolean main = function == analyzed.getMain();
+
+        // where each register is written, if only once
+        int registers = function.getRegisterCount();
+        IrInstruction[] definitions = new IrInstruction[registers];
+        int[] definitionBlocks = new int[registers];
+        int[] definitionIndexes = new int[registers];
+        int[] writes = new int[registers];
+        for(int i = 0; i < function.getParams(); i++){
+            writes[i]++;
+        }
+        for(int b = 0; b < blocks.size(); b++){
+            ArrayList<IrInstruction> instructions = blocks.get(b).getInstructions();
+            for(int i = 0; i < instructions.size(); i++){
+                int dest = instructions.get(i).getDest();
+                if(dest == IrInstruction.NONE) continue;
+                writes[dest]++;
+                definitions[dest] = instructions.get(i);
+                definitionBlocks[dest] = b;
+                definitionIndexes[dest] = i;
+            }
+        }
+
+        boolean changed = false;
+        boolean again = true;
+        while(again){
+            again = false;
+            for(int b = 0; b < blocks.size(); b++){
+                ArrayList<IrInstruction> instructions = blocks.get(b).getInstructions();
+                for(int i = 0; i < instructions.size(); i++){
+                    IrInstruction instruction = instructions.get(i);
+                    int[] operands = instruction.getOperands();
+                    Object[] values = new Object[operands.length];
+                    boolean constant = true;
+                    for(int o = 0; o < operands.length && constant; o++){
+                        int operand = operands[o];
+                        values[o] = UNKNOWN;
+                        if(writes[operand] == 1 && definitions[operand] != null && definitions[operand].getOp() == IrInstruction.Op.CONST
+                                && (definitionBlocks[operand] == b ? definitionIndexes[operand] < i : dominates(dominators, definitionBlocks[operand], b))){
+                            values[o] = definitions[operand].getConstant();
+                        }
+                        constant = values[o] != UNKNOWN;
+                    }
+
+                    Object value = UNKNOWN;
+                    switch(instruction.getOp()){
+                        case COPY: case ADD: case SUB: case MUL: case DIV: case CONCAT: case EQ: case NE: case LT: case GT:
+                            if(constant) value = compute(instruction.getOp(), values);
+                            break;
+                        case LOAD_GLOBAL:
+                            int global = instruction.getGlobal();
+                            if(globals != null && globals[global] != UNKNOWN && (!main || b > 0 || i > stores[global])) value = globals[global];
+                            break;
+                        case BRANCH:
+                            if(constant){
+                                IrBlock target = instruction.getTargets()[MiniPythonRuntime.truthy(values[0]) ? 0 : 1];
+                                instructions.set(i, IrInstruction.jump(target));
+                                again = true;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    if(value != UNKNOWN){
+                        // the instruction becomes a CONST in place, so it stays the definition of its dest
+                        instruction.setOp(IrInstruction.Op.CONST);
+                        instruction.setOperands();
+                        instruction.setConstant(value);
+                        again = true;
+                    }
+                }
+            }
+            changed |= again;
+        }
+        return changed;
+    }
+
+    // The result of an operation on constants, or UNKNOWN if it fails, so that it fails when the program runs
+    private static Object compute(IrInstruction.Op op, Object[] values) {
+        try {
+            switch(op){
+                case COPY: return values[0];
+                case ADD: return MiniPythonRuntime.add(values[0], values[1]);
+                case SUB: return MiniPythonRuntime.sub(values[0], values[1]);
+                case MUL: return MiniPythonRuntime.mul(values[0], values[1]);
+                case DIV: return MiniPythonRuntime.div(values[0], values[1]);
+                case CONCAT:
+                    Object text = values[0];
+                    for(int i = 1; i < values.length; i++){
+                        text = MiniPythonRuntime.add(text, values[i]);
+                    }
+                    return text;
+                case EQ: return MiniPythonRuntime.eq(values[0], values[1]);
+                case NE: return !MiniPythonRuntime.eq(values[0], values[1]);
+                case LT: return MiniPythonRuntime.compare(values[0], values[1], "<") < 0;
+                default: return MiniPythonRuntime.compare(values[0], values[1], ">") > 0;
+            }
+        } catch (RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Finds the global variables that are assigned once, with a constant, in the first block of the top level
+     * before any call, when nothing jumps back to that block. Nothing else can run before the assignment then,
+     * and nothing can change the value after it.
+     */
+    private void findGlobals(IrProgram program) {
+        int count = program.getGlobals().size();
+        int[] assignments = new int[count];
+        for(IrFunction function : program.getAllFunctions()){
+            for(IrBlock block : function.getBlocks()){
+                for(IrInstruction instruction : block.getInstructions()){
+                    if(instruction.getOp() == IrInstruction.Op.STORE_GLOBAL) assignments[instruction.getGlobal()]++;
+                }
+            }
+        }
+
+        globals = new Object[count];
+        stores = new int[count];
+        Arrays.fill(globals, UNKNOWN);
+        IrFunction main = program.getMain();
+        IrBlock entry = main.getEntry();
+        for(IrBlock block : main.getBlocks()){
+            if(block.getSuccessors().contains(entry)) return;
+        }
+
+        // the constants written in the entry block, which runs once
+        Object[] registers = new Object[main.getRegisterCount()];
+        Arrays.fill(registers, UNKNOWN);
+        int[] writes = new int[main.getRegisterCount()];
+        for(IrBlock block : main.getBlocks()){
+            for(IrInstruction instruction : block.getInstructions()){
+                if(instruction.getDest() != IrInstruction.NONE) writes[instruction.getDest()]++;
+            }
+        }
+        ArrayList<IrInstruction> instructions = entry.getInstructions();
+        for(int i = 0; i < instructions.size(); i++){
+            IrInstruction instruction = instructions.get(i);
+            if(instruction.getOp() == IrInstruction.Op.CALL) break;
+            if(instruction.getOp() == IrInstruction.Op.CONST && writes[instruction.getDest()] == 1){
+                registers[instruction.getDest()] = instruction.getConstant();
+            }
+            if(instruction.getOp() == IrInstruction.Op.STORE_GLOBAL){
+                int global = instruction.getGlobal();
+                if(assignments[global] == 1){
+                    globals[global] = registers[instruction.getOperands()[0]];
+                    stores[global] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the immediate dominator of each block, the way Cooper, Harvey and Kennedy do it:
+     * going over the blocks in reverse postorder until nothing changes
+     * @return the index of the immediate dominator of each block, the entry for itself and -1 for unreachable blocks
+     */
+    private static int[] dominators(IrFunction function) {
+        ArrayList<IrBlock> blocks = function.getBlocks();
+        IdentityHashMap<IrBlock, Integer> indexes = new IdentityHashMap<>();
+        for(int i = 0; i < blocks.size(); i++){
+            indexes.put(blocks.get(i), i);
+        }
+
+        // the postorder, without recursion since the blocks of a long program are many
+        int[] order = new int[blocks.size()];
+        int[] postorder = new int[blocks.size()];
+        Arrays.fill(postorder, -1);
+        int visited = 0;
+        boolean[] seen = new boolean[blocks.size()];
+        int[] stack = new int[blocks.size()];
+        int[] next = new int[blocks.size()];
+        int top = 0;
+        stack[top++] = 0;
+        seen[0] = true;
+        while(top > 0){
+            int block = stack[top - 1];
+            List<IrBlock> successors = blocks.get(block).getSuccessors();
+            if(next[block] < successors.size()){
+                int successor = indexes.get(successors.get(next[block]++));
+                if(!seen[successor]){
+                    seen[successor] = true;
+                    stack[top++] = successor;
+                }
+            } else {
+                top--;
+                postorder[block] = visited;
+                order[visited++] = block;
+            }
+        }
+
+        ArrayList<ArrayList<Integer>> predecessors = new ArrayList<>();
+        for(int i = 0; i < blocks.size(); i++){
+            predecessors.add(new ArrayList<>());
+        }
+        for(int i = 0; i < blocks.size(); i++){
+            if(!seen[i]) continue;
+            for(IrBlock successor : blocks.get(i).getSuccessors()){
+                predecessors.get(indexes.get(successor)).add(i);
+            }
+        }
+
+        int[] dominators = new int[blocks.size()];
+        Arrays.fill(dominators, -1);
+        dominators[0] = 0;
+        boolean changed = true;
+        while(changed){
+            changed = false;
+            for(int k = visited - 2; k >= 0; k--){
+                int block = order[k];
+                int dominator = -1;
+                for(int predecessor : predecessors.get(block)){
+                    if(dominators[predecessor] == -1) continue;
+                    dominator = dominator == -1 ? predecessor : intersect(dominators, postorder, predecessor, dominator);
+                }
+                if(dominators[block] != dominator){
+                    dominators[block] = dominator;
+                    changed = true;
+                }
+            }
+        }
+        return dominators;
+    }
+
+    private static int intersect(int[] dominators, int[] postorder, int first, int second) {
+        while(first != second){
+            while(postorder[first] < postorder[second]) first = dominators[first];
+            while(postorder[second] < postorder[first]) second = dominators[second];
+        }
+        return first;
+    }
+
+    // True if every way to the block goes through the dominator first
+    private static boolean dominates(int[] dominators, int dominator, int block) {
+        if(dominators[block] == -1) return false;
+        while(block != dominator && block != 0){
+            block = dominators[block];
+        }
+        return block == dominator;
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+
+/**
+ * Class CopyCoalescingPass
+ * Writes the result of an instruction straight into the variable it is copied to: t = a + b followed by x = copy t
+ * becomes x = a + b, when t is read by nothing else and x is not read or written between the two,
+ * which is what the lowering of every assignment to a local variable looks like.
+ */
+public class CopyCoalescingPass implements IrPass {
+    @Override
+    public String getName() {
+        return "coalesce copies";
+    }
+
+    @Override
+    public boolean run(IrFunction function, IrProgram program) {
+        int[] uses = function.countUses();
+        int[] definitions = countDefinitions(function);
+
+        boolean changed = false;
+        for(IrBlock block : function.getBlocks()){
+            ArrayList<IrInstruction> instructions = block.getInstructions();
+            for(int i = 0; i < instructions.size(); i++){
+                IrInstruction copy = instructions.get(i);
+                if(copy.getOp() != IrInstruction.Op.COPY) continue;
+                int source = copy.getOperands()[0];
+                int target = copy.getDest();
+                if(source == target || uses[source] != 1 || definitions[source] != 1) continue;
+
+                int defining = findDefinition(instructions, i, source, target);
+                if(defining == -1) continue;
+                instructions.get(defining).setDest(target);
+                instructions.remove(i);
+                definitions[target]--;
+                i--;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Finds the instruction before a copy that writes its source, when nothing between them touches its target
+     * @return the index of the instruction, or -1
+     */
+    private static int findDefinition(ArrayList<IrInstruction> instructions, int copy, int source, int target) {
+        for(int i = copy - 1; i >= 0; i--){
+            IrInstruction instruction = instructions.get(i);
+            if(instruction.getDest() == source) return i;
+            if(instruction.getDest() == target) return -1;
+            for(int operand : instruction.getOperands()){
+                if(operand == target) return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] countDefinitions(IrFunction function) {
+        int[] definitions = new int[function.getRegisterCount()];
+        for(IrBlock block : function.getBlocks()){
+            for(IrInstruction instruction : block.getInstructions()){
+                if(instruction.getDest() != IrInstruction.NONE) definitions[instruction.getDest()]++;
+            }
+        }
+        return definitions;
+    }
+}
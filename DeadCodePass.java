@@ -0,0 +1,37 @@
+import java.util.ArrayList;
+
+/**
+ * Class DeadCodePass
+ * Removes the instructions whose result is never read, if removing them changes nothing else, see IrInstruction.isPure.
+ * Removing one may leave the ones it read unread too, so it goes on until there is nothing more to remove.
+ */
+public class DeadCodePass implements IrPass {
+    @Override
+    public String getName() {
+        return "dead code";
+    }
+
+    @Override
+    public boolean run(IrFunction function, IrProgram program) {
+        int[] uses = function.countUses();
+        boolean changed = false;
+        boolean again = true;
+        while(again){
+            again = false;
+            for(IrBlock block : function.getBlocks()){
+                ArrayList<IrInstruction> instructions = block.getInstructions();
+                for(int i = instructions.size() - 1; i >= 0; i--){
+                    IrInstruction instruction = instructions.get(i);
+                    if(instruction.getDest() == IrInstruction.NONE || uses[instruction.getDest()] > 0 || !instruction.isPure()) continue;
+                    for(int operand : instruction.getOperands()){
+                        uses[operand]--;
+                    }
+                    instructions.remove(i);
+                    again = true;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+}
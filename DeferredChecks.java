@@ -0,0 +1,120 @@
+import minipython.analysis.DepthFirstAdapter;
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class DeferredChecks
+ * This class represents the worklist of a SinglePassVisitor: the nodes that the SecondVisitor would check,
+ * the function calls, the additions and the equals statements, kept in the order the SecondVisitor meets them.
+ * They can only be checked once all the functions are defined, so they are resolved after the traversal,
+ * in that order, with the same checks as the SecondVisitor, so the errors come out the same.
+ *
+ * The SecondVisitor visits the expression of an equals statement twice, once before it assigns the variable and once
+ * more as a child of the statement, so for each equals statement we also keep where the checks of its expression end.
+ */
+public class DeferredChecks {
+    private ArrayList<Node> nodes;
+
+    // For the equals statements, the index after the last check of their expression
+    private int[] ends;
+
+    public DeferredChecks() {
+        nodes = new ArrayList<>();
+        ends = new int[64];
+    }
+
+    /**
+     * Adds a function call or an addition to be checked
+     * @param node the node
+     */
+    public void add(Node node) {
+        if(nodes.size() == ends.length) ends = Arrays.copyOf(ends, ends.length * 2);
+        nodes.add(node);
+    }
+
+    /**
+     * Adds an equals statement, the checks added until exit are the ones of its expression
+     * @param node the equals statement
+     * @return its index, for exit
+     */
+    public int enter(AEqualsStatement node) {
+        add(node);
+        return nodes.size() - 1;
+    }
+
+    public void exit(int index) {
+        ends[index] = nodes.size();
+    }
+
+    /**
+     * Adds the checks of a subtree that the traversal did not visit
+     * @param node the root of the subtree
+     */
+    public void addAll(Node node) {
+        node.apply(new Recorder());
+    }
+
+    /**
+     * Checks the nodes in order, once all the functions are defined
+     * @param second the visitor whose checks are used, with the symbolTable and the diagnostics of the traversal
+     */
+    public void resolve(SecondVisitor second) {
+        resolve(second, 0, nodes.size());
+    }
+
+    private void resolve(SecondVisitor second, int from, int to) {
+        for(int i = from; i < to; i++){
+            Node node = nodes.get(i);
+            if(node instanceof AEqualsStatement){
+                int errorBeforeExpApplied = second.getDiagnostics().getCount();
+                resolve(second, i + 1, ends[i]);
+                second.assign((AEqualsStatement) node, errorBeforeExpApplied);
+                resolve(second, i + 1, ends[i]);
+                i = ends[i] - 1;
+            }
+            else if(node instanceof AAdditionExpression){
+                second.checkAddition((AAdditionExpression) node);
+            }
+            else if(node instanceof AFunctionExpression){
+                second.checkFunctionExpression((AFunctionExpression) node);
+            }
+            else{
+                second.checkFunctionStatement((AFunctionStatement) node);
+            }
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Class Recorder
+     * Adds the checks of a subtree in the order the SecondVisitor meets them
+     */
+    private class Recorder extends DepthFirstAdapter {
+        @Override
+        public void caseAEqualsStatement(AEqualsStatement node) {
+            int index = enter(node);
+            super.caseAEqualsStatement(node);
+            exit(index);
+        }
+
+        @Override
+        public void inAAdditionExpression(AAdditionExpression node) {
+            add(node);
+        }
+
+        @Override
+        public void inAFunctionExpression(AFunctionExpression node) {
+            add(node);
+        }
+
+        @Override
+        public void inAFunctionStatement(AFunctionStatement node) {
+            add(node);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * Class Diagnostic
+ * This class represents an error found while checking a program: its code, the line and pos where it was found
+ * and the arguments of its message. The message is only formatted when it is printed.
+ * Two diagnostics are equal if they have the same code and arguments, so the same message, wherever they were found,
+ * so they can be reported once, see Diagnostics. E.g. two calls on one line whose return types conflict are one error.
+ */
+public class Diagnostic {
+    private DiagnosticCode code;
+    private int line;
+    private int pos;
+    private Object[] args;
+
+    /**
+     * Constructor
+     * @param code the kind of the error
+     * @param line the line where it was found, 0 if unknown
+     * @param pos the pos where it was found, 0 if unknown
+     * @param args the arguments of the message of the code
+     */
+    public Diagnostic(DiagnosticCode code, int line, int pos, Object... args) {
+        this.code = code;
+        this.line = line;
+        this.pos = pos;
+        this.args = args;
+    }
+
+    public String getMessage() {
+        return code.format(args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(!(o instanceof Diagnostic)) return false;
+        Diagnostic other = (Diagnostic) o;
+        return code == other.code && Arrays.equals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return code.hashCode() * 31 + Arrays.hashCode(args);
+    }
+
+    @Override
+    public String toString() {
+        return code + ": " + getMessage();
+    }
+
+    /* Getters */
+
+    public DiagnosticCode getCode() {
+        return code;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getPos() {
+        return pos;
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+}
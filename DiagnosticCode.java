@@ -0,0 +1,66 @@
+/**
+ * Enum DiagnosticCode
+ * This enum represents the kinds of errors our visitors find, each one with the template of its message.
+ * The arguments of a Diagnostic fill the %s of the template in their order.
+ */
+public enum DiagnosticCode {
+    /* Functions */
+    DUPLICATE_PARAMETER("The parameter '%s' in the line:%s has already been defined in line %s"),
+    DUPLICATE_FUNCTION("The function '%s' in the line:%s has already been defined in line %s"),
+    RETURN_OUTSIDE_FUNCTION("The return expression 'return %s' cannot be outside a function"),
+
+    /* Function calls */
+    UNDEFINED_FUNCTION("No such function has been defined '%s' in the line:%s pos: %s"),
+    WRONG_ARGUMENTS("No such function has been defined '%s' with %s parameters in the line:%s pos: %s"),
+    CALL_ADDITION_CONFLICT("Found Conflict While Trying to Addition String and Int line: %s"),
+    CALL_ARITHMETIC_CONFLICT("Cannot use string values in arithmetic operations(-,*,/) line: %s"),
+    STRING_RETURN_IN_ARITHMETIC("String value returned from function cannot be used in arithmetic or array index " +
+            "Function used '%s' in the line:%s pos: %s"),
+
+    /* Variables */
+    UNDEFINED_VARIABLE("The variable '%s' in the line:%s pos: %s', has not been defined yet!"),
+    NOT_AN_ARRAY("The array '%s' in the line:%s pos: %s', has been defined as a variable in the line:%s pos: %s"),
+    FOR_OVER_VARIABLE("Cannot use for statement ( line: %s, pos: %s) with simple variable '%s' defined in the line: %s"),
+    FOR_OVER_VARIABLE_IN_FUNCTION("Cannot use for statement ( line: %s, pos: %s) with simple variable '%s' " +
+            "defined in the line: %s whithin the function '%s"),
+
+    /* Arithmetic */
+    STRING_LITERAL_IN_ARITHMETIC("An arithmetic expression cannot contain string literal '%s' in the line:%s pos: %s"),
+    STRING_LITERAL_IN_ARITHMETIC_IN_FUNCTION("An arithmetic expression cannot contain string literal '%s' " +
+            "in the line:%s pos: %s within the function '%s"),
+    STRING_VARIABLE_IN_ARITHMETIC("Cannot use string variables in arithmetic expression or as array index. " +
+            "Variable used '%s' in the line:%s pos: %s"),
+    ARRAY_IN_ARITHMETIC("Cannot use array as whole in arithmetic expression or as array index. " +
+            "Variable used '%s' in the line:%s pos: %s"),
+    STRING_INDEX("Only Arithmetic Values are accepted to take part as an index of array, and in line:%s the index is string"),
+    RIGHT_NOT_ARITHMETIC("Only Arithmetic Values are accepted to take part in the %s operator, " +
+            "and in line:%s the right part of the equality is not arithmetic"),
+    BOTH_NOT_ARITHMETIC("Only Arithmetic Values are accepted to take part in the %s operator, " +
+            "and in line:%s the both parts of the equality is not arithmetic"),
+    LEFT_NOT_ARITHMETIC("Only Arithmetic Values are accepted to take part in the %s operator, " +
+            "and in line:%s the left part of the equality, the variable '%s' is not arithmetic, defined in line: %s"),
+
+    /* Addition */
+    ASSIGNMENT_TYPE_CONFLICT("Type Conflict, Addition Between String and INT in the line:%s pos: %s"),
+    ADDITION_TYPE_CONFLICT("Type Conflict, Addition Between String and INT in the line: '%s'"),
+    ADDITION_UNDEFINED("The variable has not been defined in the line: '%s'left: %s right: %s");
+
+    private String template;
+
+    DiagnosticCode(String template) {
+        this.template = template;
+    }
+
+    /**
+     * Formats the message of this code
+     * @param args the arguments of the message
+     * @return the message
+     */
+    public String format(Object... args) {
+        return String.format(template, args);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+}
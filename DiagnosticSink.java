@@ -0,0 +1,89 @@
+import java.io.PrintStream;
+
+/**
+ * Class DiagnosticSink
+ * This class prints the reported diagnostics, either as text, "Error N: message" in each line,
+ * or as JSON lines. The lines are kept in a buffer and printed together when it fills up or is flushed,
+ * so a program with many errors does not lock and flush the stream once per error.
+ */
+public class DiagnosticSink {
+    public enum Format { TEXT, JSON }
+
+    // The buffer is printed once it holds this many chars
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String NEW_LINE = System.lineSeparator();
+
+    private PrintStream out;
+    private Format format;
+    private StringBuilder buffer;
+
+    /**
+     * Constructor
+     * @param out where the diagnostics are printed
+     * @param format how the diagnostics are printed
+     */
+    public DiagnosticSink(PrintStream out, Format format) {
+        this.out = out;
+        this.format = format;
+        this.buffer = new StringBuilder();
+    }
+
+    /**
+     * Writes a diagnostic
+     * @param number the number of the diagnostic, starting from 1
+     * @param diagnostic the diagnostic
+     */
+    public void write(int number, Diagnostic diagnostic) {
+        if(format == Format.TEXT){
+            buffer.append("Error ").append(number).append(": ").append(diagnostic.getMessage()).append(NEW_LINE);
+        }
+        else{
+            buffer.append("{\"number\":").append(number)
+                    .append(",\"code\":\"").append(diagnostic.getCode()).append('"')
+                    .append(",\"line\":").append(diagnostic.getLine())
+                    .append(",\"pos\":").append(diagnostic.getPos())
+                    .append(",\"args\":[");
+            Object[] args = diagnostic.getArgs();
+            for(int i = 0; i < args.length; i++){
+                if(i > 0) buffer.append(',');
+                if(args[i] instanceof Integer) buffer.append(args[i]);
+                else appendString(String.valueOf(args[i]));
+            }
+            buffer.append("],\"message\":");
+            appendString(diagnostic.getMessage());
+            buffer.append('}').append(NEW_LINE);
+        }
+
+        if(buffer.length() >= BUFFER_SIZE) flush();
+    }
+
+    // Appends a JSON string
+    private void appendString(String string) {
+        buffer.append('"');
+        for(int i = 0; i < string.length(); i++){
+            char c = string.charAt(i);
+            if(c == '"' || c == '\\') buffer.append('\\').append(c);
+            else if(c == '\n') buffer.append("\\n");
+            else if(c == '\r') buffer.append("\\r");
+            else if(c == '\t') buffer.append("\\t");
+            else if(c < 0x20) buffer.append(String.format("\\u%04x", (int) c));
+            else buffer.append(c);
+        }
+        buffer.append('"');
+    }
+
+    /**
+     * Prints what is in the buffer
+     */
+    public void flush() {
+        if(buffer.length() == 0) return;
+        out.print(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+}
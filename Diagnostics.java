@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+
+/**
+ * Class Diagnostics
+ * This class collects the diagnostics of one compilation, shared by both visitors. It numbers them in the order
+ * they are reported and hands them to a sink, or keeps them to be added later to another collector in some order,
+ * like ParallelAnalyzer does.
+ */
+public class Diagnostics {
+    // Where the diagnostics are written, or null if they are kept
+    private DiagnosticSink sink;
+
+    // The kept diagnostics, and which of them were reported once
+    private ArrayList<Diagnostic> kept;
+    private BitSet keptOnce;
+
+    // The diagnostics reported once so far
+    private HashSet<Diagnostic> reportedOnce;
+
+    private int count;
+
+    /**
+     * Constructor for the diagnostics that are kept
+     */
+    public Diagnostics() {
+        this(null);
+    }
+
+    /**
+     * Constructor
+     * @param sink where the diagnostics are written, or null to keep them
+     */
+    public Diagnostics(DiagnosticSink sink) {
+        this.sink = sink;
+        this.kept = new ArrayList<>();
+        this.keptOnce = new BitSet();
+        this.reportedOnce = new HashSet<>();
+    }
+
+    /**
+     * Reports a diagnostic
+     * @param diagnostic the diagnostic
+     */
+    public void report(Diagnostic diagnostic) {
+        count++;
+        if(sink != null) sink.write(count, diagnostic);
+        else kept.add(diagnostic);
+    }
+
+    /**
+     * Reports a diagnostic, unless one with the same message has been reported once before
+     * @param diagnostic the diagnostic
+     */
+    public void reportOnce(Diagnostic diagnostic) {
+        if(!reportedOnce.add(diagnostic)) return;
+        if(sink == null) keptOnce.set(kept.size());
+        report(diagnostic);
+    }
+
+    /**
+     * Reports again some of the diagnostics kept by another collector, in their order
+     * @param other the other collector
+     * @param from the index of the first diagnostic
+     * @param to the index after the last diagnostic
+     */
+    public void addAll(Diagnostics other, int from, int to) {
+        for(int i = from; i < to; i++){
+            if(other.keptOnce.get(i)) reportOnce(other.kept.get(i));
+            else report(other.kept.get(i));
+        }
+    }
+
+    public void addAll(Diagnostics other) {
+        addAll(other, 0, other.kept.size());
+    }
+
+    /**
+     * Prints the diagnostics still buffered by the sink
+     */
+    public void flush() {
+        if(sink != null) sink.flush();
+    }
+
+    /* Getters */
+
+    // The number of the reported diagnostics
+    public int getCount() {
+        return count;
+    }
+
+    // The number of the kept diagnostics
+    public int size() {
+        return kept.size();
+    }
+
+    public ArrayList<Diagnostic> getKept() {
+        return kept;
+    }
+}
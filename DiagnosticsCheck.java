@@ -0,0 +1,68 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class DiagnosticsCheck
+ * Checks that the errors reported once, like the conflicts of the return types of the calls, are printed once
+ * for each message, as the SecondVisitor printed them when it kept the messages it had printed.
+ * The messages of the conflicts only have the line, so two calls on one line that conflict are one error,
+ * and the same calls on two lines are two. Each case is compiled in the single pass, with --two-passes
+ * and with --parallel, and every one must print the expected errors.
+ *
+ * Usage: DiagnosticsCheck
+ * exits with 1 if any case differs
+ */
+public class DiagnosticsCheck {
+    // The name, the source and the expected errors
+    private static final String[][] CASES = {
+            {"two calls on one line that add a string and an int",
+                    "def f(a):\n  return a + \"s\"\nx = f(1) + f(2)\nprint x\n",
+                    "Error 1: The variable has not been defined in the line: 'f 1 f 2'left: TYPECONFLICT right: TYPECONFLICT\n"
+                    + "Error 2: Found Conflict While Trying to Addition String and Int line: 3\n"
+                    + "Error 3: The variable has not been defined in the line: 'f 1 f 2'left: TYPECONFLICT right: TYPECONFLICT\n"},
+            {"two calls on one line that use a string in arithmetic",
+                    "def h(a):\n  return a - \"s\"\nx = h(1) + h(2)\n",
+                    "Error 1: An arithmetic expression cannot contain string literal '\"s\"' in the line:2 pos: 14 within the function 'h\n"
+                    + "Error 2: Cannot use string values in arithmetic operations(-,*,/) line: 3\n"},
+            {"two calls on two lines that add a string and an int",
+                    "def f(a):\n  return a + \"s\"\nx = f(1)\ny = f(2)\n",
+                    "Error 1: Found Conflict While Trying to Addition String and Int line: 3\n"
+                    + "Error 2: Found Conflict While Trying to Addition String and Int line: 4\n"},
+    };
+
+    private static final String[] MODES = {"single pass", "--two-passes", "--parallel"};
+
+    public static void main(String[] args) throws Exception {
+        int differ = 0;
+        for(String[] test : CASES){
+            for(String mode : MODES){
+                if(!check(test, mode)) differ++;
+            }
+        }
+
+        System.out.println(CASES.length * MODES.length + " cases checked, " + differ + " differ");
+        if(differ > 0) System.exit(1);
+    }
+
+    /**
+     * Compiles the source of a case
+     * @param test the case
+     * @param mode how it is analyzed
+     * @return true if it printed the expected errors
+     */
+    private static boolean check(String[] test, String mode) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Compiler compiler = new Compiler(new PrintStream(output, false));
+        compiler.setTwoPasses(mode.equals("--two-passes"));
+        if(mode.equals("--parallel")) compiler.setPool(ForkJoinPool.commonPool());
+        compiler.compile(AsciiSource.of(test[1]));
+
+        if(!output.toString().equals(test[2])){
+            System.out.println("DIFFER " + test[0] + " (" + mode + "), printed:");
+            System.out.print(output.toString());
+            return false;
+        }
+        return true;
+    }
+}
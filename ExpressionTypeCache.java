@@ -0,0 +1,97 @@
+import minipython.node.PExpression;
+import java.util.IdentityHashMap;
+
+/**
+ * Class ExpressionTypeCache
+ * This class remembers the type found for each expression node, so that Utils.getExpressionsType
+ * does not walk the same subtree again. An entry is only valid for the version of the symbolTable
+ * it was found in, since any change of a variable's type may change the type of the expression.
+ */
+public class ExpressionTypeCache {
+    // Keyed by node identity, expression nodes do not override equals
+    private IdentityHashMap<PExpression, Entry> entries;
+
+    /* Counters */
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    public ExpressionTypeCache() {
+        entries = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the cached type of an expression
+     * @param expression the expression
+     * @param insideFunction the function the expression was typed in, otherwise null
+     * @param version the current version of the symbolTable
+     * @return the type or null if it is not cached or it is out of date
+     */
+    public Type get(PExpression expression, Function insideFunction, int version){
+        Entry entry = entries.get(expression);
+        if(entry == null || entry.insideFunction != insideFunction){
+            misses++;
+            return null;
+        }
+        if(entry.version != version){
+            invalidations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.type;
+    }
+
+    /**
+     * Caches the type of an expression
+     * @param expression the expression
+     * @param insideFunction the function the expression was typed in, otherwise null
+     * @param version the version of the symbolTable the type was found in
+     * @param type the type of the expression
+     */
+    public void put(PExpression expression, Function insideFunction, int version, Type type){
+        Entry entry = entries.get(expression);
+        if(entry == null){
+            entry = new Entry();
+            entries.put(expression, entry);
+        }
+        entry.insideFunction = insideFunction;
+        entry.version = version;
+        entry.type = type;
+    }
+
+    public void clear(){
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        return "Type cache: " + hits + " hits, " + misses + " misses, " + invalidations + " invalidations" +
+                (lookups == 0 ? "" : String.format(" (hit rate %.1f%%)", 100.0 * hits / lookups));
+    }
+
+    /* Getters */
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static class Entry {
+        private Function insideFunction;
+        private int version;
+        private Type type;
+    }
+}
@@ -1,7 +1,7 @@
 import minipython.analysis.DepthFirstAdapter;
 import minipython.node.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 
@@ -14,8 +14,8 @@ public class FirstVisitor extends DepthFirstAdapter {
     /* Our Symbol Table */
     private RootSymbolTable symbolTable;
 
-    /* Error Counter */
-    private int errors;
+    /* The errors, shared with the SecondVisitor */
+    private Diagnostics diagnostics;
 
     /* If we are inside a function */
     private Function withinAFunction = null;
@@ -30,13 +30,25 @@ public class FirstVisitor extends DepthFirstAdapter {
     /* The function parameters, linked because we need addition order */
     private LinkedHashMap<Node, Variable> functionParams;
 
+    /* If true, the functions are only defined and their bodies are checked later, see ParallelAnalyzer */
+    private boolean signaturesOnly = false;
+
+    /* The function defined for each function node, when only the signatures are checked */
+    private IdentityHashMap<AFunction, Function> definedFunctions = new IdentityHashMap<>();
+
     /**
      * Constructor
      * @param symbolTable the symbol table
+     * @param diagnostics where the errors are reported
      */
-    FirstVisitor(RootSymbolTable symbolTable) {
+    FirstVisitor(RootSymbolTable symbolTable, Diagnostics diagnostics) {
         this.symbolTable = symbolTable;
-        errors = 0;
+        this.diagnostics = diagnostics;
+    }
+
+    // The error of a variable that has not been defined
+    private static Diagnostic undefinedVariable(TId id){
+        return new Diagnostic(DiagnosticCode.UNDEFINED_VARIABLE, id.getLine(), id.getPos(), id.getText(), id.getLine(), id.getPos());
     }
 
     /**
@@ -45,38 +57,17 @@ public class FirstVisitor extends DepthFirstAdapter {
      * @return the line where the function is defined or -1
      */
     private int hasAlreadyBeenDefined(Function functionToBeAdded){
-        // functionsFound contains all the functions already visited, that have the same name (id) with the currently being checked funtion
-        ArrayList<Function> functionsFound = symbolTable.getAllFunctions(functionToBeAdded.getId());
-
-        // if there is at least one more function with the smae name (id) we have to check if we have to accept this function or not, depending on if it is correct way of overloading
-        if(functionsFound.size() > 0){
-            // we use foundBounds to save all the possible number of params, in what we can call the currently being checked function
-            ArrayList<Integer> foundBounds = new ArrayList<>();
-            for(int i = nonDefaultFunctionParams; i <= defaultFunctionParams + nonDefaultFunctionParams; i++){
-                foundBounds.add(i);
-            }
+        // overloads contains all the functions already visited, that have the same name (id) with the currently being checked funtion
+        FunctionOverloads overloads = symbolTable.getOverloads(functionToBeAdded.getId());
 
-            // for each function of those we have already visited with the same name (id)
-            for(Function temp : functionsFound){
-                // we use tempBounds to save all the possible number of params, in what we can call the specific previous visited function
-                ArrayList<Integer> tempBounds = new ArrayList<>();
-                for(int i = temp.getNonDefaults(); i <= temp.getDefaults() + temp.getNonDefaults(); i++){
-                    tempBounds.add(i);
-                }
-
-                // if those two funtions can be called with the same num of params, since they also have the same name, its not a correct way of overloading methods, thus we have to show the error to the user and not accept the current funtion
-                for(Integer k : tempBounds){
-                    if(foundBounds.contains(k)){
-                        return temp.getLine();
-                    }
-                }
-            }
-            return -1;
-        }
         // if there was no other funtion with the same name (id) already visited, we simple add the new function
-        else{
+        if(overloads == null){
             return -1;
         }
+
+        // if one of those functions can be called with the same num of params as the currently being checked one, since they also have the same name, its not a correct way of overloading methods, thus we have to show the error to the user and not accept the current funtion
+        Function overlapping = overloads.getOverlapping(nonDefaultFunctionParams, defaultFunctionParams + nonDefaultFunctionParams);
+        return overlapping == null ? -1 : overlapping.getLine();
     }
 
     /* Function */
@@ -101,7 +92,7 @@ public class FirstVisitor extends DepthFirstAdapter {
         }
 
         // Create the new fucntion object
-        Function tempFunction = new Function();
+        Function tempFunction = new Function(symbolTable.getSymbols());
         tempFunction.setId(id);
         tempFunction.setLine(line);
         tempFunction.setPos(pos);
@@ -109,16 +100,17 @@ public class FirstVisitor extends DepthFirstAdapter {
         tempFunction.setDefaults(defaultFunctionParams);
 
         // Set the params to the instance and check for duplicates
-        HashMap<String, Variable> params = new HashMap<>();
+        SymbolMap<Variable> params = new SymbolMap<>();
         ArrayList<Variable> sortedParameters = new ArrayList<>();
         for(Variable temp : functionParams.values()){
-            if(params.containsKey(temp.getId())){
-                System.out.println("Error " + (++errors) + ": The parameter '" + temp.getId() +
-                        "' in the line:" + temp.getLine() +
-                        " has already been defined in line " + params.get(temp.getId()).getLine());
+            int symbol = symbolTable.getSymbols().intern(temp.getId());
+            if(params.containsKey(symbol)){
+                diagnostics.report(new Diagnostic(DiagnosticCode.DUPLICATE_PARAMETER, temp.getLine(), temp.getPos(),
+                        temp.getId(), temp.getLine(), params.get(symbol).getLine()));
+                skip(node.getStatement());
                 return;
             }
-            params.put(temp.getId(), temp);
+            params.put(symbol, temp);
             sortedParameters.add(temp);
         }
         tempFunction.setVars(params);
@@ -128,14 +120,19 @@ public class FirstVisitor extends DepthFirstAdapter {
 
         // Check if function has already been defined
         int lineFound = hasAlreadyBeenDefined(tempFunction);
-        if(lineFound == -1){
+        if(lineFound == -1 && signaturesOnly){
+            declareBody(node.getStatement(), tempFunction);
+            symbolTable.addFunction(tempFunction);
+            definedFunctions.put(node, tempFunction);
+        }
+        else if(lineFound == -1){
             node.getStatement().apply(this);
             symbolTable.addFunction(tempFunction);
         }
         else{
-            System.out.println("Error " + (++errors) + ": The function '" + tempFunction.getId() +
-                    "' in the line:" + tempFunction.getLine() +
-                    " has already been defined in line " + lineFound);
+            diagnostics.report(new Diagnostic(DiagnosticCode.DUPLICATE_FUNCTION, tempFunction.getLine(), tempFunction.getPos(),
+                    tempFunction.getId(), tempFunction.getLine(), lineFound));
+            skip(node.getStatement());
             return;
         }
     }
@@ -154,12 +151,64 @@ public class FirstVisitor extends DepthFirstAdapter {
         withinAFunction = null;
     }
 
+    /**
+     * Declares what other functions need to know about the body of a function, without checking it:
+     * the return expression and the variables of the for statements. A function's body is a single statement,
+     * which may only be nested in if, while and for statements.
+     * @param statement the body of the function
+     * @param function the function
+     */
+    private void declareBody(PStatement statement, Function function){
+        while(true){
+            if(statement instanceof AIfStatement){
+                statement = ((AIfStatement) statement).getStatement();
+            }
+            else if(statement instanceof AWhileStatement){
+                statement = ((AWhileStatement) statement).getStatement();
+            }
+            else if(statement instanceof AForStatement){
+                TId newVarId = ((AForStatement) statement).getId1();
+                Variable newVar = new Variable(symbolTable);
+                newVar.setId(newVarId.getText());
+                newVar.setLine(newVarId.getLine());
+                newVar.setPos(newVarId.getPos());
+                newVar.setType(Type.UNDEF);
+                function.putVar(newVarId, newVar);
+                statement = ((AForStatement) statement).getStatement();
+            }
+            else break;
+        }
+
+        if(statement instanceof AReturnStatement){
+            function.setReturnNode(((AReturnStatement) statement).getExpression());
+        }
+    }
+
+    /**
+     * Called for each subtree this visitor leaves unchecked, after an error or when there is nothing to check,
+     * so that a subclass still sees it, see SinglePassVisitor
+     * @param node the root of the subtree
+     */
+    protected void skip(Node node){
+    }
+
+    /**
+     * Checks the body of a function that has been defined while only the signatures were checked
+     * @param node the function node
+     * @param function the function to check the body within
+     */
+    public void checkFunctionBody(AFunction node, Function function){
+        withinAFunction = function;
+        node.getStatement().apply(this);
+        withinAFunction = null;
+    }
+
     /* Argument */
 
     @Override
     public void inAArgument(AArgument node) {
         // Check the first param
-        Variable param = new Variable();
+        Variable param = new Variable(symbolTable);
 
         TId id = node.getId();
         param.setId(id.getText());
@@ -175,7 +224,7 @@ public class FirstVisitor extends DepthFirstAdapter {
         }
         else {
             nonDefaultFunctionParams++;
-            functionParams.get(node).setType("UNDEF");
+            functionParams.get(node).setType(Type.UNDEF);
         }
 
         // Do the same for each one of the "more args - params"
@@ -196,7 +245,7 @@ public class FirstVisitor extends DepthFirstAdapter {
 
     @Override
     public void inAParameters(AParameters node) {
-        Variable param = new Variable();
+        Variable param = new Variable(symbolTable);
 
         TId id = node.getId();
         param.setId(id.getText());
@@ -212,7 +261,7 @@ public class FirstVisitor extends DepthFirstAdapter {
         }
         else {
             nonDefaultFunctionParams++;
-            functionParams.get(node).setType("UNDEF");
+            functionParams.get(node).setType(Type.UNDEF);
         }
     }
 
@@ -244,7 +293,7 @@ public class FirstVisitor extends DepthFirstAdapter {
     @Override
     public void inANumberValue(ANumberValue node) {
         if(node.parent() instanceof AAssignValue){
-            functionParams.get(node.parent().parent()).setType("INT");
+            functionParams.get(node.parent().parent()).setType(Type.INT);
         }
     }
 
@@ -256,20 +305,20 @@ public class FirstVisitor extends DepthFirstAdapter {
                     || node.parent().parent() instanceof AMultExpression
                     || node.parent().parent() instanceof ADivExpression){
                 if(withinAFunction == null){
-                    System.out.println("Error " + (++errors) + ": An arithmetic expression cannot contain string literal '" + node.getStringLit().getText() +
-                            "' in the line:" + node.getStringLit().getLine() +
-                            " pos: " + node.getStringLit().getPos());
+                    diagnostics.report(new Diagnostic(DiagnosticCode.STRING_LITERAL_IN_ARITHMETIC,
+                            node.getStringLit().getLine(), node.getStringLit().getPos(),
+                            node.getStringLit().getText(), node.getStringLit().getLine(), node.getStringLit().getPos()));
                 }
                 else{
-                    System.out.println("Error " + (++errors) + ": An arithmetic expression cannot contain string literal '" + node.getStringLit().getText() +
-                            "' in the line:" + node.getStringLit().getLine() +
-                            " pos: " + node.getStringLit().getPos() +
-                            " within the function '" + withinAFunction.getId());
+                    diagnostics.report(new Diagnostic(DiagnosticCode.STRING_LITERAL_IN_ARITHMETIC_IN_FUNCTION,
+                            node.getStringLit().getLine(), node.getStringLit().getPos(),
+                            node.getStringLit().getText(), node.getStringLit().getLine(), node.getStringLit().getPos(),
+                            withinAFunction.getId()));
                 }
             }
         }
         else if(node.parent() instanceof AAssignValue){
-            functionParams.get(node.parent().parent()).setType("STR");
+            functionParams.get(node.parent().parent()).setType(Type.STR);
         }
     }
 
@@ -294,36 +343,30 @@ public class FirstVisitor extends DepthFirstAdapter {
         boolean notFound = true;
         // Add the new id, id1, to the vars list
         TId newVarId = node.getId1();
-        Variable newVar = new Variable();
+        Variable newVar = new Variable(symbolTable);
         newVar.setId(newVarId.getText());
         newVar.setLine(newVarId.getLine());
         newVar.setPos(newVarId.getPos());
-        newVar.setType("UNDEF");
+        newVar.setType(Type.UNDEF);
 
         // Make sure that the id2, meaning the in id, has been defined and its type is array
         TId idArray = node.getId2();
 
         // If the id2 does not exist print error
         if(Utils.getVariableFromId(idArray, withinAFunction, symbolTable) == null){
-            System.out.println("Error " + (++errors) + ": The variable '" + idArray.getText() +
-                    "' in the line:" + idArray.getLine() +
-                    " pos: " + idArray.getPos() +
-                    "', has not been defined yet!");
+            diagnostics.report(undefinedVariable(idArray));
         }
 
         if(withinAFunction != null){
-            withinAFunction.getVars().put(newVarId.getText(), newVar);
+            withinAFunction.putVar(newVarId, newVar);
             // Check id2
-            if(withinAFunction.getVars().containsKey(idArray.getText())){
+            Variable array = withinAFunction.getVar(idArray);
+            if(array != null){
                 notFound = false;
-                if(!withinAFunction.getVars().get(idArray.getText()).getType().equals("ARR")
-                        && !withinAFunction.getVars().get(idArray.getText()).getType().equals("UNDEF")){
-                    System.out.println("Error " + (++errors) +
-                            ": Cannot use for statement ( line: " + idArray.getLine() +
-                            ", pos: " + idArray.getPos() +
-                            ") with simple variable '" + idArray.getText() +
-                            "' defined in the line: " + withinAFunction.getVars().get(idArray.getText()).getLine() +
-                            " whithin the function '" + withinAFunction.getId());
+                if(array.getType() != Type.ARR && array.getType() != Type.UNDEF){
+                    diagnostics.report(new Diagnostic(DiagnosticCode.FOR_OVER_VARIABLE_IN_FUNCTION, idArray.getLine(), idArray.getPos(),
+                            idArray.getLine(), idArray.getPos(), idArray.getText(),
+                            array.getLine(), withinAFunction.getId()));
                     return;
                 }
             }
@@ -332,19 +375,17 @@ public class FirstVisitor extends DepthFirstAdapter {
             // if the id1 does not exist put it in the symbol table but we want to remove it in the outForStatement function
             if(Utils.getGlobalVariableFromId(newVarId, symbolTable) == null){
                 ifStatementHasNewVar = true;
-                symbolTable.getVariableHashMap().put(newVarId.getText(), newVar);
+                symbolTable.addVariable(symbolTable.getSymbols().intern(newVarId), newVar);
             }
         }
 
         if(notFound){
-            if(symbolTable.getVariableHashMap().containsKey(idArray.getText())){
-                if(!symbolTable.getVariableHashMap().get(idArray.getText()).getType().equals("ARR")
-                        && !symbolTable.getVariableHashMap().get(idArray.getText()).getType().equals("UNDEF")){
-                    System.out.println("Error " + (++errors) +
-                            ": Cannot use for statement ( line: " + idArray.getLine() +
-                            ", pos: " + idArray.getPos() +
-                            ") with simple variable '" + idArray.getText() +
-                            "' defined in the line: " + symbolTable.getVariableHashMap().get(idArray.getText()).getLine());
+            Variable array = symbolTable.getVariable(symbolTable.getSymbols().find(idArray));
+            if(array != null){
+                if(array.getType() != Type.ARR && array.getType() != Type.UNDEF){
+                    diagnostics.report(new Diagnostic(DiagnosticCode.FOR_OVER_VARIABLE, idArray.getLine(), idArray.getPos(),
+                            idArray.getLine(), idArray.getPos(), idArray.getText(),
+                            array.getLine()));
                     return;
                 }
             }
@@ -358,7 +399,7 @@ public class FirstVisitor extends DepthFirstAdapter {
             ifStatementHasNewVar = false;
 
             TId newVarId = node.getId1();
-            symbolTable.getVariableHashMap().remove(newVarId.getText());
+            symbolTable.removeVariable(newVarId.getText());
         }
     }
 
@@ -367,13 +408,13 @@ public class FirstVisitor extends DepthFirstAdapter {
     @Override
     public void inAEqualsStatement(AEqualsStatement node) {
         // we save the errors till now
-        int errorBeforeExpApplied = errors;
+        int errorBeforeExpApplied = diagnostics.getCount();
         // we visit the experssion part of the node
         node.getExpression().apply(this);
         // now we check if and only if the expression was valid, and didn't create any compile error in order to poceed, otherwise we ignore the assignment
-        if(errorBeforeExpApplied == errors){
+        if(errorBeforeExpApplied == diagnostics.getCount()){
             // we get the type of expression we are going to assign to the id
-            String typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
+            Type typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
 
             // we check if the if the id has already been defined or not
             // if it hasnt, we add it now to the corresponding hashmap (local vars or globals) and set its type to the type of the expression assigned to it
@@ -381,23 +422,23 @@ public class FirstVisitor extends DepthFirstAdapter {
             Variable var = Utils.getVariableFromId(id, withinAFunction, symbolTable);
 
             if(var == null){
-                var = new Variable();
+                var = new Variable(symbolTable);
                 var.setId(id.getText());
                 var.setLine(id.getLine());
                 var.setPos(id.getPos());
                 var.setType(typeOfExpToTheLeft);
-                if(withinAFunction!=null) withinAFunction.getVars().put(var.getId(), var);
-                else symbolTable.getVariableHashMap().put(var.getId(), var);
+                if(withinAFunction!=null) withinAFunction.putVar(id, var);
+                else symbolTable.addVariable(symbolTable.getSymbols().intern(id), var);
                 return;
             }
 
             // but if it has been defined then we simple check if their type is different, we update the type of the id to the new type, due to the expression assigned
-            if(!var.getType().equals(typeOfExpToTheLeft)){
+            if(var.getType() != typeOfExpToTheLeft){
                 if(withinAFunction != null){
-                    withinAFunction.getVars().get(id.getText()).setType(typeOfExpToTheLeft);
+                    withinAFunction.getVar(id).setType(typeOfExpToTheLeft);
                     return;
                 }
-                symbolTable.getVariableHashMap().get(id.getText()).setType(typeOfExpToTheLeft);
+                symbolTable.getVariable(symbolTable.getSymbols().find(id)).setType(typeOfExpToTheLeft);
                 return;
             }
         }
@@ -414,13 +455,13 @@ public class FirstVisitor extends DepthFirstAdapter {
     @Override
     public void inAMinusEqualsStatement(AMinusEqualsStatement node) {
         // we save the errors till now
-        int errorBeforeExpApplied = errors;
+        int errorBeforeExpApplied = diagnostics.getCount();
         // we visit the experssion part of the node
         node.getExpression().apply(this);
         // now we check if and only if the expression was valid, and didn't create any compile error in order to poceed, otherwise we ignore the assignment
-        if(errorBeforeExpApplied == errors){
+        if(errorBeforeExpApplied == diagnostics.getCount()){
             // we get the type of expression to the right of the operator
-            String typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
+            Type typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
 
             // we check if the if the id has already been defined or not
             TId id = node.getId();
@@ -428,40 +469,33 @@ public class FirstVisitor extends DepthFirstAdapter {
 
             // if it hasnt been defined, we print the corresponding error of using an undefined variable
             if(var == null){
-                System.out.println("Error " + (++errors) + ": The variable '" + id.getText() +
-                        "' in the line:" + id.getLine() +
-                        " pos: " + id.getPos() +
-                        "', has not been defined yet!");
+                diagnostics.report(undefinedVariable(id));
                 return;
             }
 
             // if it has been defined, we check if its type is string or array (meaning not int and not undef), and print the corresponding error, that only arithmetics are accepted in this kind of operation
-            if(!typeOfExpToTheLeft.equals("INT") && !typeOfExpToTheLeft.equals("UNDEF")){
-                if(var.getType().equals("INT") || var.getType().equals("UNDEF")){
-                    System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the minus-equal operator," +
-                            " and in line:" + id.getLine() +
-                            " the right part of the equality is not arithmetic");
+            if(typeOfExpToTheLeft != Type.INT && typeOfExpToTheLeft != Type.UNDEF){
+                if(var.getType() == Type.INT || var.getType() == Type.UNDEF){
+                    diagnostics.report(new Diagnostic(DiagnosticCode.RIGHT_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                            "minus-equal", id.getLine()));
                 }
                 else{
-                    System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the minus-equal operator," +
-                            " and in line:" + id.getLine() +
-                            " the both parts of the equality is not arithmetic");
+                    diagnostics.report(new Diagnostic(DiagnosticCode.BOTH_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                            "minus-equal", id.getLine()));
                     return;
                 }
             }
 
             // if the left part of the operation, is string type or array we print the error
-            if(var.getType().equals("STR") || var.getType().equals("ARR")){
-                System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the minus-equal operator," +
-                        " and in line:" + id.getLine() +
-                        " the left part of the equality, the variable '" + var.getId() +
-                        "' is not arithmetic, defined in line: " +var.getLine());
+            if(var.getType() == Type.STR || var.getType() == Type.ARR){
+                diagnostics.report(new Diagnostic(DiagnosticCode.LEFT_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                        "minus-equal", id.getLine(), var.getId(), var.getLine()));
                 return;
             }
             // if the left type was undef, we update its type to an int
-            if(var.getType().equals("UNDEF")){
-                if(withinAFunction!=null) withinAFunction.getVars().get(var.getId()).setType("INT");
-                else symbolTable.getVariableHashMap().get(var.getId()).setType("INT");
+            if(var.getType() == Type.UNDEF){
+                if(withinAFunction!=null) withinAFunction.getVar(var.getId()).setType(Type.INT);
+                else symbolTable.getVariable(var.getId()).setType(Type.INT);
             }
         }
     }
@@ -477,13 +511,13 @@ public class FirstVisitor extends DepthFirstAdapter {
     @Override
     public void inADivEqualsStatement(ADivEqualsStatement node) {
         // we save the errors till now
-        int errorBeforeExpApplied = errors;
+        int errorBeforeExpApplied = diagnostics.getCount();
         // we visit the experssion part of the node
         node.getExpression().apply(this);
         // now we check if and only if the expression was valid, and didn't create any compile error in order to poceed, otherwise we ignore the assignment
-        if(errorBeforeExpApplied == errors){
+        if(errorBeforeExpApplied == diagnostics.getCount()){
             // we get the type of expression to the right of the operator
-            String typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
+            Type typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
 
             // we check if the if the id has already been defined or not
             TId id = node.getId();
@@ -491,40 +525,33 @@ public class FirstVisitor extends DepthFirstAdapter {
 
             // if it hasnt been defined, we print the corresponding error of using an undefined variable
             if(var == null){
-                System.out.println("Error " + (++errors) + ": The variable '" + id.getText() +
-                        "' in the line:" + id.getLine() +
-                        " pos: " + id.getPos() +
-                        "', has not been defined yet!");
+                diagnostics.report(undefinedVariable(id));
                 return;
             }
 
             // if it has been defined, we check if its type is string or array (meaning not int and not undef), and print the corresponding error, that only arithmetics are accepted in this kind of operation
-            if(!typeOfExpToTheLeft.equals("INT") && !typeOfExpToTheLeft.equals("UNDEF")){
-                if(var.getType().equals("INT") || var.getType().equals("UNDEF")){
-                    System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the div-equal operator," +
-                            " and in line:" + id.getLine() +
-                            " the right part of the equality is not arithmetic");
+            if(typeOfExpToTheLeft != Type.INT && typeOfExpToTheLeft != Type.UNDEF){
+                if(var.getType() == Type.INT || var.getType() == Type.UNDEF){
+                    diagnostics.report(new Diagnostic(DiagnosticCode.RIGHT_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                            "div-equal", id.getLine()));
                 }
                 else{
-                    System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the div-equal operator," +
-                            " and in line:" + id.getLine() +
-                            " the both parts of the equality is not arithmetic");
+                    diagnostics.report(new Diagnostic(DiagnosticCode.BOTH_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                            "div-equal", id.getLine()));
                     return;
                 }
             }
 
             // if the left part of the operation, is string type or array we print the error
-            if(var.getType().equals("STR") || var.getType().equals("ARR")){
-                System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part in the div-equal operator," +
-                        " and in line:" + id.getLine() +
-                        " the left part of the equality, the variable '" + var.getId() +
-                        "' is not arithmetic, defined in line: " +var.getLine());
+            if(var.getType() == Type.STR || var.getType() == Type.ARR){
+                diagnostics.report(new Diagnostic(DiagnosticCode.LEFT_NOT_ARITHMETIC, id.getLine(), id.getPos(),
+                        "div-equal", id.getLine(), var.getId(), var.getLine()));
                 return;
             }
             // if the left type was undef, we update its type to an int
-            if(var.getType().equals("UNDEF")){
-                if(withinAFunction!=null) withinAFunction.getVars().get(var.getId()).setType("INT");
-                else symbolTable.getVariableHashMap().get(var.getId()).setType("INT");
+            if(var.getType() == Type.UNDEF){
+                if(withinAFunction!=null) withinAFunction.getVar(var.getId()).setType(Type.INT);
+                else symbolTable.getVariable(var.getId()).setType(Type.INT);
             }
         }
     }
@@ -541,9 +568,8 @@ public class FirstVisitor extends DepthFirstAdapter {
     public void inAReturnStatement(AReturnStatement node) {
         // If we are not inside a function, we cannot have return
         if(withinAFunction == null){
-            System.out.println("Error " + (++errors) +
-                    ": The return expression 'return " + node.toString().trim() +
-                    "' cannot be outside a function");
+            diagnostics.report(new Diagnostic(DiagnosticCode.RETURN_OUTSIDE_FUNCTION, 0, 0, node.toString().trim()));
+            skip(node.getExpression());
             return;
         }
 
@@ -570,29 +596,22 @@ public class FirstVisitor extends DepthFirstAdapter {
         Variable foundVar = Utils.getVariableFromId(node.getId(), withinAFunction, symbolTable);
 
         // If the type of the expression is string print error
-        String type = Utils.getExpressionsType(node.getExp1(), withinAFunction, symbolTable);
-        if(type.equals("STR")){
-            System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part as an index of array," +
-                    " and in line:" + node.getId().getLine() +
-                    " the index is string");
+        Type type = Utils.getExpressionsType(node.getExp1(), withinAFunction, symbolTable);
+        if(type == Type.STR){
+            diagnostics.report(new Diagnostic(DiagnosticCode.STRING_INDEX, node.getId().getLine(), node.getId().getPos(),
+                    node.getId().getLine()));
         }
 
         // If the variable has not been defined print error
         if(foundVar == null){
-            System.out.println("Error " + (++errors) + ": The variable '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos() +
-                    "', has not been defined yet!");
+            diagnostics.report(undefinedVariable(node.getId()));
             return;
         }
 
         // If the variable is not array, cannot be used as array
-        if(!foundVar.getType().equals("ARR")){
-            System.out.println("Error " + (++errors) + ": The array '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos() +
-                    "', has been defined as a variable in the line:" + foundVar.getLine() +
-                    " pos: " + foundVar.getPos());
+        if(foundVar.getType() != Type.ARR){
+            diagnostics.report(new Diagnostic(DiagnosticCode.NOT_AN_ARRAY, node.getId().getLine(), node.getId().getPos(),
+                    node.getId().getText(), node.getId().getLine(), node.getId().getPos(), foundVar.getLine(), foundVar.getPos()));
         }
     }
 
@@ -618,39 +637,32 @@ public class FirstVisitor extends DepthFirstAdapter {
 
         // If the variable has not been defined print error
         if (foundVar == null) {
-            System.out.println("Error " + (++errors) + ": The variable '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos() +
-                    "', has not been defined yet!");
+            diagnostics.report(undefinedVariable(node.getId()));
             return;
         }
 
         // If the variable is array and is going to be used in a arithmetic expression print error
-        if (foundVar.getType().equals("ARR")) {
+        if (foundVar.getType() == Type.ARR) {
             if (node.parent() instanceof AAdditionExpression
                     || node.parent() instanceof AAbstractionExpression
                     || node.parent() instanceof AMultExpression
                     || node.parent() instanceof ADivExpression
                     || node.parent() instanceof AExpInBracketsExpression) {
 
-                System.out.println("Error " + (++errors) + ": Cannot use array as whole in arithmetic expression or as array index. " +
-                        "Variable used '" + node.getId().getText() +
-                        "' in the line:" + node.getId().getLine() +
-                        " pos: " + node.getId().getPos());
+                diagnostics.report(new Diagnostic(DiagnosticCode.ARRAY_IN_ARITHMETIC, node.getId().getLine(), node.getId().getPos(),
+                        node.getId().getText(), node.getId().getLine(), node.getId().getPos()));
                 return;
             }
         }
 
         // If the variable is string and is going to be used in arithmetic(except addition) print error
-        if (foundVar.getType().equals("STR")) {
+        if (foundVar.getType() == Type.STR) {
             if (node.parent() instanceof AAbstractionExpression
                     || node.parent() instanceof AMultExpression
                     || node.parent() instanceof ADivExpression
                     || node.parent() instanceof AExpInBracketsExpression) {
-                System.out.println("Error " + (++errors) + ": Cannot use string variables in arithmetic expression or as array index. " +
-                        "Variable used '" + node.getId().getText() +
-                        "' in the line:" + node.getId().getLine() +
-                        " pos: " + node.getId().getPos());
+                diagnostics.report(new Diagnostic(DiagnosticCode.STRING_VARIABLE_IN_ARITHMETIC, node.getId().getLine(), node.getId().getPos(),
+                        node.getId().getText(), node.getId().getLine(), node.getId().getPos()));
                 return;
             }
         }
@@ -663,29 +675,22 @@ public class FirstVisitor extends DepthFirstAdapter {
         Variable foundVar = Utils.getVariableFromId(node.getId(), withinAFunction, symbolTable);
 
         // If the type of the expression is string print error
-        String type = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
-        if(type.equals("STR")){
-            System.out.println("Error " + (++errors) + ": Only Arithmetic Values are accepted to take part as an index of array," +
-                    " and in line:" + node.getId().getLine() +
-                    " the index is string");
+        Type type = Utils.getExpressionsType(node.getExpression(), withinAFunction, symbolTable);
+        if(type == Type.STR){
+            diagnostics.report(new Diagnostic(DiagnosticCode.STRING_INDEX, node.getId().getLine(), node.getId().getPos(),
+                    node.getId().getLine()));
         }
 
         // If the variable has not been defined print error
         if(foundVar == null){
-            System.out.println("Error " + (++errors) + ": The variable '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos() +
-                    "', has not been defined yet!");
+            diagnostics.report(undefinedVariable(node.getId()));
             return;
         }
 
         // If the variable is not array, cannot be used as array
-        if(!foundVar.getType().equals("ARR")){
-            System.out.println("Error " + (++errors) + ": The array '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos() +
-                    "', has been defined as a variable in the line:" + foundVar.getLine() +
-                    " pos: " + foundVar.getPos());
+        if(foundVar.getType() != Type.ARR){
+            diagnostics.report(new Diagnostic(DiagnosticCode.NOT_AN_ARRAY, node.getId().getLine(), node.getId().getPos(),
+                    node.getId().getText(), node.getId().getLine(), node.getId().getPos(), foundVar.getLine(), foundVar.getPos()));
         }
     }
 
@@ -703,12 +708,14 @@ public class FirstVisitor extends DepthFirstAdapter {
     @Override
     public void inAAdditionExpression(AAdditionExpression node) {
         // Get the types of the nodes
-        String leftType = Utils.getExpressionsType(node.getExp1(), withinAFunction, symbolTable);
-        String rightType = Utils.getExpressionsType(node.getExp2(), withinAFunction, symbolTable);
+        Type leftType = Utils.getExpressionsType(node.getExp1(), withinAFunction, symbolTable);
+        Type rightType = Utils.getExpressionsType(node.getExp2(), withinAFunction, symbolTable);
 
         // If both are string then return
-        if(leftType.equals("STR")
-                && leftType.equals(rightType)){
+        if(leftType == Type.STR
+                && leftType == rightType){
+            skip(node.getExp1());
+            skip(node.getExp2());
             return;
         }
 
@@ -725,11 +732,20 @@ public class FirstVisitor extends DepthFirstAdapter {
 
     /* Getters and Setters */
 
-    public int getErrors() {
-        return errors;
+    public boolean isSignaturesOnly() {
+        return signaturesOnly;
+    }
+
+    public void setSignaturesOnly(boolean signaturesOnly) {
+        this.signaturesOnly = signaturesOnly;
+    }
+
+    // Returns the function defined for the node, or null if it was not accepted or the signatures were not checked alone
+    public Function getDefinedFunction(AFunction node) {
+        return definedFunctions.get(node);
     }
 
-    public void setErrors(int errors) {
-        this.errors = errors;
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
     }
 }
@@ -0,0 +1,454 @@
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Class FlatAst
+ * This class represents a parsed program as a flat tree: a node is an index, and each field the SableCC tree keeps
+ * in an object for every node is an array here, the kind of each node, its parent, its first child and how many
+ * children it has, the line and pos of its name or its first token and its text. A program of 100k lines is then a few arrays instead of millions of nodes, tokens
+ * and LinkedLists, and going over it reads the arrays in order instead of following pointers.
+ *
+ * The GOAL is 0 and the children of each node are numbered one after the other, when the node is built,
+ * and the nodes are built in the order of the source, so the ones that are close in the source are close
+ * in the arrays too, and a node always comes before its children. The texts of the identifiers and the literals
+ * are kept once each, as symbols, and every node has the index of its symbol.
+ *
+ * The tree is the one of the grammar without the nodes that only hold others: the commands, the arglists,
+ * the argument and the parameters of a function (each param is a PARAM), the assign values and the function calls
+ * of the expressions. A condition that is an expression is that expression. The names a node has,
+ * e.g. the variable of an assignment or the function of a call, are its text, see Kind.
+ *
+ * The semantic passes can go over it with walk and a FlatAstVisitor, or over the nodes in any order with the getters.
+ */
+public final class FlatAst {
+    public enum Kind {
+        // the functions and the statements of the program, in order
+        GOAL,
+        // text the name: the PARAMs and the statement
+        FUNCTION,
+        // text the name: the default value, if any
+        PARAM,
+        // the condition and the statement
+        IF, WHILE,
+        // text the variable: the IDENTIFIER of the array and the statement
+        FOR,
+        // the expression
+        RETURN,
+        // the expressions
+        PRINT,
+        // text the variable: the expression
+        ASSIGN, MINUS_ASSIGN, DIV_ASSIGN,
+        // text the array: the index and the value
+        SET_INDEX,
+        // text the function: the arguments, both as a statement and as an expression
+        CALL,
+        // the left and the right side
+        GREATER, LESS, EQUALS, NOT_EQUALS,
+        TRUE, FALSE,
+        // the left and the right side
+        ADD, SUB, MUL, DIV,
+        // text the variable
+        IDENTIFIER,
+        // text the array: the index
+        INDEX,
+        // text the literal, a string with its quotes
+        NUMBER, STRING,
+        // the elements
+        ARRAY
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private final int size;
+    private final byte[] kinds;
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final int[] lines;
+    private final int[] positions;
+    // The symbol of each node, or -1
+    private final int[] texts;
+    private final String[] symbols;
+
+    private FlatAst(int size, byte[] kinds, int[] parents, int[] firstChildren, int[] childCounts, int[] lines,
+                    int[] positions, int[] texts, String[] symbols) {
+        this.size = size;
+        this.kinds = kinds;
+        this.parents = parents;
+        this.firstChildren = firstChildren;
+        this.childCounts = childCounts;
+        this.lines = lines;
+        this.positions = positions;
+        this.texts = texts;
+        this.symbols = symbols;
+    }
+
+    /**
+     * Lowers a parsed program, checked or not, without recursion, since a long chain of additions is deep
+     * @param ast the program
+     * @return the flat tree
+     */
+    public static FlatAst of(Start ast) {
+        Builder builder = new Builder();
+        // the nodes numbered but not built yet, the next one on top
+        Node[] stack = new Node[64];
+        int[] ids = new int[64];
+        stack[0] = ast.getPGoal();
+        int top = 1;
+        builder.add(-1);
+
+        ArrayList<Node> children = new ArrayList<>();
+        while(top > 0){
+            Node node = stack[--top];
+            int id = ids[top];
+            builder.build(id, node);
+
+            children.clear();
+            children(node, children);
+            builder.firstChildren[id] = builder.size;
+            builder.childCounts[id] = children.size();
+            if(top + children.size() > stack.length){
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children.size()));
+                ids = Arrays.copyOf(ids, stack.length);
+            }
+            // the first child on top, so the nodes are built in the order of the source
+            int first = builder.size;
+            for(int i = 0; i < children.size(); i++){
+                builder.add(id);
+            }
+            for(int i = children.size() - 1; i >= 0; i--){
+                stack[top] = children.get(i);
+                ids[top++] = first + i;
+            }
+        }
+
+        // a node without a token of its own starts where its first child does, which has a greater index
+        for(int i = builder.size - 1; i >= 0; i--){
+            if(builder.lines[i] == 0 && builder.childCounts[i] > 0){
+                builder.lines[i] = builder.lines[builder.firstChildren[i]];
+                builder.positions[i] = builder.positions[builder.firstChildren[i]];
+            }
+        }
+        return builder.flatAst();
+    }
+
+    // Adds the children a SableCC node has in the flat tree, in order
+    private static void children(Node node, ArrayList<Node> children) {
+        if(node instanceof AGoal){
+            for(Object command : ((AGoal) node).getCommands()){
+                if(command instanceof AFuncCommands) children.add(((AFuncCommands) command).getFunction());
+                else children.add(((AStmtCommands) command).getStatement());
+            }
+        }
+        else if(node instanceof AFunction){
+            AArgument argument = (AArgument) ((AFunction) node).getArgument();
+            if(argument != null){
+                children.add(argument);
+                children.addAll(argument.getParameters());
+            }
+            children.add(((AFunction) node).getStatement());
+        }
+        else if(node instanceof AArgument) addValue(((AArgument) node).getAssignValue(), children);
+        else if(node instanceof AParameters) addValue(((AParameters) node).getAssignValue(), children);
+        else if(node instanceof AIfStatement){
+            children.add(condition(((AIfStatement) node).getComparison()));
+            children.add(((AIfStatement) node).getStatement());
+        }
+        else if(node instanceof AWhileStatement){
+            children.add(condition(((AWhileStatement) node).getComparison()));
+            children.add(((AWhileStatement) node).getStatement());
+        }
+        else if(node instanceof AForStatement){
+            children.add(((AForStatement) node).getId2());
+            children.add(((AForStatement) node).getStatement());
+        }
+        else if(node instanceof AReturnStatement) children.add(((AReturnStatement) node).getExpression());
+        else if(node instanceof APrintStatement) arguments(((APrintStatement) node).getArglist(), children);
+        else if(node instanceof AEqualsStatement) children.add(((AEqualsStatement) node).getExpression());
+        else if(node instanceof AMinusEqualsStatement) children.add(((AMinusEqualsStatement) node).getExpression());
+        else if(node instanceof ADivEqualsStatement) children.add(((ADivEqualsStatement) node).getExpression());
+        else if(node instanceof AArrayStatement){
+            children.add(((AArrayStatement) node).getExp1());
+            children.add(((AArrayStatement) node).getExp2());
+        }
+        else if(node instanceof AFunctionStatement) arguments(((AFunctionStatement) node).getArglist(), children);
+        else if(node instanceof AFunctionCall) arguments(((AFunctionCall) node).getArglist(), children);
+        else if(node instanceof AFunctionExpression) children(((AFunctionExpression) node).getFunctionCall(), children);
+        else if(node instanceof AGreatComparison){
+            children.add(condition(((AGreatComparison) node).getComp1()));
+            children.add(condition(((AGreatComparison) node).getComp2()));
+        }
+        else if(node instanceof ALessComparison){
+            children.add(condition(((ALessComparison) node).getComp1()));
+            children.add(condition(((ALessComparison) node).getComp2()));
+        }
+        else if(node instanceof AExpEqualityComparison){
+            children.add(((AExpEqualityComparison) node).getExp1());
+            children.add(((AExpEqualityComparison) node).getExp2());
+        }
+        else if(node instanceof AExpNotEqualsComparison){
+            children.add(((AExpNotEqualsComparison) node).getExp1());
+            children.add(((AExpNotEqualsComparison) node).getExp2());
+        }
+        else if(node instanceof AAdditionExpression){
+            children.add(((AAdditionExpression) node).getExp1());
+            children.add(((AAdditionExpression) node).getExp2());
+        }
+        else if(node instanceof AAbstractionExpression){
+            children.add(((AAbstractionExpression) node).getExp1());
+            children.add(((AAbstractionExpression) node).getExp2());
+        }
+        else if(node instanceof AMultExpression){
+            children.add(((AMultExpression) node).getExp1());
+            children.add(((AMultExpression) node).getExp2());
+        }
+        else if(node instanceof ADivExpression){
+            children.add(((ADivExpression) node).getExp1());
+            children.add(((ADivExpression) node).getExp2());
+        }
+        else if(node instanceof AExpInBracketsExpression) children.add(((AExpInBracketsExpression) node).getExpression());
+        else if(node instanceof AExpsInsideBracketsExpression) arguments(((AExpsInsideBracketsExpression) node).getArglist(), children);
+    }
+
+    private static void addValue(PAssignValue assignValue, ArrayList<Node> children) {
+        if(assignValue != null) children.add(((AAssignValue) assignValue).getValue());
+    }
+
+    // A comparison, or the expression of one that is only an expression
+    private static Node condition(PComparison comparison) {
+        if(comparison instanceof AExpressionComparison) return ((AExpressionComparison) comparison).getExpression();
+        return comparison;
+    }
+
+    // Adds the expressions of an arglist in the order they are written, the arglist lists them backwards
+    private static void arguments(PArglist args, ArrayList<Node> children) {
+        LinkedList<Node> expressions = new LinkedList<>();
+        while(args != null){
+            if(args instanceof AExpArglist){
+                expressions.addFirst(((AExpArglist) args).getExpression());
+                break;
+            }
+            if(((AMoreExpArglist) args).getExpression() != null){
+                expressions.addFirst(((AMoreExpArglist) args).getExpression());
+            }
+            args = ((AMoreExpArglist) args).getArglist();
+        }
+        children.addAll(expressions);
+    }
+
+    private static Kind kind(Node node) {
+        if(node instanceof AGoal) return Kind.GOAL;
+        if(node instanceof AFunction) return Kind.FUNCTION;
+        if(node instanceof AArgument || node instanceof AParameters) return Kind.PARAM;
+        if(node instanceof AIfStatement) return Kind.IF;
+        if(node instanceof AWhileStatement) return Kind.WHILE;
+        if(node instanceof AForStatement) return Kind.FOR;
+        if(node instanceof AReturnStatement) return Kind.RETURN;
+        if(node instanceof APrintStatement) return Kind.PRINT;
+        if(node instanceof AEqualsStatement) return Kind.ASSIGN;
+        if(node instanceof AMinusEqualsStatement) return Kind.MINUS_ASSIGN;
+        if(node instanceof ADivEqualsStatement) return Kind.DIV_ASSIGN;
+        if(node instanceof AArrayStatement) return Kind.SET_INDEX;
+        if(node instanceof AFunctionStatement || node instanceof AFunctionCall) return Kind.CALL;
+        if(node instanceof AGreatComparison) return Kind.GREATER;
+        if(node instanceof ALessComparison) return Kind.LESS;
+        if(node instanceof AExpEqualityComparison) return Kind.EQUALS;
+        if(node instanceof AExpNotEqualsComparison) return Kind.NOT_EQUALS;
+        if(node instanceof ATrueComparison) return Kind.TRUE;
+        if(node instanceof AFalseComparison) return Kind.FALSE;
+        if(node instanceof AAdditionExpression) return Kind.ADD;
+        if(node instanceof AAbstractionExpression) return Kind.SUB;
+        if(node instanceof AMultExpression) return Kind.MUL;
+        if(node instanceof ADivExpression) return Kind.DIV;
+        if(node instanceof AIdentifierExpression || node instanceof TId) return Kind.IDENTIFIER;
+        if(node instanceof AExpInBracketsExpression) return Kind.INDEX;
+        if(node instanceof AValueExpression) return kind(((AValueExpression) node).getValue());
+        if(node instanceof ANumberValue) return Kind.NUMBER;
+        if(node instanceof AStringValue) return Kind.STRING;
+        if(node instanceof AFunctionExpression) return Kind.CALL;
+        return Kind.ARRAY;
+    }
+
+    // The token of a node that has one of its own, its name or its first token, otherwise null
+    private static Token token(Node node) {
+        if(node instanceof TId) return (TId) node;
+        if(node instanceof AFunction) return ((AFunction) node).getId();
+        if(node instanceof AArgument) return ((AArgument) node).getId();
+        if(node instanceof AParameters) return ((AParameters) node).getId();
+        if(node instanceof AForStatement) return ((AForStatement) node).getId1();
+        if(node instanceof AEqualsStatement) return ((AEqualsStatement) node).getId();
+        if(node instanceof AMinusEqualsStatement) return ((AMinusEqualsStatement) node).getId();
+        if(node instanceof ADivEqualsStatement) return ((ADivEqualsStatement) node).getId();
+        if(node instanceof AArrayStatement) return ((AArrayStatement) node).getId();
+        if(node instanceof AFunctionStatement) return ((AFunctionStatement) node).getId();
+        if(node instanceof AFunctionCall) return ((AFunctionCall) node).getId();
+        if(node instanceof AFunctionExpression) return token(((AFunctionExpression) node).getFunctionCall());
+        if(node instanceof ATrueComparison) return ((ATrueComparison) node).getTrue();
+        if(node instanceof AFalseComparison) return ((AFalseComparison) node).getFalse();
+        if(node instanceof AIdentifierExpression) return ((AIdentifierExpression) node).getId();
+        if(node instanceof AExpInBracketsExpression) return ((AExpInBracketsExpression) node).getId();
+        if(node instanceof AValueExpression) return token(((AValueExpression) node).getValue());
+        if(node instanceof ANumberValue) return ((ANumberValue) node).getInteger();
+        if(node instanceof AStringValue) return ((AStringValue) node).getStringLit();
+        return null;
+    }
+
+    /**
+     * Class Builder
+     * The arrays of a FlatAst while it is built, longer than the nodes
+     */
+    private static class Builder {
+        private int size;
+        private byte[] kinds = new byte[1024];
+        private int[] parents = new int[1024];
+        private int[] firstChildren = new int[1024];
+        private int[] childCounts = new int[1024];
+        private int[] lines = new int[1024];
+        private int[] positions = new int[1024];
+        private int[] texts = new int[1024];
+        private HashMap<String, Integer> symbols = new HashMap<>();
+        private ArrayList<String> symbolTexts = new ArrayList<>();
+
+        // Numbers a node, which is built later
+        private void add(int parent) {
+            if(size == kinds.length){
+                int length = size * 2;
+                kinds = Arrays.copyOf(kinds, length);
+                parents = Arrays.copyOf(parents, length);
+                firstChildren = Arrays.copyOf(firstChildren, length);
+                childCounts = Arrays.copyOf(childCounts, length);
+                lines = Arrays.copyOf(lines, length);
+                positions = Arrays.copyOf(positions, length);
+                texts = Arrays.copyOf(texts, length);
+            }
+            parents[size++] = parent;
+        }
+
+        private void build(int id, Node node) {
+            Kind kind = kind(node);
+            kinds[id] = (byte) kind.ordinal();
+            texts[id] = -1;
+            Token token = token(node);
+            if(token == null) return;
+            lines[id] = token.getLine();
+            positions[id] = token.getPos();
+            if(kind == Kind.TRUE || kind == Kind.FALSE) return;
+            Integer symbol = symbols.get(token.getText());
+            if(symbol == null){
+                symbol = symbolTexts.size();
+                symbols.put(token.getText(), symbol);
+                symbolTexts.add(token.getText());
+            }
+            texts[id] = symbol;
+        }
+
+        private FlatAst flatAst() {
+            return new FlatAst(size, Arrays.copyOf(kinds, size), Arrays.copyOf(parents, size),
+                    Arrays.copyOf(firstChildren, size), Arrays.copyOf(childCounts, size), Arrays.copyOf(lines, size),
+                    Arrays.copyOf(positions, size), Arrays.copyOf(texts, size), symbolTexts.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Goes over the tree in the order of the source, depth first with a stack of its own
+     * @param visitor what is done with each node
+     */
+    public void walk(FlatAstVisitor visitor) {
+        int[] stack = new int[64];
+        // the next child of each node of the stack
+        int[] next = new int[64];
+        int top = 0;
+        if(visitor.enter(this, 0)){
+            stack[0] = 0;
+            next[0] = firstChildren[0];
+            top = 1;
+        }
+        else visitor.leave(this, 0);
+
+        while(top > 0){
+            int node = stack[top - 1];
+            if(next[top - 1] == firstChildren[node] + childCounts[node]){
+                top--;
+                visitor.leave(this, node);
+                continue;
+            }
+            int child = next[top - 1]++;
+            if(!visitor.enter(this, child)){
+                visitor.leave(this, child);
+                continue;
+            }
+            if(top == stack.length){
+                stack = Arrays.copyOf(stack, top * 2);
+                next = Arrays.copyOf(next, top * 2);
+            }
+            stack[top] = child;
+            next[top++] = firstChildren[child];
+        }
+    }
+
+    /**
+     * @return about the bytes of the arrays and the symbols
+     */
+    public long getBytes() {
+        // 16 bytes the header of an array, 40 a String and 16 more its byte[] of Latin-1 characters
+        long bytes = 16 + size + 6 * (16 + 4L * size) + 16 + 4L * symbols.length;
+        for(String symbol : symbols){
+            bytes += 56 + symbol.length();
+        }
+        return bytes;
+    }
+
+    /* Getters and Setters */
+
+    // The number of nodes
+    public int size() {
+        return size;
+    }
+
+    public Kind getKind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    // The parent of a node, -1 for the GOAL
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public int getChild(int node, int index) {
+        return firstChildren[node] + index;
+    }
+
+    // The line of the name or the first token of a node, 0 for a GOAL without statements
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    public int getPos(int node) {
+        return positions[node];
+    }
+
+    // The symbol of the text of a node, -1 for the nodes without one
+    public int getSymbol(int node) {
+        return texts[node];
+    }
+
+    public String getText(int node) {
+        return texts[node] == -1 ? null : symbols[texts[node]];
+    }
+
+    public String getSymbolText(int symbol) {
+        return symbols[symbol];
+    }
+
+    public int getSymbolCount() {
+        return symbols.length;
+    }
+}
@@ -0,0 +1,235 @@
+import minipython.analysis.DepthFirstAdapter;
+import minipython.lexer.Lexer;
+import minipython.node.AArrayStatement;
+import minipython.node.ADivEqualsStatement;
+import minipython.node.AEqualsStatement;
+import minipython.node.AForStatement;
+import minipython.node.AFunctionCall;
+import minipython.node.AFunctionStatement;
+import minipython.node.AIdentifierExpression;
+import minipython.node.AMinusEqualsStatement;
+import minipython.node.Start;
+import minipython.parser.Parser;
+
+import java.io.PushbackReader;
+import java.io.StringReader;
+
+/**
+ * Class FlatAstBenchmark
+ * Compares the Start tree of the parser with the FlatAst made from it, over a source of more than 100k lines written by
+ * WorkloadGenerator: the heap each one keeps per line of the source, measured after a GC, and the time of a pass
+ * over the whole tree that finds the assignments, the calls and the uses of the variables, like the visitors do.
+ * The pass goes over the Start tree with a DepthFirstAdapter, and over the FlatAst with walk and with a loop
+ * over the nodes, for the passes that do not need the order of the source. All of them must find the same.
+ *
+ * Usage: FlatAstBenchmark [--seed N] [--size N]
+ * the size is about the number of top level statements, see WorkloadGenerator.ofSize
+ */
+public class FlatAstBenchmark {
+    // The rounds before measuring, for the JIT, and the measured rounds
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        long seed = 42;
+        int size = 80000;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--seed") && i + 1 < args.length) seed = Long.parseLong(args[++i]);
+            else if(args[i].equals("--size") && i + 1 < args.length) size = Integer.parseInt(args[++i]);
+        }
+
+        String source = WorkloadGenerator.ofSize(seed, size).generate();
+        long lines = source.chars().filter(c -> c == '\n').count();
+
+        // what each tree keeps, the tree before it is already on the heap
+        long before = retained();
+        Start ast = new Parser(new Lexer(new PushbackReader(new StringReader(source), 1024))).parse();
+        long parsed = retained();
+        long start = System.nanoTime();
+        FlatAst flat = FlatAst.of(ast);
+        long flattened = System.nanoTime() - start;
+        long after = retained();
+
+        System.out.println(lines + " lines, " + flat.size() + " nodes, " + flat.getSymbolCount() + " symbols, flattened in "
+                + String.format("%.3f", flattened / 1e6) + " ms");
+        System.out.println(String.format("%-10s %14s %12s", "tree", "KB", "bytes/line"));
+        System.out.println(String.format("%-10s %14.1f %12.1f", "Start", (parsed - before) / 1024.0, (double) (parsed - before) / lines));
+        System.out.println(String.format("%-10s %14.1f %12.1f", "FlatAst", (after - parsed) / 1024.0, (double) (after - parsed) / lines));
+        System.out.println();
+
+        Uses tree = measure(() -> {
+            Uses uses = new Uses();
+            ast.apply(new TreeUses(uses));
+            return uses;
+        });
+        Uses walked = measure(() -> {
+            Uses uses = new Uses();
+            flat.walk((visited, node) -> {
+                uses.add(visited, node);
+                return true;
+            });
+            return uses;
+        });
+        Uses looped = measure(() -> {
+            Uses uses = new Uses();
+            for(int id = 0; id < flat.size(); id++){
+                uses.add(flat, id);
+            }
+            return uses;
+        });
+        if(!tree.equals(walked) || !tree.equals(looped)){
+            throw new IllegalStateException("The trees differ: " + tree + ", " + walked + ", " + looped);
+        }
+
+        System.out.println(tree);
+        System.out.println(String.format("%-22s %10s %10s %9s", "pass", "ms", "ns/line", "speedup"));
+        print("Start, DepthFirst", tree, tree, lines);
+        print("FlatAst, walk", walked, tree, lines);
+        print("FlatAst, loop", looped, tree, lines);
+    }
+
+    // The heap in use after collecting the garbage, a few times since one GC does not always collect everything
+    private static long retained() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 4; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void print(String name, Uses uses, Uses tree, long lines) {
+        System.out.println(String.format("%-22s %10.3f %10.1f %8.2fx", name, uses.nanos / 1e6, uses.nanos / lines, tree.nanos / uses.nanos));
+    }
+
+    /**
+     * A pass over a tree
+     */
+    private interface Pass {
+        Uses run();
+    }
+
+    // Runs a pass after warming it up, returns what it found and its average time
+    private static Uses measure(Pass pass) {
+        for(int i = 0; i < WARM_UP_ROUNDS; i++){
+            pass.run();
+        }
+
+        Uses uses = null;
+        long start = System.nanoTime();
+        for(int i = 0; i < ROUNDS; i++){
+            uses = pass.run();
+        }
+        uses.nanos = (double) (System.nanoTime() - start) / ROUNDS;
+        return uses;
+    }
+
+    /**
+     * Class Uses
+     * What a pass finds: the assignments, the calls and the uses of the variables, and the sum of their lines
+     */
+    private static class Uses {
+        private long assignments;
+        private long calls;
+        private long variables;
+        private long lines;
+        private double nanos;
+
+        private void add(FlatAst ast, int node) {
+            switch(ast.getKind(node)){
+                case ASSIGN:
+                case MINUS_ASSIGN:
+                case DIV_ASSIGN:
+                case SET_INDEX:
+                    assignments++;
+                    lines += ast.getLine(node);
+                    break;
+                case CALL:
+                    calls++;
+                    lines += ast.getLine(node);
+                    break;
+                case IDENTIFIER:
+                    variables++;
+                    lines += ast.getLine(node);
+                    break;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Uses)) return false;
+            Uses uses = (Uses) other;
+            return assignments == uses.assignments && calls == uses.calls && variables == uses.variables && lines == uses.lines;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(assignments + 31 * (calls + 31 * (variables + 31 * lines)));
+        }
+
+        @Override
+        public String toString() {
+            return assignments + " assignments, " + calls + " calls, " + variables + " uses of variables";
+        }
+    }
+
+    /**
+     * Class TreeUses
+     * The same pass over the Start tree, where the array of a for statement is a token and not an expression
+     */
+    private static class TreeUses extends DepthFirstAdapter {
+        private Uses uses;
+
+        private TreeUses(Uses uses) {
+            this.uses = uses;
+        }
+
+        private void assignment(int line) {
+            uses.assignments++;
+            uses.lines += line;
+        }
+
+        @Override
+        public void inAEqualsStatement(AEqualsStatement node) {
+            assignment(node.getId().getLine());
+        }
+
+        @Override
+        public void inAMinusEqualsStatement(AMinusEqualsStatement node) {
+            assignment(node.getId().getLine());
+        }
+
+        @Override
+        public void inADivEqualsStatement(ADivEqualsStatement node) {
+            assignment(node.getId().getLine());
+        }
+
+        @Override
+        public void inAArrayStatement(AArrayStatement node) {
+            assignment(node.getId().getLine());
+        }
+
+        @Override
+        public void inAFunctionStatement(AFunctionStatement node) {
+            uses.calls++;
+            uses.lines += node.getId().getLine();
+        }
+
+        @Override
+        public void inAFunctionCall(AFunctionCall node) {
+            uses.calls++;
+            uses.lines += node.getId().getLine();
+        }
+
+        @Override
+        public void inAForStatement(AForStatement node) {
+            uses.variables++;
+            uses.lines += node.getId2().getLine();
+        }
+
+        @Override
+        public void inAIdentifierExpression(AIdentifierExpression node) {
+            uses.variables++;
+            uses.lines += node.getId().getLine();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Interface FlatAstVisitor
+ * What FlatAst.walk does with each node of a flat tree, entering it before its children and leaving it after them,
+ * like the in and out methods of a DepthFirstAdapter.
+ */
+public interface FlatAstVisitor {
+    /**
+     * @param ast the tree
+     * @param node the node entered
+     * @return false to skip the children of the node
+     */
+    boolean enter(FlatAst ast, int node);
+
+    default void leave(FlatAst ast, int node) {
+    }
+}
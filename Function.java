@@ -1,6 +1,7 @@
 import minipython.node.PExpression;
+import minipython.node.TId;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 /**
  * Class Function
@@ -12,16 +13,82 @@ public class Function {
     private int pos;
     private int nonDefaults;
     private int defaults;
-    private HashMap<String, Variable> vars;
+    // The names of the symbolTable that defines the function, which a function imported by another file keeps
+    private Symbols symbols;
+    // The params and the local variables, by the symbol of their name in symbols
+    private SymbolMap<Variable> vars;
     private ArrayList<Variable> params;
-    private String returnType;
+    private Type returnType;
     private PExpression returnNode;
-    private String errorString;
 
-    public Function() {
+    /**
+     * Constructor
+     * @param symbols the names of the symbolTable the function is defined in
+     */
+    public Function(Symbols symbols) {
+        this.symbols = symbols;
         nonDefaults = 0;
         defaults = 0;
-        vars = new HashMap<>();
+        vars = new SymbolMap<>();
+    }
+
+    /**
+     * Copies the function together with its parameters and variables
+     * @param symbolTable the symbolTable of the copied variables
+     * @return the copy
+     */
+    public Function copy(RootSymbolTable symbolTable){
+        Function copy = new Function(symbols);
+        copy.id = id;
+        copy.line = line;
+        copy.pos = pos;
+        copy.nonDefaults = nonDefaults;
+        copy.defaults = defaults;
+        copy.returnType = returnType;
+        copy.returnNode = returnNode;
+
+        // a param is both in params and in vars, so it has to be copied once
+        IdentityHashMap<Variable, Variable> copies = new IdentityHashMap<>();
+        if(params != null){
+            copy.params = new ArrayList<>();
+            for(Variable var : params){
+                Variable varCopy = var.copy(symbolTable);
+                copies.put(var, varCopy);
+                copy.params.add(varCopy);
+            }
+        }
+        for(int i = 0; i < vars.size(); i++){
+            Variable var = vars.valueAt(i);
+            Variable varCopy = copies.get(var);
+            copy.vars.put(vars.keyAt(i), varCopy != null ? varCopy : var.copy(symbolTable));
+        }
+        return copy;
+    }
+
+    // Returns the param or local variable of an id, or null
+    public Variable getVar(TId id){
+        return vars.get(symbols.find(id));
+    }
+
+    public Variable getVar(String name){
+        return vars.get(symbols.find(name));
+    }
+
+    public void putVar(TId id, Variable var){
+        vars.put(symbols.intern(id), var);
+    }
+
+    public void putVar(String name, Variable var){
+        vars.put(symbols.intern(name), var);
+    }
+
+    // The names of the params and the local variables, in the order they were put
+    public ArrayList<String> getVarNames(){
+        ArrayList<String> names = new ArrayList<>(vars.size());
+        for(int i = 0; i < vars.size(); i++){
+            names.add(symbols.name(vars.keyAt(i)));
+        }
+        return names;
     }
 
     @Override
@@ -75,11 +142,15 @@ public class Function {
         this.defaults = defaults;
     }
 
-    public HashMap<String, Variable> getVars() {
+    public Symbols getSymbols() {
+        return symbols;
+    }
+
+    public SymbolMap<Variable> getVars() {
         return vars;
     }
 
-    public void setVars(HashMap<String, Variable> vars) {
+    public void setVars(SymbolMap<Variable> vars) {
         this.vars = vars;
     }
 
@@ -91,11 +162,11 @@ public class Function {
         this.params = params;
     }
 
-    public String getReturnType() {
+    public Type getReturnType() {
         return returnType;
     }
 
-    public void setReturnType(String returnType) {
+    public void setReturnType(Type returnType) {
         this.returnType = returnType;
     }
 
@@ -106,8 +177,4 @@ public class Function {
     public void setReturnNode(PExpression returnNode) {
         this.returnNode = returnNode;
     }
-
-    public String getErrorString() { return errorString; }
-
-    public void setErrorString(String errorString) { this.errorString = errorString; }
 }
@@ -0,0 +1,42 @@
+/**
+ * Class FunctionCall
+ * This class represents the result of checking a function call, see Utils.checkLegitFunction
+ */
+public class FunctionCall {
+    // The function that is called, or null if there is no function accepting the call
+    private Function function;
+
+    // The return type of the function for the types of the arguments of the call, otherwise null
+    private Type returnType;
+
+    // The error of the call, or null if it is legit
+    private Diagnostic error;
+
+    // The number of arguments of the call
+    private int argsCount;
+
+    public FunctionCall(Function function, Type returnType, Diagnostic error, int argsCount) {
+        this.function = function;
+        this.argsCount = argsCount;
+        this.returnType = returnType;
+        this.error = error;
+    }
+
+    /* Getters */
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public Diagnostic getError() {
+        return error;
+    }
+
+    public int getArgsCount() {
+        return argsCount;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Interface FunctionImports
+ * This interface represents the functions that a symbolTable can call without defining them,
+ * like the functions of the other files of a Project
+ */
+public interface FunctionImports {
+    /**
+     * Checks if any function has been defined with the given name
+     * @param id the name of the function
+     * @return true if there is at least one
+     */
+    boolean isDefined(String id);
+
+    /**
+     * Finds the function that can be called with the given number of arguments
+     * @param id the name of the function
+     * @param argsCount the number of arguments of the function call
+     * @return the function or null if there is none
+     */
+    Function getAccepting(String id, int argsCount);
+}
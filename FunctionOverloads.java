@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class FunctionOverloads
+ * This class represents all the functions of our symbolTable that share the same name (id),
+ * indexed by the number of arguments each one of them accepts
+ */
+public class FunctionOverloads {
+    // The overloads, in the order they were added
+    private ArrayList<Function> functions;
+
+    // byArity[n] holds the first added overload that can be called with n arguments, otherwise null
+    private Function[] byArity;
+
+    // order[n] holds the position of byArity[n] inside functions, so we can tell which one was defined first
+    private int[] order;
+
+    // The position of each overload among all the functions of the symbolTable, in the order they were added
+    private int[] positions;
+
+    public FunctionOverloads() {
+        functions = new ArrayList<>();
+        byArity = new Function[4];
+        order = new int[4];
+        positions = new int[4];
+    }
+
+    /**
+     * Adds a new overload and marks all the number of arguments it accepts, from nonDefaults
+     * up to nonDefaults + defaults. A slot that is already taken keeps its first function.
+     * @param fun the function to add
+     * @param position its position among all the functions of the symbolTable
+     */
+    public void addFunction(Function fun, int position){
+        if(functions.size() == positions.length) positions = Arrays.copyOf(positions, positions.length * 2);
+        positions[functions.size()] = position;
+
+        int max = fun.getNonDefaults() + fun.getDefaults();
+        if(max >= byArity.length){
+            int length = Math.max(max + 1, byArity.length * 2);
+            byArity = Arrays.copyOf(byArity, length);
+            order = Arrays.copyOf(order, length);
+        }
+
+        for(int i = fun.getNonDefaults(); i <= max; i++){
+            if(byArity[i] == null){
+                byArity[i] = fun;
+                order[i] = functions.size();
+            }
+        }
+        functions.add(fun);
+    }
+
+    /**
+     * Finds the overload that can be called with the given number of arguments
+     * @param argsCount the number of arguments of the function call
+     * @return the function or null if there is none
+     */
+    public Function getAccepting(int argsCount){
+        if(argsCount < 0 || argsCount >= byArity.length) return null;
+        return byArity[argsCount];
+    }
+
+    /**
+     * Finds the first defined overload that can be called with any number of arguments between min and max
+     * @param min the minimum number of arguments
+     * @param max the maximum number of arguments
+     * @return the function or null if there is no overlap
+     */
+    public Function getOverlapping(int min, int max){
+        Function found = null;
+        int foundOrder = Integer.MAX_VALUE;
+        for(int i = Math.max(min, 0); i <= max && i < byArity.length; i++){
+            if(byArity[i] != null && order[i] < foundOrder){
+                found = byArity[i];
+                foundOrder = order[i];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the overloads that had been defined when only the first functions of the symbolTable were
+     * @param count the number of the functions of the symbolTable defined so far
+     * @return these overloads, or null if none of them had been defined
+     */
+    public FunctionOverloads getDefinedBefore(int count){
+        if(positions[functions.size() - 1] < count) return this;
+
+        FunctionOverloads defined = new FunctionOverloads();
+        for(int i = 0; i < functions.size() && positions[i] < count; i++){
+            defined.addFunction(functions.get(i), positions[i]);
+        }
+        return defined.functions.isEmpty() ? null : defined;
+    }
+
+    public ArrayList<Function> getFunctions() {
+        return functions;
+    }
+}
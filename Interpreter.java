@@ -0,0 +1,1375 @@
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+
+/**
+ * Class Interpreter
+ * This class runs a checked program straight from its AST, without writing a class like the CodeGenerator,
+ * which costs more than it saves for a short script. The AST is first turned into a tree of nodes made for each
+ * kind of statement and expression, where every variable is already a slot of a frame: the globals have one frame,
+ * and each call of a function a new one.
+ *
+ * The expressions the visitors have typed INT become int nodes, which compute with ints and keep them in the frames
+ * without boxing them, e.g. n - 1 * 2 does not allocate an Integer for each operation. The same goes for the elements
+ * of the arrays of ints (MiniPythonArray), which they read, write and go through with a for as ints. A type is only a guess,
+ * a global may hold a string at some point, so when an int node gets a value that is not an int it throws NotInt
+ * with that value and its parent goes on with the boxed operations of MiniPythonRuntime, like the generic nodes.
+ * Without specializing (setSpecialized) every node is generic, which is the boxed evaluator int nodes are measured against.
+ * A chain of additions typed STR is a single node, which appends its operands to one StringBuilder.
+ * A call of a function whose params are typed UNDEF runs a body built for the ints it passes, see Call.
+ *
+ * The values and the errors are the same as the CodeGenerator's, see MiniPythonRuntime.
+ */
+public class Interpreter {
+    // What a statement returns when the statements after it go on, any other value is returned by the function
+    private static final Object NEXT = new Object();
+
+    // The value of a slot that holds an int in the ints of its frame, or what a statement returns for the int in result
+    private static final Object INT = new Object();
+
+    // False for calls without inline caches, which always run the body built for the defined types of the params
+    private static boolean inlineCaches = true;
+
+    private RootSymbolTable symbolTable;
+    private boolean specialized = true;
+
+    // False to leave every addition of strings on its own, which the chains are measured against
+    private boolean concatChains = true;
+
+    // False to keep the elements of every array boxed, which the int arrays are measured against
+    private boolean intArrays = true;
+
+    /* The program being built */
+    private Frame globals;
+    private HashMap<String, Integer> globalSlots;
+    private IdentityHashMap<Function, FunctionCode> functions;
+    private Statement[] program;
+
+    /* The function being built, otherwise null */
+    private Function function;
+    private HashMap<String, Integer> locals;
+    private HashSet<String> assigned;
+
+    // The types of the params the function is built for, null for the defined ones
+    private Type[] paramTypes;
+
+    /**
+     * Constructor
+     * @param symbolTable the symbolTable of the checked program
+     */
+    public Interpreter(RootSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Builds the nodes of a program, to run it
+     * @param ast the program, checked without errors
+     */
+    public void prepare(Start ast) {
+        globalSlots = new HashMap<>();
+        functions = new IdentityHashMap<>();
+
+        // the functions are made first, since they can be called before they are defined
+        ArrayList<AFunction> definitions = new ArrayList<>();
+        ArrayList<PStatement> statements = new ArrayList<>();
+        for(Object command : ((AGoal) ast.getPGoal()).getCommands()){
+            if(command instanceof AFuncCommands) definitions.add((AFunction) ((AFuncCommands) command).getFunction());
+            else statements.add(((AStmtCommands) command).getStatement());
+        }
+        for(AFunction definition : definitions){
+            int params = paramCount(definition);
+            functions.put(symbolTable.getOverloads(definition.getId()).getAccepting(params), new FunctionCode(this, definition, params, specialized));
+        }
+        for(AFunction definition : definitions){
+            function(definition);
+        }
+
+        program = new Statement[statements.size()];
+        for(int i = 0; i < program.length; i++){
+            program[i] = statement(statements.get(i));
+        }
+        globals = new Frame(globalSlots.size(), specialized);
+    }
+
+    /**
+     * Runs the prepared program, printing the error that ends it if any
+     * @return false if the program failed
+     */
+    public boolean run() {
+        if(program == null) throw new IllegalStateException("There is no prepared program to run");
+
+        // the globals are None until they are assigned, also when the program runs again
+        globals.clear();
+        try {
+            for(Statement statement : program){
+                if(statement.execute(globals) != NEXT) break;
+            }
+            return true;
+        } catch (RuntimeException | StackOverflowError e) {
+            return MiniPythonRuntime.fail(e);
+        } finally {
+            MiniPythonRuntime.flush();
+        }
+    }
+
+    /* Building */
+
+    private static int paramCount(AFunction node) {
+        AArgument argument = (AArgument) node.getArgument();
+        return argument == null ? 0 : 1 + argument.getParameters().size();
+    }
+
+    private void function(AFunction node) {
+        // the params in order, like the FirstVisitor adds them
+        ArrayList<TId> params = new ArrayList<>();
+        ArrayList<PAssignValue> defaults = new ArrayList<>();
+        AArgument argument = (AArgument) node.getArgument();
+        if(argument != null){
+            params.add(argument.getId());
+            defaults.add(argument.getAssignValue());
+            for(Object temp : argument.getParameters()){
+                params.add(((AParameters) temp).getId());
+                defaults.add(((AParameters) temp).getAssignValue());
+            }
+        }
+
+        FunctionCode code = functions.get(symbolTable.getOverloads(node.getId()).getAccepting(params.size()));
+        for(int i = 0; i < params.size(); i++){
+            code.params[i] = params.get(i).getText();
+            if(defaults.get(i) == null) continue;
+            // the defaults are literals, so they are their values
+            code.defaults[i] = value(((AAssignValue) defaults.get(i)).getValue()).value;
+            if(code.defaults[i] instanceof Integer && i < Integer.SIZE - 1) code.intDefaults |= 1 << i;
+        }
+        for(int i = 0; i < params.size() && i < Integer.SIZE - 1; i++){
+            if(code.function.getParams().get(i).getType() == Type.INT) code.intParams |= 1 << i;
+        }
+        code.body = body(code, null);
+    }
+
+    /**
+     * Builds the body of a function, for the defined types of its params or, for a call that has passed ints
+     * to params typed UNDEF, with those params typed INT, see Call
+     * @param code the function
+     * @param types the types of the params, or null for the defined ones
+     * @return the body
+     */
+    private Statement body(FunctionCode code, Type[] types) {
+        function = code.function;
+        paramTypes = types;
+        locals = new HashMap<>();
+        for(int i = 0; i < code.params.length; i++){
+            locals.put(code.params[i], i);
+        }
+        assigned = new HashSet<>();
+        findAssigned(code.node.getStatement());
+
+        // the same variables get the same slots every time, so a frame fits every body of the function
+        Statement body = statement(code.node.getStatement());
+        code.frameSize = locals.size();
+
+        function = null;
+        paramTypes = null;
+        locals = null;
+        assigned = null;
+        return body;
+    }
+
+    // Finds the variables a statement assigns
+    private void findAssigned(PStatement statement) {
+        if(statement instanceof AIfStatement) findAssigned(((AIfStatement) statement).getStatement());
+        else if(statement instanceof AWhileStatement) findAssigned(((AWhileStatement) statement).getStatement());
+        else if(statement instanceof AForStatement){
+            assigned.add(((AForStatement) statement).getId1().getText());
+            findAssigned(((AForStatement) statement).getStatement());
+        }
+        else if(statement instanceof AEqualsStatement) assigned.add(((AEqualsStatement) statement).getId().getText());
+        else if(statement instanceof AMinusEqualsStatement) assigned.add(((AMinusEqualsStatement) statement).getId().getText());
+        else if(statement instanceof ADivEqualsStatement) assigned.add(((ADivEqualsStatement) statement).getId().getText());
+    }
+
+    private Statement statement(PStatement statement) {
+        if(statement instanceof AIfStatement){
+            AIfStatement ifStatement = (AIfStatement) statement;
+            return new If(condition(ifStatement.getComparison()), statement(ifStatement.getStatement()));
+        }
+        if(statement instanceof AWhileStatement){
+            AWhileStatement whileStatement = (AWhileStatement) statement;
+            return new While(condition(whileStatement.getComparison()), statement(whileStatement.getStatement()));
+        }
+        if(statement instanceof AForStatement){
+            AForStatement forStatement = (AForStatement) statement;
+            Slot elements = slot(forStatement.getId2().getText());
+            return new For(elements, slot(forStatement.getId1().getText()), specialized, statement(forStatement.getStatement()));
+        }
+        if(statement instanceof AReturnStatement){
+            PExpression value = ((AReturnStatement) statement).getExpression();
+            return isInt(value) ? new IntReturn(expression(value)) : new Return(expression(value));
+        }
+        if(statement instanceof APrintStatement){
+            ArrayList<PExpression> values = arguments(((APrintStatement) statement).getArglist());
+            Expression[] nodes = new Expression[values.size()];
+            for(int i = 0; i < nodes.length; i++){
+                nodes[i] = expression(values.get(i));
+            }
+            return new Print(nodes);
+        }
+        if(statement instanceof AEqualsStatement){
+            AEqualsStatement equals = (AEqualsStatement) statement;
+            return assign(slot(equals.getId().getText()), expression(equals.getExpression()), mayBeInt(equals.getExpression()));
+        }
+        if(statement instanceof AMinusEqualsStatement){
+            // x -= e is x = x - e, so it takes the int path of the subtraction
+            AMinusEqualsStatement minusEquals = (AMinusEqualsStatement) statement;
+            Slot slot = slot(minusEquals.getId().getText());
+            return assign(slot, arithmetic(SUB, slot, expression(minusEquals.getExpression())), specialized);
+        }
+        if(statement instanceof ADivEqualsStatement){
+            ADivEqualsStatement divEquals = (ADivEqualsStatement) statement;
+            Slot slot = slot(divEquals.getId().getText());
+            return assign(slot, arithmetic(DIV, slot, expression(divEquals.getExpression())), specialized);
+        }
+        if(statement instanceof AArrayStatement){
+            AArrayStatement array = (AArrayStatement) statement;
+            return new SetIndex(slot(array.getId().getText()), expression(array.getExp1()), specialized,
+                    expression(array.getExp2()), mayBeInt(array.getExp2()));
+        }
+        AFunctionStatement call = (AFunctionStatement) statement;
+        return new Discard(call(call.getId(), call.getArglist()));
+    }
+
+    private Statement assign(Slot slot, Expression value, boolean isInt) {
+        return isInt ? new IntAssign(slot, value) : new Assign(slot, value);
+    }
+
+    private Condition condition(PComparison comparison) {
+        if(comparison instanceof ATrueComparison) return new Constant(true);
+        if(comparison instanceof AFalseComparison) return new Constant(false);
+        if(comparison instanceof AExpEqualityComparison){
+            AExpEqualityComparison equality = (AExpEqualityComparison) comparison;
+            return equality(equality.getExp1(), equality.getExp2(), false);
+        }
+        if(comparison instanceof AExpNotEqualsComparison){
+            AExpNotEqualsComparison notEquals = (AExpNotEqualsComparison) comparison;
+            return equality(notEquals.getExp1(), notEquals.getExp2(), true);
+        }
+        if(comparison instanceof AExpressionComparison){
+            PExpression expression = ((AExpressionComparison) comparison).getExpression();
+            return isInt(expression) ? new IntTruthy(expression(expression)) : new Truthy(expression(expression));
+        }
+
+        // the grammar makes a chain of < and > lean to the left: ((a < b) < c)
+        LinkedList<PComparison> operands = new LinkedList<>();
+        LinkedList<Boolean> greater = new LinkedList<>();
+        while(comparison instanceof AGreatComparison || comparison instanceof ALessComparison){
+            if(comparison instanceof AGreatComparison){
+                operands.addFirst(((AGreatComparison) comparison).getComp2());
+                greater.addFirst(true);
+                comparison = ((AGreatComparison) comparison).getComp1();
+            }
+            else{
+                operands.addFirst(((ALessComparison) comparison).getComp2());
+                greater.addFirst(false);
+                comparison = ((ALessComparison) comparison).getComp1();
+            }
+        }
+        operands.addFirst(comparison);
+
+        Expression[] nodes = new Expression[operands.size()];
+        boolean[] isGreater = new boolean[greater.size()];
+        boolean ints = specialized;
+        for(int i = 0; i < nodes.length; i++){
+            PComparison operand = operands.get(i);
+            if(operand instanceof AExpressionComparison){
+                nodes[i] = expression(((AExpressionComparison) operand).getExpression());
+                ints &= isInt(((AExpressionComparison) operand).getExpression());
+            }
+            else{
+                // a comparison in the chain counts as True or False
+                nodes[i] = new ConditionValue(condition(operand));
+                ints = false;
+            }
+            if(i > 0) isGreater[i - 1] = greater.get(i - 1);
+        }
+        return ints ? new IntChain(nodes, isGreater) : new Chain(nodes, isGreater);
+    }
+
+    private Condition equality(PExpression left, PExpression right, boolean negated) {
+        if(isInt(left) && isInt(right)) return new IntEquality(expression(left), expression(right), negated);
+        return new Equality(expression(left), expression(right), negated);
+    }
+
+    private Expression expression(PExpression expression) {
+        if(expression instanceof AValueExpression){
+            return value(((AValueExpression) expression).getValue());
+        }
+        if(expression instanceof AIdentifierExpression){
+            return slot(((AIdentifierExpression) expression).getId().getText());
+        }
+        if(expression instanceof AExpInBracketsExpression){
+            AExpInBracketsExpression index = (AExpInBracketsExpression) expression;
+            // an index that is not an int ends the program, so it always takes the int path
+            return new Index(slot(index.getId().getText()), expression(index.getExpression()), specialized);
+        }
+        if(expression instanceof AFunctionExpression){
+            AFunctionCall call = (AFunctionCall) ((AFunctionExpression) expression).getFunctionCall();
+            return call(call.getId(), call.getArglist());
+        }
+        if(expression instanceof AAdditionExpression){
+            ArrayList<PExpression> operands = concatChains ? Utils.getConcatOperands(expression, function, symbolTable) : null;
+            if(operands != null){
+                Expression[] nodes = new Expression[operands.size()];
+                for(int i = 0; i < nodes.length; i++){
+                    nodes[i] = expression(operands.get(i));
+                }
+                return new Concat(nodes, Utils.getConcatCapacity(operands));
+            }
+            AAdditionExpression addition = (AAdditionExpression) expression;
+            Expression left = expression(addition.getExp1());
+            Expression right = expression(addition.getExp2());
+            return mayBeInt(expression) ? new IntArithmetic(ADD, left, right) : new Arithmetic(ADD, left, right);
+        }
+        if(expression instanceof AAbstractionExpression){
+            AAbstractionExpression abstraction = (AAbstractionExpression) expression;
+            return arithmetic(SUB, expression(abstraction.getExp1()), expression(abstraction.getExp2()));
+        }
+        if(expression instanceof AMultExpression){
+            AMultExpression mult = (AMultExpression) expression;
+            return arithmetic(MUL, expression(mult.getExp1()), expression(mult.getExp2()));
+        }
+        if(expression instanceof ADivExpression){
+            ADivExpression div = (ADivExpression) expression;
+            return arithmetic(DIV, expression(div.getExp1()), expression(div.getExp2()));
+        }
+        ArrayList<PExpression> elements = arguments(((AExpsInsideBracketsExpression) expression).getArglist());
+        Expression[] nodes = new Expression[elements.size()];
+        boolean[] ints = new boolean[nodes.length];
+        for(int i = 0; i < nodes.length; i++){
+            nodes[i] = expression(elements.get(i));
+            ints[i] = isInt(elements.get(i));
+        }
+        return new ArrayLiteral(nodes, ints, intArrays);
+    }
+
+    // -, * and / are only defined for ints, so their result is an int whenever it is anything
+    private Expression arithmetic(int operator, Expression left, Expression right) {
+        return specialized ? new IntArithmetic(operator, left, right) : new Arithmetic(operator, left, right);
+    }
+
+    // A literal, an int or a String without its quotes
+    private Literal value(PValue value) {
+        if(value instanceof ANumberValue){
+            TInteger integer = ((ANumberValue) value).getInteger();
+            try {
+                return new Literal(Integer.parseInt(integer.getText()));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("The integer " + integer.getText() + " in the line " + integer.getLine() + " does not fit in an int");
+            }
+        }
+        String text = ((AStringValue) value).getStringLit().getText();
+        return new Literal(text.substring(1, text.length() - 1));
+    }
+
+    // Calls the function that accepts the arguments, there is only one like in Utils.checkLegitFunction
+    private Expression call(TId id, PArglist arglist) {
+        ArrayList<PExpression> args = arguments(arglist);
+        FunctionOverloads overloads = symbolTable.getOverloads(id);
+        FunctionCode target = overloads == null ? null : functions.get(overloads.getAccepting(args.size()));
+        if(target == null){
+            throw new IllegalStateException("The function " + id.getText() + " in the line " + id.getLine() + " is not defined for " + args.size() + " arguments");
+        }
+
+        Expression[] nodes = new Expression[args.size()];
+        boolean[] ints = new boolean[args.size()];
+        for(int i = 0; i < nodes.length; i++){
+            nodes[i] = expression(args.get(i));
+            ints[i] = isInt(args.get(i));
+        }
+        return new Call(target, nodes, ints);
+    }
+
+    // The expressions of an arglist in the order they are written, the arglist lists them backwards
+    private static ArrayList<PExpression> arguments(PArglist args) {
+        LinkedList<PExpression> expressions = new LinkedList<>();
+        while(args != null){
+            if(args instanceof AExpArglist){
+                expressions.addFirst(((AExpArglist) args).getExpression());
+                break;
+            }
+            if(((AMoreExpArglist) args).getExpression() != null){
+                expressions.addFirst(((AMoreExpArglist) args).getExpression());
+            }
+            args = ((AMoreExpArglist) args).getArglist();
+        }
+        return new ArrayList<>(expressions);
+    }
+
+    // True if the visitors have typed an expression INT, so it gets an int node
+    private boolean isInt(PExpression expression) {
+        return specialized && Utils.getExpressionsType(expression, function, paramTypes, symbolTable) == Type.INT;
+    }
+
+    // True if an expression may be an int, e.g. the addition of 2 params without default values is typed UNDEF
+    private boolean mayBeInt(PExpression expression) {
+        if(!specialized) return false;
+        Type type = Utils.getExpressionsType(expression, function, paramTypes, symbolTable);
+        return type == Type.INT || type == Type.UNDEF;
+    }
+
+    // The slot of a variable, local like the visitors decide it or global
+    private Slot slot(String name) {
+        if(function != null && (locals.containsKey(name) || function.getVar(name) != null
+                || (assigned.contains(name) && symbolTable.getVariable(name) == null))){
+            Integer index = locals.get(name);
+            if(index == null){
+                index = locals.size();
+                locals.put(name, index);
+            }
+            return new Slot(null, index);
+        }
+
+        Integer index = globalSlots.get(name);
+        if(index == null){
+            index = globalSlots.size();
+            globalSlots.put(name, index);
+        }
+        return new Slot(this, index);
+    }
+
+    /* Getters and Setters */
+
+    public boolean isSpecialized() {
+        return specialized;
+    }
+
+    // Whether the expressions typed INT get int nodes, set before prepare
+    public void setSpecialized(boolean specialized) {
+        this.specialized = specialized;
+    }
+
+    public boolean isConcatChains() {
+        return concatChains;
+    }
+
+    // Whether the chains of additions of strings get one Concat node, set before prepare
+    public void setConcatChains(boolean concatChains) {
+        this.concatChains = concatChains;
+    }
+
+    public boolean isIntArrays() {
+        return intArrays;
+    }
+
+    // Whether the array literals keep their elements in an int[] while they are ints, set before prepare
+    public void setIntArrays(boolean intArrays) {
+        this.intArrays = intArrays;
+    }
+
+    // Whether the calls have inline caches, set before prepare, see Call
+    public static void setInlineCaches(boolean inlineCaches) {
+        Interpreter.inlineCaches = inlineCaches;
+    }
+
+    /* Values */
+
+    // The int of a value, or NotInt with the value
+    private static int asInt(Object value) {
+        if(value instanceof Integer) return (Integer) value;
+        throw new NotInt(value);
+    }
+
+    /**
+     * Class NotInt
+     * Thrown by an int node that has got a value that is not an int, which its parent goes on with
+     */
+    private static class NotInt extends RuntimeException {
+        private final Object value;
+
+        private NotInt(Object value) {
+            super(null, null, false, false);
+            this.value = value;
+        }
+    }
+
+    /**
+     * Class Frame
+     * The variables of the top level or of a call of a function, each one holds an Object, or INT if its int is in ints
+     */
+    private static class Frame {
+        private final Object[] values;
+        private final int[] ints;
+
+        // The int returned by the call, when it returns INT
+        private int result;
+
+        private Frame(int size, boolean specialized) {
+            values = new Object[size];
+            ints = new int[specialized ? size : 0];
+        }
+
+        private void clear() {
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Class FunctionCode
+     * A function overload, called with a frame whose first slots are its params
+     */
+    private static class FunctionCode {
+        private final Interpreter interpreter;
+        private final AFunction node;
+        private final Function function;
+        private final String[] params;
+        private final Object[] defaults;
+        private final boolean specialized;
+
+        // The params with an int default value, and the ones typed INT as they are defined, as bits
+        private int intDefaults;
+        private int intParams;
+
+        // The body for the defined types, and the ones for the params that have been passed ints, by their bits
+        private Statement body;
+        private HashMap<Integer, Statement> bodies;
+        private int frameSize;
+
+        // The frames of the calls that are running, kept for the next calls as deep, since a frame never outlives its call
+        private Frame[] frames;
+        private int depth;
+
+        private FunctionCode(Interpreter interpreter, AFunction node, int params, boolean specialized) {
+            this.interpreter = interpreter;
+            this.node = node;
+            this.function = interpreter.symbolTable.getOverloads(node.getId()).getAccepting(params);
+            this.params = new String[params];
+            this.defaults = new Object[params];
+            this.specialized = specialized;
+            this.bodies = new HashMap<>();
+            this.frames = new Frame[8];
+        }
+
+        private Frame enter() {
+            if(depth == frames.length) frames = Arrays.copyOf(frames, depth * 2);
+            Frame frame = frames[depth];
+            if(frame == null) frame = frames[depth] = new Frame(frameSize, specialized);
+            else frame.clear();
+            depth++;
+            return frame;
+        }
+
+        private void leave() {
+            depth--;
+        }
+
+        /**
+         * The body for a call whose params hold ints where ints has a bit, built the first time.
+         * A param typed INT as defined is already an int in the body, so only the other ones make another body.
+         */
+        private Statement body(int ints) {
+            if((ints & ~intParams) == 0) return body;
+            int key = ints | intParams;
+            Statement found = bodies.get(key);
+            if(found == null){
+                Type[] types = new Type[params.length];
+                for(int i = 0; i < types.length; i++){
+                    types[i] = (key & 1 << i) != 0 ? Type.INT : function.getParams().get(i).getType();
+                }
+                found = interpreter.body(this, types);
+                bodies.put(key, found);
+            }
+            return found;
+        }
+    }
+
+    /* Statements */
+
+    private abstract static class Statement {
+        // Returns NEXT, or the value the function returns
+        abstract Object execute(Frame frame);
+    }
+
+    private static class If extends Statement {
+        private final Condition condition;
+        private final Statement body;
+
+        private If(Condition condition, Statement body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return condition.test(frame) ? body.execute(frame) : NEXT;
+        }
+    }
+
+    private static class While extends Statement {
+        private final Condition condition;
+        private final Statement body;
+
+        private While(Condition condition, Statement body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            while(condition.test(frame)){
+                Object result = body.execute(frame);
+                if(result != NEXT) return result;
+            }
+            return NEXT;
+        }
+    }
+
+    private static class For extends Statement {
+        private final Slot elements;
+        private final Slot element;
+        private final boolean intElements;
+        private final Statement body;
+
+        private For(Slot elements, Slot element, boolean intElements, Statement body) {
+            this.elements = elements;
+            this.element = element;
+            this.intElements = intElements;
+            this.body = body;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            // the elements are taken once, like the CodeGenerator does
+            MiniPythonArray array = MiniPythonRuntime.iterable(elements.execute(frame));
+            int i = 0;
+            if(intElements){
+                // the elements of an array of ints go to the slot as ints, so the loop boxes nothing,
+                // until the body stores something else in the array
+                for(; i < array.size() && array.isInts(); i++){
+                    element.storeInt(frame, array.getInt(i));
+                    Object result = body.execute(frame);
+                    if(result != NEXT) return result;
+                }
+            }
+            for(; i < array.size(); i++){
+                element.store(frame, array.get(i));
+                Object result = body.execute(frame);
+                if(result != NEXT) return result;
+            }
+            return NEXT;
+        }
+    }
+
+    private static class Return extends Statement {
+        private final Expression value;
+
+        private Return(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return value.execute(frame);
+        }
+    }
+
+    // Returns an expression typed INT in the result of the frame, so it is not boxed
+    private static class IntReturn extends Statement {
+        private final Expression value;
+
+        private IntReturn(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            try {
+                frame.result = value.executeInt(frame);
+                return INT;
+            } catch (NotInt e) {
+                return e.value;
+            }
+        }
+    }
+
+    private static class Print extends Statement {
+        private final Expression[] values;
+
+        private Print(Expression[] values) {
+            this.values = values;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            for(int i = 0; i < values.length; i++){
+                if(i == 0) MiniPythonRuntime.print(values[i].execute(frame));
+                else MiniPythonRuntime.printNext(values[i].execute(frame));
+            }
+            MiniPythonRuntime.println();
+            return NEXT;
+        }
+    }
+
+    private static class Assign extends Statement {
+        private final Slot slot;
+        private final Expression value;
+
+        private Assign(Slot slot, Expression value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            slot.store(frame, value.execute(frame));
+            return NEXT;
+        }
+    }
+
+    // Assigns an expression that may be an int, kept as an int in the frame
+    private static class IntAssign extends Statement {
+        private final Slot slot;
+        private final Expression value;
+        // Set once the value has not been an int, e.g. a concatenation typed UNDEF, then it is only boxed
+        private boolean boxed;
+
+        private IntAssign(Slot slot, Expression value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            if(boxed){
+                slot.store(frame, value.execute(frame));
+                return NEXT;
+            }
+            try {
+                slot.storeInt(frame, value.executeInt(frame));
+            } catch (NotInt e) {
+                boxed = true;
+                slot.store(frame, e.value);
+            }
+            return NEXT;
+        }
+    }
+
+    private static class SetIndex extends Statement {
+        private final Slot array;
+        private final Expression index;
+        private final boolean intIndex;
+        private final Expression value;
+        private final boolean intValue;
+        // Set once the value has not been an int, then it is only boxed
+        private boolean boxed;
+
+        private SetIndex(Slot array, Expression index, boolean intIndex, Expression value, boolean intValue) {
+            this.array = array;
+            this.index = index;
+            this.intIndex = intIndex;
+            this.value = value;
+            this.intValue = intValue;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object target = array.execute(frame);
+            if(!intIndex){
+                MiniPythonRuntime.setIndex(target, index.execute(frame), value.execute(frame));
+                return NEXT;
+            }
+            int at;
+            try {
+                at = index.executeInt(frame);
+            } catch (NotInt e) {
+                MiniPythonRuntime.setIndex(target, e.value, value.execute(frame));
+                return NEXT;
+            }
+            if(!intValue || boxed){
+                MiniPythonRuntime.setIndex(target, at, value.execute(frame));
+                return NEXT;
+            }
+            // an int goes into an array of ints without being boxed
+            int element;
+            try {
+                element = value.executeInt(frame);
+            } catch (NotInt e) {
+                boxed = true;
+                MiniPythonRuntime.setIndex(target, at, e.value);
+                return NEXT;
+            }
+            MiniPythonRuntime.setIndex(target, at, element);
+            return NEXT;
+        }
+    }
+
+    // A call whose value is not used
+    private static class Discard extends Statement {
+        private final Expression call;
+
+        private Discard(Expression call) {
+            this.call = call;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            call.execute(frame);
+            return NEXT;
+        }
+    }
+
+    /* Conditions */
+
+    private abstract static class Condition {
+        abstract boolean test(Frame frame);
+    }
+
+    private static class Constant extends Condition {
+        private final boolean value;
+
+        private Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            return value;
+        }
+    }
+
+    private static class Truthy extends Condition {
+        private final Expression value;
+
+        private Truthy(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            return MiniPythonRuntime.truthy(value.execute(frame));
+        }
+    }
+
+    private static class IntTruthy extends Condition {
+        private final Expression value;
+
+        private IntTruthy(Expression value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            try {
+                return value.executeInt(frame) != 0;
+            } catch (NotInt e) {
+                return MiniPythonRuntime.truthy(e.value);
+            }
+        }
+    }
+
+    private static class Equality extends Condition {
+        final Expression left;
+        final Expression right;
+        final boolean negated;
+
+        private Equality(Expression left, Expression right, boolean negated) {
+            this.left = left;
+            this.right = right;
+            this.negated = negated;
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            return MiniPythonRuntime.eq(left.execute(frame), right.execute(frame)) != negated;
+        }
+    }
+
+    private static class IntEquality extends Equality {
+        private IntEquality(Expression left, Expression right, boolean negated) {
+            super(left, right, negated);
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            int first;
+            try {
+                first = left.executeInt(frame);
+            } catch (NotInt e) {
+                return MiniPythonRuntime.eq(e.value, right.execute(frame)) != negated;
+            }
+            try {
+                return (first == right.executeInt(frame)) != negated;
+            } catch (NotInt e) {
+                return MiniPythonRuntime.eq(first, e.value) != negated;
+            }
+        }
+    }
+
+    /**
+     * Class Chain
+     * A chain of < and >, like Python a < b < c is a < b and b < c, each operand evaluated once
+     */
+    private static class Chain extends Condition {
+        final Expression[] operands;
+
+        // greater[i] is true if operands[i] > operands[i + 1] is compared, otherwise <
+        final boolean[] greater;
+
+        private Chain(Expression[] operands, boolean[] greater) {
+            this.operands = operands;
+            this.greater = greater;
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            return test(frame, 1, operands[0].execute(frame));
+        }
+
+        // Goes on from the comparison of left, the operand before next, with it
+        boolean test(Frame frame, int next, Object left) {
+            for(int i = next; i < operands.length; i++){
+                Object right = operands[i].execute(frame);
+                if(!holds(i - 1, MiniPythonRuntime.compare(left, right, operator(i - 1)))) return false;
+                left = right;
+            }
+            return true;
+        }
+
+        // True if the comparison before operands[i + 1] holds, for the result of compare
+        boolean holds(int i, int compared) {
+            return greater[i] ? compared > 0 : compared < 0;
+        }
+
+        // The operator before operands[i + 1], for the error of compare
+        String operator(int i) {
+            return greater[i] ? ">" : "<";
+        }
+    }
+
+    // A chain whose operands are typed INT
+    private static class IntChain extends Chain {
+        private IntChain(Expression[] operands, boolean[] greater) {
+            super(operands, greater);
+        }
+
+        @Override
+        boolean test(Frame frame) {
+            int left;
+            try {
+                left = operands[0].executeInt(frame);
+            } catch (NotInt e) {
+                return test(frame, 1, e.value);
+            }
+            for(int i = 1; i < operands.length; i++){
+                int right;
+                try {
+                    right = operands[i].executeInt(frame);
+                } catch (NotInt e) {
+                    return holds(i - 1, MiniPythonRuntime.compare(left, e.value, operator(i - 1))) && test(frame, i + 1, e.value);
+                }
+                if(!holds(i - 1, Integer.compare(left, right))) return false;
+                left = right;
+            }
+            return true;
+        }
+    }
+
+    /* Expressions */
+
+    private abstract static class Expression {
+        abstract Object execute(Frame frame);
+
+        // The value as an int, or NotInt with it
+        int executeInt(Frame frame) {
+            return asInt(execute(frame));
+        }
+    }
+
+    private static class Literal extends Expression {
+        private final Object value;
+        private final int intValue;
+
+        private Literal(Object value) {
+            this.value = value;
+            this.intValue = value instanceof Integer ? (Integer) value : 0;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return value;
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            if(value instanceof Integer) return intValue;
+            throw new NotInt(value);
+        }
+    }
+
+    /**
+     * Class Slot
+     * A variable, in the frame of the call if it is local, otherwise in the globals of the interpreter
+     */
+    private static class Slot extends Expression {
+        // The interpreter of a global variable, null for a local one
+        private final Interpreter global;
+        private final int index;
+
+        private Slot(Interpreter global, int index) {
+            this.global = global;
+            this.index = index;
+        }
+
+        private Frame frame(Frame frame) {
+            return global == null ? frame : global.globals;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            frame = frame(frame);
+            Object value = frame.values[index];
+            return value == INT ? Integer.valueOf(frame.ints[index]) : value;
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            frame = frame(frame);
+            Object value = frame.values[index];
+            return value == INT ? frame.ints[index] : asInt(value);
+        }
+
+        void store(Frame frame, Object value) {
+            frame(frame).values[index] = value;
+        }
+
+        void storeInt(Frame frame, int value) {
+            frame = frame(frame);
+            // the slot usually holds an int already, then only the int is written
+            if(frame.values[index] != INT) frame.values[index] = INT;
+            frame.ints[index] = value;
+        }
+    }
+
+    private static final int ADD = 0;
+    private static final int SUB = 1;
+    private static final int MUL = 2;
+    private static final int DIV = 3;
+
+    private static class Arithmetic extends Expression {
+        final int operator;
+        final Expression left;
+        final Expression right;
+
+        private Arithmetic(int operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return apply(left.execute(frame), right.execute(frame));
+        }
+
+        Object apply(Object first, Object second) {
+            switch(operator){
+                case ADD: return MiniPythonRuntime.add(first, second);
+                case SUB: return MiniPythonRuntime.sub(first, second);
+                case MUL: return MiniPythonRuntime.mul(first, second);
+                default: return MiniPythonRuntime.div(first, second);
+            }
+        }
+    }
+
+    // An operation on ints, which goes on with the boxed one if an operand is not an int
+    private static class IntArithmetic extends Arithmetic {
+        // Set once an operand has not been an int, e.g. an addition of strings typed UNDEF, then it is only boxed
+        private boolean boxed;
+
+        private IntArithmetic(int operator, Expression left, Expression right) {
+            super(operator, left, right);
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            if(boxed) return super.execute(frame);
+            try {
+                return executeInt(frame);
+            } catch (NotInt e) {
+                return e.value;
+            }
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            if(boxed) return asInt(super.execute(frame));
+            int first;
+            try {
+                first = left.executeInt(frame);
+            } catch (NotInt e) {
+                boxed = true;
+                return asInt(apply(e.value, right.execute(frame)));
+            }
+            int second;
+            try {
+                second = right.executeInt(frame);
+            } catch (NotInt e) {
+                boxed = true;
+                return asInt(apply(first, e.value));
+            }
+            switch(operator){
+                case ADD: return Math.addExact(first, second);
+                case SUB: return Math.subtractExact(first, second);
+                case MUL: return Math.multiplyExact(first, second);
+                default: return MiniPythonRuntime.div(first, second);
+            }
+        }
+    }
+
+    // A chain of additions of strings, with one StringBuilder, see MiniPythonRuntime.startConcat
+    private static class Concat extends Expression {
+        private final Expression[] operands;
+        private final int capacity;
+
+        private Concat(Expression[] operands, int capacity) {
+            this.operands = operands;
+            this.capacity = capacity;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object text = MiniPythonRuntime.startConcat(operands[0].execute(frame), capacity);
+            for(int i = 1; i < operands.length; i++){
+                text = MiniPythonRuntime.concat(text, operands[i].execute(frame));
+            }
+            return MiniPythonRuntime.endConcat(text);
+        }
+    }
+
+    private static class Index extends Expression {
+        private final Slot array;
+        private final Expression index;
+        private final boolean intIndex;
+
+        private Index(Slot array, Expression index, boolean intIndex) {
+            this.array = array;
+            this.index = index;
+            this.intIndex = intIndex;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            Object value = array.execute(frame);
+            if(!intIndex) return MiniPythonRuntime.index(value, index.execute(frame));
+            try {
+                return MiniPythonRuntime.index(value, index.executeInt(frame));
+            } catch (NotInt e) {
+                return MiniPythonRuntime.index(value, e.value);
+            }
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            if(!intIndex) return asInt(execute(frame));
+            Object value = array.execute(frame);
+            int at;
+            try {
+                at = index.executeInt(frame);
+            } catch (NotInt e) {
+                return asInt(MiniPythonRuntime.index(value, e.value));
+            }
+            // an element of an array of ints is read without boxing it, the index may have called something that changed the array
+            if(value instanceof MiniPythonArray && ((MiniPythonArray) value).isInts()){
+                MiniPythonArray ints = (MiniPythonArray) value;
+                return ints.getInt(MiniPythonRuntime.position(ints.size(), at, "list"));
+            }
+            return asInt(MiniPythonRuntime.index(value, at));
+        }
+    }
+
+    private static class ArrayLiteral extends Expression {
+        private final Expression[] elements;
+        // The elements typed INT, which are added without boxing them
+        private final boolean[] ints;
+
+        // False if the array is boxed from the start
+        private final boolean intArray;
+
+        private ArrayLiteral(Expression[] elements, boolean[] ints, boolean intArray) {
+            this.elements = elements;
+            this.ints = ints;
+            this.intArray = intArray;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            MiniPythonArray array = new MiniPythonArray(elements.length, intArray);
+            for(int i = 0; i < elements.length; i++){
+                if(!ints[i]){
+                    array.add(elements[i].execute(frame));
+                    continue;
+                }
+                try {
+                    array.addInt(elements[i].executeInt(frame));
+                } catch (NotInt e) {
+                    array.add(e.value);
+                }
+            }
+            return array;
+        }
+    }
+
+    // The value of a comparison in a chain, True or False
+    private static class ConditionValue extends Expression {
+        private final Condition condition;
+
+        private ConditionValue(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            return condition.test(frame);
+        }
+    }
+
+    /**
+     * Class Call
+     * A call of the overload the visitors have found for its number of arguments. A param without a default value
+     * is typed UNDEF, so its function is built for any value, e.g. f(n - 1) in the body boxes the int it passes.
+     * A call passes the ints it gets in the ints of the new frame, and with an inline cache runs the body
+     * built for the params that hold ints (FunctionCode.body). The cache keeps the last bodies of the call:
+     * one while the call always passes the same kinds of values, up to POLYMORPHIC while it passes a few,
+     * and after that every call looks its body up in the function. With the cache the frames are reused too.
+     */
+    private static class Call extends Expression {
+        private static final int POLYMORPHIC = 4;
+
+        private final FunctionCode target;
+        private final Expression[] args;
+
+        // The arguments typed INT, passed in the ints of the new frame
+        private final boolean[] ints;
+
+        // The inline cache, the bits of the params that held ints and the body for them, and whether it is in use
+        private final boolean cached;
+        private final int[] cachedInts;
+        private final Statement[] cachedBodies;
+        private int cachedCount;
+
+        private Call(FunctionCode target, Expression[] args, boolean[] ints) {
+            this.target = target;
+            this.args = args;
+            this.ints = ints;
+            this.cached = inlineCaches && target.specialized && target.params.length < Integer.SIZE;
+            this.cachedInts = new int[POLYMORPHIC];
+            this.cachedBodies = new Statement[POLYMORPHIC];
+        }
+
+        @Override
+        Object execute(Frame frame) {
+            if(!cached){
+                Frame callee = new Frame(target.frameSize, target.specialized);
+                Object result = call(frame, callee);
+                if(result == INT) return callee.result;
+                return result == NEXT ? null : result;
+            }
+            Frame callee = target.enter();
+            try {
+                Object result = call(frame, callee);
+                if(result == INT) return callee.result;
+                return result == NEXT ? null : result;
+            } finally {
+                target.leave();
+            }
+        }
+
+        @Override
+        int executeInt(Frame frame) {
+            if(!cached){
+                Frame callee = new Frame(target.frameSize, target.specialized);
+                Object result = call(frame, callee);
+                if(result == INT) return callee.result;
+                return asInt(result == NEXT ? null : result);
+            }
+            Frame callee = target.enter();
+            try {
+                Object result = call(frame, callee);
+                if(result == INT) return callee.result;
+                return asInt(result == NEXT ? null : result);
+            } finally {
+                target.leave();
+            }
+        }
+
+        // Passes the arguments and runs the body, returns what it returns
+        private Object call(Frame frame, Frame callee) {
+            if(!cached){
+                for(int i = 0; i < args.length; i++){
+                    if(!ints[i]) callee.values[i] = args[i].execute(frame);
+                    else{
+                        try {
+                            callee.values[i] = INT;
+                            callee.ints[i] = args[i].executeInt(frame);
+                        } catch (NotInt e) {
+                            callee.values[i] = e.value;
+                        }
+                    }
+                }
+                for(int i = args.length; i < target.defaults.length; i++){
+                    callee.values[i] = target.defaults[i];
+                }
+                return target.body.execute(callee);
+            }
+
+            // every int is passed as an int, also one from an expression typed UNDEF
+            int passed = 0;
+            for(int i = 0; i < args.length; i++){
+                Object value;
+                if(!ints[i]) value = args[i].execute(frame);
+                else{
+                    try {
+                        callee.ints[i] = args[i].executeInt(frame);
+                        callee.values[i] = INT;
+                        passed |= 1 << i;
+                        continue;
+                    } catch (NotInt e) {
+                        value = e.value;
+                    }
+                }
+                if(value instanceof Integer){
+                    callee.ints[i] = (Integer) value;
+                    callee.values[i] = INT;
+                    passed |= 1 << i;
+                }
+                else callee.values[i] = value;
+            }
+            for(int i = args.length; i < target.defaults.length; i++){
+                if(target.defaults[i] instanceof Integer){
+                    callee.ints[i] = (Integer) target.defaults[i];
+                    callee.values[i] = INT;
+                }
+                else callee.values[i] = target.defaults[i];
+            }
+            passed |= target.intDefaults >>> args.length << args.length;
+            return body(passed).execute(callee);
+        }
+
+        // The body for the params that hold ints, from the inline cache
+        private Statement body(int passed) {
+            if(cachedCount > 0 && cachedInts[0] == passed) return cachedBodies[0];
+            for(int i = 1; i < cachedCount; i++){
+                if(cachedInts[i] == passed) return cachedBodies[i];
+            }
+            Statement body = target.body(passed);
+            if(cachedCount < POLYMORPHIC){
+                cachedInts[cachedCount] = passed;
+                cachedBodies[cachedCount++] = body;
+            }
+            return body;
+        }
+    }
+}
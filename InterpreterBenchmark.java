@@ -0,0 +1,56 @@
+/**
+ * Class InterpreterBenchmark
+ * Measures the Interpreter on loop-heavy programs, with the int nodes and with every value boxed like a naive evaluator.
+ * The int nodes should allocate next to nothing on the loops over ints, where the boxed evaluator allocates
+ * an Integer for most operations, since only the ones from -128 to 127 are cached.
+ *
+ * Each program is measured in a new JVM for each evaluator, see BenchmarkHarness.
+ *
+ * Usage: InterpreterBenchmark [--iterations N]
+ */
+public class InterpreterBenchmark {
+    private static final String[] NAMES = {"while, globals", "calls, arithmetic", "for, array", "defaults, chains"};
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 1000000;
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--iterations") && i + 1 < args.length) iterations = Integer.parseInt(args[++i]);
+        }
+
+        int loops = iterations;
+        new BenchmarkHarness(InterpreterBenchmark.class, NAMES, "boxed", "int").run(args, (program, variant, plain) -> {
+            Interpreter interpreter = BenchmarkHarness.compile(new Compiler(System.out), createSource(program, loops)).interpreter(!plain);
+            return interpreter::run;
+        });
+    }
+
+    // The programs, each one loops about iterations times and stays within the ints
+    private static String createSource(int program, int iterations) {
+        switch(program){
+            case 0:
+                return "i = " + iterations + "\n"
+                        + "while i > 0: i -= 1\n"
+                        + "print i\n";
+            case 1:
+                return "def step(i): return i - 1 + i * 3 / 3 - i + i / 7 * 2 - i / 7 * 2\n"
+                        + "i = " + iterations + "\n"
+                        + "while i > 0: i = step(i)\n"
+                        + "print i\n";
+            case 2:
+                StringBuilder array = new StringBuilder("a = [");
+                for(int i = 0; i < 100; i++){
+                    array.append(i == 0 ? "" : ", ").append(i * 7 % 101);
+                }
+                return array.append("]\n")
+                        + "s = 0\n"
+                        + "n = 0\n"
+                        + "while n < " + iterations + ": for k in a: n = n + 1 - k * k / (k * k + 1) + s * 0\n"
+                        + "print n\n";
+            default:
+                return "def add(a, b = 1000): return a + b - 999\n"
+                        + "i = 0\n"
+                        + "while i < " + iterations + ": if 0 - 1 < i < " + iterations * 2 + ": i = add(i)\n"
+                        + "print i\n";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class IrBlock
+ * This class represents a basic block of the IR: instructions run one after the other, the last of which
+ * is the only JUMP, BRANCH or RETURN of the block and says where to go on.
+ */
+public class IrBlock {
+    private int id;
+    private ArrayList<IrInstruction> instructions;
+
+    public IrBlock(int id) {
+        this.id = id;
+        this.instructions = new ArrayList<>();
+    }
+
+    public void add(IrInstruction instruction) {
+        instructions.add(instruction);
+    }
+
+    // True once the block has its JUMP, BRANCH or RETURN
+    public boolean isTerminated() {
+        return !instructions.isEmpty() && instructions.get(instructions.size() - 1).isTerminator();
+    }
+
+    public IrInstruction getTerminator() {
+        return instructions.get(instructions.size() - 1);
+    }
+
+    // The blocks the terminator may go to
+    public List<IrBlock> getSuccessors() {
+        IrBlock[] targets = getTerminator().getTargets();
+        return targets == null ? List.of() : List.of(targets);
+    }
+
+    @Override
+    public String toString() {
+        return "b" + id;
+    }
+
+    /* Getters and Setters */
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public ArrayList<IrInstruction> getInstructions() {
+        return instructions;
+    }
+}
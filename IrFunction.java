@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+
+/**
+ * Class IrFunction
+ * This class represents a function overload in the IR, or the top level statements of the program.
+ * The params are the first registers and are all passed by every call, the defaults already filled in by the caller.
+ * Then come the other local variables and the temporaries, which all start as None. The first block is the entry.
+ */
+public class IrFunction {
+    private String name;
+    private int params;
+    private ArrayList<IrBlock> blocks;
+
+    // The name of each register that is a variable, null for a temporary
+    private ArrayList<String> registerNames;
+
+    private int nextBlockId;
+
+    /**
+     * Constructor
+     * @param name the name shown for the function, e.g. f/2 for the overload of f with 2 params
+     * @param params the number of params
+     */
+    public IrFunction(String name, int params) {
+        this.name = name;
+        this.params = params;
+        this.blocks = new ArrayList<>();
+        this.registerNames = new ArrayList<>();
+    }
+
+    public IrBlock newBlock() {
+        IrBlock block = new IrBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * @param name the name of the variable, or null for a temporary
+     * @return a new register
+     */
+    public int newRegister(String name) {
+        registerNames.add(name);
+        return registerNames.size() - 1;
+    }
+
+    public int getRegisterCount() {
+        return registerNames.size();
+    }
+
+    public String getRegisterName(int register) {
+        return registerNames.get(register);
+    }
+
+    // The number of instructions of all the blocks
+    public int size() {
+        int size = 0;
+        for(IrBlock block : blocks){
+            size += block.getInstructions().size();
+        }
+        return size;
+    }
+
+    // How many instructions read each register
+    public int[] countUses() {
+        int[] uses = new int[getRegisterCount()];
+        for(IrBlock block : blocks){
+            for(IrInstruction instruction : block.getInstructions()){
+                for(int operand : instruction.getOperands()){
+                    uses[operand]++;
+                }
+            }
+        }
+        return uses;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("def ").append(name).append('(');
+        for(int i = 0; i < params; i++){
+            text.append(i == 0 ? "" : ", ").append('r').append(i).append(' ').append(registerNames.get(i));
+        }
+        text.append("):\n");
+        for(IrBlock block : blocks){
+            text.append("  ").append(block).append(":\n");
+            for(IrInstruction instruction : block.getInstructions()){
+                text.append("    ").append(instruction).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /* Getters and Setters */
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParams() {
+        return params;
+    }
+
+    public IrBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    public ArrayList<IrBlock> getBlocks() {
+        return blocks;
+    }
+}
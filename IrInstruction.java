@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * Class IrInstruction
+ * This class represents an instruction of the IR, in three-address form: an operation, the register it writes
+ * if it writes one, and the registers it reads. Only CONST, LOAD_GLOBAL, STORE_GLOBAL and CALL have something more,
+ * the constant, the index of the global variable or the function called, and JUMP and BRANCH their target blocks.
+ * A block ends with one JUMP, BRANCH or RETURN and has none before it.
+ *
+ * The values are the ones of MiniPythonRuntime, and every operation does what the runtime operation of the same name does.
+ */
+public class IrInstruction {
+    public enum Op {
+        // dest = constant, an Integer, a String or a Boolean
+        CONST,
+        // dest = operand
+        COPY,
+        // dest = left op right
+        ADD, SUB, MUL, DIV,
+        // dest = the operands added one by one, strings with one StringBuilder, see MiniPythonRuntime.startConcat
+        CONCAT,
+        // dest = array[index], array[index] = value
+        INDEX, SET_INDEX,
+        // dest = [operands]
+        ARRAY,
+        // dest = function(operands), with a value for every param, the defaults included
+        CALL,
+        // dest = globals[global], globals[global] = operand
+        LOAD_GLOBAL, STORE_GLOBAL,
+        // prints the first value of a line, one more after a space, and ends the line
+        PRINT, PRINT_NEXT, PRINTLN,
+        // dest = the elements a for statement goes through, dest = their number
+        ITER, LENGTH,
+        // dest = True or False
+        EQ, NE, LT, GT,
+        // the ones that end a block
+        JUMP, BRANCH, RETURN
+    }
+
+    // The register of an instruction that writes none
+    public static final int NONE = -1;
+
+    private static final int[] NO_OPERANDS = new int[0];
+
+    private Op op;
+    private int dest;
+    private int[] operands;
+    private Object constant;
+    private int global;
+    private IrFunction callee;
+    private IrBlock[] targets;
+
+    private IrInstruction(Op op, int dest, int[] operands) {
+        this.op = op;
+        this.dest = dest;
+        this.operands = operands;
+    }
+
+    public static IrInstruction constant(int dest, Object value) {
+        IrInstruction instruction = new IrInstruction(Op.CONST, dest, NO_OPERANDS);
+        instruction.constant = value;
+        return instruction;
+    }
+
+    /**
+     * An instruction that writes dest from its operands, or only reads them for a dest of NONE
+     * @param op anything but CONST, LOAD_GLOBAL, STORE_GLOBAL, CALL and the ones that end a block
+     */
+    public static IrInstruction of(Op op, int dest, int... operands) {
+        return new IrInstruction(op, dest, operands);
+    }
+
+    public static IrInstruction loadGlobal(int dest, int global) {
+        IrInstruction instruction = new IrInstruction(Op.LOAD_GLOBAL, dest, NO_OPERANDS);
+        instruction.global = global;
+        return instruction;
+    }
+
+    public static IrInstruction storeGlobal(int global, int value) {
+        IrInstruction instruction = new IrInstruction(Op.STORE_GLOBAL, NONE, new int[]{value});
+        instruction.global = global;
+        return instruction;
+    }
+
+    public static IrInstruction call(int dest, IrFunction callee, int... args) {
+        IrInstruction instruction = new IrInstruction(Op.CALL, dest, args);
+        instruction.callee = callee;
+        return instruction;
+    }
+
+    public static IrInstruction jump(IrBlock target) {
+        IrInstruction instruction = new IrInstruction(Op.JUMP, NONE, NO_OPERANDS);
+        instruction.targets = new IrBlock[]{target};
+        return instruction;
+    }
+
+    // Goes to ifTrue if the condition is truthy, otherwise to ifFalse
+    public static IrInstruction branch(int condition, IrBlock ifTrue, IrBlock ifFalse) {
+        IrInstruction instruction = new IrInstruction(Op.BRANCH, NONE, new int[]{condition});
+        instruction.targets = new IrBlock[]{ifTrue, ifFalse};
+        return instruction;
+    }
+
+    // Returns a register, or None without one
+    public static IrInstruction ret(int... value) {
+        return new IrInstruction(Op.RETURN, NONE, value);
+    }
+
+    public boolean isTerminator() {
+        return op == Op.JUMP || op == Op.BRANCH || op == Op.RETURN;
+    }
+
+    // True if removing the instruction when its dest is not read changes nothing, it cannot fail or print
+    public boolean isPure() {
+        switch(op){
+            case CONST: case COPY: case LOAD_GLOBAL: case ARRAY: case EQ: case NE: case LENGTH:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        if(dest != NONE) text.append('r').append(dest).append(" = ");
+        text.append(op.name().toLowerCase());
+        if(op == Op.CONST) text.append(' ').append(constant instanceof String ? "\"" + constant + "\"" : constant);
+        if(op == Op.LOAD_GLOBAL || op == Op.STORE_GLOBAL) text.append(" g").append(global);
+        if(op == Op.CALL) text.append(' ').append(callee.getName());
+        for(int i = 0; i < operands.length; i++){
+            text.append(i == 0 && op != Op.STORE_GLOBAL && op != Op.CALL ? " r" : ", r").append(operands[i]);
+        }
+        if(targets != null){
+            for(int i = 0; i < targets.length; i++){
+                text.append(i == 0 && operands.length == 0 ? " b" : ", b").append(targets[i].getId());
+            }
+        }
+        return text.toString();
+    }
+
+    /* Getters and Setters */
+
+    public Op getOp() {
+        return op;
+    }
+
+    public void setOp(Op op) {
+        this.op = op;
+    }
+
+    public int getDest() {
+        return dest;
+    }
+
+    public void setDest(int dest) {
+        this.dest = dest;
+    }
+
+    public int[] getOperands() {
+        return operands;
+    }
+
+    public void setOperands(int... operands) {
+        this.operands = operands;
+    }
+
+    public Object getConstant() {
+        return constant;
+    }
+
+    public void setConstant(Object constant) {
+        this.constant = constant;
+    }
+
+    public int getGlobal() {
+        return global;
+    }
+
+    public IrFunction getCallee() {
+        return callee;
+    }
+
+    public IrBlock[] getTargets() {
+        return targets;
+    }
+
+    public void setTargets(IrBlock... targets) {
+        this.targets = Arrays.copyOf(targets, targets.length);
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.IdentityHashMap;
+
+/**
+ * Class IrInterpreter
+ * This class runs an IrProgram, after the passes or not, so that what the passes do can be checked against
+ * the program as it was lowered and against the other backends. The values are the ones of MiniPythonRuntime,
+ * each call has an array of registers, and the blocks are walked instruction by instruction.
+ */
+public class IrInterpreter {
+    private IrProgram program;
+    private Object[] globals;
+
+    // The instructions of each block as an array, made once
+    private IdentityHashMap<IrBlock, IrInstruction[]> code;
+
+    /**
+     * Constructor
+     * @param program the program to run
+     */
+    public IrInterpreter(IrProgram program) {
+        this.program = program;
+        this.code = new IdentityHashMap<>();
+        for(IrFunction function : program.getAllFunctions()){
+            for(IrBlock block : function.getBlocks()){
+                code.put(block, block.getInstructions().toArray(new IrInstruction[0]));
+            }
+        }
+    }
+
+    /**
+     * Runs the program, printing the error that ends it if any
+     * @return false if the program failed
+     */
+    public boolean run() {
+        // the globals are None until they are assigned
+        globals = new Object[program.getGlobals().size()];
+        try {
+            execute(program.getMain(), new Object[program.getMain().getRegisterCount()]);
+            return true;
+        } catch (RuntimeException | StackOverflowError e) {
+            return MiniPythonRuntime.fail(e);
+        } finally {
+            MiniPythonRuntime.flush();
+        }
+    }
+
+    private Object execute(IrFunction function, Object[] registers) {
+        IrBlock block = function.getEntry();
+        while(true){
+            IrInstruction[] instructions = code.get(block);
+            for(IrInstruction instruction : instructions){
+                int[] operands = instruction.getOperands();
+                Object value;
+                switch(instruction.getOp()){
+                    case CONST:
+                        value = instruction.getConstant();
+                        break;
+                    case COPY:
+                        value = registers[operands[0]];
+                        break;
+                    case ADD:
+                        value = MiniPythonRuntime.add(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case CONCAT:
+                        // the operands are known already, so the StringBuilder is as long as the strings
+                        int length = 0;
+                        for(int operand : operands){
+                            if(registers[operand] instanceof String) length += ((String) registers[operand]).length();
+                        }
+                        Object text = MiniPythonRuntime.startConcat(registers[operands[0]], length);
+                        for(int i = 1; i < operands.length; i++){
+                            text = MiniPythonRuntime.concat(text, registers[operands[i]]);
+                        }
+                        value = MiniPythonRuntime.endConcat(text);
+                        break;
+                    case SUB:
+                        value = MiniPythonRuntime.sub(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case MUL:
+                        value = MiniPythonRuntime.mul(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case DIV:
+                        value = MiniPythonRuntime.div(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case INDEX:
+                        value = MiniPythonRuntime.index(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case SET_INDEX:
+                        MiniPythonRuntime.setIndex(registers[operands[0]], registers[operands[1]], registers[operands[2]]);
+                        continue;
+                    case ARRAY:
+                        MiniPythonArray array = new MiniPythonArray(operands.length, program.isIntArrays());
+                        for(int operand : operands){
+                            array.add(registers[operand]);
+                        }
+                        value = array;
+                        break;
+                    case CALL:
+                        IrFunction callee = instruction.getCallee();
+                        Object[] calleeRegisters = new Object[callee.getRegisterCount()];
+                        for(int i = 0; i < operands.length; i++){
+                            calleeRegisters[i] = registers[operands[i]];
+                        }
+                        value = execute(callee, calleeRegisters);
+                        break;
+                    case LOAD_GLOBAL:
+                        value = globals[instruction.getGlobal()];
+                        break;
+                    case STORE_GLOBAL:
+                        globals[instruction.getGlobal()] = registers[operands[0]];
+                        continue;
+                    case PRINT:
+                        MiniPythonRuntime.print(registers[operands[0]]);
+                        continue;
+                    case PRINT_NEXT:
+                        MiniPythonRuntime.printNext(registers[operands[0]]);
+                        continue;
+                    case PRINTLN:
+                        MiniPythonRuntime.println();
+                        continue;
+                    case ITER:
+                        value = MiniPythonRuntime.iterable(registers[operands[0]]);
+                        break;
+                    case LENGTH:
+                        value = ((MiniPythonArray) registers[operands[0]]).size();
+                        break;
+                    case EQ:
+                        value = MiniPythonRuntime.eq(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case NE:
+                        value = !MiniPythonRuntime.eq(registers[operands[0]], registers[operands[1]]);
+                        break;
+                    case LT:
+                        value = MiniPythonRuntime.compare(registers[operands[0]], registers[operands[1]], "<") < 0;
+                        break;
+                    case GT:
+                        value = MiniPythonRuntime.compare(registers[operands[0]], registers[operands[1]], ">") > 0;
+                        break;
+                    case JUMP:
+                        block = instruction.getTargets()[0];
+                        continue;
+                    case BRANCH:
+                        block = instruction.getTargets()[MiniPythonRuntime.truthy(registers[operands[0]]) ? 0 : 1];
+                        continue;
+                    default:
+                        return operands.length == 0 ? null : registers[operands[0]];
+                }
+                registers[instruction.getDest()] = value;
+            }
+        }
+    }
+}
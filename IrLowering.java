@@ -0,0 +1,554 @@
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+
+/**
+ * Class IrLowering
+ * This class lowers a checked program from its AST to an IrProgram, so that what comes after the checks does not
+ * depend on the shape of the grammar: the arglists that list their expressions backwards, the chains of < and >
+ * that lean to the left, or the for statements that only take a variable. Each if, while and for becomes
+ * basic blocks with branches between them, and each expression a sequence of instructions on registers.
+ *
+ * A call passes a value for every param of the overload it calls, the defaults it leaves out are constants of the caller.
+ * A local variable, as the visitors decide it, is a register, a global variable is an index of the IrProgram.
+ */
+public class IrLowering {
+    private RootSymbolTable symbolTable;
+    private IrProgram program;
+    private HashMap<String, Integer> globals;
+    private IdentityHashMap<Function, IrFunction> functions;
+
+    // False to leave every addition of strings on its own, which the chains are measured against
+    private boolean concatChains = true;
+
+    // False to keep the elements of every array boxed, which the int arrays are measured against
+    private boolean intArrays = true;
+
+    // The default values of each overload, null for the params without one
+    private IdentityHashMap<Function, PValue[]> defaults;
+
+    /* The function being lowered */
+    private IrFunction function;
+    private IrBlock block;
+
+    // The symbolTable function of the overload being lowered, null for the top level statements
+    private Function symbolFunction;
+    private HashMap<String, Integer> locals;
+    private HashSet<String> assigned;
+
+    /**
+     * Constructor
+     * @param symbolTable the symbolTable of the checked program
+     */
+    public IrLowering(RootSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Lowers a program
+     * @param ast the program, checked without errors
+     * @return the program in the IR, before any pass
+     */
+    public IrProgram lower(Start ast) {
+        program = new IrProgram();
+        program.setIntArrays(intArrays);
+        globals = new HashMap<>();
+        functions = new IdentityHashMap<>();
+        defaults = new IdentityHashMap<>();
+
+        // the functions are made first, since they can be called before they are defined
+        ArrayList<AFunction> definitions = new ArrayList<>();
+        ArrayList<PStatement> statements = new ArrayList<>();
+        for(Object command : ((AGoal) ast.getPGoal()).getCommands()){
+            if(command instanceof AFuncCommands) definitions.add((AFunction) ((AFuncCommands) command).getFunction());
+            else statements.add(((AStmtCommands) command).getStatement());
+        }
+        for(AFunction definition : definitions){
+            ArrayList<PValue> values = new ArrayList<>();
+            AArgument argument = (AArgument) definition.getArgument();
+            if(argument != null){
+                values.add(defaultValue(argument.getAssignValue()));
+                for(Object temp : argument.getParameters()){
+                    values.add(defaultValue(((AParameters) temp).getAssignValue()));
+                }
+            }
+
+            String name = definition.getId().getText();
+            Function overload = symbolTable.getOverloads(name).getAccepting(values.size());
+            IrFunction irFunction = new IrFunction(name + "/" + values.size(), values.size());
+            functions.put(overload, irFunction);
+            defaults.put(overload, values.toArray(new PValue[0]));
+            program.getFunctions().add(irFunction);
+        }
+        for(AFunction definition : definitions){
+            function(definition);
+        }
+
+        function = new IrFunction("<main>", 0);
+        symbolFunction = null;
+        block = function.newBlock();
+        for(PStatement statement : statements){
+            statement(statement);
+        }
+        end();
+        program.setMain(function);
+
+        function = null;
+        block = null;
+        return program;
+    }
+
+    private static PValue defaultValue(PAssignValue assignValue) {
+        return assignValue == null ? null : ((AAssignValue) assignValue).getValue();
+    }
+
+    private void function(AFunction node) {
+        ArrayList<TId> params = new ArrayList<>();
+        AArgument argument = (AArgument) node.getArgument();
+        if(argument != null){
+            params.add(argument.getId());
+            for(Object temp : argument.getParameters()){
+                params.add(((AParameters) temp).getId());
+            }
+        }
+
+        symbolFunction = symbolTable.getOverloads(node.getId()).getAccepting(params.size());
+        function = functions.get(symbolFunction);
+        locals = new HashMap<>();
+        for(TId param : params){
+            locals.put(param.getText(), function.newRegister(param.getText()));
+        }
+        assigned = new HashSet<>();
+        findAssigned(node.getStatement());
+
+        block = function.newBlock();
+        statement(node.getStatement());
+        end();
+
+        symbolFunction = null;
+        locals = null;
+        assigned = null;
+    }
+
+    // Returns None at the end of a function that does not return before
+    private void end() {
+        if(!block.isTerminated()) block.add(IrInstruction.ret());
+    }
+
+    // Finds the variables a statement assigns
+    private void findAssigned(PStatement statement) {
+        if(statement instanceof AIfStatement) findAssigned(((AIfStatement) statement).getStatement());
+        else if(statement instanceof AWhileStatement) findAssigned(((AWhileStatement) statement).getStatement());
+        else if(statement instanceof AForStatement){
+            assigned.add(((AForStatement) statement).getId1().getText());
+            findAssigned(((AForStatement) statement).getStatement());
+        }
+        else if(statement instanceof AEqualsStatement) assigned.add(((AEqualsStatement) statement).getId().getText());
+        else if(statement instanceof AMinusEqualsStatement) assigned.add(((AMinusEqualsStatement) statement).getId().getText());
+        else if(statement instanceof ADivEqualsStatement) assigned.add(((ADivEqualsStatement) statement).getId().getText());
+    }
+
+    /* Statements */
+
+    private void emit(IrInstruction instruction) {
+        block.add(instruction);
+    }
+
+    // Goes on writing in another block
+    private void startBlock(IrBlock next) {
+        block = next;
+    }
+
+    private void statement(PStatement statement) {
+        if(statement instanceof AIfStatement){
+            AIfStatement ifStatement = (AIfStatement) statement;
+            IrBlock body = function.newBlock();
+            IrBlock after = function.newBlock();
+            condition(ifStatement.getComparison(), body, after);
+            startBlock(body);
+            statement(ifStatement.getStatement());
+            if(!block.isTerminated()) emit(IrInstruction.jump(after));
+            startBlock(after);
+        }
+        else if(statement instanceof AWhileStatement){
+            AWhileStatement whileStatement = (AWhileStatement) statement;
+            IrBlock header = function.newBlock();
+            IrBlock body = function.newBlock();
+            IrBlock after = function.newBlock();
+            emit(IrInstruction.jump(header));
+            startBlock(header);
+            condition(whileStatement.getComparison(), body, after);
+            startBlock(body);
+            statement(whileStatement.getStatement());
+            if(!block.isTerminated()) emit(IrInstruction.jump(header));
+            startBlock(after);
+        }
+        else if(statement instanceof AForStatement){
+            forStatement((AForStatement) statement);
+        }
+        else if(statement instanceof AReturnStatement){
+            emit(IrInstruction.ret(expression(((AReturnStatement) statement).getExpression())));
+            // what follows cannot be reached, the passes remove it
+            startBlock(function.newBlock());
+        }
+        else if(statement instanceof APrintStatement){
+            // each value is printed once it is computed, like the other backends do, so an error in the next one comes after it
+            ArrayList<PExpression> values = arguments(((APrintStatement) statement).getArglist());
+            for(int i = 0; i < values.size(); i++){
+                emit(IrInstruction.of(i == 0 ? IrInstruction.Op.PRINT : IrInstruction.Op.PRINT_NEXT, IrInstruction.NONE, expression(values.get(i))));
+            }
+            emit(IrInstruction.of(IrInstruction.Op.PRINTLN, IrInstruction.NONE));
+        }
+        else if(statement instanceof AEqualsStatement){
+            AEqualsStatement equals = (AEqualsStatement) statement;
+            store(equals.getId().getText(), expression(equals.getExpression()));
+        }
+        else if(statement instanceof AMinusEqualsStatement){
+            AMinusEqualsStatement minusEquals = (AMinusEqualsStatement) statement;
+            int left = load(minusEquals.getId().getText());
+            store(minusEquals.getId().getText(), binary(IrInstruction.Op.SUB, left, expression(minusEquals.getExpression())));
+        }
+        else if(statement instanceof ADivEqualsStatement){
+            ADivEqualsStatement divEquals = (ADivEqualsStatement) statement;
+            int left = load(divEquals.getId().getText());
+            store(divEquals.getId().getText(), binary(IrInstruction.Op.DIV, left, expression(divEquals.getExpression())));
+        }
+        else if(statement instanceof AArrayStatement){
+            AArrayStatement array = (AArrayStatement) statement;
+            int target = load(array.getId().getText());
+            int index = expression(array.getExp1());
+            int value = expression(array.getExp2());
+            emit(IrInstruction.of(IrInstruction.Op.SET_INDEX, IrInstruction.NONE, target, index, value));
+        }
+        else if(statement instanceof AFunctionStatement){
+            AFunctionStatement call = (AFunctionStatement) statement;
+            call(call.getId(), call.getArglist());
+        }
+    }
+
+    private void forStatement(AForStatement statement) {
+        // the elements are taken once, then walked with an index
+        int elements = temp();
+        emit(IrInstruction.of(IrInstruction.Op.ITER, elements, load(statement.getId2().getText())));
+        int index = temp();
+        emit(IrInstruction.constant(index, 0));
+
+        IrBlock header = function.newBlock();
+        IrBlock body = function.newBlock();
+        IrBlock after = function.newBlock();
+        emit(IrInstruction.jump(header));
+
+        startBlock(header);
+        int length = temp();
+        emit(IrInstruction.of(IrInstruction.Op.LENGTH, length, elements));
+        int more = temp();
+        emit(IrInstruction.of(IrInstruction.Op.LT, more, index, length));
+        emit(IrInstruction.branch(more, body, after));
+
+        startBlock(body);
+        int element = temp();
+        emit(IrInstruction.of(IrInstruction.Op.INDEX, element, elements, index));
+        store(statement.getId1().getText(), element);
+        statement(statement.getStatement());
+        if(!block.isTerminated()){
+            int one = temp();
+            emit(IrInstruction.constant(one, 1));
+            emit(IrInstruction.of(IrInstruction.Op.ADD, index, index, one));
+            emit(IrInstruction.jump(header));
+        }
+        startBlock(after);
+    }
+
+    /* Conditions */
+
+    /**
+     * Lowers a condition that goes to one block if it holds and to another if not, ending the current block
+     * @param comparison the condition
+     * @param ifTrue where to go if it holds
+     * @param ifFalse where to go if not
+     */
+    private void condition(PComparison comparison, IrBlock ifTrue, IrBlock ifFalse) {
+        if(comparison instanceof ATrueComparison){
+            emit(IrInstruction.jump(ifTrue));
+            return;
+        }
+        if(comparison instanceof AFalseComparison){
+            emit(IrInstruction.jump(ifFalse));
+            return;
+        }
+        if(!(comparison instanceof AGreatComparison) && !(comparison instanceof ALessComparison)){
+            emit(IrInstruction.branch(operand(comparison), ifTrue, ifFalse));
+            return;
+        }
+
+        // the grammar makes a chain of < and > lean to the left: ((a < b) < c)
+        LinkedList<PComparison> operands = new LinkedList<>();
+        LinkedList<IrInstruction.Op> ops = new LinkedList<>();
+        while(comparison instanceof AGreatComparison || comparison instanceof ALessComparison){
+            if(comparison instanceof AGreatComparison){
+                operands.addFirst(((AGreatComparison) comparison).getComp2());
+                ops.addFirst(IrInstruction.Op.GT);
+                comparison = ((AGreatComparison) comparison).getComp1();
+            }
+            else{
+                operands.addFirst(((ALessComparison) comparison).getComp2());
+                ops.addFirst(IrInstruction.Op.LT);
+                comparison = ((ALessComparison) comparison).getComp1();
+            }
+        }
+        operands.addFirst(comparison);
+
+        // like Python a < b < c is a < b and b < c, each operand evaluated once
+        int left = operand(operands.get(0));
+        for(int i = 1; i < operands.size(); i++){
+            int right = operand(operands.get(i));
+            int holds = binary(ops.get(i - 1), left, right);
+            if(i == operands.size() - 1){
+                emit(IrInstruction.branch(holds, ifTrue, ifFalse));
+            }
+            else{
+                IrBlock next = function.newBlock();
+                emit(IrInstruction.branch(holds, next, ifFalse));
+                startBlock(next);
+            }
+            left = right;
+        }
+    }
+
+    // The value of a comparison that is not a chain, a comparison counts as True or False
+    private int operand(PComparison comparison) {
+        if(comparison instanceof AExpressionComparison){
+            return expression(((AExpressionComparison) comparison).getExpression());
+        }
+        if(comparison instanceof AExpEqualityComparison){
+            AExpEqualityComparison equality = (AExpEqualityComparison) comparison;
+            int left = expression(equality.getExp1());
+            return binary(IrInstruction.Op.EQ, left, expression(equality.getExp2()));
+        }
+        if(comparison instanceof AExpNotEqualsComparison){
+            AExpNotEqualsComparison notEquals = (AExpNotEqualsComparison) comparison;
+            int left = expression(notEquals.getExp1());
+            return binary(IrInstruction.Op.NE, left, expression(notEquals.getExp2()));
+        }
+        int value = temp();
+        emit(IrInstruction.constant(value, comparison instanceof ATrueComparison));
+        return value;
+    }
+
+    /* Expressions */
+
+    // Lowers an expression, returns the register of its value
+    private int expression(PExpression expression) {
+        if(expression instanceof AValueExpression){
+            int value = temp();
+            emit(IrInstruction.constant(value, value(((AValueExpression) expression).getValue())));
+            return value;
+        }
+        if(expression instanceof AIdentifierExpression){
+            return load(((AIdentifierExpression) expression).getId().getText());
+        }
+        if(expression instanceof AExpInBracketsExpression){
+            AExpInBracketsExpression index = (AExpInBracketsExpression) expression;
+            int array = load(index.getId().getText());
+            return binary(IrInstruction.Op.INDEX, array, expression(index.getExpression()));
+        }
+        if(expression instanceof AFunctionExpression){
+            AFunctionCall call = (AFunctionCall) ((AFunctionExpression) expression).getFunctionCall();
+            return call(call.getId(), call.getArglist());
+        }
+        if(expression instanceof AAdditionExpression){
+            ArrayList<PExpression> operands = concatChains ? Utils.getConcatOperands(expression, symbolFunction, symbolTable) : null;
+            if(operands != null) return concat(operands);
+            AAdditionExpression addition = (AAdditionExpression) expression;
+            int left = expression(addition.getExp1());
+            return binary(IrInstruction.Op.ADD, left, expression(addition.getExp2()));
+        }
+        if(expression instanceof AAbstractionExpression){
+            AAbstractionExpression abstraction = (AAbstractionExpression) expression;
+            int left = expression(abstraction.getExp1());
+            return binary(IrInstruction.Op.SUB, left, expression(abstraction.getExp2()));
+        }
+        if(expression instanceof AMultExpression){
+            AMultExpression mult = (AMultExpression) expression;
+            int left = expression(mult.getExp1());
+            return binary(IrInstruction.Op.MUL, left, expression(mult.getExp2()));
+        }
+        if(expression instanceof ADivExpression){
+            ADivExpression div = (ADivExpression) expression;
+            int left = expression(div.getExp1());
+            return binary(IrInstruction.Op.DIV, left, expression(div.getExp2()));
+        }
+        int[] elements = expressions(((AExpsInsideBracketsExpression) expression).getArglist());
+        int array = temp();
+        emit(IrInstruction.of(IrInstruction.Op.ARRAY, array, elements));
+        return array;
+    }
+
+    /**
+     * Lowers a chain of additions of strings to CONCATs, which evaluate all their operands before adding them.
+     * An addition may fail, e.g. for a param typed UNDEF that is an int, so after the first 2 operands a CONCAT only takes
+     * the literals and the variables, which cannot fail or print, and any other operand starts a new one.
+     */
+    private int concat(ArrayList<PExpression> operands) {
+        ArrayList<Integer> registers = new ArrayList<>();
+        for(PExpression operand : operands){
+            if(registers.size() >= 2 && !(operand instanceof AValueExpression || operand instanceof AIdentifierExpression)){
+                int text = concatenation(registers);
+                registers.clear();
+                registers.add(text);
+            }
+            registers.add(expression(operand));
+        }
+        return concatenation(registers);
+    }
+
+    // The CONCAT of some registers, an ADD for 2
+    private int concatenation(ArrayList<Integer> registers) {
+        if(registers.size() == 2) return binary(IrInstruction.Op.ADD, registers.get(0), registers.get(1));
+        int[] operands = new int[registers.size()];
+        for(int i = 0; i < operands.length; i++){
+            operands[i] = registers.get(i);
+        }
+        int text = temp();
+        emit(IrInstruction.of(IrInstruction.Op.CONCAT, text, operands));
+        return text;
+    }
+
+    private int binary(IrInstruction.Op op, int left, int right) {
+        int result = temp();
+        emit(IrInstruction.of(op, result, left, right));
+        return result;
+    }
+
+    // A literal, an Integer or a String without its quotes
+    private static Object value(PValue value) {
+        if(value instanceof ANumberValue){
+            TInteger integer = ((ANumberValue) value).getInteger();
+            try {
+                return Integer.parseInt(integer.getText());
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("The integer " + integer.getText() + " in the line " + integer.getLine() + " does not fit in an int");
+            }
+        }
+        String text = ((AStringValue) value).getStringLit().getText();
+        return text.substring(1, text.length() - 1);
+    }
+
+    // Calls the function that accepts the arguments, there is only one like in Utils.checkLegitFunction
+    private int call(TId id, PArglist arglist) {
+        int[] args = expressions(arglist);
+        FunctionOverloads overloads = symbolTable.getOverloads(id);
+        Function overload = overloads == null ? null : overloads.getAccepting(args.length);
+        IrFunction callee = overload == null ? null : functions.get(overload);
+        if(callee == null){
+            throw new IllegalStateException("The function " + id.getText() + " in the line " + id.getLine() + " is not defined for " + args.length + " arguments");
+        }
+
+        // the params left out take their default values
+        PValue[] values = defaults.get(overload);
+        int[] all = new int[values.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        for(int i = args.length; i < values.length; i++){
+            all[i] = temp();
+            emit(IrInstruction.constant(all[i], value(values[i])));
+        }
+
+        int result = temp();
+        emit(IrInstruction.call(result, callee, all));
+        return result;
+    }
+
+    // Lowers the expressions of an arglist in the order they are written
+    private int[] expressions(PArglist args) {
+        ArrayList<PExpression> expressions = arguments(args);
+        int[] registers = new int[expressions.size()];
+        for(int i = 0; i < registers.length; i++){
+            registers[i] = expression(expressions.get(i));
+        }
+        return registers;
+    }
+
+    // The expressions of an arglist in the order they are written, the arglist lists them backwards
+    private static ArrayList<PExpression> arguments(PArglist args) {
+        LinkedList<PExpression> expressions = new LinkedList<>();
+        while(args != null){
+            if(args instanceof AExpArglist){
+                expressions.addFirst(((AExpArglist) args).getExpression());
+                break;
+            }
+            if(((AMoreExpArglist) args).getExpression() != null){
+                expressions.addFirst(((AMoreExpArglist) args).getExpression());
+            }
+            args = ((AMoreExpArglist) args).getArglist();
+        }
+        return new ArrayList<>(expressions);
+    }
+
+    /* Variables */
+
+    private int temp() {
+        return function.newRegister(null);
+    }
+
+    // The register of a local variable, as the visitors decide it, or null for a global one
+    private Integer local(String name) {
+        if(symbolFunction == null) return null;
+        Integer register = locals.get(name);
+        if(register == null && (symbolFunction.getVar(name) != null
+                || (assigned.contains(name) && symbolTable.getVariable(name) == null))){
+            register = function.newRegister(name);
+            locals.put(name, register);
+        }
+        return register;
+    }
+
+    private int global(String name) {
+        Integer index = globals.get(name);
+        if(index == null){
+            index = globals.size();
+            globals.put(name, index);
+            program.getGlobals().add(name);
+        }
+        return index;
+    }
+
+    // Returns a register with the value of a variable, the register of a local one is read as it is,
+    // since no expression can assign a local variable, a call has registers of its own
+    private int load(String name) {
+        Integer register = local(name);
+        if(register != null) return register;
+        int value = temp();
+        emit(IrInstruction.loadGlobal(value, global(name)));
+        return value;
+    }
+
+    private void store(String name, int value) {
+        Integer register = local(name);
+        if(register != null) emit(IrInstruction.of(IrInstruction.Op.COPY, register, value));
+        else emit(IrInstruction.storeGlobal(global(name), value));
+    }
+
+    /* Getters and Setters */
+
+    public boolean isConcatChains() {
+        return concatChains;
+    }
+
+    // Whether the chains of additions of strings become one CONCAT instruction, set before lower
+    public void setConcatChains(boolean concatChains) {
+        this.concatChains = concatChains;
+    }
+
+    public boolean isIntArrays() {
+        return intArrays;
+    }
+
+    // Whether the ARRAY instructions of the program make arrays that keep their ints in an int[], set before lower
+    public void setIntArrays(boolean intArrays) {
+        this.intArrays = intArrays;
+    }
+}
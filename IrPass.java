@@ -0,0 +1,17 @@
+/**
+ * Interface IrPass
+ * An optimization of the IR, run by the PassManager on one function at a time. A pass may change the function
+ * in any way that keeps what it does, and the passes after it see the function as it has left it.
+ */
+public interface IrPass {
+    // The name shown in the report of the PassManager
+    String getName();
+
+    /**
+     * Runs the pass on a function
+     * @param function the function, or the top level statements
+     * @param program the program of the function
+     * @return true if the function has changed
+     */
+    boolean run(IrFunction function, IrProgram program);
+}
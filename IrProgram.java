@@ -0,0 +1,74 @@
+import java.util.ArrayList;
+
+/**
+ * Class IrProgram
+ * This class represents a whole program in the IR: a function for each overload and one for the top level statements,
+ * and the names of the global variables, which the instructions refer to by their index.
+ */
+public class IrProgram {
+    private ArrayList<IrFunction> functions;
+    private IrFunction main;
+    private ArrayList<String> globals;
+
+    // False if the ARRAY instructions make boxed arrays, see MiniPythonArray
+    private boolean intArrays = true;
+
+    public IrProgram() {
+        functions = new ArrayList<>();
+        globals = new ArrayList<>();
+    }
+
+    // The functions and then the top level statements, what the passes go through
+    public ArrayList<IrFunction> getAllFunctions() {
+        ArrayList<IrFunction> all = new ArrayList<>(functions);
+        all.add(main);
+        return all;
+    }
+
+    // The number of instructions of the program
+    public int size() {
+        int size = 0;
+        for(IrFunction function : getAllFunctions()){
+            size += function.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < globals.size(); i++){
+            text.append('g').append(i).append(' ').append(globals.get(i)).append('\n');
+        }
+        for(IrFunction function : getAllFunctions()){
+            text.append(function);
+        }
+        return text.toString();
+    }
+
+    /* Getters and Setters */
+
+    public ArrayList<IrFunction> getFunctions() {
+        return functions;
+    }
+
+    public IrFunction getMain() {
+        return main;
+    }
+
+    public void setMain(IrFunction main) {
+        this.main = main;
+    }
+
+    public ArrayList<String> getGlobals() {
+        return globals;
+    }
+
+    public boolean isIntArrays() {
+        return intArrays;
+    }
+
+    public void setIntArrays(boolean intArrays) {
+        this.intArrays = intArrays;
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class MiniPythonArray
+ * This class represents an array at run time. While every element is an int the elements are kept in an int[],
+ * so an array of numbers takes 4 bytes an element and the int operations read and write it without boxing anything.
+ * The first element that is not an int moves them all to an Object[], where they stay.
+ *
+ * The array grows as elements are added, which is how the literals and + build it, an index out of range does not grow it.
+ * The indexes given to get and set are already checked, see MiniPythonRuntime.index.
+ */
+public final class MiniPythonArray {
+    private int[] ints;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Constructor
+     * @param capacity the elements it can take before growing
+     */
+    public MiniPythonArray(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * Constructor
+     * @param capacity the elements it can take before growing
+     * @param ints false to keep the elements boxed from the start, e.g. to measure the int arrays against
+     */
+    public MiniPythonArray(int capacity, boolean ints) {
+        if(ints) this.ints = new int[capacity];
+        else values = new Object[capacity];
+    }
+
+    // An array of the elements, which are copied, in an int[] while they are ints if asked to
+    public static MiniPythonArray of(boolean ints, Object... elements) {
+        MiniPythonArray array = new MiniPythonArray(elements.length, ints);
+        for(Object element : elements){
+            array.add(element);
+        }
+        return array;
+    }
+
+    public void add(Object element) {
+        if(ints != null){
+            if(element instanceof Integer){
+                addInt((Integer) element);
+                return;
+            }
+            box();
+        }
+        if(size == values.length) values = Arrays.copyOf(values, Math.max(8, size * 2));
+        values[size++] = element;
+    }
+
+    public void addInt(int element) {
+        if(ints == null){
+            add(element);
+            return;
+        }
+        if(size == ints.length) ints = Arrays.copyOf(ints, Math.max(8, size * 2));
+        ints[size++] = element;
+    }
+
+    // The elements of this array followed by the ones of another, in a new array, boxed if both are
+    public MiniPythonArray concat(MiniPythonArray other) {
+        MiniPythonArray both = new MiniPythonArray(size + other.size, ints != null || other.ints != null);
+        for(int i = 0; i < size; i++){
+            if(ints != null) both.addInt(ints[i]);
+            else both.add(values[i]);
+        }
+        for(int i = 0; i < other.size; i++){
+            if(other.ints != null) both.addInt(other.ints[i]);
+            else both.add(other.values[i]);
+        }
+        return both;
+    }
+
+    public Object get(int index) {
+        return ints != null ? Integer.valueOf(ints[index]) : values[index];
+    }
+
+    // The element at an index of an array of ints, see isInts
+    public int getInt(int index) {
+        return ints[index];
+    }
+
+    public void set(int index, Object element) {
+        if(ints != null){
+            if(element instanceof Integer){
+                ints[index] = (Integer) element;
+                return;
+            }
+            box();
+        }
+        values[index] = element;
+    }
+
+    public void setInt(int index, int element) {
+        if(ints != null) ints[index] = element;
+        else values[index] = element;
+    }
+
+    // Moves the elements to an Object[], for good
+    private void box() {
+        values = new Object[ints.length];
+        for(int i = 0; i < size; i++){
+            values[i] = ints[i];
+        }
+        ints = null;
+    }
+
+    // Equal if the elements are, like 2 lists in Python, where 1 is not True
+    @Override
+    public boolean equals(Object other) {
+        if(this == other) return true;
+        if(!(other instanceof MiniPythonArray)) return false;
+        MiniPythonArray array = (MiniPythonArray) other;
+        if(size != array.size) return false;
+        if(ints != null && array.ints != null) return Arrays.equals(ints, 0, size, array.ints, 0, size);
+        for(int i = 0; i < size; i++){
+            if(!Objects.equals(get(i), array.get(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++){
+            hash = 31 * hash + Objects.hashCode(get(i));
+        }
+        return hash;
+    }
+
+    /* Getters and Setters */
+
+    public int size() {
+        return size;
+    }
+
+    // True while every element is an int, so getInt can read them
+    public boolean isInts() {
+        return ints != null;
+    }
+}
@@ -0,0 +1,315 @@
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Class MiniPythonRuntime
+ * This class holds what the classes written by CodeGenerator call at run time: the operations on values whose type
+ * is only known then, printing, and starting a program. A value is an Integer, a String, a MiniPythonArray for an array,
+ * a Boolean for the result of a comparison, or null for None, e.g. what a function without a return returns.
+ *
+ * The integers are ints, overflowing ends the program, and division floors like in Python 2. A wrong operation throws
+ * a ProgramError with the message Python would print, which ends the program.
+ */
+public class MiniPythonRuntime {
+    // What the programs print, flushed when they end
+    private static PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+
+    /**
+     * Called by the main of a compiled program, runs it and exits with 1 if it fails
+     * @param program the compiled class
+     */
+    public static void start(Class<?> program) {
+        if(!run(program)) System.exit(1);
+    }
+
+    /**
+     * Runs a compiled program, printing the error that ends it if any
+     * @param program the compiled class
+     * @return false if the program failed
+     */
+    public static boolean run(Class<?> program) {
+        try {
+            program.getMethod("run").invoke(null);
+            return true;
+        } catch (InvocationTargetException e) {
+            return fail(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(program + " is not a compiled MiniPython program", e);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Prints the error that has ended a program, after what it has printed, e.g. for the Interpreter too
+     * @param cause what the program has thrown
+     * @return false, the program has failed
+     */
+    public static boolean fail(Throwable cause) {
+        out.flush();
+        if(cause instanceof ProgramError) System.err.println(cause.getMessage());
+        else if(cause instanceof ArithmeticException) System.err.println("OverflowError: integer overflow");
+        else if(cause instanceof StackOverflowError) System.err.println("RecursionError: maximum recursion depth exceeded");
+        else cause.printStackTrace();
+        return false;
+    }
+
+    // Prints what the programs have printed so far
+    public static void flush() {
+        out.flush();
+    }
+
+    // Changes where the programs print, e.g. to collect what they print
+    public static void setOut(PrintStream out) {
+        MiniPythonRuntime.out.flush();
+        MiniPythonRuntime.out = out;
+    }
+
+    /* Operations */
+
+    public static Object add(Object left, Object right) {
+        if(left instanceof Integer && right instanceof Integer){
+            return Math.addExact((Integer) left, (Integer) right);
+        }
+        if(left instanceof String && right instanceof String) return (String) left + right;
+        if(left instanceof MiniPythonArray && right instanceof MiniPythonArray) return ((MiniPythonArray) left).concat((MiniPythonArray) right);
+        throw unsupported("+", left, right);
+    }
+
+    /*
+     * A chain of additions typed STR, e.g. "x = " + x + ", y = " + y, is computed with one StringBuilder instead of
+     * a String for each +: startConcat with the first operand, concat with each one after it and endConcat at the end.
+     * The operands are still evaluated one by one between the additions, so when one is not a string after all
+     * (a param typed UNDEF) the additions go on with add from there, and fail the same way.
+     */
+
+    // The first operand of a chain, a StringBuilder of about the capacity the chain needs if it is a string
+    public static Object startConcat(Object first, int capacity) {
+        if(first instanceof String) return new StringBuilder(Math.max(capacity, ((String) first).length() + 16)).append((String) first);
+        return first;
+    }
+
+    public static Object concat(Object text, Object next) {
+        if(text instanceof StringBuilder){
+            if(next instanceof String) return ((StringBuilder) text).append((String) next);
+            return add(text.toString(), next);
+        }
+        return add(text, next);
+    }
+
+    public static Object endConcat(Object text) {
+        return text instanceof StringBuilder ? text.toString() : text;
+    }
+
+    public static Object sub(Object left, Object right) {
+        if(left instanceof Integer && right instanceof Integer){
+            return Math.subtractExact((Integer) left, (Integer) right);
+        }
+        throw unsupported("-", left, right);
+    }
+
+    public static Object mul(Object left, Object right) {
+        if(left instanceof Integer && right instanceof Integer){
+            return Math.multiplyExact((Integer) left, (Integer) right);
+        }
+        throw unsupported("*", left, right);
+    }
+
+    public static Object div(Object left, Object right) {
+        if(left instanceof Integer && right instanceof Integer) return div((int) (Integer) left, (int) (Integer) right);
+        throw unsupported("/", left, right);
+    }
+
+    // The division of 2 ints, floored, where the only one that overflows is the smallest int by -1
+    public static int div(int left, int right) {
+        if(right == 0) throw new ProgramError("ZeroDivisionError: integer division or modulo by zero");
+        if(right == -1 && left == Integer.MIN_VALUE) throw new ArithmeticException("integer overflow");
+        return Math.floorDiv(left, right);
+    }
+
+    // The value of a condition
+    public static boolean truthy(Object value) {
+        if(value instanceof Integer) return (Integer) value != 0;
+        if(value instanceof Boolean) return (Boolean) value;
+        if(value instanceof String) return !((String) value).isEmpty();
+        if(value instanceof MiniPythonArray) return ((MiniPythonArray) value).size() != 0;
+        return value != null;
+    }
+
+    public static boolean eq(Object left, Object right) {
+        if(left instanceof Boolean || right instanceof Boolean){
+            // a comparison is compared as the integer 1 or 0
+            return left != null && right != null && !(left instanceof String) && !(right instanceof String)
+                    && !(left instanceof MiniPythonArray) && !(right instanceof MiniPythonArray) && number(left) == number(right);
+        }
+        return left == null ? right == null : left.equals(right);
+    }
+
+    /**
+     * Compares two values for < and >
+     * @param operator the operator compared with, "<" or ">", for the error
+     * @return less than, equal to or greater than 0, like Comparable
+     */
+    public static int compare(Object left, Object right, String operator) {
+        if(isNumber(left) && isNumber(right)) return Integer.compare(number(left), number(right));
+        if(left instanceof String && right instanceof String) return ((String) left).compareTo((String) right);
+        throw new ProgramError("TypeError: '" + operator + "' not supported between instances of '" + typeName(left) + "' and '" + typeName(right) + "'");
+    }
+
+    public static Object index(Object value, Object index) {
+        if(!(index instanceof Integer) && (value instanceof MiniPythonArray || value instanceof String)){
+            throw new ProgramError("TypeError: " + (value instanceof String ? "string" : "list") + " indices must be integers, not " + typeName(index));
+        }
+        // otherwise the value cannot be indexed at all, whatever the index
+        return index(value, index instanceof Integer ? (Integer) index : 0);
+    }
+
+    // The element at an index that is already an int
+    public static Object index(Object value, int index) {
+        if(value instanceof MiniPythonArray){
+            MiniPythonArray array = (MiniPythonArray) value;
+            return array.get(position(array.size(), index, "list"));
+        }
+        if(value instanceof String){
+            String string = (String) value;
+            int at = position(string.length(), index, "string");
+            return string.substring(at, at + 1);
+        }
+        throw new ProgramError("TypeError: '" + typeName(value) + "' object is not subscriptable");
+    }
+
+    public static void setIndex(Object value, Object index, Object element) {
+        if(!(index instanceof Integer) && value instanceof MiniPythonArray){
+            throw new ProgramError("TypeError: list indices must be integers, not " + typeName(index));
+        }
+        setIndex(value, index instanceof Integer ? (Integer) index : 0, element);
+    }
+
+    // Sets the element at an index that is already an int
+    public static void setIndex(Object value, int index, Object element) {
+        MiniPythonArray array = assignable(value);
+        array.set(position(array.size(), index, "list assignment"), element);
+    }
+
+    // Sets an int element, which an array of ints keeps without boxing
+    public static void setIndex(Object value, int index, int element) {
+        MiniPythonArray array = assignable(value);
+        array.setInt(position(array.size(), index, "list assignment"), element);
+    }
+
+    private static MiniPythonArray assignable(Object value) {
+        if(!(value instanceof MiniPythonArray)){
+            throw new ProgramError("TypeError: '" + typeName(value) + "' object does not support item assignment");
+        }
+        return (MiniPythonArray) value;
+    }
+
+    // The array of an array literal, from its elements, kept in an int[] while they are ints if ints is true
+    public static MiniPythonArray array(Object[] elements, boolean ints) {
+        return MiniPythonArray.of(ints, elements);
+    }
+
+    // The elements a for statement goes through
+    public static MiniPythonArray iterable(Object value) {
+        if(value instanceof MiniPythonArray) return (MiniPythonArray) value;
+        if(value instanceof String){
+            String string = (String) value;
+            MiniPythonArray chars = new MiniPythonArray(string.length(), false);
+            for(int i = 0; i < string.length(); i++){
+                chars.add(string.substring(i, i + 1));
+            }
+            return chars;
+        }
+        throw new ProgramError("TypeError: '" + typeName(value) + "' object is not iterable");
+    }
+
+    // The number of elements a for statement goes through
+    public static int length(MiniPythonArray elements) {
+        return elements.size();
+    }
+
+    // Checks an index, a negative one counts from the end
+    static int position(int length, int index, String kind) {
+        int at = index;
+        if(at < 0) at += length;
+        if(at < 0 || at >= length) throw new ProgramError("IndexError: " + kind + " index out of range");
+        return at;
+    }
+
+    private static boolean isNumber(Object value) {
+        return value instanceof Integer || value instanceof Boolean;
+    }
+
+    private static int number(Object value) {
+        if(value instanceof Boolean) return (Boolean) value ? 1 : 0;
+        return (Integer) value;
+    }
+
+    private static ProgramError unsupported(String operator, Object left, Object right) {
+        return new ProgramError("TypeError: unsupported operand type(s) for " + operator + ": '" + typeName(left) + "' and '" + typeName(right) + "'");
+    }
+
+    private static String typeName(Object value) {
+        if(value instanceof Integer) return "int";
+        if(value instanceof String) return "str";
+        if(value instanceof MiniPythonArray) return "list";
+        if(value instanceof Boolean) return "bool";
+        return "NoneType";
+    }
+
+    /* Printing */
+
+    // Prints the first value of a print statement
+    public static void print(Object value) {
+        out.print(str(value));
+    }
+
+    // Prints one more value of a print statement, after a space
+    public static void printNext(Object value) {
+        out.print(' ');
+        out.print(str(value));
+    }
+
+    public static void println() {
+        out.print('\n');
+    }
+
+    /**
+     * Returns a value as print prints it
+     * @param value the value
+     * @return the text
+     */
+    public static String str(Object value) {
+        if(value instanceof String) return (String) value;
+        return repr(value);
+    }
+
+    private static String repr(Object value) {
+        if(value == null) return "None";
+        if(value instanceof String) return "'" + value + "'";
+        if(value instanceof Boolean) return (Boolean) value ? "True" : "False";
+        if(value instanceof MiniPythonArray){
+            StringBuilder text = new StringBuilder("[");
+            MiniPythonArray array = (MiniPythonArray) value;
+            for(int i = 0; i < array.size(); i++){
+                if(i > 0) text.append(", ");
+                text.append(repr(array.get(i)));
+            }
+            return text.append(']').toString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Class ProgramError
+     * The error that ends a program, with the message Python would print
+     */
+    public static class ProgramError extends RuntimeException {
+        public ProgramError(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class OverloadTableBenchmark
+ * Measures the cost of resolving a function call against symbol tables of growing size.
+ * The indexed lookup of RootSymbolTable should stay flat from 10 to 100k functions,
+ * while the old linear scan over functionsArray grows with the number of functions.
+ */
+public class OverloadTableBenchmark {
+    private static final int[] SIZES = {10, 100, 1000, 10000, 100000};
+    private static final int LOOKUPS = 200000;
+
+    // The linear scan is quadratic overall, so after this size we only measure the index
+    private static final int MAX_LINEAR_SIZE = 10000;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%10s %18s %18s", "functions", "indexed ns/call", "linear ns/call"));
+        for(int size : SIZES){
+            RootSymbolTable symbolTable = createSymbolTable(size);
+            String[] ids = createLookups(size);
+
+            // the names of the calls are interned, like the SymbolLexer does with the ids it reads
+            for(int i = 0; i < ids.length; i++){
+                ids[i] = symbolTable.getSymbols().name(symbolTable.getSymbols().intern(ids[i]));
+            }
+
+            // warm up before measuring
+            runIndexed(symbolTable, ids);
+            double indexed = runIndexed(symbolTable, ids);
+
+            String linear = "-";
+            if(size <= MAX_LINEAR_SIZE){
+                runLinear(symbolTable, ids);
+                linear = String.format("%.1f", runLinear(symbolTable, ids));
+            }
+            System.out.println(String.format("%10d %18.1f %18s", size, indexed, linear));
+        }
+    }
+
+    // Creates size functions, every name has two overloads f(a) and f(a, b, c = 1)
+    private static RootSymbolTable createSymbolTable(int size){
+        RootSymbolTable symbolTable = new RootSymbolTable();
+        for(int i = 0; i < size; i++){
+            Function fun = new Function(symbolTable.getSymbols());
+            fun.setId("f" + (i / 2));
+            fun.setLine(i + 1);
+            fun.setNonDefaults(i % 2 == 0 ? 1 : 2);
+            fun.setDefaults(i % 2 == 0 ? 0 : 1);
+            fun.setParams(new ArrayList<>());
+            symbolTable.addFunction(fun);
+        }
+        return symbolTable;
+    }
+
+    private static String[] createLookups(int size){
+        Random random = new Random(42);
+        String[] ids = new String[1024];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = "f" + random.nextInt(Math.max(size / 2, 1));
+        }
+        return ids;
+    }
+
+    private static double runIndexed(RootSymbolTable symbolTable, String[] ids){
+        int found = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < LOOKUPS; i++){
+            FunctionOverloads overloads = symbolTable.getOverloads(ids[i & 1023]);
+            if(overloads != null && overloads.getAccepting(1 + (i % 3)) != null) found++;
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole(found);
+        return (double) elapsed / LOOKUPS;
+    }
+
+    // The resolution as it was done before the index, scanning every function and enumerating its bounds
+    private static double runLinear(RootSymbolTable symbolTable, String[] ids){
+        int found = 0;
+        int lookups = LOOKUPS / 100;
+        long start = System.nanoTime();
+        for(int i = 0; i < lookups; i++){
+            int argsCount = 1 + (i % 3);
+            for(Function function : symbolTable.getFunctionsArray()){
+                if(!function.getId().equals(ids[i & 1023])) continue;
+                ArrayList<Integer> foundBounds = new ArrayList<>();
+                for(int k = function.getNonDefaults(); k <= function.getDefaults() + function.getNonDefaults(); k++){
+                    foundBounds.add(k);
+                }
+                if(foundBounds.contains(argsCount)){
+                    found++;
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole(found);
+        return (double) elapsed / lookups;
+    }
+
+    private static int sink;
+
+    private static void blackhole(int value){
+        sink += value;
+    }
+}
@@ -0,0 +1,195 @@
+import minipython.node.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class ParallelAnalyzer
+ * This class runs both visitors with the function bodies checked in parallel.
+ *
+ * First the signatures of all the functions are defined, in the order they appear, and the functions are frozen.
+ * Then the top level statements are checked in order by each visitor, since each one depends on the global variables
+ * of the ones before it. Whenever a visitor meets a function, the body is handed to a fork/join pool together with a
+ * snapshot of the global variables at that point, and the first visitor checks it within a copy of the function,
+ * so no thread changes what another one reads.
+ *
+ * While the first visitor checks a command only the functions defined up to it can be found, like in a sequential run,
+ * and the second visitor finds all of them. The errors are printed in the order the visitors would find them:
+ * the errors of the first visitor and then the ones of the second visitor, command by command. Each body keeps
+ * its errors in its own Diagnostics, which are reported in that order when all of them are done, so they are
+ * the same as the ones of the sequential visitors, see SinglePassCheck.
+ *
+ * The allocation counter of a thread only counts what that thread allocates, so each body adds what it allocated
+ * to workerBytes when it is checked by a thread of the pool, for the metrics of the phase, see Compiler.analyze.
+ */
+public class ParallelAnalyzer {
+    private ForkJoinPool pool;
+
+    // The thread that analyzes, which may check some bodies itself while it waits for them
+    private Thread caller;
+
+    // The bytes allocated by the threads of the pool while checking the bodies
+    private LongAdder workerBytes;
+
+    /**
+     * Constructor
+     * @param pool the pool that checks the function bodies
+     */
+    public ParallelAnalyzer(ForkJoinPool pool) {
+        this.pool = pool;
+        this.workerBytes = new LongAdder();
+    }
+
+    /**
+     * Checks a program and reports its errors
+     * @param ast the program
+     * @param symbolTable an empty symbolTable, filled with the functions and global variables of the program
+     * @param diagnostics where the errors are reported
+     * @return the number of errors
+     */
+    public int analyze(Start ast, RootSymbolTable symbolTable, Diagnostics diagnostics) {
+        caller = Thread.currentThread();
+        ArrayList<PCommands> commands = new ArrayList<>();
+        for(Object command : ((AGoal) ast.getPGoal()).getCommands()){
+            commands.add((PCommands) command);
+        }
+
+        // Define the functions
+        Diagnostics signatures = new Diagnostics();
+        FirstVisitor signatureVisitor = new FirstVisitor(symbolTable, signatures);
+        signatureVisitor.setSignaturesOnly(true);
+        int[] signatureEnds = new int[commands.size()];
+        int[] functionEnds = new int[commands.size()];
+        for(int i = 0; i < commands.size(); i++){
+            if(commands.get(i) instanceof AFuncCommands) commands.get(i).apply(signatureVisitor);
+            signatureEnds[i] = signatures.size();
+            functionEnds[i] = symbolTable.getFunctionsArray().size();
+        }
+        symbolTable.freeze();
+
+        // Check the top level statements in order and hand each function body to the pool
+        Diagnostics first = new Diagnostics();
+        Diagnostics second = new Diagnostics();
+        FirstVisitor firstVisitor = new FirstVisitor(symbolTable, first);
+        ArrayList<ForkJoinTask<Diagnostics>> firstBodies = new ArrayList<>();
+        int[] firstEnds = new int[commands.size()];
+
+        for(int i = 0; i < commands.size(); i++){
+            PCommands command = commands.get(i);
+            // like the sequential first visitor, only the functions defined so far are known
+            symbolTable.setDefinedFunctions(functionEnds[i]);
+            if(command instanceof AFuncCommands){
+                AFunction node = (AFunction) ((AFuncCommands) command).getFunction();
+                Function function = signatureVisitor.getDefinedFunction(node);
+                RootSymbolTable snapshot = symbolTable.snapshot();
+                firstBodies.add(pool.submit(() -> checkBody(node, function, snapshot)));
+            }
+            else{
+                command.apply(firstVisitor);
+            }
+            firstEnds[i] = first.size();
+        }
+
+        // The same for the second visitor, which checks the function calls once all of them are known
+        symbolTable.setDefinedFunctions(-1);
+        SecondVisitor secondVisitor = new SecondVisitor(symbolTable, second);
+        ArrayList<ForkJoinTask<Diagnostics>> secondBodies = new ArrayList<>();
+        int[] secondEnds = new int[commands.size()];
+
+        for(int i = 0; i < commands.size(); i++){
+            PCommands command = commands.get(i);
+            if(command instanceof AFuncCommands){
+                AFunction node = (AFunction) ((AFuncCommands) command).getFunction();
+                RootSymbolTable snapshot = symbolTable.snapshot();
+                secondBodies.add(pool.submit(() -> checkCalls(node, snapshot)));
+            }
+            else{
+                command.apply(secondVisitor);
+            }
+            secondEnds[i] = second.size();
+        }
+
+        // Report the errors in the order of the commands
+        int before = diagnostics.getCount();
+        int body = 0;
+        for(int i = 0; i < commands.size(); i++){
+            if(commands.get(i) instanceof AFuncCommands){
+                diagnostics.addAll(signatures, i == 0 ? 0 : signatureEnds[i - 1], signatureEnds[i]);
+                diagnostics.addAll(join(firstBodies.get(body++)));
+            }
+            else{
+                diagnostics.addAll(first, i == 0 ? 0 : firstEnds[i - 1], firstEnds[i]);
+            }
+        }
+        body = 0;
+        for(int i = 0; i < commands.size(); i++){
+            if(commands.get(i) instanceof AFuncCommands) diagnostics.addAll(join(secondBodies.get(body++)));
+            else diagnostics.addAll(second, i == 0 ? 0 : secondEnds[i - 1], secondEnds[i]);
+        }
+        return diagnostics.getCount() - before;
+    }
+
+    /**
+     * Waits for the errors of a body. A body that failed throws the exception it threw, not the copy made by join,
+     * so it fails the same way as in a sequential run
+     * @param body the task of the body
+     * @return the errors
+     */
+    private static Diagnostics join(ForkJoinTask<Diagnostics> body) {
+        try {
+            return body.join();
+        } catch (RuntimeException e) {
+            if(e.getCause() instanceof RuntimeException && e.getCause().getClass() == e.getClass()) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the body of a function with the first visitor
+     * @param node the function node
+     * @param function the function, or null if its signature was not accepted
+     * @param snapshot the symbolTable with the global variables defined before the function
+     * @return the errors
+     */
+    private Diagnostics checkBody(AFunction node, Function function, RootSymbolTable snapshot) {
+        Diagnostics first = new Diagnostics();
+
+        // A function that was not accepted is not checked, just like when visited sequentially
+        if(function == null) return first;
+
+        long start = CompileMetrics.allocatedBytes();
+        FirstVisitor firstVisitor = new FirstVisitor(snapshot, first);
+        firstVisitor.checkFunctionBody(node, function.copy(snapshot));
+        addWorkerBytes(start);
+        return first;
+    }
+
+    /**
+     * Checks the function calls of a function with the second visitor
+     * @param node the function node
+     * @param snapshot the symbolTable with the global variables at the point of the function
+     * @return the errors
+     */
+    private Diagnostics checkCalls(AFunction node, RootSymbolTable snapshot) {
+        long start = CompileMetrics.allocatedBytes();
+        Diagnostics second = new Diagnostics();
+        SecondVisitor secondVisitor = new SecondVisitor(snapshot, second);
+        node.apply(secondVisitor);
+        addWorkerBytes(start);
+        return second;
+    }
+
+    // Adds what a body allocated since start, unless the caller checked it, whose counter already has it
+    private void addWorkerBytes(long start) {
+        if(Thread.currentThread() != caller) workerBytes.add(CompileMetrics.allocatedBytes() - start);
+    }
+
+    /* Getters */
+
+    // The bytes allocated by the threads of the pool for the programs analyzed so far
+    public long getWorkerBytes() {
+        return workerBytes.sum();
+    }
+}
@@ -1,30 +1,170 @@
 import java.io.*;
-import minipython.lexer.Lexer;
-import minipython.parser.Parser;
-import minipython.node.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
 
 public class ParserTest
 {
     public static void main(String[] args)
     {
+        // Compile many files at once, see BatchCompiler
+        if(args.length > 0 && args[0].equals("--batch"))
+        {
+            String[] inputs = new String[args.length - 1];
+            System.arraycopy(args, 1, inputs, 0, inputs.length);
+            BatchCompiler.main(inputs);
+            return;
+        }
+
+        // Check all the files of a directory, optionally watching it, see Project
+        if(args.length > 0 && args[0].equals("--project"))
+        {
+            String[] inputs = new String[args.length - 1];
+            System.arraycopy(args, 1, inputs, 0, inputs.length);
+            Project.main(inputs);
+            return;
+        }
+
+        // Run a compile server, or send files to a running one, see CompileServer and CompileClient
+        if(args.length > 0 && (args[0].equals("--server") || args[0].equals("--client")))
+        {
+            String[] inputs = new String[args.length - 1];
+            System.arraycopy(args, 1, inputs, 0, inputs.length);
+            if(args[0].equals("--server")) CompileServer.main(inputs);
+            else CompileClient.main(inputs);
+            return;
+        }
+
+        String file = null;
+        boolean typeCacheStats = false;
+        boolean parallel = false;
+        boolean json = false;
+        boolean stats = false;
+        boolean twoPasses = false;
+        boolean run = false;
+        boolean interpret = false;
+        boolean boxed = false;
+        boolean ir = false;
+        boolean runIr = false;
+        boolean noPasses = false;
+        boolean flat = false;
+        String cacheDirectory = null;
+        String emitDirectory = null;
+        for(int i = 0; i < args.length; i++)
+        {
+            if(args[i].equals("--type-cache-stats")) typeCacheStats = true;
+            else if(args[i].equals("--parallel")) parallel = true;
+            else if(args[i].equals("--json")) json = true;
+            else if(args[i].equals("--stats")) stats = true;
+            else if(args[i].equals("--two-passes")) twoPasses = true;
+            else if(args[i].equals("--cache") && i + 1 < args.length) cacheDirectory = args[++i];
+            else if(args[i].equals("--emit") && i + 1 < args.length) emitDirectory = args[++i];
+            else if(args[i].equals("--run")) run = true;
+            else if(args[i].equals("--interpret")) interpret = true;
+            else if(args[i].equals("--boxed")) boxed = true;
+            else if(args[i].equals("--ir")) ir = true;
+            else if(args[i].equals("--run-ir")) runIr = true;
+            else if(args[i].equals("--no-passes")) noPasses = true;
+            else if(args[i].equals("--flat")) flat = true;
+            else if(file == null) file = args[i];
+        }
+
         try
         {
-            Parser parser =
-                    new Parser(
-                    new Lexer(
-                    new PushbackReader(
-                    new FileReader(args[0].toString()), 1024)));
+            Compiler compiler = new Compiler(System.out);
+
+            // Optionally check the function bodies in parallel, see ParallelAnalyzer
+            if(parallel)
+            {
+                compiler.setPool(ForkJoinPool.commonPool());
+            }
+
+            // Optionally check with the FirstVisitor and then the SecondVisitor, instead of the SinglePassVisitor
+            compiler.setTwoPasses(twoPasses);
+
+            // Optionally take the results of unchanged files from a cache directory, see CompileCache,
+            // but not to generate the class or interpret it, which needs the parsed source
+            if(cacheDirectory != null && emitDirectory == null && !run && !interpret && !ir && !runIr && !flat)
+            {
+                compiler.setCache(new CompileCache(Paths.get(cacheDirectory), CompileCache.DEFAULT_MAX_SIZE));
+            }
+
+            // Optionally print the errors as JSON lines, see DiagnosticSink
+            if(json)
+            {
+                compiler.setFormat(DiagnosticSink.Format.JSON);
+            }
+
+            // Optionally time each phase and count the calls of the helpers, see CompileMetrics
+            if(stats)
+            {
+                compiler.setMetrics(new CompileMetrics());
+            }
 
-            RootSymbolTable symbolTable =  new RootSymbolTable();
-            Start ast = parser.parse();
+            // The source is read as ASCII bytes, mapped into memory if the file is big, or from the standard input for -
+            compiler.compile(file == null || file.equals("-") ? AsciiSource.of(System.in) : AsciiSource.open(Paths.get(file)));
 
-            FirstVisitor first = new FirstVisitor(symbolTable);
-            ast.apply(first);
+            if(!json) System.out.println("Compilation finished with " + compiler.getErrors() + " errors.");
 
-            SecondVisitor second = new SecondVisitor(symbolTable, first.getErrors());
-            ast.apply(second);
+            // Optionally report how well the expression types were cached
+            if(typeCacheStats)
+            {
+                System.out.println(compiler.getSymbolTable().getTypeCache());
+                System.out.println(compiler.getSymbolTable().getSpecializationCache());
+            }
 
-            System.out.println("Compilation finished with " + second.getErrors() + " errors.");
+            // Optionally compile the program to a class, to write it or run it, see CodeGenerator
+            if((emitDirectory != null || run) && compiler.getErrors() == 0)
+            {
+                String className = CodeGenerator.className(file == null ? "-" : file);
+                byte[] bytes = compiler.generate(className);
+                if(emitDirectory != null)
+                {
+                    Files.createDirectories(Paths.get(emitDirectory));
+                    Files.write(Paths.get(emitDirectory, className + ".class"), bytes);
+                }
+                if(run)
+                {
+                    System.out.flush();
+                    MiniPythonRuntime.run(CodeGenerator.load(className, bytes));
+                }
+            }
+
+            // Optionally run the program from its AST, see Interpreter, with every value boxed for --boxed
+            if(interpret && compiler.getErrors() == 0)
+            {
+                Interpreter interpreter = compiler.interpreter(!boxed);
+                System.out.flush();
+                interpreter.run();
+            }
+
+            // Optionally lower the program to the IR, to print it or run it, see IrLowering and PassManager
+            PassManager passes = null;
+            if((ir || runIr) && compiler.getErrors() == 0)
+            {
+                passes = noPasses ? null : PassManager.standard();
+                IrProgram program = compiler.lower(passes);
+                if(ir) System.out.print(program);
+                if(runIr)
+                {
+                    System.out.flush();
+                    new IrInterpreter(program).run();
+                }
+            }
+
+            // Optionally lower the parsed tree to a FlatAst and print how big it is
+            if(flat)
+            {
+                FlatAst flatAst = compiler.flatAst();
+                System.out.println("Flat AST: " + flatAst.size() + " nodes, " + flatAst.getSymbolCount() + " symbols, "
+                        + flatAst.getBytes() + " bytes");
+            }
+
+            if(stats)
+            {
+                compiler.getMetrics().print(System.out);
+                if(passes != null) passes.print(System.out);
+            }
         }
         catch (Exception e)
         {
@@ -32,4 +172,3 @@ public class ParserTest
         }
     }
 }
-
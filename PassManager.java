@@ -0,0 +1,101 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Class PassManager
+ * This class runs an ordered list of IrPasses over every function of an IrProgram, each pass over all the functions
+ * before the next one, and keeps for each pass the time it took, the functions it changed and the number of
+ * instructions left after it, which print reports.
+ */
+public class PassManager {
+    private ArrayList<Run> runs;
+
+    // The instructions of the last program before the passes
+    private int lowered;
+
+    public PassManager() {
+        runs = new ArrayList<>();
+    }
+
+    // The passes every program goes through by default, in order
+    public static PassManager standard() {
+        return new PassManager()
+                .add(new SimplifyBlocksPass())
+                .add(new CopyCoalescingPass())
+                .add(new ConstantFoldingPass())
+                .add(new SimplifyBlocksPass())
+                .add(new DeadCodePass())
+                .add(new SimplifyBlocksPass());
+    }
+
+    /**
+     * Adds a pass after the ones already added
+     * @param pass the pass
+     * @return this, to add more
+     */
+    public PassManager add(IrPass pass) {
+        runs.add(new Run(pass));
+        return this;
+    }
+
+    /**
+     * Runs every pass over every function of a program
+     * @param program the program, changed in place
+     */
+    public void run(IrProgram program) {
+        lowered = program.size();
+        ArrayList<IrFunction> functions = program.getAllFunctions();
+        for(Run run : runs){
+            long start = System.nanoTime();
+            int changed = 0;
+            for(IrFunction function : functions){
+                if(run.pass.run(function, program)) changed++;
+            }
+            run.nanos += System.nanoTime() - start;
+            run.changed = changed;
+            run.instructions = program.size();
+        }
+    }
+
+    /**
+     * Prints the time of each pass, how many functions it changed and how many instructions were left after it
+     * @param out where to print
+     */
+    public void print(PrintStream out) {
+        out.println(String.format("%-20s %12s %10s %14s", "pass", "ms", "changed", "instructions"));
+        out.println(String.format("%-20s %12s %10s %14d", "lowering", "", "", lowered));
+        for(Run run : runs){
+            out.println(String.format("%-20s %12.3f %10d %14d", run.pass.getName(), run.nanos / 1e6, run.changed, run.instructions));
+        }
+    }
+
+    /* Getters and Setters */
+
+    public int getPassCount() {
+        return runs.size();
+    }
+
+    public IrPass getPass(int index) {
+        return runs.get(index).pass;
+    }
+
+    // The time a pass has taken in ns, added up over the programs it has run on
+    public long getNanos(int index) {
+        return runs.get(index).nanos;
+    }
+
+    /**
+     * Class Run
+     * A pass and what it did the last time it ran
+     */
+    private static class Run {
+        private final IrPass pass;
+        private long nanos;
+        private int changed;
+        private int instructions;
+
+        private Run(IrPass pass) {
+            this.pass = pass;
+        }
+    }
+}
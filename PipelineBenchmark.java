@@ -0,0 +1,307 @@
+import minipython.analysis.DepthFirstAdapter;
+import minipython.lexer.Lexer;
+import minipython.node.AFunction;
+import minipython.node.AFunctionCall;
+import minipython.node.AIdentifierExpression;
+import minipython.node.EOF;
+import minipython.node.Node;
+import minipython.node.PExpression;
+import minipython.node.Start;
+import minipython.node.TId;
+import minipython.parser.Parser;
+
+import java.io.FileReader;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Class PipelineBenchmark
+ * Measures each stage of the compiler on its own, over a small, a medium and a huge source:
+ * the lexer, over a String and over a file read with a FileReader or as an AsciiSource, the parser, the FirstVisitor over an already parsed Start, the SecondVisitor over a Start
+ * already filled in by the FirstVisitor, the SinglePassVisitor that replaces both of them,
+ * and the helpers Utils.getExpressionsType, Utils.checkLegitFunction and Utils.getVariableFromId.
+ * Next to the time of each stage it prints the bytes it allocated, read from the allocation counter of the thread,
+ * since most of the cost of the visitors on big sources is garbage.
+ * The sources are written by WorkloadGenerator. With --scaling it prints instead the time of both visitors
+ * for sources that double in size, as columns that can be plotted.
+ *
+ * Usage: PipelineBenchmark [--seed N] [--error-rate R] [--scaling] [small|medium|huge]...
+ * without sizes all three are measured
+ */
+public class PipelineBenchmark {
+    private static final String[] SIZE_NAMES = {"small", "medium", "huge"};
+
+    // The number of statements of each size, see WorkloadGenerator.ofSize
+    private static final int[] SIZES = {50, 2000, 40000};
+
+    // The sizes of --scaling, doubled each time
+    private static final int SCALING_FROM = 500;
+    private static final int SCALING_TO = 64000;
+
+    // The rounds before measuring, for the JIT, and the measured rounds, the huge source needs fewer of both
+    private static final int WARM_UP_ROUNDS = 10;
+    private static final int ROUNDS = 10;
+    private static final int HUGE_ROUNDS = 3;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * A stage of the compiler, returns something to keep the JIT from removing it
+     */
+    private interface Stage {
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        long seed = 42;
+        double errorRate = 0;
+        boolean scaling = false;
+        ArrayList<String> sizes = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--seed") && i + 1 < args.length) seed = Long.parseLong(args[++i]);
+            else if(args[i].equals("--error-rate") && i + 1 < args.length) errorRate = Double.parseDouble(args[++i]);
+            else if(args[i].equals("--scaling")) scaling = true;
+            else sizes.add(args[i]);
+        }
+
+        if(scaling){
+            scale(seed, errorRate);
+            return;
+        }
+
+        System.out.println(String.format("%-8s %-20s %10s %12s %14s %12s",
+                "size", "stage", "items", "ms/op", "ns/item", "KB alloc/op"));
+        for(int i = 0; i < SIZES.length; i++){
+            if(!sizes.isEmpty() && !sizes.contains(SIZE_NAMES[i])) continue;
+            run(SIZE_NAMES[i], createSource(seed, errorRate, SIZES[i]), i == SIZES.length - 1 ? HUGE_ROUNDS : ROUNDS);
+        }
+    }
+
+    // Prints the time of both visitors against the size of the source
+    private static void scale(long seed, double errorRate) throws Exception {
+        System.out.println(String.format("%10s %10s %12s %14s", "statements", "lines", "analysis ms", "ns/statement"));
+        for(int size = SCALING_FROM; size <= SCALING_TO; size *= 2){
+            String source = createSource(seed, errorRate, size);
+            Symbols symbols = new Symbols();
+            Start ast = parse(source, symbols);
+            Result result = measure(() -> {
+                RootSymbolTable symbolTable = new RootSymbolTable(symbols);
+                Diagnostics diagnostics = new Diagnostics();
+                ast.apply(new FirstVisitor(symbolTable, diagnostics));
+                ast.apply(new SecondVisitor(symbolTable, diagnostics));
+                return diagnostics.size();
+            }, size >= SCALING_TO / 4 ? HUGE_ROUNDS : ROUNDS);
+            System.out.println(String.format("%10d %10d %12.3f %14.1f", size, source.chars().filter(c -> c == '\n').count(),
+                    result.nanos / 1e6, result.nanos / size));
+        }
+    }
+
+    private static void run(String size, String source, int rounds) throws Exception {
+        // Everything a stage needs is made before it is measured, so only the stage itself is counted
+        Symbols symbols = new Symbols();
+        Start ast = parse(source, symbols);
+        long tokens = lex(AsciiSource.of(source));
+
+        RootSymbolTable checked = new RootSymbolTable(symbols);
+        Diagnostics diagnostics = new Diagnostics();
+        ast.apply(new FirstVisitor(checked, diagnostics));
+        ast.apply(new SecondVisitor(checked, diagnostics));
+
+        ArrayList<PExpression> expressions = new ArrayList<>();
+        ArrayList<AFunctionCall> calls = new ArrayList<>();
+        ast.apply(new Collector(expressions, calls));
+
+        long lines = source.chars().filter(c -> c == '\n').count();
+
+        report(size, "lexer", tokens, rounds, () -> lex(new PushbackReader(new StringReader(source), 1024)));
+
+        // the same source from a file, the way ParserTest used to read it and the way it does now
+        Path file = Files.createTempFile("minipython-benchmark", ".py");
+        try {
+            Files.write(file, source.getBytes(StandardCharsets.US_ASCII));
+            report(size, "lexer, FileReader", tokens, rounds, () -> {
+                try (FileReader reader = new FileReader(file.toFile())) {
+                    return lex(new PushbackReader(reader, 1024));
+                }
+            });
+            report(size, "lexer, AsciiSource", tokens, rounds, () -> {
+                try (AsciiSource reader = AsciiSource.open(file)) {
+                    return lex(reader);
+                }
+            });
+        } finally {
+            Files.delete(file);
+        }
+
+        report(size, "parser", lines, rounds, () -> parse(source, new Symbols()).hashCode());
+        report(size, "FirstVisitor", lines, rounds, () -> {
+            RootSymbolTable symbolTable = new RootSymbolTable(symbols);
+            ast.apply(new FirstVisitor(symbolTable, new Diagnostics()));
+            return symbolTable.getFunctionsArray().size();
+        });
+
+        // the FirstVisitor is needed before the SecondVisitor, so its time and allocations are taken out
+        Stage first = () -> {
+            RootSymbolTable symbolTable = new RootSymbolTable(symbols);
+            Diagnostics firstDiagnostics = new Diagnostics();
+            ast.apply(new FirstVisitor(symbolTable, firstDiagnostics));
+            return symbolTable.getFunctionsArray().size();
+        };
+        Result firstOnly = measure(first, rounds);
+        Result both = measure(() -> {
+            RootSymbolTable symbolTable = new RootSymbolTable(symbols);
+            Diagnostics secondDiagnostics = new Diagnostics();
+            ast.apply(new FirstVisitor(symbolTable, secondDiagnostics));
+            ast.apply(new SecondVisitor(symbolTable, secondDiagnostics));
+            return secondDiagnostics.size();
+        }, rounds);
+        print(size, "SecondVisitor", lines, new Result(both.nanos - firstOnly.nanos, both.bytes - firstOnly.bytes));
+        print(size, "both visitors", lines, both);
+        report(size, "SinglePassVisitor", lines, rounds, () -> {
+            Diagnostics singleDiagnostics = new Diagnostics();
+            new SinglePassVisitor(new RootSymbolTable(symbols), singleDiagnostics).analyze(ast);
+            return singleDiagnostics.size();
+        });
+
+        // the type cache is cleared first, otherwise every expression after the first round is a cache hit
+        report(size, "getExpressionsType", expressions.size(), rounds, () -> {
+            checked.getTypeCache().clear();
+            long types = 0;
+            for(PExpression expression : expressions){
+                types += Utils.getExpressionsType(expression, null, checked).ordinal();
+            }
+            return types;
+        });
+        report(size, "checkLegitFunction", calls.size(), rounds, () -> {
+            long found = 0;
+            for(AFunctionCall call : calls){
+                if(Utils.checkLegitFunction(call.getId(), call.getArglist(), checked).getError() == null) found++;
+            }
+            return found;
+        });
+
+        // the variables of the top level statements, found by the symbols the SymbolLexer gave their ids
+        ArrayList<TId> ids = new ArrayList<>();
+        for(PExpression expression : expressions){
+            if(expression instanceof AIdentifierExpression) ids.add(((AIdentifierExpression) expression).getId());
+        }
+        report(size, "getVariableFromId", ids.size(), rounds, () -> {
+            long found = 0;
+            for(TId id : ids){
+                if(Utils.getVariableFromId(id, null, checked) != null) found++;
+            }
+            return found;
+        });
+    }
+
+    private static String createSource(long seed, double errorRate, int size){
+        WorkloadGenerator generator = WorkloadGenerator.ofSize(seed, size);
+        generator.setErrorRate(errorRate);
+        return generator.generate();
+    }
+
+    // Parses like the Compiler, interning the ids into the symbols the symbolTables are made with
+    private static Start parse(String source, Symbols symbols) throws Exception {
+        return new Parser(new SymbolLexer(new PushbackReader(new StringReader(source), 1024), symbols)).parse();
+    }
+
+    // Reads every token of the source and returns how many there were
+    private static long lex(PushbackReader source) throws Exception {
+        Lexer lexer = new Lexer(source);
+        long tokens = 0;
+        while(!(lexer.next() instanceof EOF)){
+            tokens++;
+        }
+        return tokens;
+    }
+
+    private static void report(String size, String name, long items, int rounds, Stage stage) throws Exception {
+        print(size, name, items, measure(stage, rounds));
+    }
+
+    private static void print(String size, String name, long items, Result result){
+        System.out.println(String.format("%-8s %-20s %10d %12.3f %14.1f %12.1f", size, name, items,
+                result.nanos / 1e6, items == 0 ? 0 : result.nanos / items, result.bytes / 1024));
+    }
+
+    // Runs a stage after warming it up, returns its average time and allocations
+    private static Result measure(Stage stage, int rounds) throws Exception {
+        long thread = Thread.currentThread().getId();
+        for(int i = 0; i < WARM_UP_ROUNDS; i++){
+            blackhole(stage.run());
+        }
+
+        long allocated = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for(int i = 0; i < rounds; i++){
+            blackhole(stage.run());
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = THREADS.getThreadAllocatedBytes(thread) - allocated;
+        return new Result((double) elapsed / rounds, (double) allocated / rounds);
+    }
+
+    private static long sink;
+
+    private static void blackhole(long value){
+        sink += value;
+    }
+
+    /**
+     * Class Result
+     * The average time in ns and allocations in bytes of one run of a stage
+     */
+    private static class Result {
+        private double nanos;
+        private double bytes;
+
+        private Result(double nanos, double bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Class Collector
+     * Collects the expressions outside of the functions, whose types do not depend on arguments,
+     * and every function call
+     */
+    private static class Collector extends DepthFirstAdapter {
+        private ArrayList<PExpression> expressions;
+        private ArrayList<AFunctionCall> calls;
+        private int functions;
+
+        private Collector(ArrayList<PExpression> expressions, ArrayList<AFunctionCall> calls) {
+            this.expressions = expressions;
+            this.calls = calls;
+        }
+
+        @Override
+        public void inAFunction(AFunction node) {
+            functions++;
+        }
+
+        @Override
+        public void outAFunction(AFunction node) {
+            functions--;
+        }
+
+        @Override
+        public void inAFunctionCall(AFunctionCall node) {
+            calls.add(node);
+        }
+
+        @Override
+        public void defaultIn(Node node) {
+            if(functions == 0 && node instanceof PExpression) expressions.add((PExpression) node);
+        }
+    }
+}
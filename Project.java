@@ -0,0 +1,499 @@
+import minipython.analysis.DepthFirstAdapter;
+import minipython.node.*;
+import minipython.parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Class Project
+ * This class represents a MiniPython project, all the source files of a directory, where a file can also call
+ * the functions defined in the other files. The functions of the file itself come first, then the ones of the
+ * other files in the order of their paths.
+ *
+ * For each file we remember the signatures of the functions it defines (name, the numbers of arguments they accept
+ * and their source) and the functions it calls, as found by the SecondVisitor. When some files change, only them and
+ * the files calling a signature that changed are checked again. A function calling a changed signature counts as
+ * changed too, since its return type may have changed.
+ *
+ * Usage: Project [--watch] directory
+ * with --watch the directory is watched and the changed files are checked again as soon as they are saved
+ */
+public class Project {
+    // The extension of the source files
+    private static final String EXTENSION = ".py";
+
+    private Path root;
+
+    /* Where the errors are printed */
+    private PrintStream out;
+
+    // The files of the project, sorted by their path
+    private TreeMap<Path, ProjectFile> files;
+
+    // The files that define each function name, sorted by their path
+    private HashMap<String, TreeMap<Path, ProjectFile>> definers;
+
+    // The files that call each function name
+    private HashMap<String, HashSet<ProjectFile>> callers;
+
+    /**
+     * Constructor
+     * @param root the directory of the project
+     * @param out where the errors are printed
+     */
+    public Project(Path root, PrintStream out) {
+        this.root = root;
+        this.out = out;
+        files = new TreeMap<>();
+        definers = new HashMap<>();
+        callers = new HashMap<>();
+    }
+
+    public static void main(String[] args) {
+        boolean watch = false;
+        String directory = null;
+        for(String arg : args){
+            if(arg.equals("--watch")) watch = true;
+            else if(directory == null) directory = arg;
+        }
+
+        try {
+            Project project = new Project(Paths.get(directory == null ? "." : directory), System.out);
+            project.load();
+            if(watch) project.watch();
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finds and checks all the files of the project, printing their errors
+     */
+    public void load() throws IOException {
+        long start = System.nanoTime();
+
+        // every signature has to be known before any file is checked
+        for(Path path : findFiles(root)){
+            ProjectFile file = new ProjectFile(path);
+            declare(file);
+            files.put(path, file);
+            index(file);
+        }
+        for(ProjectFile file : files.values()){
+            check(file);
+            print(file);
+        }
+
+        out.println(String.format("Checked %d files in %d ms, with %d errors.",
+                files.size(), (System.nanoTime() - start) / 1000000, getErrors()));
+    }
+
+    /**
+     * Checks again the changed files and the ones that depend on them
+     * @param changed the files that have been created, changed or deleted
+     * @return the checked files, sorted by their path
+     */
+    public ArrayList<ProjectFile> update(Collection<Path> changed) {
+        HashSet<Signature> changedSignatures = new HashSet<>();
+        TreeMap<Path, ProjectFile> toCheck = new TreeMap<>();
+
+        for(Path path : changed){
+            ProjectFile file = files.get(path);
+            HashSet<Signature> oldSignatures = new HashSet<>();
+            if(file != null){
+                oldSignatures.addAll(file.signatures);
+                unindex(file);
+            }
+
+            if(!Files.isRegularFile(path)){
+                changedSignatures.addAll(oldSignatures);
+                files.remove(path);
+                continue;
+            }
+
+            if(file == null){
+                file = new ProjectFile(path);
+                files.put(path, file);
+            }
+            declare(file);
+            index(file);
+            toCheck.put(path, file);
+
+            // the signatures that have been added or removed
+            for(Signature signature : file.signatures){
+                if(!oldSignatures.remove(signature)) changedSignatures.add(signature);
+            }
+            changedSignatures.addAll(oldSignatures);
+        }
+
+        // Find the files that call the changed signatures, and the functions that changed because of them
+        LinkedList<Signature> queue = new LinkedList<>(changedSignatures);
+        while(!queue.isEmpty()){
+            Signature signature = queue.poll();
+            HashSet<ProjectFile> fileCallers = callers.get(signature.id);
+            if(fileCallers == null) continue;
+
+            for(ProjectFile caller : fileCallers){
+                if(caller.calls(signature)) toCheck.put(caller.path, caller);
+
+                for(Signature callerSignature : caller.signatures){
+                    if(callerSignature.calls.contains(signature.id) && changedSignatures.add(callerSignature)){
+                        queue.add(callerSignature);
+                    }
+                }
+            }
+        }
+
+        for(ProjectFile file : toCheck.values()){
+            check(file);
+        }
+        return new ArrayList<>(toCheck.values());
+    }
+
+    /**
+     * Watches the directory of the project, checking again and printing the files that change, until interrupted
+     */
+    public void watch() throws IOException, InterruptedException {
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        HashMap<WatchKey, Path> directories = new HashMap<>();
+        register(root, watcher, directories);
+
+        while(true){
+            WatchKey key = watcher.take();
+            TreeSet<Path> changed = new TreeSet<>();
+
+            // take the events that follow closely too, since an editor often saves a file in more than one step
+            do{
+                Path directory = directories.get(key);
+                for(WatchEvent<?> event : key.pollEvents()){
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW){
+                        // some events are lost, so look at every file again
+                        changed.addAll(files.keySet());
+                        changed.addAll(findFiles(root));
+                        continue;
+                    }
+
+                    Path path = directory.resolve((Path) event.context());
+                    if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)){
+                        register(path, watcher, directories);
+                        changed.addAll(findFiles(path));
+                    }
+                    else if(path.toString().endsWith(EXTENSION)){
+                        changed.add(path);
+                    }
+                    else if(event.kind() == StandardWatchEventKinds.ENTRY_DELETE){
+                        // a deleted directory, with all of its files
+                        for(Path file : files.keySet()){
+                            if(file.startsWith(path)) changed.add(file);
+                        }
+                    }
+                }
+                if(!key.reset()) directories.remove(key);
+            } while((key = watcher.poll(10, TimeUnit.MILLISECONDS)) != null);
+
+            long start = System.nanoTime();
+            ArrayList<ProjectFile> checked = update(changed);
+            for(ProjectFile file : checked){
+                print(file);
+            }
+            out.println(String.format("Checked %d of %d files in %.1f ms, with %d errors.",
+                    checked.size(), files.size(), (System.nanoTime() - start) / 1e6, getErrors()));
+            out.flush();
+        }
+    }
+
+    /**
+     * Parses a file and defines its functions, without checking it
+     * @param file the file
+     */
+    private void declare(ProjectFile file) {
+        file.ast = null;
+        Symbols symbols = new Symbols();
+        file.declarations = new RootSymbolTable(symbols);
+        file.signatures = new ArrayList<>();
+        file.failure = null;
+
+        try (AsciiSource reader = AsciiSource.open(file.path)) {
+            file.ast = new Parser(new SymbolLexer(reader, symbols)).parse();
+        } catch (Exception e) {
+            file.failure = e.getMessage();
+            return;
+        }
+
+        // the errors are found again when the file is checked
+        FirstVisitor visitor = new FirstVisitor(file.declarations, new Diagnostics());
+        visitor.setSignaturesOnly(true);
+        for(Object command : ((AGoal) file.ast.getPGoal()).getCommands()){
+            if(!(command instanceof AFuncCommands)) continue;
+
+            AFunction node = (AFunction) ((AFuncCommands) command).getFunction();
+            node.apply(visitor);
+            Function function = visitor.getDefinedFunction(node);
+            if(function != null) file.signatures.add(new Signature(function, node));
+        }
+    }
+
+    /**
+     * Checks a file with the functions of the other files, keeping its errors and the functions it calls
+     * @param file the file
+     */
+    private void check(ProjectFile file) {
+        unindexCalls(file);
+
+        if(file.ast == null){
+            file.output = "Compilation failed: " + file.failure + System.lineSeparator();
+            file.errors = 0;
+            file.calledFunctions = new HashMap<>();
+            indexCalls(file);
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream fileOut = new PrintStream(buffer, false);
+        Compiler compiler = new Compiler(fileOut);
+        compiler.setImports(new Imports(file));
+        compiler.analyze(file.ast);
+        fileOut.println("Compilation finished with " + compiler.getErrors() + " errors.");
+        fileOut.flush();
+
+        file.output = buffer.toString();
+        file.errors = compiler.getErrors();
+        file.calledFunctions = compiler.getCalls();
+        indexCalls(file);
+    }
+
+    // Adds the functions of the file to the definers and the functions its signatures call to the callers
+    private void index(ProjectFile file) {
+        for(Signature signature : file.signatures){
+            definers.computeIfAbsent(signature.id, id -> new TreeMap<>()).put(file.path, file);
+            for(String id : signature.calls){
+                callers.computeIfAbsent(id, key -> new HashSet<>()).add(file);
+            }
+        }
+    }
+
+    private void unindex(ProjectFile file) {
+        for(Signature signature : file.signatures){
+            TreeMap<Path, ProjectFile> fileDefiners = definers.get(signature.id);
+            if(fileDefiners != null){
+                fileDefiners.remove(file.path);
+                if(fileDefiners.isEmpty()) definers.remove(signature.id);
+            }
+        }
+        for(Signature signature : file.signatures){
+            for(String id : signature.calls){
+                HashSet<ProjectFile> fileCallers = callers.get(id);
+                if(fileCallers != null) fileCallers.remove(file);
+            }
+        }
+        unindexCalls(file);
+    }
+
+    // Adds the functions the file calls to the callers
+    private void indexCalls(ProjectFile file) {
+        for(String id : file.calledFunctions.keySet()){
+            callers.computeIfAbsent(id, key -> new HashSet<>()).add(file);
+        }
+    }
+
+    private void unindexCalls(ProjectFile file) {
+        for(String id : file.calledFunctions.keySet()){
+            HashSet<ProjectFile> fileCallers = callers.get(id);
+            if(fileCallers != null) fileCallers.remove(file);
+        }
+    }
+
+    private void print(ProjectFile file) {
+        out.println("== " + file.path + " ==");
+        out.print(file.output);
+    }
+
+    public int getErrors() {
+        int errors = 0;
+        for(ProjectFile file : files.values()){
+            errors += file.errors;
+        }
+        return errors;
+    }
+
+    // Registers the directory and all of its subdirectories to the watcher
+    private static void register(Path directory, WatchService watcher, HashMap<WatchKey, Path> directories) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for(Path path : (Iterable<Path>) walk.filter(Files::isDirectory)::iterator){
+                WatchKey key = path.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, path);
+            }
+        }
+    }
+
+    // The source files of the directory, recursively
+    private static TreeSet<Path> findFiles(Path directory) throws IOException {
+        TreeSet<Path> found = new TreeSet<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(EXTENSION))
+                    .forEach(found::add);
+        }
+        return found;
+    }
+
+    /**
+     * Class Imports
+     * The functions of the other files of the project, for the symbolTable of a file
+     */
+    private class Imports implements FunctionImports {
+        private ProjectFile file;
+
+        private Imports(ProjectFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public boolean isDefined(String id) {
+            TreeMap<Path, ProjectFile> fileDefiners = definers.get(id);
+            if(fileDefiners == null) return false;
+            return fileDefiners.size() > (fileDefiners.containsKey(file.path) ? 1 : 0);
+        }
+
+        @Override
+        public Function getAccepting(String id, int argsCount) {
+            TreeMap<Path, ProjectFile> fileDefiners = definers.get(id);
+            if(fileDefiners == null) return null;
+
+            for(ProjectFile definer : fileDefiners.values()){
+                if(definer == file) continue;
+
+                FunctionOverloads overloads = definer.declarations.getOverloads(id);
+                Function found = overloads == null ? null : overloads.getAccepting(argsCount);
+                if(found != null) return found;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Class ProjectFile
+     * A file of the project, with its functions and the functions it calls
+     */
+    public static class ProjectFile {
+        private Path path;
+
+        // The parsed source, or null if it could not be parsed, with failure the reason
+        private Start ast;
+        private String failure;
+
+        // The functions of the file, defined without checking their bodies
+        private RootSymbolTable declarations;
+        private ArrayList<Signature> signatures;
+
+        // The functions the file calls, with the numbers of arguments, see SecondVisitor
+        private HashMap<String, TreeSet<Integer>> calledFunctions;
+
+        // The result of the last check
+        private String output;
+        private int errors;
+
+        private ProjectFile(Path path) {
+            this.path = path;
+            signatures = new ArrayList<>();
+            calledFunctions = new HashMap<>();
+        }
+
+        // Checks if the file calls a function with the name of the signature and a number of arguments it accepts
+        private boolean calls(Signature signature) {
+            TreeSet<Integer> argsCounts = calledFunctions.get(signature.id);
+            if(argsCounts == null){
+                // called only by a function of the file that has not been checked yet
+                return true;
+            }
+            Integer argsCount = argsCounts.ceiling(signature.min);
+            return argsCount != null && argsCount <= signature.max;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Class Signature
+     * What the other files see of a function: its name, the numbers of arguments it accepts and its source,
+     * together with the names of the functions it calls
+     */
+    private static class Signature {
+        private String id;
+        private int min;
+        private int max;
+        private String source;
+        private HashSet<String> calls;
+
+        private Signature(Function function, AFunction node) {
+            id = function.getId();
+            min = function.getNonDefaults();
+            max = function.getNonDefaults() + function.getDefaults();
+            calls = new HashSet<>();
+
+            // the names of the nodes are kept too, since the operators are not tokens of the tree
+            StringBuilder text = new StringBuilder();
+            node.apply(new DepthFirstAdapter() {
+                @Override
+                public void defaultIn(Node node) {
+                    text.append(node.getClass().getSimpleName()).append('(');
+                    if(node instanceof AFunctionCall) calls.add(((AFunctionCall) node).getId().getText());
+                    if(node instanceof AFunctionStatement) calls.add(((AFunctionStatement) node).getId().getText());
+                }
+
+                @Override
+                public void defaultOut(Node node) {
+                    text.append(')');
+                }
+
+                @Override
+                public void defaultCase(Node node) {
+                    text.append(((Token) node).getText()).append(' ');
+                }
+            });
+            source = text.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Signature)) return false;
+            Signature other = (Signature) o;
+            return id.equals(other.id) && min == other.min && max == other.max && source.equals(other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return (id.hashCode() * 31 + min) * 31 + max;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Class ProjectCheck
+ * Checks that a Project finds the errors of its files when they call the functions of each other.
+ * Each case is written as the .py files of a temporary directory, which is loaded as a project,
+ * and the errors found must be the expected ones. The functions of a file are typed with the names
+ * of that file, so they must not be mixed up with the variables of the file that calls them.
+ *
+ * Usage: ProjectCheck
+ * exits with 1 if any case differs
+ */
+public class ProjectCheck {
+    // The name, the expected errors, then the name and the source of each file
+    private static final String[][] CASES = {
+            {"a param named like a global of the caller", "0",
+                    "a.py", "def f(p, q):\n  return q + 1\n",
+                    "b.py", "r = 1\nq = 2\nprint f(\"s\", 1) + 1\n"},
+            {"a param named like a string global of the caller", "0",
+                    "a.py", "def g(x):\n  return x + 1\n",
+                    "b.py", "y = \"s\"\nx = \"t\"\nprint g(2) + 3\n"},
+            {"a call that adds a string and an int", "2",
+                    "a.py", "def h(s):\n  return s + \"!\"\n",
+                    "b.py", "q = 1\ns = \"u\"\nprint h(1)\nprint h(\"a\") + 1\n"},
+    };
+
+    public static void main(String[] args) throws IOException {
+        int differ = 0;
+        for(String[] test : CASES){
+            if(!check(test)) differ++;
+        }
+
+        System.out.println(CASES.length + " projects checked, " + differ + " differ");
+        if(differ > 0) System.exit(1);
+    }
+
+    /**
+     * Loads the files of a case as a project
+     * @param test the case
+     * @return true if it found the expected errors
+     */
+    private static boolean check(String[] test) throws IOException {
+        Path directory = Files.createTempDirectory("project");
+        try {
+            for(int i = 2; i + 1 < test.length; i += 2){
+                Files.write(directory.resolve(test[i]), test[i + 1].getBytes(StandardCharsets.US_ASCII));
+            }
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            Project project = new Project(directory, new PrintStream(output, false));
+            project.load();
+
+            int expected = Integer.parseInt(test[1]);
+            if(project.getErrors() != expected){
+                System.out.println("DIFFER " + test[0] + ": " + project.getErrors() + " errors instead of " + expected);
+                System.out.print(output.toString());
+                return false;
+            }
+            return true;
+        }
+        finally {
+            try (Stream<Path> walk = Files.walk(directory)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
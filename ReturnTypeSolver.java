@@ -0,0 +1,214 @@
+import java.util.ArrayList;
+
+/**
+ * Class ReturnTypeSolver
+ * This class finds the return types of the functions, one summary for each function and signature of parameter types,
+ * see Specialization. The calls between the specializations form a call graph that is built while it is solved:
+ * typing the return expression of a specialization looks up the summaries of the ones it calls, and the first one
+ * without a summary is solved before the expression is typed again. So the summaries are found bottom up with a
+ * stack of our own, not by typing a callee inside its caller, and a long chain of calls cannot overflow the stack.
+ *
+ * The strongly connected components of the graph, the recursive and mutually recursive functions, are found
+ * with Tarjan's algorithm on the same stack. While a component is not finished its specializations use their
+ * approximation, which starts as UNDEF, and once it is finished all of them are typed again until their types
+ * do not change, or for at most MAX_ROUNDS rounds, since the types are not ordered in a way that guarantees it.
+ */
+public class ReturnTypeSolver {
+    // The rounds of typing a component again before its types are taken as they are
+    private static final int MAX_ROUNDS = 8;
+
+    private SpecializationCache cache;
+
+    // The specializations whose return expression is being typed, the innermost is the last one
+    private ArrayList<Specialization> solving;
+
+    // The stack of Tarjan's algorithm, the specializations whose component is not finished
+    private ArrayList<Specialization> component;
+
+    private int nextIndex;
+
+    // The rounds of components being typed again, while a round runs a missing summary is solved right away
+    private int iterating;
+
+    /* The typing of the return expression currently running */
+    private Specialization evaluating;
+    private Specialization missing;
+    private int low;
+
+    /**
+     * Constructor
+     * @param cache where the summaries are kept
+     */
+    public ReturnTypeSolver(SpecializationCache cache) {
+        this.cache = cache;
+        this.solving = new ArrayList<>();
+        this.component = new ArrayList<>();
+    }
+
+    /**
+     * Returns the return type of a function for some parameter types, solving it if it has no summary
+     * @param function the function
+     * @param paramTypes the types of the parameters
+     * @param symbolTable the symbolTable
+     * @return the return type, or its approximation if it is in a component that is not finished
+     */
+    public Type returnType(Function function, Type[] paramTypes, RootSymbolTable symbolTable){
+        Specialization specialization = cache.get(function, paramTypes, symbolTable);
+
+        if(specialization.isInProgress()){
+            // a call back into an unfinished component
+            if(evaluating != null){
+                low = Math.min(low, specialization.getLow());
+                if(specialization == evaluating) specialization.setRecursive(true);
+            }
+            return specialization.getApproximation();
+        }
+
+        if(specialization.getReturnType() != null){
+            if(specialization.isDependsOnGlobals()) dependsOnGlobals();
+            if(specialization.isDependsOnFunctions()) dependsOnFunctions();
+            return specialization.getReturnType();
+        }
+
+        // while a return expression is typed, the summaries it misses are solved after it, unless a round is running
+        if(evaluating != null && iterating == 0){
+            if(missing == null) missing = specialization;
+            return Type.UNDEF;
+        }
+        return solve(specialization, symbolTable);
+    }
+
+    /**
+     * Solves a specialization and all the ones it calls
+     * @param root the specialization
+     * @param symbolTable the symbolTable
+     * @return its return type, or its approximation if its component is not finished
+     */
+    private Type solve(Specialization root, RootSymbolTable symbolTable){
+        int base = solving.size();
+        start(root);
+
+        while(solving.size() > base){
+            Specialization top = solving.get(solving.size() - 1);
+            Specialization needed = evaluate(top, symbolTable);
+            if(needed != null){
+                start(needed);
+                continue;
+            }
+
+            solving.remove(solving.size() - 1);
+            if(top.getLow() == top.getIndex()){
+                finish(top, symbolTable);
+            }
+            else if(solving.size() > base){
+                Specialization caller = solving.get(solving.size() - 1);
+                caller.setLow(Math.min(caller.getLow(), top.getLow()));
+            }
+        }
+
+        return root.isInProgress() ? root.getApproximation() : root.getReturnType();
+    }
+
+    private void start(Specialization specialization){
+        specialization.setInProgress(true);
+        specialization.setApproximation(Type.UNDEF);
+        specialization.setIndex(nextIndex);
+        specialization.setLow(nextIndex);
+        nextIndex++;
+        solving.add(specialization);
+        component.add(specialization);
+    }
+
+    /**
+     * Types the return expression of a specialization, with the summaries found so far
+     * @param specialization the specialization
+     * @param symbolTable the symbolTable
+     * @return the first specialization without a summary, then the type is not known yet, or null
+     */
+    private Specialization evaluate(Specialization specialization, RootSymbolTable symbolTable){
+        Specialization outerEvaluating = evaluating;
+        Specialization outerMissing = missing;
+        int outerLow = low;
+
+        evaluating = specialization;
+        missing = null;
+        low = specialization.getLow();
+        Type type = Utils.inferReturnType(specialization, symbolTable);
+        Specialization needed = missing;
+        if(needed == null) specialization.setApproximation(type);
+        specialization.setLow(Math.min(specialization.getLow(), low));
+
+        evaluating = outerEvaluating;
+        missing = outerMissing;
+        low = outerLow;
+        return needed;
+    }
+
+    /**
+     * Finishes the component whose root is the given specialization, typing it again if it is recursive
+     * @param root the root of the component
+     * @param symbolTable the symbolTable
+     */
+    private void finish(Specialization root, RootSymbolTable symbolTable){
+        int at = component.lastIndexOf(root);
+        ArrayList<Specialization> members = new ArrayList<>(component.subList(at, component.size()));
+        component.subList(at, component.size()).clear();
+
+        if(members.size() > 1 || root.isRecursive()){
+            iterate(members, symbolTable);
+        }
+
+        // the members of a component depend on each other, so on what any of them depends on
+        boolean dependsOnGlobals = false;
+        boolean dependsOnFunctions = false;
+        for(Specialization member : members){
+            dependsOnGlobals |= member.isDependsOnGlobals();
+            dependsOnFunctions |= member.isDependsOnFunctions();
+        }
+        for(Specialization member : members){
+            member.setDependsOnGlobals(dependsOnGlobals);
+            member.setDependsOnFunctions(dependsOnFunctions);
+            cache.end(member, member.getApproximation(), symbolTable);
+        }
+        if(dependsOnGlobals) dependsOnGlobals();
+        if(dependsOnFunctions) dependsOnFunctions();
+    }
+
+    // Types the members of a component again until their types do not change
+    private void iterate(ArrayList<Specialization> members, RootSymbolTable symbolTable){
+        iterating++;
+        int base = component.size();
+        for(int round = 0; round < MAX_ROUNDS; round++){
+            boolean changed = false;
+            for(int i = 0; i < members.size(); i++){
+                Specialization member = members.get(i);
+                Type before = member.getApproximation();
+                evaluate(member, symbolTable);
+                if(member.getApproximation() != before) changed = true;
+
+                // the specializations first met in this round that call back into the component join it
+                while(component.size() > base){
+                    members.add(component.remove(component.size() - 1));
+                    changed = true;
+                }
+            }
+            if(!changed) break;
+        }
+        iterating--;
+    }
+
+    // Called when a global variable has been used while typing a return expression
+    public void dependsOnGlobals(){
+        if(evaluating != null) evaluating.setDependsOnGlobals(true);
+    }
+
+    // Called when a call has not found its function, or found an imported one, while typing a return expression
+    public void dependsOnFunctions(){
+        if(evaluating != null) evaluating.setDependsOnFunctions(true);
+    }
+
+    // True while a return expression is being typed
+    public boolean isEvaluating(){
+        return evaluating != null;
+    }
+}
@@ -1,5 +1,7 @@
+import minipython.node.TId;
+
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * Class RootSymbolTable
@@ -7,27 +9,152 @@ import java.util.HashMap;
  */
 public class RootSymbolTable {
 
-    // Global Variables
-    private HashMap<String, Variable> variableHashMap;
+    // The names of the variables and the functions, numbered, the tables below are indexed by their symbols
+    private Symbols symbols;
+
+    // Global Variables, by their symbol
+    private Variable[] variables;
+    private int variableCount;
 
     // Functions
     private ArrayList<Function> functionsArray;
 
+    // Functions grouped by the symbol of their name (id), to find the overloads without scanning functionsArray
+    private FunctionOverloads[] overloads;
+
+    // Increased every time a type or a definition changes, so cached expression types know they are out of date
+    private int version;
+
+    // Same as version, but not increased by changes of global variables or of the functions
+    private int localVersion;
+
+    // Increased every time the functions that can be called change
+    private int functionsVersion;
+
+    // The types of the expressions found so far in this compilation
+    private ExpressionTypeCache typeCache;
+
+    // The return types of the functions found so far, for each signature they have been called with
+    private SpecializationCache specializationCache;
+
+    // If true no more functions can be added, so they can be shared between threads
+    private boolean frozen;
+
+    // The functions that can be called without being defined here, like the ones of the other files of a Project, otherwise null
+    private FunctionImports imports;
+
+    // If not null, the lookups are counted in it
+    private CompileMetrics metrics;
+
+    // If not -1, only the first functions of functionsArray can be found, the ones defined before the command checked
+    private int definedFunctions = -1;
+
+    // The overloads of each symbol among the first definedFunctions, found the first time they are looked up
+    private SymbolMap<FunctionOverloads> definedOverloads;
+
+    // In a snapshot, the symbolTable whose global variables it sees as they were when it was taken, otherwise null
+    private RootSymbolTable parent;
+
+    // In a snapshot its number, otherwise the number of snapshots taken so far
+    private int epoch;
+
+    // The global variables as they were before they changed, for the snapshots taken before, by their symbol
+    private SymbolMap<Frozen> history;
+
+    // In a snapshot, the global variables it has looked up, added or removed, null for the ones it does not have
+    private SymbolMap<Variable> seen;
+
     public RootSymbolTable() {
-        variableHashMap = new HashMap<>();
+        this(new Symbols());
+    }
+
+    /**
+     * Constructor
+     * @param symbols the names of the source, usually interned by the SymbolLexer that read it
+     */
+    public RootSymbolTable(Symbols symbols) {
+        this.symbols = symbols;
+        variables = new Variable[64];
         functionsArray = new ArrayList<>();
+        overloads = new FunctionOverloads[64];
+        typeCache = new ExpressionTypeCache();
+        specializationCache = new SpecializationCache();
+    }
+
+    public Symbols getSymbols() {
+        return symbols;
+    }
+
+    // Returns the global variable of a symbol, or null
+    public Variable getVariable(int symbol){
+        if(parent != null) return getSnapshotVariable(symbol);
+        return symbol >= 0 && symbol < variables.length ? variables[symbol] : null;
+    }
+
+    // The global variable of a symbol in a snapshot, copied from its parent the first time it is looked up
+    private Variable getSnapshotVariable(int symbol){
+        if(symbol < 0) return null;
+        if(seen.containsKey(symbol)) return seen.get(symbol);
+        Variable var = parent.getFrozenVariable(symbol, this);
+        seen.put(symbol, var);
+        return var;
+    }
+
+    public Variable getVariable(String key){
+        return getVariable(symbols.find(key));
     }
 
-    public HashMap<String, Variable> getVariableHashMap() {
-        return variableHashMap;
+    // Returns the global variables, in the order of their symbols
+    public ArrayList<Variable> getVariables(){
+        ArrayList<Variable> list = new ArrayList<>(variableCount);
+        if(parent != null){
+            for(int symbol = 0; symbol < symbols.size(); symbol++){
+                Variable var = getVariable(symbol);
+                if(var != null) list.add(var);
+            }
+            return list;
+        }
+        for(Variable var : variables){
+            if(var != null) list.add(var);
+        }
+        return list;
     }
 
-    public void setVariableHashMap(HashMap<String, Variable> variableHashMap) {
-        this.variableHashMap = variableHashMap;
+    public int getVariableCount() {
+        return parent != null ? getVariables().size() : variableCount;
     }
 
     public void addVariable(String key, Variable var){
-        variableHashMap.put(key, var);
+        addVariable(symbols.intern(key), var);
+    }
+
+    public void addVariable(int symbol, Variable var){
+        var.setGlobal(true);
+        if(parent != null){
+            seen.put(symbol, var);
+            globalTypeChanged();
+            return;
+        }
+        if(epoch > 0) keepGlobal(symbol);
+        if(symbol >= variables.length) variables = Arrays.copyOf(variables, Math.max(symbol + 1, variables.length * 2));
+        if(variables[symbol] == null) variableCount++;
+        variables[symbol] = var;
+        globalTypeChanged();
+    }
+
+    public void removeVariable(String key){
+        int symbol = symbols.find(key);
+        if(parent != null){
+            if(symbol >= 0) seen.put(symbol, null);
+            globalTypeChanged();
+            return;
+        }
+        if(epoch > 0 && symbol >= 0) keepGlobal(symbol);
+        if(symbol >= 0 && symbol < variables.length && variables[symbol] != null){
+            variables[symbol] = null;
+            variableCount--;
+        }
+        globalTypeChanged();
     }
 
     public ArrayList<Function> getFunctionsArray() {
@@ -35,21 +162,211 @@ public class RootSymbolTable {
     }
 
     public void setFunctionsArray(ArrayList<Function> functionsArray) {
+        if(frozen) throw new IllegalStateException("The functions of the symbolTable are frozen");
         this.functionsArray = functionsArray;
+
+        // rebuild the overloads from the new functions
+        overloads = new FunctionOverloads[64];
+        for(int i = 0; i < functionsArray.size(); i++){
+            indexFunction(functionsArray.get(i), i);
+        }
+        functionsChanged();
     }
 
     public void addFunction(Function fun){
+        if(frozen) throw new IllegalStateException("The functions of the symbolTable are frozen");
         functionsArray.add(fun);
+        indexFunction(fun, functionsArray.size() - 1);
+        functionsChanged();
+    }
+
+    private void indexFunction(Function fun, int position){
+        int symbol = symbols.intern(fun.getId());
+        if(symbol >= overloads.length) overloads = Arrays.copyOf(overloads, Math.max(symbol + 1, overloads.length * 2));
+        if(overloads[symbol] == null) overloads[symbol] = new FunctionOverloads();
+        overloads[symbol].addFunction(fun, position);
+    }
+
+    // No more functions can be added after this
+    public void freeze(){
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Creates a symbolTable that shares the frozen functions of this one and sees its global variables as they are now,
+     * with its own caches, so that it can be used by another thread. Nothing is copied until it is used: the snapshot
+     * copies a global variable the first time it looks it up, and this symbolTable keeps a copy of a global variable
+     * the first time it changes after a snapshot, for the snapshots that are still to look it up
+     * @return the new symbolTable
+     */
+    public RootSymbolTable snapshot(){
+        if(!frozen) throw new IllegalStateException("Only the symbolTable with frozen functions can be shared");
+        if(parent != null) throw new IllegalStateException("A snapshot cannot be shared again");
+
+        RootSymbolTable snapshot = new RootSymbolTable(symbols);
+        snapshot.functionsArray = functionsArray;
+        snapshot.overloads = overloads;
+        snapshot.frozen = true;
+        snapshot.imports = imports;
+        snapshot.metrics = metrics;
+        snapshot.parent = this;
+        snapshot.seen = new SymbolMap<>();
+        snapshot.definedFunctions = definedFunctions;
+        snapshot.definedOverloads = definedFunctions == -1 ? null : new SymbolMap<>();
+        synchronized (this) {
+            if(history == null) history = new SymbolMap<>();
+            snapshot.epoch = ++epoch;
+        }
+        return snapshot;
+    }
+
+    // Called before a global variable of this symbolTable changes, so the snapshots taken before still see it as it was
+    public void globalChanging(String key){
+        if(parent == null && epoch > 0) keepGlobal(symbols.find(key));
+    }
+
+    // Keeps a copy of a global variable as it is, unless one has already been kept since the last snapshot
+    private synchronized void keepGlobal(int symbol){
+        if(epoch == 0 || symbol < 0) return;
+        Frozen last = history.get(symbol);
+        if(last != null && last.epoch == epoch) return;
+        Variable var = getVariable(symbol);
+        history.put(symbol, new Frozen(epoch, var == null ? null : var.copy(null), last));
+    }
+
+    // A copy for a snapshot of a global variable as it was when the snapshot was taken, or null
+    private synchronized Variable getFrozenVariable(int symbol, RootSymbolTable snapshot){
+        Variable var = getVariable(symbol);
+        // the oldest copy kept since the snapshot was taken is how the variable was then
+        for(Frozen frozen = history.get(symbol); frozen != null && frozen.epoch >= snapshot.epoch; frozen = frozen.older){
+            var = frozen.variable;
+        }
+        if(var == null) return null;
+
+        Variable copy = var.copy(snapshot);
+        copy.setGlobal(true);
+        return copy;
     }
 
     // Returns all the functions with the given id
     public ArrayList<Function> getAllFunctions(String id){
-        ArrayList<Function> tempFunctions = new ArrayList<>();
-        for(Function temp : functionsArray){
-            if(temp.getId().equals(id)){
-                tempFunctions.add(temp);
-            }
+        count(CompileMetrics.Counter.ALL_FUNCTIONS_LOOKUPS);
+        FunctionOverloads found = findOverloads(symbols.find(id));
+        return found == null ? new ArrayList<>() : new ArrayList<>(found.getFunctions());
+    }
+
+    // Returns the overloads of the given id or null if no function has been defined with it
+    public FunctionOverloads getOverloads(String id){
+        count(CompileMetrics.Counter.OVERLOAD_LOOKUPS);
+        return findOverloads(symbols.find(id));
+    }
+
+    public FunctionOverloads getOverloads(TId id){
+        count(CompileMetrics.Counter.OVERLOAD_LOOKUPS);
+        return findOverloads(symbols.find(id));
+    }
+
+    private FunctionOverloads findOverloads(int symbol){
+        FunctionOverloads found = symbol >= 0 && symbol < overloads.length ? overloads[symbol] : null;
+        if(found == null || definedFunctions == -1) return found;
+
+        if(definedOverloads.containsKey(symbol)) return definedOverloads.get(symbol);
+        FunctionOverloads defined = found.getDefinedBefore(definedFunctions);
+        definedOverloads.put(symbol, defined);
+        return defined;
+    }
+
+    /**
+     * Hides the functions defined after a point, like when the functions are defined while the program is checked,
+     * so that a frozen symbolTable finds the same functions as the visitors of a sequential run
+     * @param count the number of the functions of functionsArray that can be found, or -1 for all of them
+     */
+    public void setDefinedFunctions(int count){
+        if(count == definedFunctions) return;
+        definedFunctions = count;
+        definedOverloads = count == -1 ? null : new SymbolMap<>();
+        functionsChanged();
+    }
+
+    public CompileMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(CompileMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Counts a call of a helper, if there are metrics
+    public void count(CompileMetrics.Counter counter){
+        if(metrics != null) metrics.count(counter);
+    }
+
+    public FunctionImports getImports() {
+        return imports;
+    }
+
+    public void setImports(FunctionImports imports) {
+        this.imports = imports;
+        functionsChanged();
+    }
+
+    // Called whenever the type of a variable, or the variables themselves, change
+    public void typeChanged(){
+        version++;
+        localVersion++;
+    }
+
+    // Called whenever a function is added or the imported functions change. The calls that found their function
+    // still find it, an overload accepting the same number of arguments is an error, so only the ones that did not
+    // find it or found an imported one have to be checked again
+    public void functionsChanged(){
+        version++;
+        functionsVersion++;
+    }
+
+    // Called whenever the type of a global variable, or the global variables themselves, change
+    public void globalTypeChanged(){
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getLocalVersion() {
+        return localVersion;
+    }
+
+    public int getFunctionsVersion() {
+        return functionsVersion;
+    }
+
+    public ExpressionTypeCache getTypeCache() {
+        return typeCache;
+    }
+
+    public SpecializationCache getSpecializationCache() {
+        return specializationCache;
+    }
+
+    /**
+     * Class Frozen
+     * A global variable as it was before it changed, seen by the snapshots numbered up to epoch
+     * that were taken after the older one was kept
+     */
+    private static class Frozen {
+        private final int epoch;
+        private final Variable variable;
+        private final Frozen older;
+
+        private Frozen(int epoch, Variable variable, Frozen older) {
+            this.epoch = epoch;
+            this.variable = variable;
+            this.older = older;
         }
-        return tempFunctions;
     }
 }
@@ -1,6 +1,8 @@
 import minipython.analysis.DepthFirstAdapter;
 import minipython.node.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
 
 /**
  * Second Visitor
@@ -10,102 +12,95 @@ public class SecondVisitor extends DepthFirstAdapter {
     /* Our Symbol Table */
     private RootSymbolTable symbolTable;
 
-    /* Error Counter */
-    private int errors;
+    /* The errors, shared with the FirstVisitor */
+    private Diagnostics diagnostics;
 
-    /* The errors list */
-    private ArrayList<String> errorMessages;
-
-    /* The original parameters of the function, we do some tricks, so we need them */
-    private ArrayList<String> originFunctionParamTypes;
     private ArrayList<String> assignWithFunction;
 
+    /* The names of the called functions, with the numbers of arguments they have been called with */
+    private HashMap<String, TreeSet<Integer>> calls;
+
     /**
      * Constructor
      * @param symbolTable the symbol table
-     * @param errors the int counter to continue with
+     * @param diagnostics where the errors are reported, after the ones of the FirstVisitor
      */
-    public SecondVisitor(RootSymbolTable symbolTable, int errors) {
+    public SecondVisitor(RootSymbolTable symbolTable, Diagnostics diagnostics) {
         this.symbolTable = symbolTable;
-        this.errorMessages = new ArrayList<>();
-        this.errors = errors;
+        this.diagnostics = diagnostics;
         this.assignWithFunction = new ArrayList<>();
+        this.calls = new HashMap<>();
+    }
+
+    /**
+     * Remembers a function call, so a Project knows which functions of the other files this file depends on
+     * @param id the TID of the called function
+     * @param call the checked call
+     */
+    private void addCall(TId id, FunctionCall call){
+        TreeSet<Integer> argsCounts = calls.get(id.getText());
+        if(argsCounts == null){
+            argsCounts = new TreeSet<>();
+            calls.put(id.getText(), argsCounts);
+        }
+        argsCounts.add(call.getArgsCount());
     }
 
     /* Function Calls */
     @Override
     public void inAFunctionStatement(AFunctionStatement node) {
-        this.originFunctionParamTypes = new ArrayList<>();
-        Function temp = Utils.checkLegitFunction(node.getId(), node.getArglist(), symbolTable, originFunctionParamTypes);
-        if(temp.getParams() != null){
-            for(int i = 0; i < temp.getParams().size(); i++){
-                temp.getParams().get(i).setType(originFunctionParamTypes.get(i));
-            }
-        }
+        checkFunctionStatement(node);
+    }
 
-        if(temp.getErrorString() != null){
-            if(!errorMessages.contains(temp.getErrorString())){
-                errorMessages.add(temp.getErrorString());
-                System.out.println("Error " + (++errors) + ": " + temp.getErrorString());
-            }
+    // Checks a function call statement, without visiting its arguments
+    void checkFunctionStatement(AFunctionStatement node) {
+        FunctionCall temp = Utils.checkLegitFunction(node.getId(), node.getArglist(), symbolTable);
+        addCall(node.getId(), temp);
+
+        if(temp.getError() != null){
+            diagnostics.reportOnce(temp.getError());
         }
 
         if(temp.getReturnType() != null &&
-                temp.getReturnType().equals("STR") &&
+                temp.getReturnType() == Type.STR &&
                 (node.parent() instanceof AAbstractionExpression
                         || node.parent() instanceof ADivExpression
                         || node.parent() instanceof AMultExpression
                         || node.parent() instanceof AExpInBracketsExpression
                         || node.parent() instanceof AMinusEqualsStatement
                         || node.parent() instanceof ADivEqualsStatement)){
-            String error = ": String value returned from function cannot be used in arithmetic or array index " +
-                    "Function used '" + node.getId().getText() +
-                    "' in the line:" + node.getId().getLine() +
-                    " pos: " + node.getId().getPos();
-
-            if(!errorMessages.contains(error)){
-                errorMessages.add(error);
-                System.out.println("Error " + (++errors) + error);
-            }
+            diagnostics.reportOnce(new Diagnostic(DiagnosticCode.STRING_RETURN_IN_ARITHMETIC,
+                    node.getId().getLine(), node.getId().getPos(),
+                    node.getId().getText(), node.getId().getLine(), node.getId().getPos()));
         }
     }
 
     @Override
     public void inAFunctionExpression(AFunctionExpression node) {
-        this.originFunctionParamTypes = new ArrayList<>();
-        AFunctionCall functionCall = (AFunctionCall) node.getFunctionCall();
-        Function temp = Utils.checkLegitFunction(functionCall.getId(), functionCall.getArglist(), symbolTable,originFunctionParamTypes);
+        checkFunctionExpression(node);
+    }
 
-        if(temp.getParams() != null){
-            for(int i = 0; i < temp.getParams().size(); i++){
-                temp.getParams().get(i).setType(originFunctionParamTypes.get(i));
-            }
-        }
+    // Checks a function call expression, without visiting its arguments
+    void checkFunctionExpression(AFunctionExpression node) {
+        AFunctionCall functionCall = (AFunctionCall) node.getFunctionCall();
+        FunctionCall temp = Utils.checkLegitFunction(functionCall.getId(), functionCall.getArglist(), symbolTable);
+        addCall(functionCall.getId(), temp);
 
-        if(temp.getErrorString() != null){
-            if(!errorMessages.contains(temp.getErrorString())){
-                errorMessages.add(temp.getErrorString());
-                System.out.println("Error " + (++errors) + ": " + temp.getErrorString());
-            }
+        if(temp.getError() != null){
+            diagnostics.reportOnce(temp.getError());
         }
 
         if(temp.getReturnType() != null &&
-                temp.getReturnType().equals("STR") &&
+                temp.getReturnType() == Type.STR &&
                 (node.parent() instanceof AAbstractionExpression
                         || node.parent() instanceof ADivExpression
                         || node.parent() instanceof AMultExpression
                         || node.parent() instanceof AExpInBracketsExpression
                         || node.parent() instanceof AMinusEqualsStatement
                         || node.parent() instanceof ADivEqualsStatement)){
-            String error = ": String value returned from function cannot be used in arithmetic or array index " +
-                    "Function used '" + functionCall.getId().getText() +
-                    "' in the line:" + functionCall.getId().getLine() +
-                    " pos: " + functionCall.getId().getPos();
-
-            if(!errorMessages.contains(error)){
-                errorMessages.add(error);
-                System.out.println("Error " + (++errors) + error);
-            }
+            diagnostics.reportOnce(new Diagnostic(DiagnosticCode.STRING_RETURN_IN_ARITHMETIC,
+                    functionCall.getId().getLine(), functionCall.getId().getPos(),
+                    functionCall.getId().getText(), functionCall.getId().getLine(), functionCall.getId().getPos()));
         }
     }
 
@@ -113,18 +108,27 @@ public class SecondVisitor extends DepthFirstAdapter {
 
     @Override
     public void inAEqualsStatement(AEqualsStatement node) {
-        int errorBeforeExpApplied = errors;
+        int errorBeforeExpApplied = diagnostics.getCount();
         node.getExpression().apply(this);
-        if(errorBeforeExpApplied == errors){
-            String typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), null, symbolTable);
+        assign(node, errorBeforeExpApplied);
+    }
+
+    /**
+     * Assigns the type of the expression of an equals statement to its variable, after the expression is checked
+     * @param node the equals statement
+     * @param errorBeforeExpApplied the count of the errors before the expression was checked,
+     *                              if the expression had errors nothing is assigned
+     */
+    void assign(AEqualsStatement node, int errorBeforeExpApplied) {
+        if(errorBeforeExpApplied == diagnostics.getCount()){
+            Type typeOfExpToTheLeft = Utils.getExpressionsType(node.getExpression(), null, symbolTable);
 
             TId id = node.getId();
             Variable var = Utils.getVariableFromId(id, null, symbolTable);
 
-            if(typeOfExpToTheLeft.equals("TYPECONFLICT")){
-                System.out.println("Error " + (++errors) + ": Type Conflict, Addition Between String and INT" +
-                        " in the line:" + node.getId().getLine() +
-                        " pos: " + node.getId().getPos());
+            if(typeOfExpToTheLeft == Type.TYPECONFLICT){
+                diagnostics.report(new Diagnostic(DiagnosticCode.ASSIGNMENT_TYPE_CONFLICT, id.getLine(), id.getPos(),
+                        id.getLine(), id.getPos()));
 
                 if(var == null) return;
 
@@ -133,17 +137,17 @@ public class SecondVisitor extends DepthFirstAdapter {
 
 
             if(var == null){
-                var = new Variable();
+                var = new Variable(symbolTable);
                 var.setId(id.getText());
                 var.setLine(id.getLine());
                 var.setPos(id.getPos());
                 var.setType(typeOfExpToTheLeft);
-                symbolTable.getVariableHashMap().put(var.getId(), var);
+                symbolTable.addVariable(symbolTable.getSymbols().intern(id), var);
                 return;
             }
 
-            if(!var.getType().equals(typeOfExpToTheLeft)){
-                symbolTable.getVariableHashMap().get(id.getText()).setType(typeOfExpToTheLeft);
+            if(var.getType() != typeOfExpToTheLeft){
+                symbolTable.getVariable(symbolTable.getSymbols().find(id)).setType(typeOfExpToTheLeft);
                 return;
             }
         }
@@ -154,22 +158,26 @@ public class SecondVisitor extends DepthFirstAdapter {
 
     @Override
     public void inAAdditionExpression(AAdditionExpression node) {
-        String leftType = Utils.getExpressionsType(node.getExp1(), null, symbolTable);
-        String rightType = Utils.getExpressionsType(node.getExp2(), null, symbolTable);
+        checkAddition(node);
 
-        if(leftType.equals("TYPECONFLICT") || rightType.equals("TYPECONFLICT")){
-            System.out.println("Error " + (++errors) + ": The variable has not been defined" +
-                    " in the line: '" + node.toString().trim() + "'"+ "left: " + leftType + " right: " + rightType);
+        node.getExp1().apply(this);
+        node.getExp2().apply(this);
+    }
+
+    // Checks the types of an addition, without visiting its sides
+    void checkAddition(AAdditionExpression node) {
+        Type leftType = Utils.getExpressionsType(node.getExp1(), null, symbolTable);
+        Type rightType = Utils.getExpressionsType(node.getExp2(), null, symbolTable);
+
+        if(leftType == Type.TYPECONFLICT || rightType == Type.TYPECONFLICT){
+            diagnostics.report(new Diagnostic(DiagnosticCode.ADDITION_UNDEFINED, 0, 0,
+                    node.toString().trim(), leftType, rightType));
         }else{
-            if((leftType.equals("STR") && rightType.equals("INT"))
-                    || (leftType.equals("INT") && rightType.equals("STR"))){
-                System.out.println("Error " + (++errors) + ": Type Conflict, Addition Between String and INT" +
-                        " in the line: '" + node.toString() + "'");
+            if((leftType == Type.STR && rightType == Type.INT)
+                    || (leftType == Type.INT && rightType == Type.STR)){
+                diagnostics.report(new Diagnostic(DiagnosticCode.ADDITION_TYPE_CONFLICT, 0, 0, node.toString()));
             }
         }
-
-        node.getExp1().apply(this);
-        node.getExp2().apply(this);
     }
 
     @Override
@@ -192,42 +200,32 @@ public class SecondVisitor extends DepthFirstAdapter {
                 || node.parent() instanceof AMultExpression
                 || node.parent() instanceof ADivExpression
                 || node.parent() instanceof AExpInBracketsExpression){
-            if(foundVar.getType().equals("STR")){
-                String error = ": Cannot use string variables in arithmetic expression or as array index. " +
-                        "Variable used '" + node.getId().getText() +
-                        "' in the line:" + node.getId().getLine() +
-                        " pos: " + node.getId().getPos();
-                if(!errorMessages.contains(error)){
-                    errorMessages.add(error);
-                    System.out.println("Error " + (++errors) + error);
-                }
+            if(foundVar.getType() == Type.STR){
+                diagnostics.reportOnce(new Diagnostic(DiagnosticCode.STRING_VARIABLE_IN_ARITHMETIC,
+                        node.getId().getLine(), node.getId().getPos(),
+                        node.getId().getText(), node.getId().getLine(), node.getId().getPos()));
                 return;
             }
-            if(foundVar.getType().equals("ARR")){
-                String error = ": Cannot use array as whole in arithmetic expression or as array index. " +
-                        "Variable used '" + node.getId().getText() +
-                        "' in the line:" + node.getId().getLine() +
-                        " pos: " + node.getId().getPos();
-                if(!errorMessages.contains(error)){
-                    errorMessages.add(error);
-                    System.out.println("Error " + (++errors) + error);
-                }
+            if(foundVar.getType() == Type.ARR){
+                diagnostics.reportOnce(new Diagnostic(DiagnosticCode.ARRAY_IN_ARITHMETIC,
+                        node.getId().getLine(), node.getId().getPos(),
+                        node.getId().getText(), node.getId().getLine(), node.getId().getPos()));
                 return;
             }
-            if(foundVar.getType().equals("UNDEF")){
-                symbolTable.getVariableHashMap().get(node.getId().getText()).setType("INT");
+            if(foundVar.getType() == Type.UNDEF){
+                symbolTable.getVariable(symbolTable.getSymbols().find(node.getId())).setType(Type.INT);
             }
         }
     }
 
     /* Getters and Setters */
 
-    public int getErrors() {
-        return errors;
+    public Diagnostics getDiagnostics() {
+        return diagnostics;
     }
 
-    public void setErrors(int errors) {
-        this.errors = errors;
+    public HashMap<String, TreeSet<Integer>> getCalls() {
+        return calls;
     }
 }
 
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Class SimplifyBlocksPass
+ * Cleans up the blocks of a function: a jump to a block that only jumps goes straight to where that one goes,
+ * a branch whose targets are the same block becomes a jump, the blocks that cannot be reached are removed,
+ * and a block is merged into the one before it if that is the only way to reach it.
+ */
+public class SimplifyBlocksPass implements IrPass {
+    @Override
+    public String getName() {
+        return "simplify blocks";
+    }
+
+    @Override
+    public boolean run(IrFunction function, IrProgram program) {
+        boolean changed = false;
+        boolean again = true;
+        while(again){
+            again = threadJumps(function);
+            again |= removeUnreachable(function);
+            again |= mergeBlocks(function);
+            changed |= again;
+        }
+        return changed;
+    }
+
+    private boolean threadJumps(IrFunction function) {
+        boolean changed = false;
+        for(IrBlock block : function.getBlocks()){
+            IrInstruction terminator = block.getTerminator();
+            if(terminator.getTargets() == null) continue;
+
+            IrBlock[] targets = terminator.getTargets().clone();
+            boolean retargeted = false;
+            for(int i = 0; i < targets.length; i++){
+                IrBlock target = skipJumps(targets[i]);
+                if(target != targets[i]){
+                    targets[i] = target;
+                    retargeted = true;
+                }
+            }
+            if(retargeted){
+                terminator.setTargets(targets);
+                changed = true;
+            }
+            if(terminator.getOp() == IrInstruction.Op.BRANCH && targets[0] == targets[1]){
+                // the condition is still read, but only by a jump, so the dead code pass can remove it
+                block.getInstructions().set(block.getInstructions().size() - 1, IrInstruction.jump(targets[0]));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // The block a jump to this one ends up in, following the blocks that only jump, without going round in circles
+    private static IrBlock skipJumps(IrBlock block) {
+        Set<IrBlock> seen = new HashSet<>();
+        while(block.getInstructions().size() == 1 && block.getTerminator().getOp() == IrInstruction.Op.JUMP && seen.add(block)){
+            block = block.getTerminator().getTargets()[0];
+        }
+        return block;
+    }
+
+    private boolean removeUnreachable(IrFunction function) {
+        Set<IrBlock> reached = new HashSet<>();
+        ArrayList<IrBlock> stack = new ArrayList<>();
+        stack.add(function.getEntry());
+        reached.add(function.getEntry());
+        while(!stack.isEmpty()){
+            IrBlock block = stack.remove(stack.size() - 1);
+            for(IrBlock successor : block.getSuccessors()){
+                if(reached.add(successor)) stack.add(successor);
+            }
+        }
+        return function.getBlocks().removeIf(block -> !reached.contains(block));
+    }
+
+    private boolean mergeBlocks(IrFunction function) {
+        IdentityHashMap<IrBlock, Integer> predecessors = new IdentityHashMap<>();
+        for(IrBlock block : function.getBlocks()){
+            for(IrBlock successor : block.getSuccessors()){
+                predecessors.merge(successor, 1, Integer::sum);
+            }
+        }
+
+        boolean changed = false;
+        for(int i = 0; i < function.getBlocks().size(); i++){
+            IrBlock block = function.getBlocks().get(i);
+            IrInstruction terminator = block.getTerminator();
+            while(terminator.getOp() == IrInstruction.Op.JUMP){
+                IrBlock next = terminator.getTargets()[0];
+                if(next == block || next == function.getEntry() || predecessors.get(next) != 1) break;
+
+                // the block goes on with the instructions of next, which nothing else reaches
+                block.getInstructions().remove(block.getInstructions().size() - 1);
+                block.getInstructions().addAll(next.getInstructions());
+                next.getInstructions().clear();
+                next.add(IrInstruction.ret());
+                predecessors.put(next, 0);
+                terminator = block.getTerminator();
+                changed = true;
+            }
+        }
+        // the merged blocks are left empty and unreachable
+        if(changed) removeUnreachable(function);
+        return changed;
+    }
+}
@@ -0,0 +1,160 @@
+import minipython.lexer.Lexer;
+import minipython.node.Start;
+import minipython.parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Class SinglePassCheck
+ * Checks that the SinglePassVisitor and the ParallelAnalyzer find the same errors as the FirstVisitor and the SecondVisitor.
+ * Every source of the corpus is checked in the three ways and the printed errors, in the text and the JSON format,
+ * must be the same, and so must the called functions of both visitors. The corpus is the given files, the .py files of the given directories,
+ * a few sources that use functions before they are defined and programs written by WorkloadGenerator with some seeds, sizes and error rates.
+ *
+ * Usage: SinglePassCheck [--seeds N] [file|directory]...
+ * exits with 1 if any source differs
+ */
+public class SinglePassCheck {
+    private static final int[] SIZES = {20, 300};
+    private static final double[] ERROR_RATES = {0, 0.05, 0.3};
+
+    // Sources that call functions before they are defined, which WorkloadGenerator does not write
+    private static final String[] SOURCES = {
+            "x = h(1)\ny = x + 1\nz = x - 1\nfor i in x:\n  print i\nw = x / 2\nx -= 1\ndef h(a):\n  return \"s\"\nprint h(1)\n",
+            "x = h(1)\ndef f(q):\n  return x - 1\nprint f(1)\ndef h(a):\n  return \"s\"\n",
+            "def f(q):\n  return h(q) - 1\ndef g(q):\n  for i in h(q):\n    print i\nprint f(1)\nprint g(1)\ndef h(a):\n  return \"s\"\n",
+            "def f(y):\n  return f(y, 1)\ndef f(a, b):\n  return a + b\ndef f(c):\n  return c\nprint f(1)\nprint f(\"a\", 1)\nprint h(1)\n",
+    };
+
+    // The pool of the ParallelAnalyzer
+    private static final ForkJoinPool POOL = ForkJoinPool.commonPool();
+
+    public static void main(String[] args) throws IOException {
+        int seeds = 20;
+        ArrayList<Path> files = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("--seeds") && i + 1 < args.length) seeds = Integer.parseInt(args[++i]);
+            else if(Files.isDirectory(Paths.get(args[i]))){
+                try (Stream<Path> found = Files.walk(Paths.get(args[i]))) {
+                    found.filter(file -> file.toString().endsWith(".py")).sorted().forEach(files::add);
+                }
+            }
+            else files.add(Paths.get(args[i]));
+        }
+
+        int sources = 0;
+        int differ = 0;
+        for(Path file : files){
+            sources++;
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            if(!check(file.toString(), source)) differ++;
+        }
+        for(int i = 0; i < SOURCES.length; i++){
+            sources++;
+            if(!check("source " + (i + 1), SOURCES[i])) differ++;
+        }
+        for(int seed = 1; seed <= seeds; seed++){
+            for(int size : SIZES){
+                for(double errorRate : ERROR_RATES){
+                    WorkloadGenerator generator = WorkloadGenerator.ofSize(seed, size);
+                    generator.setErrorRate(errorRate);
+                    generator.setDepth(1 + seed % 8);
+                    generator.setArray(1 + seed % 5);
+                    sources++;
+                    String name = String.format("generated seed %d size %d error rate %.2f", seed, size, errorRate);
+                    if(!check(name, generator.generate())) differ++;
+                }
+            }
+        }
+
+        System.out.println(sources + " sources checked, " + differ + " differ");
+        if(differ > 0) System.exit(1);
+    }
+
+    /**
+     * Checks a source in the three ways
+     * @param name the name printed if it differs
+     * @param source the source
+     * @return true if the results are the same
+     */
+    private static boolean check(String name, String source) {
+        Start ast;
+        try {
+            ast = new Parser(new Lexer(new PushbackReader(new StringReader(source), 1024))).parse();
+        } catch (Exception e) {
+            // nothing to compare if it does not parse
+            return true;
+        }
+
+        for(DiagnosticSink.Format format : DiagnosticSink.Format.values()){
+            ByteArrayOutputStream twoPasses = new ByteArrayOutputStream();
+            Diagnostics diagnostics = new Diagnostics(new DiagnosticSink(new PrintStream(twoPasses, false), format));
+            RootSymbolTable symbolTable = new RootSymbolTable();
+            ast.apply(new FirstVisitor(symbolTable, diagnostics));
+            SecondVisitor second = new SecondVisitor(symbolTable, diagnostics);
+            ast.apply(second);
+            diagnostics.flush();
+
+            ByteArrayOutputStream onePass = new ByteArrayOutputStream();
+            Diagnostics singleDiagnostics = new Diagnostics(new DiagnosticSink(new PrintStream(onePass, false), format));
+            SinglePassVisitor single = new SinglePassVisitor(new RootSymbolTable(), singleDiagnostics);
+            single.analyze(ast);
+            singleDiagnostics.flush();
+
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            Diagnostics parallelDiagnostics = new Diagnostics(new DiagnosticSink(new PrintStream(parallel, false), format));
+            new ParallelAnalyzer(POOL).analyze(ast, new RootSymbolTable(), parallelDiagnostics);
+            parallelDiagnostics.flush();
+
+            String expected = twoPasses.toString();
+            String found = onePass.toString();
+            if(!expected.equals(found)){
+                System.out.println("DIFFER " + name + " (" + format + ")");
+                printFirstDifference(expected, found, "one pass:");
+                return false;
+            }
+            found = parallel.toString();
+            if(!expected.equals(found)){
+                System.out.println("DIFFER " + name + " (" + format + ", parallel)");
+                printFirstDifference(expected, found, "parallel:");
+                return false;
+            }
+            if(!sameCalls(second.getCalls(), single.getCalls())){
+                System.out.println("DIFFER " + name + ": called functions " + second.getCalls() + " and " + single.getCalls());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameCalls(HashMap<String, TreeSet<Integer>> expected, HashMap<String, TreeSet<Integer>> found) {
+        return expected.equals(found);
+    }
+
+    private static void printFirstDifference(String expected, String found, String mode) {
+        String[] expectedLines = expected.split("\n", -1);
+        String[] foundLines = found.split("\n", -1);
+        for(int i = 0; i < Math.max(expectedLines.length, foundLines.length); i++){
+            String a = i < expectedLines.length ? expectedLines[i] : "<none>";
+            String b = i < foundLines.length ? foundLines[i] : "<none>";
+            if(!a.equals(b)){
+                System.out.println("  line " + (i + 1) + ", two passes: " + a);
+                System.out.println("  line " + (i + 1) + ", " + String.format("%-12s", mode) + b);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import minipython.node.*;
+
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/**
+ * Class SinglePassVisitor
+ * This class checks a program with one traversal instead of the FirstVisitor and then the SecondVisitor.
+ * While it traverses the program it defines the functions and checks the variables and expressions
+ * like the FirstVisitor, and queues the function calls, the additions and the equals statements
+ * the SecondVisitor would check onto a worklist, see DeferredChecks. Once the traversal is done,
+ * so every function is defined, resolve checks the worklist in order and the errors are the same as
+ * the ones of the FirstVisitor and the SecondVisitor, see SinglePassCheck.
+ */
+public class SinglePassVisitor extends FirstVisitor {
+    /* The checks left for after the traversal */
+    private DeferredChecks deferred;
+
+    /* Resolves the deferred checks, on the same symbolTable and diagnostics */
+    private SecondVisitor resolver;
+
+    /**
+     * Constructor
+     * @param symbolTable the symbol table
+     * @param diagnostics where the errors are reported
+     */
+    public SinglePassVisitor(RootSymbolTable symbolTable, Diagnostics diagnostics) {
+        super(symbolTable, diagnostics);
+        this.deferred = new DeferredChecks();
+        this.resolver = new SecondVisitor(symbolTable, diagnostics);
+    }
+
+    /**
+     * Checks a whole program, the traversal and then the deferred checks
+     * @param ast the program
+     */
+    public void analyze(Start ast) {
+        ast.apply(this);
+        resolve();
+    }
+
+    /**
+     * Checks the deferred function calls, additions and assignments, after the traversal
+     */
+    public void resolve() {
+        deferred.resolve(resolver);
+    }
+
+    @Override
+    protected void skip(Node node) {
+        deferred.addAll(node);
+    }
+
+    @Override
+    public void caseAEqualsStatement(AEqualsStatement node) {
+        int index = deferred.enter(node);
+        super.caseAEqualsStatement(node);
+        deferred.exit(index);
+    }
+
+    @Override
+    public void inAAdditionExpression(AAdditionExpression node) {
+        deferred.add(node);
+        super.inAAdditionExpression(node);
+    }
+
+    @Override
+    public void inAFunctionExpression(AFunctionExpression node) {
+        deferred.add(node);
+    }
+
+    @Override
+    public void inAFunctionStatement(AFunctionStatement node) {
+        deferred.add(node);
+    }
+
+    /* Getters */
+
+    public DeferredChecks getDeferred() {
+        return deferred;
+    }
+
+    // The functions called by the program, known after resolve
+    public HashMap<String, TreeSet<Integer>> getCalls() {
+        return resolver.getCalls();
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Class Specialization
+ * This class represents a function together with the types its parameters take in some calls,
+ * and the return type found for them
+ */
+public class Specialization {
+    private Function function;
+    private Type[] paramTypes;
+    private Type returnType;
+
+    // True while the return type is being found, so recursive calls do not start over
+    private boolean inProgress;
+
+    // The return type used by the recursive calls while the return type is being found, see ReturnTypeSolver
+    private Type approximation;
+
+    // The order the return type started being found in and the lowest one it reaches, for Tarjan's algorithm
+    private int index;
+    private int low;
+
+    // True if the function calls itself with the same parameter types
+    private boolean recursive;
+
+    // True if the return type depends on global variables and not only on the function itself
+    private boolean dependsOnGlobals;
+
+    // True if the return type depends on a call that did not find its function, or found an imported one
+    private boolean dependsOnFunctions;
+
+    // The versions of the symbolTable the return type was found in
+    private int version;
+    private int localVersion;
+    private int functionsVersion;
+
+    public Specialization(Function function, Type[] paramTypes) {
+        this.function = function;
+        this.paramTypes = paramTypes;
+    }
+
+    /**
+     * Checks if the return type is still the one the function would return
+     * @param symbolTable the symbolTable
+     * @return true if nothing the return type depends on has changed
+     */
+    public boolean isValid(RootSymbolTable symbolTable){
+        if(dependsOnGlobals) return version == symbolTable.getVersion();
+        if(localVersion != symbolTable.getLocalVersion()) return false;
+        return !dependsOnFunctions || functionsVersion == symbolTable.getFunctionsVersion();
+    }
+
+    /* Getters and Setters */
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public Type[] getParamTypes() {
+        return paramTypes;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    }
+
+    public void setReturnType(Type returnType) {
+        this.returnType = returnType;
+    }
+
+    public boolean isInProgress() {
+        return inProgress;
+    }
+
+    public void setInProgress(boolean inProgress) {
+        this.inProgress = inProgress;
+    }
+
+    public Type getApproximation() {
+        return approximation;
+    }
+
+    public void setApproximation(Type approximation) {
+        this.approximation = approximation;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getLow() {
+        return low;
+    }
+
+    public void setLow(int low) {
+        this.low = low;
+    }
+
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    public void setRecursive(boolean recursive) {
+        this.recursive = recursive;
+    }
+
+    public boolean isDependsOnGlobals() {
+        return dependsOnGlobals;
+    }
+
+    public void setDependsOnGlobals(boolean dependsOnGlobals) {
+        this.dependsOnGlobals = dependsOnGlobals;
+    }
+
+    public boolean isDependsOnFunctions() {
+        return dependsOnFunctions;
+    }
+
+    public void setDependsOnFunctions(boolean dependsOnFunctions) {
+        this.dependsOnFunctions = dependsOnFunctions;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public int getLocalVersion() {
+        return localVersion;
+    }
+
+    public void setLocalVersion(int localVersion) {
+        this.localVersion = localVersion;
+    }
+
+    public int getFunctionsVersion() {
+        return functionsVersion;
+    }
+
+    public void setFunctionsVersion(int functionsVersion) {
+        this.functionsVersion = functionsVersion;
+    }
+}
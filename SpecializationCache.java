@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Class SpecializationCache
+ * This class remembers the return type of each function for every combination of parameter
+ * types it has been called with, so that the return type is found once per signature
+ * instead of once per function call
+ */
+public class SpecializationCache {
+    // The specializations of each function, a function is called with only a few signatures
+    private IdentityHashMap<Function, ArrayList<Specialization>> specializations;
+
+    // Finds the return types that are not in the cache, see ReturnTypeSolver
+    private ReturnTypeSolver solver;
+
+    /* Counters */
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    public SpecializationCache() {
+        specializations = new IdentityHashMap<>();
+        solver = new ReturnTypeSolver(this);
+    }
+
+    /**
+     * Returns the specialization of a function for the given parameter types, creating it if needed
+     * @param function the function
+     * @param paramTypes the types of the parameters
+     * @return the specialization, its return type is null if it has to be found
+     */
+    public Specialization get(Function function, Type[] paramTypes, RootSymbolTable symbolTable){
+        ArrayList<Specialization> found = specializations.get(function);
+        if(found == null){
+            found = new ArrayList<>();
+            specializations.put(function, found);
+        }
+
+        for(Specialization specialization : found){
+            if(!Arrays.equals(specialization.getParamTypes(), paramTypes)) continue;
+
+            if(specialization.isInProgress() || specialization.isValid(symbolTable)){
+                hits++;
+                return specialization;
+            }
+
+            invalidations++;
+            misses++;
+            specialization.setReturnType(null);
+            specialization.setDependsOnGlobals(false);
+            specialization.setDependsOnFunctions(false);
+            specialization.setRecursive(false);
+            return specialization;
+        }
+
+        misses++;
+        Specialization specialization = new Specialization(function, paramTypes.clone());
+        found.add(specialization);
+        return specialization;
+    }
+
+    /**
+     * Keeps the return type found for a specialization
+     * @param specialization the specialization
+     * @param returnType the return type found
+     * @param symbolTable the symbolTable
+     */
+    public void end(Specialization specialization, Type returnType, RootSymbolTable symbolTable){
+        specialization.setInProgress(false);
+        specialization.setReturnType(returnType);
+        specialization.setVersion(symbolTable.getVersion());
+        specialization.setLocalVersion(symbolTable.getLocalVersion());
+        specialization.setFunctionsVersion(symbolTable.getFunctionsVersion());
+    }
+
+    // Called when a global variable has been used while finding a return type
+    public void dependsOnGlobals(){
+        solver.dependsOnGlobals();
+    }
+
+    // Called when a call has not found its function, or found an imported one, while finding a return type
+    public void dependsOnFunctions(){
+        solver.dependsOnFunctions();
+    }
+
+    public boolean isInferring(){
+        return solver.isEvaluating();
+    }
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses;
+        return "Specialization cache: " + hits + " hits, " + misses + " misses, " + invalidations + " invalidations" +
+                (lookups == 0 ? "" : String.format(" (hit rate %.1f%%)", 100.0 * hits / lookups));
+    }
+
+    /* Getters */
+
+    public ReturnTypeSolver getSolver() {
+        return solver;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,29 @@
+import minipython.lexer.Lexer;
+import minipython.lexer.LexerException;
+import minipython.node.TId;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+
+/**
+ * Class SymbolLexer
+ * The lexer of the Compiler, which interns the text of each id into the Symbols of the compilation as it reads it,
+ * so the symbolTables find the variables and the functions of the ids by their symbol, see Symbols.
+ */
+public class SymbolLexer extends Lexer {
+    private Symbols symbols;
+
+    public SymbolLexer(PushbackReader in, Symbols symbols) {
+        super(in);
+        this.symbols = symbols;
+    }
+
+    @Override
+    protected void filter() throws LexerException, IOException {
+        if(token instanceof TId) symbols.intern((TId) token);
+    }
+
+    public Symbols getSymbols() {
+        return symbols;
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class SymbolMap
+ * This class represents a map from the symbols of a Symbols to values, e.g. the variables of a function,
+ * with open addressing over an int[] instead of a HashMap of names. It keeps the order the symbols were put in,
+ * and like the symbols it only grows.
+ */
+public class SymbolMap<V> {
+    // The symbols and the values, in the order they were put
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    // The position of each symbol in keys plus 1, 0 for an empty slot
+    private int[] slots;
+
+    public SymbolMap() {
+        keys = new int[4];
+        values = new Object[4];
+        slots = new int[8];
+    }
+
+    // The position of a symbol in keys, or -1
+    private int indexOf(int symbol){
+        if(symbol < 0) return -1;
+        int mask = slots.length - 1;
+        for(int i = hash(symbol) & mask; ; i = (i + 1) & mask){
+            int slot = slots[i];
+            if(slot == 0) return -1;
+            if(keys[slot - 1] == symbol) return slot - 1;
+        }
+    }
+
+    private static int hash(int symbol){
+        return symbol * 0x9E3779B9 >>> 16 ^ symbol;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int symbol){
+        int index = indexOf(symbol);
+        return index == -1 ? null : (V) values[index];
+    }
+
+    public boolean containsKey(int symbol){
+        return indexOf(symbol) != -1;
+    }
+
+    /**
+     * Puts the value of a symbol, replacing the one it had
+     * @param symbol the symbol, not negative
+     * @param value the value
+     */
+    public void put(int symbol, V value){
+        int index = indexOf(symbol);
+        if(index != -1){
+            values[index] = value;
+            return;
+        }
+
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = symbol;
+        values[size++] = value;
+
+        // kept under half full
+        if(size * 2 > slots.length){
+            slots = new int[slots.length * 2];
+            for(int i = 0; i < size; i++){
+                slot(keys[i], i);
+            }
+        }
+        else slot(symbol, size - 1);
+    }
+
+    private void slot(int symbol, int index){
+        int mask = slots.length - 1;
+        int i = hash(symbol) & mask;
+        while(slots[i] != 0){
+            i = (i + 1) & mask;
+        }
+        slots[i] = index + 1;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    // The symbol put in the given order
+    public int keyAt(int index){
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index){
+        return (V) values[index];
+    }
+
+    // The values in the order they were put
+    @SuppressWarnings("unchecked")
+    public ArrayList<V> values(){
+        ArrayList<V> list = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            list.add((V) values[i]);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,143 @@
+import minipython.node.TId;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class Symbols
+ * This class represents the names of a compilation, each one numbered once with a dense int, its symbol,
+ * so the symbolTables keep their variables and functions in arrays and int maps indexed by it.
+ *
+ * The SymbolLexer interns the text of every id when it reads it, so all the ids with the same name share one String,
+ * whose hash is already computed. Finding the symbol of such a text is a probe of a table compared by reference,
+ * without hashing the text or comparing it character by character. Any other text is found by its contents,
+ * e.g. the names read back by the CompileCache, the ids of a source parsed with a plain Lexer or the ids
+ * of the functions imported from the other files of a Project, which have the Symbols of their own file.
+ *
+ * The symbols only grow, and they can be shared by the threads of a ParallelAnalyzer: the texts are found without
+ * locking, and a new one is numbered under the lock.
+ */
+public class Symbols {
+    // The interned texts by their contents, only used under the lock
+    private HashMap<String, Integer> symbols;
+
+    // The text of each symbol
+    private String[] names;
+
+    // The interned texts by reference, open addressing on their hash, replaced when it grows
+    private volatile Entry[] table;
+
+    public Symbols() {
+        symbols = new HashMap<>();
+        names = new String[64];
+        table = new Entry[128];
+    }
+
+    /**
+     * Interns the text of an id, which is then the text of every other id with the same name
+     * @param id the token
+     * @return its symbol
+     */
+    public int intern(TId id){
+        Entry entry = probe(id.getText());
+        if(entry != null){
+            id.setText(entry.name);
+            return entry.symbol;
+        }
+        int symbol = add(id.getText(), true);
+        id.setText(name(symbol));
+        return symbol;
+    }
+
+    /**
+     * Returns the symbol of a name, numbering it if it is new
+     * @param name the name
+     * @return its symbol
+     */
+    public int intern(String name){
+        Entry entry = probe(name);
+        return entry != null ? entry.symbol : add(name, true);
+    }
+
+    /**
+     * Returns the symbol of the name of an id, without numbering it. The id is left as it is,
+     * it may be of a source the symbols do not belong to, e.g. the body of a function of another file.
+     * @param id the token
+     * @return its symbol, or -1 if no name like it has been interned
+     */
+    public int find(TId id){
+        return find(id.getText());
+    }
+
+    public int find(String name){
+        Entry entry = probe(name);
+        return entry != null ? entry.symbol : add(name, false);
+    }
+
+    // The entry of an interned text, comparing by reference, otherwise null
+    private Entry probe(String name){
+        Entry[] entries = table;
+        int mask = entries.length - 1;
+        for(int i = name.hashCode() & mask; ; i = (i + 1) & mask){
+            Entry entry = entries[i];
+            if(entry == null || entry.name == name) return entry;
+        }
+    }
+
+    // Finds a text by its contents, and numbers it if it is new and asked to
+    private synchronized int add(String name, boolean create){
+        Integer symbol = symbols.get(name);
+        if(symbol != null || !create) return symbol == null ? -1 : symbol;
+
+        symbol = symbols.size();
+        symbols.put(name, symbol);
+        if(symbol == names.length) names = Arrays.copyOf(names, symbol * 2);
+        names[symbol] = name;
+
+        // kept under half full, so a probe ends soon
+        Entry[] entries = table;
+        if(symbols.size() * 2 > entries.length){
+            entries = new Entry[entries.length * 2];
+            for(int i = 0; i < symbol; i++){
+                insert(entries, new Entry(names[i], i));
+            }
+            insert(entries, new Entry(name, symbol));
+            table = entries;
+        }
+        else insert(entries, new Entry(name, symbol));
+        return symbol;
+    }
+
+    private static void insert(Entry[] entries, Entry entry){
+        int mask = entries.length - 1;
+        int i = entry.name.hashCode() & mask;
+        while(entries[i] != null){
+            i = (i + 1) & mask;
+        }
+        entries[i] = entry;
+    }
+
+    // The text of a symbol
+    public synchronized String name(int symbol){
+        return names[symbol];
+    }
+
+    // The number of symbols, every symbol is less than it
+    public synchronized int size(){
+        return symbols.size();
+    }
+
+    /**
+     * Class Entry
+     * An interned text and its symbol, immutable so a thread that finds it in the table sees both
+     */
+    private static class Entry {
+        private final String name;
+        private final int symbol;
+
+        private Entry(String name, int symbol) {
+            this.name = name;
+            this.symbol = symbol;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Enum Type
+ * This enum represents the types of variables, expressions and function returns.
+ *
+ * UNDEF is the type we cannot determine, for example of a function's param with no default value,
+ * ARR is any array, and TYPECONFLICT and TYPECONFLICT2 are the types of invalid additions and
+ * arithmetic operations, so that the error can be reported where the expression is used.
+ *
+ * The result of combining two types is looked up in a table instead of comparing them each time.
+ */
+public enum Type {
+    UNDEF,
+    INT,
+    STR,
+    ARR,
+    TYPECONFLICT,
+    TYPECONFLICT2;
+
+    private static final Type[] VALUES = values();
+
+    // ADDITION[left][right] is the type of left + right
+    private static final Type[][] ADDITION = new Type[VALUES.length][VALUES.length];
+
+    // ARITHMETIC[left][right] is the type of left - right, left * right and left / right
+    private static final Type[][] ARITHMETIC = new Type[VALUES.length][VALUES.length];
+
+    static {
+        for(Type left : VALUES){
+            for(Type right : VALUES){
+                // an addition is valid only between 2 strings or 2 integers, nothing can be said about the undefined and the arrays
+                Type addition;
+                if(left == UNDEF || right == UNDEF) addition = UNDEF;
+                else if(left == ARR || right == ARR) addition = UNDEF;
+                else if(left == right) addition = left;
+                else addition = TYPECONFLICT;
+                ADDITION[left.ordinal()][right.ordinal()] = addition;
+
+                // the rest of the arithmetic operations are valid for everything except strings
+                ARITHMETIC[left.ordinal()][right.ordinal()] = left == STR || right == STR ? TYPECONFLICT2 : INT;
+            }
+        }
+    }
+
+    /**
+     * @param left the type of the left operand
+     * @param right the type of the right operand
+     * @return the type of left + right
+     */
+    public static Type addition(Type left, Type right){
+        return ADDITION[left.ordinal()][right.ordinal()];
+    }
+
+    /**
+     * @param left the type of the left operand
+     * @param right the type of the right operand
+     * @return the type of left - right, left * right and left / right
+     */
+    public static Type arithmetic(Type left, Type right){
+        return ARITHMETIC[left.ordinal()][right.ordinal()];
+    }
+}
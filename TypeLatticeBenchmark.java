@@ -0,0 +1,78 @@
+import java.util.Random;
+
+/**
+ * Class TypeLatticeBenchmark
+ * Compares typing additions and arithmetic operations with the Type tables against
+ * the string comparisons Utils.getExpressionsType used before.
+ */
+public class TypeLatticeBenchmark {
+    private static final int OPERATIONS = 10000000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] STRING_TYPES = {"UNDEF", "INT", "STR", "ARR", "TYPECONFLICT", "TYPECONFLICT2"};
+
+    public static void main(String[] args) {
+        // the same random operands for both, the strings are copies so equals cannot stop at the reference check
+        Random random = new Random(42);
+        Type[] types = new Type[1024];
+        String[] strings = new String[1024];
+        for(int i = 0; i < types.length; i++){
+            int k = random.nextInt(STRING_TYPES.length);
+            types[i] = Type.values()[k];
+            strings[i] = new String(STRING_TYPES[k]);
+        }
+
+        for(int round = 1; round <= ROUNDS; round++){
+            long start = System.nanoTime();
+            int lattice = runLattice(types);
+            long latticeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int string = runStrings(strings);
+            long stringTime = System.nanoTime() - start;
+
+            System.out.println(String.format("round %d: lattice %.2f ns/op, strings %.2f ns/op (%d, %d)", round,
+                    (double) latticeTime / OPERATIONS, (double) stringTime / OPERATIONS, lattice, string));
+        }
+    }
+
+    private static int runLattice(Type[] types){
+        int conflicts = 0;
+        for(int i = 0; i < OPERATIONS; i++){
+            Type left = types[i & 1023];
+            Type right = types[(i * 31 + 7) & 1023];
+            Type type = (i & 1) == 0 ? Type.addition(left, right) : Type.arithmetic(left, right);
+            if(type == Type.TYPECONFLICT || type == Type.TYPECONFLICT2) conflicts++;
+        }
+        return conflicts;
+    }
+
+    private static int runStrings(String[] strings){
+        int conflicts = 0;
+        for(int i = 0; i < OPERATIONS; i++){
+            String left = strings[i & 1023];
+            String right = strings[(i * 31 + 7) & 1023];
+            String type = (i & 1) == 0 ? addition(left, right) : arithmetic(left, right);
+            if(type.equals("TYPECONFLICT") || type.equals("TYPECONFLICT2")) conflicts++;
+        }
+        return conflicts;
+    }
+
+    // The addition rule as it was written with strings
+    private static String addition(String typeLeft, String typeRight){
+        if(typeLeft.equals("UNDEF") || typeRight.equals("UNDEF")) return "UNDEF";
+        if(typeLeft.equals("ARR") || typeRight.equals("ARR")) return "UNDEF";
+
+        if(typeLeft.equals(typeRight)){
+            return typeLeft;
+        }else{
+            return "TYPECONFLICT";
+        }
+    }
+
+    // The rule of the rest arithmetic operations as it was written with strings
+    private static String arithmetic(String typeLeft, String typeRight){
+        if(typeLeft.equals("STR") || typeRight.equals("STR")) return "TYPECONFLICT2";
+        return "INT";
+    }
+}
@@ -1,23 +1,26 @@
 import minipython.node.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 
 /**
  * This class contains some helper methods that are common in both visitors
  */
 public class Utils {
     /**
-     * Checks and returns if a function call is legit
+     * Checks and returns if a function call is legit. The arguments are typed against the parameters
+     * of the called function and its return type is looked up for that signature in the specialization
+     * cache of the symbolTable, the function itself is not changed.
      * @param functionId the TID of the function to search
      * @param args the arguments of the function call
      * @param symbolTable the symbolTable
-     * @param originFunctionParamTypes the original function parameters, to reset later
-     * @return returns an empty function with error string or the function instance
+     * @return the function call with its return type or its error
      */
-    public static Function checkLegitFunction(TId functionId,
-                                                PArglist args,
-                                                RootSymbolTable symbolTable,
-                                                ArrayList<String> originFunctionParamTypes) {
+    public static FunctionCall checkLegitFunction(TId functionId,
+                                                  PArglist args,
+                                                  RootSymbolTable symbolTable) {
+        symbolTable.count(CompileMetrics.Counter.LEGIT_FUNCTION_CHECKS);
+
         // Start find out how many arguments has the function node
         ArrayList<PExpression> functionCallParams = new ArrayList<>();
         // Start the count recursively
@@ -39,161 +42,254 @@ public class Utils {
         }
 
         // Find all the functions with the same name
-        ArrayList<Function> functionsFound = symbolTable.getAllFunctions(functionId.getText());
-
-        // If there is at least one more function with the same name (id) we have to check if the number of parameters are acceptable
-        if (functionsFound.size() > 0) {
-            boolean found = false;
-            Function foundFunction = null;
-
-            // For every found function, check its acceptance bounds and decide it we accept the call or not
-            for (Function function : functionsFound) {
-                ArrayList<Integer> foundBounds = new ArrayList<>();
-                for (int i = function.getNonDefaults(); i <= function.getDefaults() + function.getNonDefaults(); i++) {
-                    foundBounds.add(i);
-                }
-
-                if (foundBounds.contains(functionCallParams.size())) {
-                    found = true;
-                    foundFunction = function;
-                    foundFunction.setErrorString(null);
-                    break;
-                }
-            }
+        FunctionOverloads overloads = symbolTable.getOverloads(functionId);
+        FunctionImports imports = symbolTable.getImports();
 
-            // If the function is not found, print the appropriate error
-            if (!found) {
-                foundFunction = new Function();
-                foundFunction.setErrorString("No such function has been defined '" + functionId.getText() +
-                        "' with " + functionCallParams.size() + " parameters" +
-                        " in the line:" + functionId.getLine() +
-                        " pos: " + functionId.getPos());
-            }
-            else {
-                // hold the original parameters to switch back to them later
-                for(Variable var : foundFunction.getParams()){
-                    originFunctionParamTypes.add(var.getType());
-                }
-
-                for (int i = 0; i < functionCallParams.size(); i++) {
-                    // Get the i function call param
-                    PExpression functionCallParam = functionCallParams.get(functionCallParams.size() - 1 - i);
+        // If we have not find any function with the function call name, then print the error
+        if (overloads == null && (imports == null || !imports.isDefined(functionId.getText()))) {
+            symbolTable.getSpecializationCache().dependsOnFunctions();
+            return new FunctionCall(null, null, new Diagnostic(DiagnosticCode.UNDEFINED_FUNCTION,
+                    functionId.getLine(), functionId.getPos(),
+                    functionId.getText(), functionId.getLine(), functionId.getPos()), functionCallParams.size());
+        }
 
-                    // Get the i function param
-                    Variable functionParam = foundFunction.getParams().get(i);
+        // Find the function whose acceptance bounds contain the number of arguments of the call,
+        // the ones defined here come before the imported ones
+        Function foundFunction = overloads == null ? null : overloads.getAccepting(functionCallParams.size());
+        if (foundFunction == null && imports != null) {
+            // a function defined here later would be found instead
+            symbolTable.getSpecializationCache().dependsOnFunctions();
+            foundFunction = imports.getAccepting(functionId.getText(), functionCallParams.size());
+        }
 
-                    // Get the expression type of the function call param
-                    String functionCallParamType = Utils.getExpressionsType(functionCallParam, foundFunction, symbolTable);
+        // If the function is not found, print the appropriate error
+        if (foundFunction == null) {
+            symbolTable.getSpecializationCache().dependsOnFunctions();
+            return new FunctionCall(null, null, new Diagnostic(DiagnosticCode.WRONG_ARGUMENTS,
+                    functionId.getLine(), functionId.getPos(),
+                    functionId.getText(), functionCallParams.size(), functionId.getLine(), functionId.getPos()),
+                    functionCallParams.size());
+        }
 
-                    // If we cannot determine the type of the function call param, do not print any error
-                    if(functionCallParamType.equals("UNDEF")) continue;
+        // start from the types of the parameters as they have been defined
+        ArrayList<Variable> functionParams = foundFunction.getParams();
+        Type[] paramTypes = new Type[functionParams.size()];
+        for (int i = 0; i < paramTypes.length; i++) {
+            paramTypes[i] = functionParams.get(i).getType();
+        }
 
-                    if(!functionParam.getType().equals(functionCallParamType)){
-                        functionParam.setType(functionCallParamType);
-                    }
-                }
+        // overridden is true once one of the parameters has taken the type of its argument
+        boolean overridden = false;
+        for (int i = 0; i < functionCallParams.size(); i++) {
+            // Get the i function call param
+            PExpression functionCallParam = functionCallParams.get(functionCallParams.size() - 1 - i);
 
-                foundFunction.setReturnType(
-                        Utils.getExpressionsType(foundFunction.getReturnNode(), foundFunction, symbolTable));
+            // Get the expression type of the function call param, the params before it already have the types of their arguments
+            Type functionCallParamType = getExpressionsType(functionCallParam, foundFunction,
+                    overridden ? paramTypes : null, symbolTable);
 
-                if(foundFunction.getReturnType().equals("TYPECONFLICT")){
-                    foundFunction.setErrorString("Found Conflict While Trying to Addition String and Int line: " + functionId.getLine());
-                }else if(foundFunction.getReturnType().equals("TYPECONFLICT2")){
-                    foundFunction.setErrorString("Cannot use string values in arithmetic operations(-,*,/) line: " + functionId.getLine());
-                }
+            // If we cannot determine the type of the function call param, do not print any error
+            if (functionCallParamType == Type.UNDEF) continue;
 
-                return foundFunction;
+            if (paramTypes[i] != functionCallParamType) {
+                paramTypes[i] = functionCallParamType;
+                overridden = true;
             }
-            return foundFunction;
         }
-        // If we have not find any function with the function call name, then print the error
-        else {
-            Function tempFunction = new Function();
-            tempFunction.setErrorString("No such function has been defined '" + functionId.getText() +
-                    "' in the line:" + functionId.getLine() +
-                    " pos: " + functionId.getPos());
-            return tempFunction;
+
+        Type returnType = getReturnType(foundFunction, paramTypes, symbolTable);
+
+        Diagnostic error = null;
+        if (returnType == Type.TYPECONFLICT) {
+            error = new Diagnostic(DiagnosticCode.CALL_ADDITION_CONFLICT, functionId.getLine(), functionId.getPos(),
+                    functionId.getLine());
+        } else if (returnType == Type.TYPECONFLICT2) {
+            error = new Diagnostic(DiagnosticCode.CALL_ARITHMETIC_CONFLICT, functionId.getLine(), functionId.getPos(),
+                    functionId.getLine());
+        }
+
+        return new FunctionCall(foundFunction, returnType, error, functionCallParams.size());
+    }
+
+    /**
+     * Get the return type of a function when its parameters have the given types, from its summary
+     * @param function the function
+     * @param paramTypes the types of the parameters
+     * @param symbolTable the symbolTable
+     * @return the return type, see ReturnTypeSolver
+     */
+    private static Type getReturnType(Function function, Type[] paramTypes, RootSymbolTable symbolTable){
+        return symbolTable.getSpecializationCache().getSolver().returnType(function, paramTypes, symbolTable);
+    }
+
+    /**
+     * Types the return expression of a function for the parameter types of a specialization, used by ReturnTypeSolver
+     * @param specialization the specialization
+     * @param symbolTable the symbolTable
+     * @return the type of the return expression, UNDEF if there is none
+     */
+    static Type inferReturnType(Specialization specialization, RootSymbolTable symbolTable){
+        Function function = specialization.getFunction();
+        return function.getReturnNode() == null ? Type.UNDEF :
+                findExpressionsType(function.getReturnNode(), function, specialization.getParamTypes(), symbolTable);
+    }
+
+    /**
+     * Get the type from an expression, using the type cache of the symbolTable if the expression
+     * has already been typed and nothing has changed since then
+     * @param expression the expression to return it's type
+     * @param insideFunction the function where the expression is inside, otherwise null
+     * @param symbolTable the symbolTable
+     * @return the type of the expression
+     */
+    public static Type getExpressionsType(PExpression expression, Function insideFunction, RootSymbolTable symbolTable){
+        if(expression == null) return Type.UNDEF;
+        symbolTable.count(CompileMetrics.Counter.EXPRESSION_TYPES);
+
+        ExpressionTypeCache typeCache = symbolTable.getTypeCache();
+        Type type = typeCache.get(expression, insideFunction, symbolTable.getVersion());
+        if(type != null) return type;
+
+        type = findExpressionsType(expression, insideFunction, null, symbolTable);
+        typeCache.put(expression, insideFunction, symbolTable.getVersion(), type);
+        return type;
+    }
+
+    /**
+     * Get the type from an expression, when the parameters of insideFunction may have other types than the defined ones,
+     * e.g. while a return type is being found or when the Interpreter builds a function for the arguments it has been called with.
+     * The type cache only holds types for the defined ones, and it cannot tell which global variables have been used
+     * while a return type is being found, so in both cases it is skipped.
+     * @param expression the expression to return it's type
+     * @param insideFunction the function where the expression is inside, otherwise null
+     * @param paramTypes the types of the parameters of insideFunction, or null for the defined ones
+     * @param symbolTable the symbolTable
+     * @return the type of the expression
+     */
+    static Type getExpressionsType(PExpression expression, Function insideFunction, Type[] paramTypes, RootSymbolTable symbolTable){
+        if(paramTypes == null && !symbolTable.getSpecializationCache().isInferring()){
+            return getExpressionsType(expression, insideFunction, symbolTable);
         }
+        return expression == null ? Type.UNDEF : findExpressionsType(expression, insideFunction, paramTypes, symbolTable);
     }
 
     /**
-     * Get the type from an expression
+     * Find the type from an expression, without looking at the type cache
      * @param expression the expression to return it's type
      * @param insideFunction the function where the expression is inside, otherwise null
+     * @param paramTypes the types of the parameters of insideFunction, or null for the defined ones
      * @param symbolTable the symbolTable
      * @return the type of the expression
      */
-    public static String getExpressionsType(PExpression expression, Function insideFunction, RootSymbolTable symbolTable){
+    private static Type findExpressionsType(PExpression expression, Function insideFunction, Type[] paramTypes, RootSymbolTable symbolTable){
         if(expression instanceof AValueExpression){
             AValueExpression value = (AValueExpression) expression;
-            if(value.getValue() instanceof ANumberValue) return "INT";
-            else return "STR";
+            if(value.getValue() instanceof ANumberValue) return Type.INT;
+            else return Type.STR;
         }
         if(expression instanceof AIdentifierExpression){
             AIdentifierExpression id = (AIdentifierExpression) expression;
-            Variable varFound = getVariableFromId(id.getId(), insideFunction, symbolTable);
-            return varFound == null ? "UNDEF" : varFound.getType();
+            Variable varFound = insideFunction == null ? null : insideFunction.getVar(id.getId());
+            if(varFound == null){
+                // not a local variable, so the type depends on the global ones
+                symbolTable.getSpecializationCache().dependsOnGlobals();
+                varFound = getGlobalVariableFromId(id.getId(), symbolTable);
+                return varFound == null ? Type.UNDEF : varFound.getType();
+            }
+            if(paramTypes != null){
+                int index = insideFunction.getParams().indexOf(varFound);
+                if(index != -1) return paramTypes[index];
+            }
+            return varFound.getType();
         }
         if(expression instanceof AExpInBracketsExpression){
-            return "UNDEF";
+            return Type.UNDEF;
         }
         if(expression instanceof AFunctionExpression){
             AFunctionExpression funExp = (AFunctionExpression) expression;
             AFunctionCall funCall = (AFunctionCall) funExp.getFunctionCall();
 
-            ArrayList<String> originFunctionParamTypes = new ArrayList<>();
-            Function foundFunction = checkLegitFunction(funCall.getId(), funCall.getArglist(), symbolTable, originFunctionParamTypes);
-
-            if(foundFunction.getParams() != null){
-                for(int i = 0; i < foundFunction.getParams().size(); i++){
-                    foundFunction.getParams().get(i).setType(originFunctionParamTypes.get(i));
-                }
-            }
-
-            return foundFunction.getReturnType() == null ? "UNDEF" : foundFunction.getReturnType();
+            FunctionCall functionCall = checkLegitFunction(funCall.getId(), funCall.getArglist(), symbolTable);
+            return functionCall.getReturnType() == null ? Type.UNDEF : functionCall.getReturnType();
         }
         if(expression instanceof AAdditionExpression){
             AAdditionExpression addExp = (AAdditionExpression) expression;
-            String typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, symbolTable);
-            String typeRight = getExpressionsType(addExp.getExp2(), insideFunction, symbolTable);
-
-            if(typeLeft.equals("UNDEF") || typeRight.equals("UNDEF")) return "UNDEF";
-            if(typeLeft.equals("ARR") || typeRight.equals("ARR")) return "UNDEF";
-
-            if(typeLeft.equals(typeRight)){
-                return typeLeft;
-            }else{
-                return "TYPECONFLICT";
-            }
+            Type typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, paramTypes, symbolTable);
+            Type typeRight = getExpressionsType(addExp.getExp2(), insideFunction, paramTypes, symbolTable);
+            return Type.addition(typeLeft, typeRight);
         }
         if(expression instanceof AAbstractionExpression){
             AAbstractionExpression addExp = (AAbstractionExpression) expression;
-            String typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, symbolTable);
-            String typeRight = getExpressionsType(addExp.getExp2(), insideFunction, symbolTable);
-
-            if(typeLeft.equals("STR") || typeRight.equals("STR")) return "TYPECONFLICT2";
-            return "INT";
+            Type typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, paramTypes, symbolTable);
+            Type typeRight = getExpressionsType(addExp.getExp2(), insideFunction, paramTypes, symbolTable);
+            return Type.arithmetic(typeLeft, typeRight);
         }
         if(expression instanceof AMultExpression){
             AMultExpression addExp = (AMultExpression) expression;
-            String typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, symbolTable);
-            String typeRight = getExpressionsType(addExp.getExp2(), insideFunction, symbolTable);
-
-            if(typeLeft.equals("STR") || typeRight.equals("STR")) return "TYPECONFLICT2";
-            return "INT";
+            Type typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, paramTypes, symbolTable);
+            Type typeRight = getExpressionsType(addExp.getExp2(), insideFunction, paramTypes, symbolTable);
+            return Type.arithmetic(typeLeft, typeRight);
         }
         if(expression instanceof ADivExpression){
             ADivExpression addExp = (ADivExpression) expression;
-            String typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, symbolTable);
-            String typeRight = getExpressionsType(addExp.getExp2(), insideFunction, symbolTable);
-
-            if(typeLeft.equals("STR") || typeRight.equals("STR")) return "TYPECONFLICT2";
-            return "INT";
+            Type typeLeft = getExpressionsType(addExp.getExp1(), insideFunction, paramTypes, symbolTable);
+            Type typeRight = getExpressionsType(addExp.getExp2(), insideFunction, paramTypes, symbolTable);
+            return Type.arithmetic(typeLeft, typeRight);
         }
         if(expression instanceof AExpsInsideBracketsExpression){
-            return "ARR";
+            return Type.ARR;
         }
-        return "UNDEF";
+        return Type.UNDEF;
+    }
+
+    /**
+     * Finds a chain of additions of strings, like "x = " + x + ", y = " + y, which the backends compute
+     * with one StringBuilder (see MiniPythonRuntime.startConcat) instead of a new String for each +.
+     * The grammar makes the chain lean to the left: ((a + b) + c) + d, so the operands are the right side
+     * of each addition and the left side of the last one.
+     * A chain with a param is typed UNDEF, e.g. "<" + tag + ">", but with an operand typed STR it is still a string
+     * if it does not fail, since a string can only be added to a string.
+     * @param expression the expression
+     * @param insideFunction the function where the expression is inside, otherwise null
+     * @param symbolTable the symbolTable
+     * @return the operands in order, or null if the expression is not a chain of strings of 3 operands or more
+     */
+    public static ArrayList<PExpression> getConcatOperands(PExpression expression, Function insideFunction, RootSymbolTable symbolTable){
+        if(!(expression instanceof AAdditionExpression)) return null;
+        Type type = getExpressionsType(expression, insideFunction, symbolTable);
+        if(type != Type.STR && type != Type.UNDEF) return null;
+
+        ArrayList<PExpression> operands = new ArrayList<>();
+        while(expression instanceof AAdditionExpression){
+            operands.add(((AAdditionExpression) expression).getExp2());
+            expression = ((AAdditionExpression) expression).getExp1();
+        }
+        operands.add(expression);
+        if(operands.size() < 3) return null;
+
+        boolean strings = type == Type.STR;
+        for(int i = 0; i < operands.size() && !strings; i++){
+            strings = getExpressionsType(operands.get(i), insideFunction, symbolTable) == Type.STR;
+        }
+        if(!strings) return null;
+        Collections.reverse(operands);
+        return operands;
+    }
+
+    /**
+     * @param operands the operands of a chain of additions of strings
+     * @return about the length of the string, the literals and 16 characters for each other operand
+     */
+    public static int getConcatCapacity(ArrayList<PExpression> operands){
+        int capacity = 0;
+        for(PExpression operand : operands){
+            if(operand instanceof AValueExpression && ((AValueExpression) operand).getValue() instanceof AStringValue){
+                // without the quotes
+                capacity += ((AStringValue) ((AValueExpression) operand).getValue()).getStringLit().getText().length() - 2;
+            }
+            else capacity += 16;
+        }
+        return capacity;
     }
 
     /**
@@ -204,17 +300,15 @@ public class Utils {
      * @return the variable instance
      */
     public static Variable getVariableFromId(TId id, Function insideFunction, RootSymbolTable symbolTable){
-        if(insideFunction == null){
-            return getGlobalVariableFromId(id, symbolTable);
-        }
-        else{
-            if(!insideFunction.getVars().containsKey(id.getText())){
-                return getGlobalVariableFromId(id, symbolTable);
-            }
-            else{
-                return insideFunction.getVars().get(id.getText());
-            }
+        symbolTable.count(CompileMetrics.Counter.VARIABLE_LOOKUPS);
+        int symbol = symbolTable.getSymbols().find(id);
+        if(insideFunction != null){
+            // a function imported from another file has the symbols of its own file
+            Variable var = insideFunction.getSymbols() == symbolTable.getSymbols()
+                    ? insideFunction.getVars().get(symbol) : insideFunction.getVar(id);
+            if(var != null) return var;
         }
+        return symbolTable.getVariable(symbol);
     }
 
     /**
@@ -224,11 +318,7 @@ public class Utils {
      * @return the variable instance
      */
     public static Variable getGlobalVariableFromId(TId id, RootSymbolTable symbolTable){
-        if(!symbolTable.getVariableHashMap().containsKey(id.getText())){
-            return null;
-        }
-        else{
-            return symbolTable.getVariableHashMap().get(id.getText());
-        }
+        symbolTable.count(CompileMetrics.Counter.VARIABLE_LOOKUPS);
+        return symbolTable.getVariable(symbolTable.getSymbols().find(id));
     }
 }
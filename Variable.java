@@ -12,20 +12,46 @@ public class Variable {
 
     /* type is either INT for int num,
      *                STR for string,
-     *                INT_ARR for array of integers,
-     *                STR_ARR for array of strings,
-     *                UNDEF_ARR for array of undefined types,
+     *                ARR for array,
      *                UNDEF for undefined, if it is a funtion's parame for example, with no default value
+     *                TYPECONFLICT or TYPECONFLICT2 if an invalid expression has been assigned to it
      */
-    private String type;
+    private Type type;
 
     // only one of the two following takes value, depending on which is the type of the variable.
     private int defIntValue;
     private String defStringValue;
 
+    // The symbolTable to notify when the type changes, otherwise null
+    private RootSymbolTable symbolTable;
+
+    // global is true if the variable is in the global variables of the symbolTable
+    private boolean global = false;
+
     public Variable(){
     }
 
+    public Variable(RootSymbolTable symbolTable){
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Copies the variable
+     * @param symbolTable the symbolTable of the copy
+     * @return the copy, not global until it is added to the global variables
+     */
+    public Variable copy(RootSymbolTable symbolTable){
+        Variable copy = new Variable(symbolTable);
+        copy.id = id;
+        copy.line = line;
+        copy.pos = pos;
+        copy.hasDefault = hasDefault;
+        copy.type = type;
+        copy.defIntValue = defIntValue;
+        copy.defStringValue = defStringValue;
+        return copy;
+    }
+
     /* Getters and Setters */
 
     public String getId() {
@@ -60,11 +86,26 @@ public class Variable {
         this.hasDefault = hasDefault;
     }
 
-    public String getType() {
+    public boolean isGlobal() {
+        return global;
+    }
+
+    public void setGlobal(boolean global) {
+        this.global = global;
+    }
+
+    public Type getType() {
         return type;
     }
 
-    public void setType(String type) {
+    public void setType(Type type) {
+        if(symbolTable != null && this.type != type){
+            if(global) symbolTable.globalChanging(id);
+            // the first type of a new local variable can only change the expressions that used a global one
+            // with the same name, and those depend on the global variables anyway
+            if(global || this.type == null) symbolTable.globalTypeChanged();
+            else symbolTable.typeChanged();
+        }
         this.type = type;
     }
 
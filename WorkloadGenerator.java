@@ -0,0 +1,465 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class WorkloadGenerator
+ * This class writes big MiniPython programs that follow grammar.txt, to measure how the compiler scales.
+ * The same seed and knobs always give the same program. The programs stress what grows badly with the size:
+ * many overloaded functions with default parameters, long chains of additions and multiplications,
+ * calls nested in the arguments of other calls, big array literals and many global variables.
+ * With an error rate above 0, that share of the statements is replaced by a statement with an error
+ * (an undefined variable or function, a wrong number of arguments, a string in an addition with an int,
+ * or a for over a simple variable), otherwise the program has no errors.
+ *
+ * Usage: WorkloadGenerator [--seed N] [--size N] [--functions N] [--overloads N] [--defaults N] [--globals N]
+ *                          [--statements N] [--depth N] [--nesting N] [--array N] [--error-rate R] [--out file]
+ * where --size sets the other knobs in proportion, see ofSize, and the ones given with it replace them,
+ * and the program is printed if there is no --out
+ */
+public class WorkloadGenerator {
+    private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "hello", "world", "mini", "python"};
+    private static final char[] OPERATORS = {'+', '-', '*', '/'};
+
+    private long seed;
+
+    // The knobs
+    private int functions = 100;
+    private int overloads = 3;
+    private int defaults = 2;
+    private int globals = 50;
+    private int statements = 1000;
+    private int depth = 20;
+    private int nesting = 5;
+    private int array = 50;
+    private double errorRate = 0;
+
+    // The state of the program being written
+    private Random random;
+    private ArrayList<int[]> arities;
+    private ArrayList<String> ints;
+    private ArrayList<String> strings;
+    private ArrayList<String> arrays;
+    private int names;
+    private int errors;
+
+    /**
+     * Constructor
+     * @param seed the seed of the random choices
+     */
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a generator whose knobs grow with one size, about the number of top level statements
+     * @param seed the seed of the random choices
+     * @param size the size of the program
+     * @return the generator
+     */
+    public static WorkloadGenerator ofSize(long seed, int size) {
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        generator.setStatements(size);
+        generator.setFunctions(Math.max(size / 10, 1));
+        generator.setGlobals(Math.max(size / 20, 1));
+        return generator;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // the size is applied first, so the knobs given with it are kept wherever they are
+        WorkloadGenerator generator = new WorkloadGenerator(42);
+        for(int i = 0; i + 1 < args.length; i += 2){
+            if(args[i].equals("--size")) generator = ofSize(42, Integer.parseInt(args[i + 1]));
+        }
+
+        String file = null;
+        for(int i = 0; i + 1 < args.length; i += 2){
+            String value = args[i + 1];
+            switch(args[i]){
+                case "--seed": generator.setSeed(Long.parseLong(value)); break;
+                case "--size": break;
+                case "--functions": generator.setFunctions(Integer.parseInt(value)); break;
+                case "--overloads": generator.setOverloads(Integer.parseInt(value)); break;
+                case "--defaults": generator.setDefaults(Integer.parseInt(value)); break;
+                case "--globals": generator.setGlobals(Integer.parseInt(value)); break;
+                case "--statements": generator.setStatements(Integer.parseInt(value)); break;
+                case "--depth": generator.setDepth(Integer.parseInt(value)); break;
+                case "--nesting": generator.setNesting(Integer.parseInt(value)); break;
+                case "--array": generator.setArray(Integer.parseInt(value)); break;
+                case "--error-rate": generator.setErrorRate(Double.parseDouble(value)); break;
+                case "--out": file = value; break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+
+        try (Writer out = new BufferedWriter(file == null ? new OutputStreamWriter(System.out) : new FileWriter(file))) {
+            generator.generate(out);
+        }
+        System.err.println(generator.getErrors() + " statements with errors");
+    }
+
+    /**
+     * Writes a program
+     * @return the program
+     */
+    public String generate() {
+        StringWriter out = new StringWriter();
+        try {
+            generate(out);
+        } catch (IOException e) {
+            // a StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes a program, first the global variables, then the functions and last the statements
+     * @param out where the program is written
+     */
+    public void generate(Writer out) throws IOException {
+        random = new Random(seed);
+        arities = new ArrayList<>();
+        ints = new ArrayList<>();
+        strings = new ArrayList<>();
+        arrays = new ArrayList<>();
+        names = 0;
+        errors = 0;
+
+        // at least one global of each kind, so the statements always have something to use
+        StringBuilder line = new StringBuilder();
+        for(int i = 0; i < Math.max(globals, 3); i++){
+            line.setLength(0);
+            writeGlobal(line, i < 3 ? i : random.nextInt(4));
+            out.append(line).append('\n');
+        }
+        for(int i = 0; i < functions; i++){
+            writeFunctions(i, out);
+        }
+        for(int i = 0; i < statements; i++){
+            line.setLength(0);
+            if(random.nextDouble() < errorRate){
+                writeError(line);
+                errors++;
+            }
+            else writeStatement(line);
+            out.append(line).append('\n');
+        }
+    }
+
+    // A global string, array or int
+    private void writeGlobal(StringBuilder line, int kind){
+        if(kind == 0){
+            String name = newName("s");
+            line.append(name).append(" = ");
+            writeString(line);
+            strings.add(name);
+        }
+        else if(kind == 1){
+            String name = newName("a");
+            line.append(name).append(" = ");
+            writeArray(line);
+            arrays.add(name);
+        }
+        else{
+            String name = newName("g");
+            line.append(name).append(" = ").append(random.nextInt(1000));
+            ints.add(name);
+        }
+    }
+
+    // The overloads of a function, each one accepts a range of arguments after the range of the one before
+    private void writeFunctions(int index, Writer out) throws IOException {
+        int[] bounds = new int[overloads * 2];
+        int nonDefaults = 1;
+        StringBuilder line = new StringBuilder();
+        for(int k = 0; k < overloads; k++){
+            int functionDefaults = defaults == 0 ? 0 : random.nextInt(defaults + 1);
+            bounds[k * 2] = nonDefaults;
+            bounds[k * 2 + 1] = nonDefaults + functionDefaults;
+
+            line.setLength(0);
+            line.append("def f").append(index).append('(');
+            for(int p = 0; p < nonDefaults + functionDefaults; p++){
+                if(p > 0) line.append(", ");
+                line.append('p').append(p);
+                if(p >= nonDefaults) line.append(" = ").append(random.nextInt(100));
+            }
+            line.append("): return ");
+
+            // the parameters, and maybe a call to a function written before
+            line.append("p0");
+            for(int p = 1; p < nonDefaults + functionDefaults; p++){
+                line.append(' ').append(OPERATORS[random.nextInt(3)]).append(" p").append(p);
+            }
+            if(index > 0 && random.nextBoolean()){
+                line.append(" + ");
+                writeCall(line, random.nextInt(index), "p0");
+            }
+            out.append(line).append('\n');
+
+            nonDefaults += functionDefaults + 1;
+        }
+        arities.add(bounds);
+    }
+
+    // A statement without errors
+    private void writeStatement(StringBuilder line){
+        switch(random.nextInt(9)){
+            case 0:
+            case 1:
+                String chain = newName("v");
+                line.append(chain).append(" = ");
+                writeChain(line);
+                ints.add(chain);
+                break;
+            case 2:
+                String call = newName("v");
+                line.append(call).append(" = ");
+                writeNestedCall(line, nesting);
+                ints.add(call);
+                break;
+            case 3:
+                String array = newName("a");
+                line.append(array).append(" = ");
+                writeArray(line);
+                arrays.add(array);
+                break;
+            case 4:
+                line.append("print ");
+                writeTerm(line);
+                line.append(", ");
+                writeString(line);
+                break;
+            case 5:
+                line.append("for k in ").append(pick(arrays)).append(": print k");
+                break;
+            case 6:
+                String variable = pick(ints);
+                line.append("if ").append(variable).append(" < ").append(random.nextInt(100)).append(": ")
+                        .append(variable).append(" = ").append(variable).append(" + 1");
+                break;
+            case 7:
+                String counter = pick(ints);
+                line.append("while ").append(counter).append(" > 0: ").append(counter).append(" -= 1");
+                break;
+            default:
+                String string = newName("s");
+                line.append(string).append(" = ").append(pick(strings)).append(" + ");
+                writeString(line);
+                strings.add(string);
+                break;
+        }
+    }
+
+    // A statement with an error, the variables it assigns are not used again so the errors do not spread
+    private void writeError(StringBuilder line){
+        switch(random.nextInt(5)){
+            case 0:
+                line.append(newName("v")).append(" = undefined").append(names++).append(" + 1");
+                break;
+            case 1:
+                line.append(newName("v")).append(" = nofunction").append(names++).append("(1)");
+                break;
+            case 2:
+                // one argument more than the last overload accepts
+                int function = random.nextInt(Math.max(arities.size(), 1));
+                int tooMany = arities.isEmpty() ? 1 : arities.get(function)[overloads * 2 - 1] + 1;
+                line.append(newName("v")).append(" = f").append(function).append('(');
+                writeArguments(line, tooMany, "1");
+                line.append(')');
+                break;
+            case 3:
+                line.append(newName("v")).append(" = ").append(pick(ints)).append(" + ");
+                writeString(line);
+                break;
+            default:
+                line.append("for k in ").append(pick(ints)).append(": print k");
+                break;
+        }
+    }
+
+    // A left recursive chain of depth terms, some of them in parentheses
+    private void writeChain(StringBuilder line){
+        writeTerm(line);
+        for(int i = 1; i < depth; i++){
+            line.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            if(random.nextInt(8) == 0){
+                line.append('(');
+                writeTerm(line);
+                line.append(" + ");
+                writeTerm(line);
+                line.append(')');
+            }
+            else writeTerm(line);
+        }
+    }
+
+    // An int literal, an int variable or a call
+    private void writeTerm(StringBuilder line){
+        int kind = random.nextInt(4);
+        if(kind == 0) line.append(random.nextInt(100) + 1);
+        else if(kind == 3 && !arities.isEmpty()) writeCall(line, random.nextInt(arities.size()), null);
+        else line.append(pick(ints));
+    }
+
+    // A call with another call as its first argument, levels times
+    private void writeNestedCall(StringBuilder line, int levels){
+        if(levels == 0 || arities.isEmpty()){
+            writeTerm(line);
+            return;
+        }
+        int function = random.nextInt(arities.size());
+        int[] bounds = arities.get(function);
+        int k = random.nextInt(overloads);
+        int count = bounds[k * 2] + random.nextInt(bounds[k * 2 + 1] - bounds[k * 2] + 1);
+        line.append('f').append(function).append('(');
+        writeNestedCall(line, levels - 1);
+        if(count > 1){
+            line.append(", ");
+            writeArguments(line, count - 1, null);
+        }
+        line.append(')');
+    }
+
+    // A call of a function with a number of arguments one of its overloads accepts
+    private void writeCall(StringBuilder line, int function, String argument){
+        int[] bounds = arities.get(function);
+        int k = random.nextInt(overloads);
+        int count = bounds[k * 2] + random.nextInt(bounds[k * 2 + 1] - bounds[k * 2] + 1);
+        line.append('f').append(function).append('(');
+        writeArguments(line, count, argument);
+        line.append(')');
+    }
+
+    // The arguments of a call, each one the given argument or else an int literal or variable
+    private void writeArguments(StringBuilder line, int count, String argument){
+        for(int i = 0; i < count; i++){
+            if(i > 0) line.append(", ");
+            if(argument != null) line.append(argument);
+            else if(random.nextBoolean()) line.append(random.nextInt(100));
+            else line.append(pick(ints));
+        }
+    }
+
+    // An array literal of ints and strings
+    private void writeArray(StringBuilder line){
+        line.append('[');
+        for(int i = 0; i < Math.max(array, 1); i++){
+            if(i > 0) line.append(", ");
+            if(random.nextInt(4) == 0) writeString(line);
+            else line.append(random.nextInt(1000));
+        }
+        line.append(']');
+    }
+
+    private void writeString(StringBuilder line){
+        line.append('"').append(WORDS[random.nextInt(WORDS.length)]);
+        if(random.nextBoolean()) line.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        line.append('"');
+    }
+
+    // A new variable, it is only added to the ones the next statements use after its value is written
+    private String newName(String prefix){
+        return prefix + names++;
+    }
+
+    // Any of the variables
+    private String pick(ArrayList<String> variables){
+        return variables.get(random.nextInt(variables.size()));
+    }
+
+    /* Getters and Setters */
+
+    // The number of statements written with an error by the last generate
+    public int getErrors() {
+        return errors;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public int getFunctions() {
+        return functions;
+    }
+
+    public void setFunctions(int functions) {
+        this.functions = functions;
+    }
+
+    public int getOverloads() {
+        return overloads;
+    }
+
+    public void setOverloads(int overloads) {
+        this.overloads = Math.max(overloads, 1);
+    }
+
+    public int getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(int defaults) {
+        this.defaults = defaults;
+    }
+
+    public int getGlobals() {
+        return globals;
+    }
+
+    public void setGlobals(int globals) {
+        this.globals = globals;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public void setStatements(int statements) {
+        this.statements = statements;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(depth, 1);
+    }
+
+    public int getNesting() {
+        return nesting;
+    }
+
+    public void setNesting(int nesting) {
+        this.nesting = nesting;
+    }
+
+    public int getArray() {
+        return array;
+    }
+
+    public void setArray(int array) {
+        this.array = array;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+}